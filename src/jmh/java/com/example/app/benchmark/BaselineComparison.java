@@ -0,0 +1,96 @@
+package com.example.app.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compara o resultado JSON do JMH com o baseline versionado.
+ *
+ * Uso: `BaselineComparison <baseline.json> <resultado.json> <tolerancia>`.
+ * Para cada benchmark (nome + parâmetros) presente nos dois arquivos compara
+ * ns/op e B/op (`gc.alloc.rate.norm`); termina com código 1 se algum valor
+ * passar do baseline em mais que `tolerancia` (0.25 = 25%). Para ns/op vale
+ * o limite inferior do intervalo de confiança medido (score - erro), para
+ * que o ruído de uma execução curta não reprove o build. Benchmarks sem
+ * baseline são apenas listados.
+ */
+public final class BaselineComparison {
+  private static final String ALOCACAO = "gc.alloc.rate.norm";
+  /** Diferença de B/op ignorada, para variações de poucos bytes em valores pequenos. */
+  private static final double FOLGA_BYTES = 16;
+
+  private BaselineComparison() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      System.err.println("Uso: BaselineComparison <baseline.json> <resultado.json> <tolerancia>");
+      System.exit(2);
+    }
+    Map<String, double[]> baseline = ler(new File(args[0]));
+    Map<String, double[]> resultado = ler(new File(args[1]));
+    double tolerancia = Double.parseDouble(args[2]);
+
+    int regressoes = 0;
+    System.out.printf("%-75s %12s %12s %10s %10s%n", "benchmark", "ns/op", "base ns/op", "B/op", "base B/op");
+    for (Map.Entry<String, double[]> entrada : resultado.entrySet()) {
+      double[] atual = entrada.getValue();
+      double[] base = baseline.get(entrada.getKey());
+      if (base == null) {
+        System.out.printf("%-75s %12.1f %12s %10.0f %10s  (sem baseline)%n", entrada.getKey(), atual[0], "-", atual[2], "-");
+        continue;
+      }
+      boolean tempo = atual[0] - atual[1] > base[0] * (1 + tolerancia);
+      boolean bytes = atual[2] > base[2] * (1 + tolerancia) + FOLGA_BYTES;
+      System.out.printf("%-75s %12.1f %12.1f %10.0f %10.0f%s%n", entrada.getKey(), atual[0], base[0], atual[2], base[2],
+          tempo || bytes ? "  REGRESSAO" + (tempo ? " tempo" : "") + (bytes ? " alocacao" : "") : "");
+      if (tempo || bytes) {
+        regressoes++;
+      }
+    }
+    if (regressoes > 0) {
+      System.err.printf("%d benchmark(s) acima do baseline (tolerancia %.0f%%)%n", regressoes, tolerancia * 100);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Lê `{benchmark[param=valor,...] -> [ns/op, erro ns/op, B/op]}` do JSON do JMH.
+   */
+  private static Map<String, double[]> ler(File arquivo) throws IOException {
+    Map<String, double[]> resultados = new LinkedHashMap<>();
+    for (JsonNode execucao : new ObjectMapper().readTree(arquivo)) {
+      StringBuilder chave = new StringBuilder(execucao.path("benchmark").asText());
+      JsonNode params = execucao.path("params");
+      if (params.size() > 0) {
+        chave.append('[');
+        Iterator<Map.Entry<String, JsonNode>> campos = params.fields();
+        while (campos.hasNext()) {
+          Map.Entry<String, JsonNode> campo = campos.next();
+          chave.append(campo.getKey()).append('=').append(campo.getValue().asText());
+          if (campos.hasNext()) {
+            chave.append(',');
+          }
+        }
+        chave.append(']');
+      }
+      JsonNode principal = execucao.path("primaryMetric");
+      double tempo = principal.path("score").asDouble();
+      double erro = principal.path("scoreError").asDouble(0);
+      double bytes = Double.NaN;
+      Iterator<Map.Entry<String, JsonNode>> secundarias = execucao.path("secondaryMetrics").fields();
+      while (secundarias.hasNext()) {
+        Map.Entry<String, JsonNode> metrica = secundarias.next();
+        if (metrica.getKey().replace("·", "").equals(ALOCACAO)) {
+          bytes = metrica.getValue().path("score").asDouble();
+        }
+      }
+      resultados.put(chave.toString(), new double[] {tempo, Double.isNaN(erro) ? 0 : erro, bytes});
+    }
+    return resultados;
+  }
+}
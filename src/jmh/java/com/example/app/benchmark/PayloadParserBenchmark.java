@@ -0,0 +1,42 @@
+package com.example.app.benchmark;
+
+import com.example.app.controller.PaymentPayloadParser;
+import com.example.app.dto.payment.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Leitura do corpo de `POST /pagamentos` nos três formatos aceitos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PayloadParserBenchmark {
+  private static final String TRANSACAO = "{\"cartao\":\"4444123412341234\",\"id\":\"100023568900001\","
+      + "\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},"
+      + "\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}";
+
+  @Param({"prefixo", "raiz", "direto"})
+  public String formato;
+
+  private PaymentPayloadParser parser;
+  private byte[] corpo;
+
+  @Setup
+  public void preparar() {
+    parser = new PaymentPayloadParser(new ObjectMapper());
+    String json = switch (formato) {
+      case "prefixo" -> "transacao:" + TRANSACAO;
+      case "raiz" -> "{\"transacao\":" + TRANSACAO + "}";
+      default -> TRANSACAO;
+    };
+    corpo = json.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public PaymentRequest parse() {
+    return parser.parse(corpo);
+  }
+}
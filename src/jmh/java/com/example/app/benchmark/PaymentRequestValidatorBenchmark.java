@@ -0,0 +1,54 @@
+package com.example.app.benchmark;
+
+import com.example.app.dto.payment.PaymentDescricao;
+import com.example.app.dto.payment.PaymentFormaPagamento;
+import com.example.app.dto.payment.PaymentRequest;
+import com.example.app.validator.PaymentRequestValidator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Validação da transação: caso válido e cada ramo de falha, na ordem em
+ * que o validador os verifica.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PaymentRequestValidatorBenchmark {
+  @Param({"valido", "obrigatorio", "cartao", "dataHora", "valor", "parcelas", "tipo", "avista"})
+  public String caso;
+
+  private PaymentRequestValidator validator;
+
+  @Setup
+  public void preparar() {
+    PaymentRequest request = new PaymentRequest();
+    request.setCartao("4444123412341234");
+    request.setId("100023568900001");
+    PaymentDescricao descricao = new PaymentDescricao();
+    descricao.setValor("50.00");
+    descricao.setDataHora("01/05/2021 18:30:00");
+    descricao.setEstabelecimento("PetShop Mundo cão");
+    request.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo("AVISTA");
+    formaPagamento.setParcelas("1");
+    request.setFormaPagamento(formaPagamento);
+    switch (caso) {
+      case "obrigatorio" -> descricao.setEstabelecimento("");
+      case "cartao" -> request.setCartao("4444XXXX1234");
+      case "dataHora" -> descricao.setDataHora("2021-05-01 18:30:00");
+      case "valor" -> descricao.setValor("50.0");
+      case "parcelas" -> formaPagamento.setParcelas("0");
+      case "tipo" -> formaPagamento.setTipo("FOO");
+      case "avista" -> formaPagamento.setParcelas("2");
+      default -> { }
+    }
+    validator = new PaymentRequestValidator(request);
+  }
+
+  @Benchmark
+  public String validate() {
+    return validator.validate();
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.app.benchmark;
+
+import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.entity.Payment;
+import com.example.app.service.PaymentService;
+import com.example.app.util.CardMasker;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Montagem da resposta de consulta e mascaramento do cartão.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PaymentResponseBenchmark {
+  private PaymentService service;
+  private Payment pagamento;
+
+  @Setup
+  public void preparar() {
+    // toResponse não usa as dependências do serviço
+    service = new PaymentService(null, null, null, null, null, null, null, null, null);
+    pagamento = new Payment();
+    pagamento.setId(1L);
+    pagamento.setExternalId("100023568900001");
+    pagamento.setCartao("4444123412341234");
+    pagamento.setTipo("AVISTA");
+    pagamento.setParcelas(1);
+    pagamento.setValor(new BigDecimal("50.00"));
+    pagamento.setDataHora(LocalDateTime.of(2021, 5, 1, 18, 30));
+    pagamento.setEstabelecimento("PetShop Mundo cão");
+    pagamento.setNsu("0000000001");
+    pagamento.setCodigoAutorizacao("000000042");
+    pagamento.setStatus("AUTORIZADO");
+  }
+
+  @Benchmark
+  public PaymentResponse toResponse() {
+    return service.toResponse(pagamento);
+  }
+
+  @Benchmark
+  public String mask() {
+    return CardMasker.mask(pagamento.getCartao());
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.app.benchmark;
+
+import com.example.app.util.Utf8Sanitizer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Sanitização do estabelecimento com texto ASCII, acentuado (incluindo
+ * forma decomposta) e com trechos de SQL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class Utf8SanitizerBenchmark {
+  @Param({"ascii", "acentuado", "malicioso"})
+  public String entrada;
+
+  private String texto;
+
+  @Setup
+  public void preparar() {
+    texto = switch (entrada) {
+      case "ascii" -> "PetShop Mundo Cao Ltda";
+      case "acentuado" -> "Padaria São João e Confeitaria Ça Va";
+      default -> "PetShop'; DROP TABLE payment; -- /* x */ (select * from payment where 1=1)";
+    };
+  }
+
+  @Benchmark
+  public String sanitize() {
+    return Utf8Sanitizer.sanitize(texto);
+  }
+}
@@ -1,18 +1,45 @@
 package com.example.app.controller;
 
+import com.example.app.dto.payment.PaymentBatchResponse;
+import com.example.app.dto.payment.PaymentCursorPage;
+import com.example.app.dto.payment.PaymentFilter;
 import com.example.app.dto.payment.PaymentRequest;
 import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.dto.payment.PaymentTotalResponse;
+import com.example.app.dto.payment.PaymentTotalsResponse;
+import com.example.app.dto.payment.TipoPagamento;
+import com.example.app.service.PaymentMetrics;
+import com.example.app.service.PaymentMetrics.Etapa;
+import com.example.app.service.PaymentMetrics.Operacao;
 import com.example.app.service.PaymentService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.app.service.PaymentTotals;
+import com.example.app.util.CardMasker;
+import com.example.app.util.Utf8Sanitizer;
+import com.example.app.validator.PaymentFormats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.function.Supplier;
 import com.example.app.dto.payment.PaymentQueryResponse;
 import com.example.app.exception.PaymentValidationException;
 import io.swagger.v3.oas.annotations.Operation;
@@ -30,12 +57,22 @@ import io.swagger.v3.oas.annotations.Parameter;
  */
 @RestController
 @RequestMapping("/pagamentos")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentController {
   private final PaymentService service;
-  private final ObjectMapper objectMapper;
-  private static final Pattern ID_PATTERN = Pattern.compile("^[0-9]{15}$");
+  private final PaymentPayloadParser parser;
+  private final PaymentMetrics metrics;
+  private final PaymentExportWriter exportWriter;
+  private final PaymentTotals totais;
+  private static final Set<String> STATUS_FILTRAVEIS = Set.of("AUTORIZADO", "NEGADO", "CANCELADO");
+  private static final DateTimeFormatter DIA = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+      .withResolverStyle(ResolverStyle.STRICT);
+  @Value("${app.batch.max-size:5000}")
+  private int tamanhoMaximoLote;
+  @Value("${app.exportacao.fetch-size:1000}")
+  private int fetchSizeExportacao;
 
   
 
@@ -62,28 +99,101 @@ public class PaymentController {
    * Processa um pagamento.
    *
    * Aceita três formatos de payload: "transacao:{...}", objeto com raiz
-   * "transacao" ou JSON direto com os campos da transação. O status HTTP
-   * é mapeado conforme o resultado: 201 para "AUTORIZADO" e 402 para "NEGADO".
+   * "transacao" ou JSON direto com os campos da transação. O corpo é lido
+   * direto do stream da requisição por {@link PaymentPayloadParser}. O status
+   * HTTP é mapeado conforme o resultado: 201 para "AUTORIZADO" e 402 para "NEGADO".
    */
-  public ResponseEntity<PaymentResponse> process(@RequestBody String payload) {
-    PaymentRequest request = parse(payload);
-    PaymentResponse response = service.process(request);
-    String cartao = request.getCartao();
-    String masked = cartao.length() == 16 ? cartao.substring(0, 4) + "*********" + cartao.substring(12) : cartao.substring(0, 4) + "*********" + cartao.substring(cartao.length() - 4);
-    response.setCartao(masked);
-    log.info("Transação processada identificador={} status={}", response.getId(), response.getDescricao() != null ? response.getDescricao().getStatus() : null);
-    if (response.getDescricao() != null && "NEGADO".equals(response.getDescricao().getStatus())) {
-      return new ResponseEntity<>(response, HttpStatus.PAYMENT_REQUIRED);
-    }
-    return new ResponseEntity<>(response, HttpStatus.CREATED);
+  public ResponseEntity<PaymentResponse> process(InputStream payload) {
+    metrics.entrada(Operacao.AUTORIZACAO);
+    metrics.acumularEtapas();
+    try {
+      PaymentRequest request = lerPayload(Operacao.AUTORIZACAO, () -> parser.parse(payload));
+      PaymentResponse response = service.process(request);
+      long inicio = metrics.inicio();
+      response.setCartao(CardMasker.mask(request.getCartao()));
+      log.debug("Transação processada identificador={} status={}", response.getId(), response.getDescricao() != null ? response.getDescricao().getStatus() : null);
+      HttpStatus status = response.getDescricao() != null && "NEGADO".equals(response.getDescricao().getStatus())
+          ? HttpStatus.PAYMENT_REQUIRED : HttpStatus.CREATED;
+      metrics.registrar(Operacao.AUTORIZACAO, Etapa.RESPOSTA, inicio);
+      return new ResponseEntity<>(response, status);
+    } finally {
+      metrics.saida(Operacao.AUTORIZACAO);
+    }
+  }
+
+  @PostMapping("/lote")
+  @Operation(summary = "Processa lote de pagamentos",
+    description = "Recebe um array de transações (com ou sem a raiz \"transacao\") e devolve o resultado de cada uma na ordem recebida.",
+    requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(
+      examples = {
+        @io.swagger.v3.oas.annotations.media.ExampleObject(
+          name = "Exemplo lote",
+          value = "[{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"100023568900501\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}}]"
+        )
+      }
+    ))
+  )
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = PaymentBatchResponse.class))),
+    @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = com.example.app.exception.ApiError.class))),
+    @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content(schema = @Schema(implementation = com.example.app.exception.ApiError.class)))
+  })
+
+  /**
+   * Processa um lote de pagamentos.
+   *
+   * Cada item segue as mesmas regras do endpoint unitário e recebe seu próprio
+   * status ("AUTORIZADO" ou "NEGADO" com mensagem). Payload malformado, vazio
+   * ou acima de `app.batch.max-size` itens resulta em 400.
+   */
+  public ResponseEntity<PaymentBatchResponse> processBatch(InputStream payload) {
+    metrics.entrada(Operacao.LOTE);
+    try {
+      List<PaymentRequest> requests = lerPayload(Operacao.LOTE, () -> parser.parseBatch(payload));
+      if (requests.isEmpty() || requests.size() > tamanhoMaximoLote) {
+        metrics.falha(Operacao.LOTE, "BATCH_INVALID");
+        throw new PaymentValidationException("BATCH_INVALID", "Lote deve conter entre 1 e " + tamanhoMaximoLote + " transações");
+      }
+      List<PaymentResponse> responses = service.processBatch(requests);
+      long inicio = metrics.inicio();
+      PaymentBatchResponse body = new PaymentBatchResponse();
+      body.setTransacoes(responses);
+      int autorizados = (int) responses.stream()
+          .filter(r -> "AUTORIZADO".equals(r.getDescricao().getStatus()))
+          .count();
+      body.setAutorizados(autorizados);
+      body.setNegados(responses.size() - autorizados);
+      metrics.registrar(Operacao.LOTE, Etapa.RESPOSTA, inicio);
+      return ResponseEntity.ok(body);
+    } finally {
+      metrics.saida(Operacao.LOTE);
+    }
+  }
+
+  /**
+   * Lê o payload cronometrando a etapa `parse`; payload malformado é contado
+   * como negação com o código da exceção.
+   */
+  private <T> T lerPayload(Operacao operacao, Supplier<T> leitura) {
+    long inicio = metrics.inicio();
+    try {
+      return leitura.get();
+    } catch (PaymentValidationException exception) {
+      metrics.falha(operacao, exception.getCode());
+      throw exception;
+    } finally {
+      metrics.registrar(operacao, Etapa.PARSE, inicio);
+    }
   }
 
-  @Operation(summary = "Consulta pagamentos (paginado ou por ID)")
+  @Operation(summary = "Consulta pagamentos (paginado ou por ID)",
+    description = "Sem ID, lista do mais recente para o mais antigo. Use `cursor` com o `nextCursor` da resposta anterior para percorrer a listagem; `page` continua aceito por compatibilidade. "
+        + "A listagem por cursor aceita filtros por `status`, período (`dataInicio`/`dataFim`, `dd/MM/yyyy HH:mm:ss`), `estabelecimento`, `tipo` e faixa de valor (`valorMinimo`/`valorMaximo`); repita os filtros ao seguir o `nextCursor`.")
   @ApiResponses({
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = PaymentQueryResponse.class), examples = {
       @io.swagger.v3.oas.annotations.media.ExampleObject(
         name = "Lista paginada",
-        value = "{\"data\":[{\"cartao\":\"4444*********1234\",\"id\":\"100023568900300\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\",\"nsu\":\"0536038040\",\"codigoAutorizacao\":\"140229194\",\"status\":\"AUTORIZADO\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}],\"rowsPerPage\":20,\"page\":0}"
+        value = "{\"data\":[{\"cartao\":\"4444*********1234\",\"id\":\"100023568900300\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\",\"nsu\":\"0536038040\",\"codigoAutorizacao\":\"140229194\",\"status\":\"AUTORIZADO\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}],\"rowsPerPage\":20,\"page\":0,\"nextCursor\":\"AAAAAAAAADM\"}"
       )
     })),
     @ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = PaymentQueryResponse.class), examples = {
@@ -99,7 +209,15 @@ public class PaymentController {
   public ResponseEntity<PaymentQueryResponse> consultar(
       @PathVariable(value = "id", required = false) @Parameter(description = "ID externo (opcional)", example = "100023568900300") String identificador,
       @RequestParam(value = "page", required = false) @Parameter(description = "Página (>=0)", example = "0") Integer pagina,
-      @RequestParam(value = "rowsPerPage", required = false) @Parameter(description = "Linhas por página (1-100)", example = "20") Integer linhasPorPagina) {
+      @RequestParam(value = "rowsPerPage", required = false) @Parameter(description = "Linhas por página (1-100)", example = "20") Integer linhasPorPagina,
+      @RequestParam(value = "cursor", required = false) @Parameter(description = "Cursor opaco (nextCursor da página anterior); não combina com page") String cursor,
+      @RequestParam(value = "status", required = false) @Parameter(description = "AUTORIZADO, NEGADO ou CANCELADO", example = "AUTORIZADO") String status,
+      @RequestParam(value = "dataInicio", required = false) @Parameter(description = "dataHora mínima (inclusive)", example = "01/05/2021 00:00:00") String dataInicio,
+      @RequestParam(value = "dataFim", required = false) @Parameter(description = "dataHora máxima (inclusive)", example = "31/05/2021 23:59:59") String dataFim,
+      @RequestParam(value = "estabelecimento", required = false) @Parameter(description = "Estabelecimento (igual ao informado na autorização)") String estabelecimento,
+      @RequestParam(value = "tipo", required = false) @Parameter(description = "AVISTA, PARCELADO LOJA ou PARCELADO EMISSOR", example = "AVISTA") String tipo,
+      @RequestParam(value = "valorMinimo", required = false) @Parameter(description = "Valor mínimo (inclusive)", example = "10.00") String valorMinimo,
+      @RequestParam(value = "valorMaximo", required = false) @Parameter(description = "Valor máximo (inclusive)", example = "500.00") String valorMaximo) {
     int linhasPorPaginaEfetivas = linhasPorPagina == null ? 20 : linhasPorPagina;
     if (linhasPorPaginaEfetivas < 1 || linhasPorPaginaEfetivas > 100) {
       throw new PaymentValidationException("PAGINATION_INVALID", "rowsPerPage deve estar entre 1 e 100");
@@ -108,10 +226,18 @@ public class PaymentController {
     if (paginaEfetiva < 0) {
       throw new PaymentValidationException("PAGINATION_INVALID", "page deve ser >= 0");
     }
+    if (cursor != null && pagina != null) {
+      throw new PaymentValidationException("PAGINATION_INVALID", "Informe page ou cursor, não ambos");
+    }
+
+    PaymentFilter filtro = filtro(status, dataInicio, dataFim, estabelecimento, tipo, valorMinimo, valorMaximo);
+    if (!filtro.vazio() && (identificador != null || pagina != null)) {
+      throw new PaymentValidationException("FILTER_INVALID", "Filtros valem apenas para a listagem por cursor");
+    }
 
     if (identificador != null) {
       String identificadorAjustado = identificador.trim();
-      if (!ID_PATTERN.matcher(identificadorAjustado).matches()) {
+      if (!PaymentFormats.isExternalId(identificadorAjustado)) {
         throw new PaymentValidationException("QUERY_ID_INVALID", "ID inválido");
       }
       Optional<PaymentResponse> opcao = service.findOne(identificadorAjustado);
@@ -126,34 +252,184 @@ public class PaymentController {
       return ResponseEntity.ok(body);
     }
 
-    List<PaymentResponse> list = service.list(paginaEfetiva, linhasPorPaginaEfetivas);
+    // Sem page, a listagem segue por cursor (a primeira página é a mesma de page=0)
+    PaymentCursorPage resultado = pagina != null
+        ? service.list(paginaEfetiva, linhasPorPaginaEfetivas)
+        : service.listAfter(filtro, cursor, linhasPorPaginaEfetivas);
     PaymentQueryResponse body = new PaymentQueryResponse();
-    body.setData(list);
+    body.setData(resultado.getData());
     body.setRowsPerPage(linhasPorPaginaEfetivas);
     body.setPage(paginaEfetiva);
+    body.setNextCursor(resultado.getNextCursor());
     return ResponseEntity.ok(body);
   }
 
+  @Operation(summary = "Exporta pagamentos (NDJSON ou CSV)",
+    description = "Transmite todos os pagamentos dos filtros em ordem crescente de id, à medida que são lidos do banco, sem limite de linhas. "
+        + "Aceita os mesmos filtros da listagem por cursor. Com `Accept-Encoding: gzip` a resposta é comprimida.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK", content = {
+      @Content(mediaType = "application/x-ndjson"),
+      @Content(mediaType = "text/csv")
+    }),
+    @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = com.example.app.exception.ApiError.class)))
+  })
+  @GetMapping("/export")
   /**
-   * Converte diferentes formatos de payload em {@link PaymentRequest}.
+   * Exporta os pagamentos direto no stream da resposta.
    *
-   * Aceita: "transacao:{JSON}", objeto com raiz "transacao" ou JSON direto.
-   * Em caso de JSON inválido, lança `PaymentValidationException`.
+   * Formato e filtros são validados antes do primeiro byte; depois disso uma
+   * falha só pode interromper a transmissão. A memória usada depende de
+   * `app.exportacao.fetch-size` (linhas lidas do banco por vez), não da
+   * quantidade exportada.
    */
-  private PaymentRequest parse(String payload) {
-    try {
-      String conteudo = payload == null ? "" : payload.trim();
-      if (conteudo.startsWith("transacao:")) {
-        String json = conteudo.substring("transacao:".length()).trim();
-        return objectMapper.readValue(json, PaymentRequest.class);
+  public void exportar(
+      @RequestParam(value = "formato", defaultValue = "ndjson") @Parameter(description = "ndjson ou csv", example = "ndjson") String formato,
+      @RequestParam(value = "status", required = false) @Parameter(description = "AUTORIZADO, NEGADO ou CANCELADO", example = "AUTORIZADO") String status,
+      @RequestParam(value = "dataInicio", required = false) @Parameter(description = "dataHora mínima (inclusive)", example = "01/05/2021 00:00:00") String dataInicio,
+      @RequestParam(value = "dataFim", required = false) @Parameter(description = "dataHora máxima (inclusive)", example = "31/05/2021 23:59:59") String dataFim,
+      @RequestParam(value = "estabelecimento", required = false) @Parameter(description = "Estabelecimento (igual ao informado na autorização)") String estabelecimento,
+      @RequestParam(value = "tipo", required = false) @Parameter(description = "AVISTA, PARCELADO LOJA ou PARCELADO EMISSOR", example = "AVISTA") String tipo,
+      @RequestParam(value = "valorMinimo", required = false) @Parameter(description = "Valor mínimo (inclusive)", example = "10.00") String valorMinimo,
+      @RequestParam(value = "valorMaximo", required = false) @Parameter(description = "Valor máximo (inclusive)", example = "500.00") String valorMaximo,
+      HttpServletResponse response) throws IOException {
+    PaymentExportWriter.Formato formatoExportacao = PaymentExportWriter.Formato.de(formato);
+    if (formatoExportacao == null) {
+      throw new PaymentValidationException("FORMAT_INVALID", "formato deve ser ndjson ou csv");
+    }
+    PaymentFilter filtro = filtro(status, dataInicio, dataFim, estabelecimento, tipo, valorMinimo, valorMaximo);
+    response.setContentType(formatoExportacao.getContentType());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"pagamentos." + formatoExportacao.getExtensao() + "\"");
+    try (PaymentExportWriter.Saida saida = exportWriter.abrir(formatoExportacao, response.getOutputStream())) {
+      service.exportar(filtro, fetchSizeExportacao, saida);
+    }
+  }
+
+  @Operation(summary = "Totais de pagamentos por estabelecimento, dia e tipo",
+    description = "Quantidade e valor de autorizados e de cancelados (estornados), mantidos em memória a cada "
+        + "autorização e estorno; a consulta não percorre os pagamentos. O dia é o da dataHora da autorização.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = PaymentTotalsResponse.class))),
+    @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = com.example.app.exception.ApiError.class)))
+  })
+  @GetMapping("/totais")
+  /**
+   * Totais agregados pelas dimensões de `agrupar` (por padrão, as três),
+   * restritos aos filtros informados. Parâmetros inválidos resultam em 400
+   * com código `FILTER_INVALID`.
+   */
+  public ResponseEntity<PaymentTotalsResponse> totais(
+      @RequestParam(value = "agrupar", defaultValue = "estabelecimento,dia,tipo") @Parameter(description = "Dimensões separadas por vírgula: estabelecimento, dia, tipo", example = "dia") String agrupar,
+      @RequestParam(value = "estabelecimento", required = false) @Parameter(description = "Estabelecimento (igual ao informado na autorização)") String estabelecimento,
+      @RequestParam(value = "tipo", required = false) @Parameter(description = "AVISTA, PARCELADO LOJA ou PARCELADO EMISSOR", example = "AVISTA") String tipo,
+      @RequestParam(value = "dataInicio", required = false) @Parameter(description = "Dia mínimo (inclusive)", example = "01/05/2021") String dataInicio,
+      @RequestParam(value = "dataFim", required = false) @Parameter(description = "Dia máximo (inclusive)", example = "31/05/2021") String dataFim) {
+    Set<PaymentTotals.Dimensao> dimensoes = EnumSet.noneOf(PaymentTotals.Dimensao.class);
+    for (String dimensao : agrupar.split(",")) {
+      if (dimensao.isBlank()) {
+        continue;
+      }
+      try {
+        dimensoes.add(PaymentTotals.Dimensao.valueOf(dimensao.trim().toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException exception) {
+        throw filtroInvalido("agrupar aceita estabelecimento, dia e tipo");
+      }
+    }
+    PaymentFilter filtro = filtro(null, null, null, estabelecimento, tipo, null, null);
+    LocalDate inicio = dia(dataInicio, "dataInicio");
+    LocalDate fim = dia(dataFim, "dataFim");
+    if (inicio != null && fim != null && inicio.isAfter(fim)) {
+      throw filtroInvalido("dataInicio deve ser anterior a dataFim");
+    }
+    PaymentTotalsResponse body = new PaymentTotalsResponse();
+    body.setData(totais.consultar(dimensoes, filtro.getEstabelecimento(), filtro.getTipo(), inicio, fim).stream()
+        .map(PaymentController::totalResponse).toList());
+    return ResponseEntity.ok(body);
+  }
+
+  private static PaymentTotalResponse totalResponse(PaymentTotals.Total total) {
+    PaymentTotalResponse response = new PaymentTotalResponse();
+    response.setEstabelecimento(total.grupo().estabelecimento());
+    response.setDia(total.grupo().dia() != null ? DIA.format(total.grupo().dia()) : null);
+    response.setTipo(total.grupo().tipo());
+    response.setAutorizados(total.autorizados());
+    response.setValorAutorizado(BigDecimal.valueOf(total.centavosAutorizados(), 2).toPlainString());
+    response.setCancelados(total.cancelados());
+    response.setValorCancelado(BigDecimal.valueOf(total.centavosCancelados(), 2).toPlainString());
+    return response;
+  }
+
+  /**
+   * Converte os filtros da listagem; valores fora do formato resultam em 400
+   * com código `FILTER_INVALID`.
+   */
+  private static PaymentFilter filtro(String status, String dataInicio, String dataFim, String estabelecimento,
+      String tipo, String valorMinimo, String valorMaximo) {
+    String statusFiltro = null;
+    if (status != null) {
+      statusFiltro = status.trim().toUpperCase(Locale.ROOT);
+      if (!STATUS_FILTRAVEIS.contains(statusFiltro)) {
+        throw filtroInvalido("status deve ser AUTORIZADO, NEGADO ou CANCELADO");
       }
-      JsonNode node = objectMapper.readTree(conteudo);
-      if (node.has("transacao") && node.get("transacao").isObject()) {
-        return objectMapper.treeToValue(node.get("transacao"), PaymentRequest.class);
+    }
+    String tipoFiltro = null;
+    if (tipo != null) {
+      TipoPagamento tipoPagamento = TipoPagamento.fromRotulo(tipo.trim());
+      if (tipoPagamento == null) {
+        throw filtroInvalido("tipo inválido");
       }
-      return objectMapper.readValue(conteudo, PaymentRequest.class);
-    } catch (Exception exception) {
-      throw new com.example.app.exception.PaymentValidationException("PAYMENT_VALIDATION_ERROR", "JSON inválido");
+      tipoFiltro = tipoPagamento.getRotulo();
+    }
+    LocalDateTime inicio = dataHora(dataInicio, "dataInicio");
+    LocalDateTime fim = dataHora(dataFim, "dataFim");
+    if (inicio != null && fim != null && inicio.isAfter(fim)) {
+      throw filtroInvalido("dataInicio deve ser anterior a dataFim");
+    }
+    BigDecimal minimo = valor(valorMinimo, "valorMinimo");
+    BigDecimal maximo = valor(valorMaximo, "valorMaximo");
+    if (minimo != null && maximo != null && minimo.compareTo(maximo) > 0) {
+      throw filtroInvalido("valorMinimo deve ser menor ou igual a valorMaximo");
+    }
+    // O estabelecimento é gravado sanitizado; o filtro passa pela mesma sanitização.
+    String estabelecimentoFiltro = estabelecimento != null ? Utf8Sanitizer.sanitize(estabelecimento) : null;
+    return new PaymentFilter(statusFiltro, inicio, fim, estabelecimentoFiltro, tipoFiltro, minimo, maximo);
+  }
+
+  private static LocalDateTime dataHora(String texto, String nome) {
+    if (texto == null) {
+      return null;
+    }
+    long segundos = PaymentFormats.parseDataHora(texto.trim());
+    if (segundos == PaymentFormats.DATA_HORA_INVALIDA) {
+      throw filtroInvalido(nome + " deve estar no formato dd/MM/yyyy HH:mm:ss");
+    }
+    return LocalDateTime.ofEpochSecond(segundos, 0, ZoneOffset.UTC);
+  }
+
+  private static LocalDate dia(String texto, String nome) {
+    if (texto == null) {
+      return null;
+    }
+    try {
+      return LocalDate.parse(texto.trim(), DIA);
+    } catch (DateTimeParseException exception) {
+      throw filtroInvalido(nome + " deve estar no formato dd/MM/yyyy");
     }
   }
-}
\ No newline at end of file
+
+  private static BigDecimal valor(String texto, String nome) {
+    if (texto == null) {
+      return null;
+    }
+    long centavos = PaymentFormats.parseValorCentavos(texto.trim());
+    if (centavos == PaymentFormats.INVALIDO) {
+      throw filtroInvalido(nome + " deve estar no formato 0.00");
+    }
+    return BigDecimal.valueOf(centavos, 2);
+  }
+
+  private static PaymentValidationException filtroInvalido(String mensagem) {
+    return new PaymentValidationException("FILTER_INVALID", mensagem);
+  }
+}
@@ -0,0 +1,158 @@
+package com.example.app.controller;
+
+import com.example.app.dto.payment.PaymentDescricaoResponse;
+import com.example.app.dto.payment.PaymentFormaPagamento;
+import com.example.app.dto.payment.PaymentResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Escreve a exportação de `GET /pagamentos/export` direto no stream da
+ * resposta, uma linha por pagamento, sem montar o documento em memória.
+ *
+ * NDJSON: cada linha é o mesmo objeto de `GET /pagamentos/consulta`. CSV:
+ * cabeçalho seguido de uma linha por pagamento, com os campos entre aspas
+ * quando contêm separador, aspas ou quebra de linha (RFC 4180).
+ */
+@Component
+public class PaymentExportWriter {
+  private static final String CABECALHO_CSV =
+      "id,cartao,valor,dataHora,estabelecimento,nsu,codigoAutorizacao,status,tipo,parcelas\n";
+
+  /** Formatos aceitos em `formato`. */
+  public enum Formato {
+    NDJSON("application/x-ndjson;charset=UTF-8", "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extensao;
+
+    Formato(String contentType, String extensao) {
+      this.contentType = contentType;
+      this.extensao = extensao;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public String getExtensao() {
+      return extensao;
+    }
+
+    /** `null` para formato desconhecido. */
+    public static Formato de(String nome) {
+      for (Formato formato : values()) {
+        if (formato.extensao.equals(nome.trim().toLowerCase(Locale.ROOT))) {
+          return formato;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Destino das linhas; falhas de escrita (inclusive cliente desconectado)
+   * chegam como {@link UncheckedIOException}.
+   */
+  public interface Saida extends Consumer<PaymentResponse>, Closeable {}
+
+  private final JsonFactory jsonFactory;
+
+  public PaymentExportWriter(ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+  }
+
+  public Saida abrir(Formato formato, OutputStream destino) throws IOException {
+    return formato == Formato.NDJSON ? ndjson(destino) : csv(destino);
+  }
+
+  private Saida ndjson(OutputStream destino) throws IOException {
+    JsonGenerator gerador = jsonFactory.createGenerator(destino);
+    gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    // Sem o espaço padrão entre valores raiz: o separador é a quebra de linha.
+    gerador.setRootValueSeparator(null);
+    return new Saida() {
+      @Override
+      public void accept(PaymentResponse pagamento) {
+        try {
+          gerador.writeObject(pagamento);
+          gerador.writeRaw('\n');
+        } catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        gerador.close();
+      }
+    };
+  }
+
+  private static Saida csv(OutputStream destino) throws IOException {
+    Writer escritor = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 8192);
+    escritor.write(CABECALHO_CSV);
+    return new Saida() {
+      @Override
+      public void accept(PaymentResponse pagamento) {
+        PaymentDescricaoResponse descricao = pagamento.getDescricao();
+        PaymentFormaPagamento formaPagamento = pagamento.getFormaPagamento();
+        try {
+          campo(escritor, pagamento.getId(), ',');
+          campo(escritor, pagamento.getCartao(), ',');
+          campo(escritor, descricao.getValor(), ',');
+          campo(escritor, descricao.getDataHora(), ',');
+          campo(escritor, descricao.getEstabelecimento(), ',');
+          campo(escritor, descricao.getNsu(), ',');
+          campo(escritor, descricao.getCodigoAutorizacao(), ',');
+          campo(escritor, descricao.getStatus(), ',');
+          campo(escritor, formaPagamento.getTipo(), ',');
+          campo(escritor, formaPagamento.getParcelas(), '\n');
+        } catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        escritor.flush();
+      }
+    };
+  }
+
+  private static void campo(Writer escritor, String valor, char separador) throws IOException {
+    if (valor != null) {
+      if (precisaAspas(valor)) {
+        escritor.write('"');
+        escritor.write(valor.replace("\"", "\"\""));
+        escritor.write('"');
+      } else {
+        escritor.write(valor);
+      }
+    }
+    escritor.write(separador);
+  }
+
+  private static boolean precisaAspas(String valor) {
+    for (int i = 0; i < valor.length(); i++) {
+      char c = valor.charAt(i);
+      if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,225 @@
+package com.example.app.controller;
+
+import com.example.app.dto.payment.PaymentDescricao;
+import com.example.app.dto.payment.PaymentFormaPagamento;
+import com.example.app.dto.payment.PaymentRequest;
+import com.example.app.exception.PaymentValidationException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converte o corpo de `POST /pagamentos` em {@link PaymentRequest} em uma
+ * única passada sobre os bytes da requisição.
+ *
+ * Reconhece os três formatos aceitos no nível de token: prefixo
+ * "transacao:{...}", objeto com raiz "transacao" e JSON direto. Os campos
+ * são lidos do {@link JsonParser} e atribuídos direto aos DTOs, sem montar
+ * árvore intermediária nem copiar o corpo para uma `String`.
+ *
+ * Segue as regras de coerção do Jackson para os campos texto: números e
+ * booleanos viram texto, `null` vira `null` e objetos/arrays são rejeitados.
+ */
+@Component
+public class PaymentPayloadParser {
+  private static final byte[] PREFIXO = "transacao:".getBytes(StandardCharsets.US_ASCII);
+  private final JsonFactory jsonFactory;
+
+  public PaymentPayloadParser(ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+  }
+
+  /**
+   * Lê uma transação. Em payload malformado lança `PaymentValidationException`.
+   */
+  public PaymentRequest parse(InputStream body) {
+    try {
+      PushbackInputStream entrada = new PushbackInputStream(body, PREFIXO.length);
+      boolean prefixado = consumirPrefixo(entrada);
+      try (JsonParser parser = jsonFactory.createParser(entrada)) {
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+          throw invalido();
+        }
+        return prefixado ? lerTransacao(parser) : lerRaiz(parser);
+      }
+    } catch (IOException | RuntimeException exception) {
+      throw exception instanceof PaymentValidationException validacao ? validacao : invalido();
+    }
+  }
+
+  /**
+   * Lê uma transação a partir de um buffer já em memória.
+   */
+  public PaymentRequest parse(byte[] body) {
+    return parse(new ByteArrayInputStream(body));
+  }
+
+  /**
+   * Lê o array do lote. Cada item pode vir com a raiz "transacao" ou como
+   * JSON direto; itens `null` são mantidos como `null`.
+   */
+  public List<PaymentRequest> parseBatch(InputStream body) {
+    try (JsonParser parser = jsonFactory.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw invalido();
+      }
+      List<PaymentRequest> requests = new ArrayList<>();
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == JsonToken.VALUE_NULL) {
+          requests.add(null);
+        } else if (token == JsonToken.START_OBJECT) {
+          requests.add(lerRaiz(parser));
+        } else {
+          throw invalido();
+        }
+      }
+      return requests;
+    } catch (IOException | RuntimeException exception) {
+      throw exception instanceof PaymentValidationException validacao ? validacao : invalido();
+    }
+  }
+
+  /**
+   * Descarta espaços iniciais e consome o prefixo "transacao:" se presente.
+   * Caso contrário, devolve ao stream os bytes lidos além dos espaços.
+   */
+  private static boolean consumirPrefixo(PushbackInputStream entrada) throws IOException {
+    int b;
+    do {
+      b = entrada.read();
+    } while (b != -1 && b <= ' ');
+    if (b == -1) {
+      return false;
+    }
+    byte[] lidos = new byte[PREFIXO.length];
+    int quantidade = 0;
+    for (int atual = b; atual != -1; atual = entrada.read()) {
+      lidos[quantidade++] = (byte) atual;
+      if (atual != PREFIXO[quantidade - 1]) {
+        break;
+      }
+      if (quantidade == PREFIXO.length) {
+        return true;
+      }
+    }
+    entrada.unread(lidos, 0, quantidade);
+    return false;
+  }
+
+  /**
+   * Lê um objeto raiz que pode ser o envelope `{"transacao":{...}}` ou a
+   * própria transação. Se houver "transacao" do tipo objeto, ela prevalece.
+   */
+  private PaymentRequest lerRaiz(JsonParser parser) throws IOException {
+    PaymentRequest raiz = new PaymentRequest();
+    PaymentRequest envelope = null;
+    String campo;
+    while ((campo = parser.nextFieldName()) != null) {
+      JsonToken token = parser.nextToken();
+      if ("transacao".equals(campo)) {
+        if (token == JsonToken.START_OBJECT) {
+          envelope = lerTransacao(parser);
+        } else {
+          envelope = null;
+          parser.skipChildren();
+        }
+      } else {
+        atribuirCampoTransacao(parser, raiz, campo, token);
+      }
+    }
+    fimDoObjeto(parser);
+    return envelope != null ? envelope : raiz;
+  }
+
+  private PaymentRequest lerTransacao(JsonParser parser) throws IOException {
+    PaymentRequest request = new PaymentRequest();
+    String campo;
+    while ((campo = parser.nextFieldName()) != null) {
+      atribuirCampoTransacao(parser, request, campo, parser.nextToken());
+    }
+    fimDoObjeto(parser);
+    return request;
+  }
+
+  private void atribuirCampoTransacao(JsonParser parser, PaymentRequest request, String campo, JsonToken token) throws IOException {
+    switch (campo) {
+      case "cartao" -> request.setCartao(texto(parser, token));
+      case "id" -> request.setId(texto(parser, token));
+      case "descricao" -> request.setDescricao(objeto(token) ? lerDescricao(parser) : null);
+      case "formaPagamento" -> request.setFormaPagamento(objeto(token) ? lerFormaPagamento(parser) : null);
+      default -> parser.skipChildren();
+    }
+  }
+
+  private PaymentDescricao lerDescricao(JsonParser parser) throws IOException {
+    PaymentDescricao descricao = new PaymentDescricao();
+    String campo;
+    while ((campo = parser.nextFieldName()) != null) {
+      JsonToken token = parser.nextToken();
+      switch (campo) {
+        case "valor" -> descricao.setValor(texto(parser, token));
+        case "dataHora" -> descricao.setDataHora(texto(parser, token));
+        case "estabelecimento" -> descricao.setEstabelecimento(texto(parser, token));
+        default -> parser.skipChildren();
+      }
+    }
+    fimDoObjeto(parser);
+    return descricao;
+  }
+
+  private PaymentFormaPagamento lerFormaPagamento(JsonParser parser) throws IOException {
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    String campo;
+    while ((campo = parser.nextFieldName()) != null) {
+      JsonToken token = parser.nextToken();
+      switch (campo) {
+        case "tipo" -> formaPagamento.setTipo(texto(parser, token));
+        case "parcelas" -> formaPagamento.setParcelas(texto(parser, token));
+        default -> parser.skipChildren();
+      }
+    }
+    fimDoObjeto(parser);
+    return formaPagamento;
+  }
+
+  /**
+   * Valor de um campo texto: escalares viram texto, `null` vira `null`.
+   */
+  private static String texto(JsonParser parser, JsonToken token) throws IOException {
+    return switch (token) {
+      case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_TRUE, VALUE_FALSE -> parser.getText();
+      case VALUE_NULL -> null;
+      default -> throw invalido();
+    };
+  }
+
+  /**
+   * Indica se o campo de objeto aninhado deve ser lido (`true`) ou é `null`.
+   */
+  private static boolean objeto(JsonToken token) {
+    if (token == JsonToken.START_OBJECT) return true;
+    if (token == JsonToken.VALUE_NULL) return false;
+    throw invalido();
+  }
+
+  private static void fimDoObjeto(JsonParser parser) {
+    if (parser.currentToken() != JsonToken.END_OBJECT) {
+      throw invalido();
+    }
+  }
+
+  private static PaymentValidationException invalido() {
+    return new PaymentValidationException("PAYMENT_VALIDATION_ERROR", "JSON inválido");
+  }
+}
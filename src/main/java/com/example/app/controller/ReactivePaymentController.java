@@ -0,0 +1,115 @@
+package com.example.app.controller;
+
+import com.example.app.dto.payment.PaymentQueryResponse;
+import com.example.app.dto.payment.PaymentRequest;
+import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.exception.PaymentValidationException;
+import com.example.app.service.PaymentMetrics;
+import com.example.app.service.PaymentMetrics.Etapa;
+import com.example.app.service.PaymentMetrics.Operacao;
+import com.example.app.service.ReactivePaymentService;
+import com.example.app.util.CardMasker;
+import com.example.app.validator.PaymentFormats;
+import java.util.Collections;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão WebFlux de {@link PaymentController} (perfil `reativo`): autorização
+ * e consulta por ID, com os mesmos formatos de payload, códigos HTTP e
+ * corpos de resposta.
+ *
+ * O corpo chega agregado em memória pelo Netty e é lido pelo mesmo
+ * {@link PaymentPayloadParser}. Lote e listagem paginada continuam apenas na
+ * pilha Spring MVC.
+ */
+@RestController
+@RequestMapping("/pagamentos")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactivePaymentController {
+  private final ReactivePaymentService service;
+  private final PaymentPayloadParser parser;
+  private final PaymentMetrics metrics;
+
+  /**
+   * Processa um pagamento: 201 para "AUTORIZADO", 402 para "NEGADO" e 400
+   * para payload malformado.
+   */
+  @PostMapping
+  public Mono<ResponseEntity<PaymentResponse>> process(@RequestBody(required = false) byte[] payload) {
+    metrics.entrada(Operacao.AUTORIZACAO);
+    return Mono.defer(() -> {
+          PaymentRequest request = lerPayload(payload != null ? payload : new byte[0]);
+          return service.process(request).map(response -> {
+            long inicio = metrics.inicio();
+            response.setCartao(CardMasker.mask(request.getCartao()));
+            log.debug("Transação processada identificador={} status={}", response.getId(), response.getDescricao().getStatus());
+            HttpStatus status = "NEGADO".equals(response.getDescricao().getStatus())
+                ? HttpStatus.PAYMENT_REQUIRED : HttpStatus.CREATED;
+            metrics.registrar(Operacao.AUTORIZACAO, Etapa.RESPOSTA, inicio);
+            return new ResponseEntity<>(response, status);
+          });
+        })
+        .doFinally(sinal -> metrics.saida(Operacao.AUTORIZACAO));
+  }
+
+  private PaymentRequest lerPayload(byte[] payload) {
+    long inicio = metrics.inicio();
+    try {
+      return parser.parse(payload);
+    } catch (PaymentValidationException exception) {
+      metrics.falha(Operacao.AUTORIZACAO, exception.getCode());
+      throw exception;
+    } finally {
+      metrics.registrar(Operacao.AUTORIZACAO, Etapa.PARSE, inicio);
+    }
+  }
+
+  /**
+   * Consulta por ID externo, com a validação de `page` e `rowsPerPage` do
+   * endpoint MVC; 404 com `data` vazio se não existir.
+   */
+  @GetMapping("/consulta/{id}")
+  public Mono<ResponseEntity<PaymentQueryResponse>> consultar(
+      @PathVariable("id") String identificador,
+      @RequestParam(value = "page", required = false) Integer pagina,
+      @RequestParam(value = "rowsPerPage", required = false) Integer linhasPorPagina) {
+    int linhasPorPaginaEfetivas = linhasPorPagina == null ? 20 : linhasPorPagina;
+    if (linhasPorPaginaEfetivas < 1 || linhasPorPaginaEfetivas > 100) {
+      return Mono.error(new PaymentValidationException("PAGINATION_INVALID", "rowsPerPage deve estar entre 1 e 100"));
+    }
+    int paginaEfetiva = pagina == null ? 0 : pagina;
+    if (paginaEfetiva < 0) {
+      return Mono.error(new PaymentValidationException("PAGINATION_INVALID", "page deve ser >= 0"));
+    }
+    String identificadorAjustado = identificador.trim();
+    if (!PaymentFormats.isExternalId(identificadorAjustado)) {
+      return Mono.error(new PaymentValidationException("QUERY_ID_INVALID", "ID inválido"));
+    }
+    return service.findOne(identificadorAjustado)
+        .map(response -> {
+          PaymentQueryResponse body = new PaymentQueryResponse();
+          body.setRowsPerPage(linhasPorPaginaEfetivas);
+          body.setPage(paginaEfetiva);
+          body.setData(List.of(response));
+          return ResponseEntity.ok(body);
+        })
+        .defaultIfEmpty(naoEncontrado(linhasPorPaginaEfetivas, paginaEfetiva));
+  }
+
+  private static ResponseEntity<PaymentQueryResponse> naoEncontrado(int linhasPorPagina, int pagina) {
+    PaymentQueryResponse body = new PaymentQueryResponse();
+    body.setRowsPerPage(linhasPorPagina);
+    body.setPage(pagina);
+    body.setData(Collections.emptyList());
+    return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.app.controller;
+
+import com.example.app.dto.refund.RefundResponse;
+import com.example.app.exception.BusinessException;
+import com.example.app.service.PaymentAudit;
+import com.example.app.service.PaymentMetrics;
+import com.example.app.service.PaymentMetrics.Operacao;
+import com.example.app.service.ReactivePaymentService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão WebFlux de `PATCH /estorno/{id}` (perfil `reativo`), com as mesmas
+ * respostas de {@link RefundController}. O estorno em lote continua apenas
+ * na pilha Spring MVC.
+ */
+@RestController
+@RequestMapping("/estorno")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRefundController {
+  private final ReactivePaymentService service;
+  private final PaymentMetrics metrics;
+  private final PaymentAudit auditoria;
+  private final Logger logger = LoggerFactory.getLogger(ReactiveRefundController.class);
+
+  public ReactiveRefundController(ReactivePaymentService service, PaymentMetrics metrics, PaymentAudit auditoria) {
+    this.service = service;
+    this.metrics = metrics;
+    this.auditoria = auditoria;
+  }
+
+  /**
+   * Estorna transação autorizada; status diferente de "AUTORIZADO" ou
+   * identificador desconhecido resultam em 400.
+   */
+  @PatchMapping("/{id}")
+  public Mono<ResponseEntity<RefundResponse>> cancel(@PathVariable("id") String id) {
+    logger.debug("Solicitação de estorno id={}", id);
+    metrics.entrada(Operacao.ESTORNO);
+    return service.cancel(id)
+        .map(respostaPagamento -> {
+          metrics.sucesso(Operacao.ESTORNO);
+          auditoria.registrar(Operacao.ESTORNO, id, "CANCELADO", PaymentMetrics.OK, null);
+          RefundResponse respostaEstorno = new RefundResponse();
+          respostaEstorno.setTransacao(respostaPagamento);
+          return ResponseEntity.ok(respostaEstorno);
+        })
+        .doOnError(exception -> {
+          String codigo = exception instanceof BusinessException negocio ? negocio.getCode()
+              : PaymentMetrics.ERRO_INESPERADO;
+          metrics.falha(Operacao.ESTORNO, codigo);
+          auditoria.registrar(Operacao.ESTORNO, id, "REJEITADO", codigo, null);
+        })
+        .doFinally(sinal -> metrics.saida(Operacao.ESTORNO));
+  }
+}
@@ -0,0 +1,17 @@
+package com.example.app.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Servidor Netty para a pilha reativa (perfil `reativo`).
+ *
+ * Com o Tomcat também no classpath (pilha MVC), o Spring Boot usaria o
+ * Tomcat com o adaptador reativo. O Netty atende todas as conexões com as
+ * threads de I/O do event loop, uma por núcleo.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerFactory extends NettyReactiveWebServerFactory {
+}
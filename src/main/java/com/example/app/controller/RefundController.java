@@ -1,8 +1,19 @@
 package com.example.app.controller;
 
+import com.example.app.dto.refund.RefundBatchItem;
+import com.example.app.dto.refund.RefundBatchRequest;
+import com.example.app.dto.refund.RefundBatchResponse;
 import com.example.app.dto.refund.RefundResponse;
 import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.exception.BusinessException;
+import com.example.app.exception.PaymentValidationException;
+import com.example.app.service.PaymentAudit;
+import com.example.app.service.PaymentMetrics;
+import com.example.app.service.PaymentMetrics.Operacao;
 import com.example.app.service.PaymentService;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
@@ -15,12 +26,19 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 @RestController
 @RequestMapping("/estorno")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RefundController {
   private final PaymentService service;
+  private final PaymentMetrics metrics;
+  private final PaymentAudit auditoria;
   private final Logger logger = LoggerFactory.getLogger(RefundController.class);
+  @Value("${app.estorno.lote.tamanho-maximo:20000}")
+  private int tamanhoMaximoLote;
 
-  public RefundController(PaymentService service) {
+  public RefundController(PaymentService service, PaymentMetrics metrics, PaymentAudit auditoria) {
     this.service = service;
+    this.metrics = metrics;
+    this.auditoria = auditoria;
   }
 
   @PatchMapping("/{id}")
@@ -34,13 +52,75 @@ public class RefundController {
    * Realiza o estorno de uma transação previamente autorizada.
    *
    * Retorna a transação com status "CANCELADO". Caso o status atual não seja
-   * "AUTORIZADO", responde com erro 400.
+   * "AUTORIZADO", responde com erro 400. O resultado é contado em
+   * {@link PaymentMetrics} e registrado em {@link PaymentAudit} depois do commit.
    */
   public ResponseEntity<RefundResponse> cancel(@PathVariable("id") String id) {
-    logger.info("Solicitação de estorno id={}", id);
-    PaymentResponse respostaPagamento = service.cancel(id);
+    logger.debug("Solicitação de estorno id={}", id);
+    PaymentResponse respostaPagamento;
+    metrics.entrada(Operacao.ESTORNO);
+    try {
+      respostaPagamento = service.cancel(id);
+      metrics.sucesso(Operacao.ESTORNO);
+      auditoria.registrar(Operacao.ESTORNO, id, "CANCELADO", PaymentMetrics.OK, null);
+    } catch (BusinessException exception) {
+      metrics.falha(Operacao.ESTORNO, exception.getCode());
+      auditoria.registrar(Operacao.ESTORNO, id, "REJEITADO", exception.getCode(), null);
+      throw exception;
+    } catch (RuntimeException exception) {
+      metrics.falha(Operacao.ESTORNO, PaymentMetrics.ERRO_INESPERADO);
+      auditoria.registrar(Operacao.ESTORNO, id, "REJEITADO", PaymentMetrics.ERRO_INESPERADO, null);
+      throw exception;
+    } finally {
+      metrics.saida(Operacao.ESTORNO);
+    }
     RefundResponse respostaEstorno = new RefundResponse();
     respostaEstorno.setTransacao(respostaPagamento);
     return ResponseEntity.ok(respostaEstorno);
   }
+
+  @PatchMapping("/lote")
+  @Operation(summary = "Estorna lote de pagamentos",
+    description = "Recebe os identificadores externos e devolve, na ordem recebida, \"CANCELADO\" ou \"REJEITADO\" com o motivo para cada um.",
+    requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(
+      examples = {
+        @io.swagger.v3.oas.annotations.media.ExampleObject(
+          name = "Exemplo lote",
+          value = "{\"ids\":[\"100023568900501\",\"100023568900502\"]}"
+        )
+      }
+    ))
+  )
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = RefundBatchResponse.class))),
+    @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = com.example.app.exception.ApiError.class))),
+    @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content(schema = @Schema(implementation = com.example.app.exception.ApiError.class)))
+  })
+  /**
+   * Estorna um lote de transações (ex.: reversão do dia de um estabelecimento).
+   *
+   * Cada identificador recebe seu próprio resultado; identificadores não
+   * encontrados ou fora do status "AUTORIZADO" não impedem os demais. Lote
+   * vazio ou acima de `app.estorno.lote.tamanho-maximo` itens resulta em 400.
+   */
+  public ResponseEntity<RefundBatchResponse> cancelBatch(@RequestBody RefundBatchRequest requisicao) {
+    metrics.entrada(Operacao.ESTORNO_LOTE);
+    try {
+      List<String> ids = requisicao != null ? requisicao.getIds() : null;
+      if (ids == null || ids.isEmpty() || ids.size() > tamanhoMaximoLote) {
+        metrics.falha(Operacao.ESTORNO_LOTE, "BATCH_INVALID");
+        throw new PaymentValidationException("BATCH_INVALID", "Lote deve conter entre 1 e " + tamanhoMaximoLote + " identificadores");
+      }
+      logger.info("Solicitação de estorno em lote tamanho={}", ids.size());
+      List<RefundBatchItem> itens = service.cancelBatch(ids);
+      RefundBatchResponse body = new RefundBatchResponse();
+      body.setEstornos(itens);
+      int cancelados = (int) itens.stream().filter(item -> "CANCELADO".equals(item.getStatus())).count();
+      body.setCancelados(cancelados);
+      body.setRejeitados(itens.size() - cancelados);
+      return ResponseEntity.ok(body);
+    } finally {
+      metrics.saida(Operacao.ESTORNO_LOTE);
+    }
+  }
 }
\ No newline at end of file
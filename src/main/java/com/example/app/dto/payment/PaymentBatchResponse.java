@@ -0,0 +1,17 @@
+package com.example.app.dto.payment;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Resposta do processamento em lote.
+ *
+ * `transacoes` segue a ordem do lote recebido; cada item traz seu próprio
+ * status ("AUTORIZADO" ou "NEGADO" com `mensagem`).
+ */
+@Data
+public class PaymentBatchResponse {
+  private List<PaymentResponse> transacoes;
+  private int autorizados;
+  private int negados;
+}
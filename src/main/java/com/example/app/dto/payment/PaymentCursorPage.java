@@ -0,0 +1,15 @@
+package com.example.app.dto.payment;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Página da listagem de pagamentos e o cursor para buscar a seguinte.
+ *
+ * `nextCursor` é `null` quando não há mais registros.
+ */
+@Value
+public class PaymentCursorPage {
+  List<PaymentResponse> data;
+  String nextCursor;
+}
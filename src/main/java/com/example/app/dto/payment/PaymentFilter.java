@@ -0,0 +1,45 @@
+package com.example.app.dto.payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.Value;
+
+/**
+ * Filtros da listagem de pagamentos.
+ *
+ * Campos `null` não filtram; os intervalos de data/hora e de valor incluem
+ * os extremos. `estabelecimento` é comparado com o valor gravado (já
+ * sanitizado) e `tipo` com o rótulo persistido.
+ */
+@Value
+public class PaymentFilter {
+  /** Sem nenhum filtro. */
+  public static final PaymentFilter NENHUM = new PaymentFilter(null, null, null, null, null, null, null);
+
+  String status;
+  LocalDateTime dataHoraInicio;
+  LocalDateTime dataHoraFim;
+  String estabelecimento;
+  String tipo;
+  BigDecimal valorMinimo;
+  BigDecimal valorMaximo;
+
+  public boolean vazio() {
+    return status == null && dataHoraInicio == null && dataHoraFim == null && estabelecimento == null
+        && tipo == null && valorMinimo == null && valorMaximo == null;
+  }
+
+  /**
+   * Indica se o pagamento atende a todos os filtros; usado por quem filtra
+   * em memória.
+   */
+  public boolean aceita(PaymentView pagamento) {
+    return (status == null || status.equals(pagamento.getStatus()))
+        && (estabelecimento == null || estabelecimento.equals(pagamento.getEstabelecimento()))
+        && (tipo == null || tipo.equals(pagamento.getTipo()))
+        && (dataHoraInicio == null || pagamento.getDataHora() != null && !pagamento.getDataHora().isBefore(dataHoraInicio))
+        && (dataHoraFim == null || pagamento.getDataHora() != null && !pagamento.getDataHora().isAfter(dataHoraFim))
+        && (valorMinimo == null || pagamento.getValor() != null && pagamento.getValor().compareTo(valorMinimo) >= 0)
+        && (valorMaximo == null || pagamento.getValor() != null && pagamento.getValor().compareTo(valorMaximo) <= 0);
+  }
+}
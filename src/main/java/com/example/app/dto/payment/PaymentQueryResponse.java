@@ -8,4 +8,6 @@ public class PaymentQueryResponse {
   private List<PaymentResponse> data;
   private int rowsPerPage;
   private int page;
+  /** Cursor da próxima página; `null` na última. */
+  private String nextCursor;
 }
\ No newline at end of file
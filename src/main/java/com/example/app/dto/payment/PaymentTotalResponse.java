@@ -0,0 +1,24 @@
+package com.example.app.dto.payment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * Totais de um grupo em `GET /pagamentos/totais`.
+ *
+ * As dimensões não agrupadas ficam fora do JSON. Os valores seguem o
+ * formato da autorização ("0.00"); cancelados são os estornados, contados
+ * no dia e tipo da autorização.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentTotalResponse {
+  private String estabelecimento;
+  /** Dia da `dataHora` da autorização, `dd/MM/yyyy`. */
+  private String dia;
+  private String tipo;
+  private long autorizados;
+  private String valorAutorizado;
+  private long cancelados;
+  private String valorCancelado;
+}
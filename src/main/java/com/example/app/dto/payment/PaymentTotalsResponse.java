@@ -0,0 +1,12 @@
+package com.example.app.dto.payment;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Resposta de `GET /pagamentos/totais`, ordenada por dia, estabelecimento e tipo.
+ */
+@Data
+public class PaymentTotalsResponse {
+  private List<PaymentTotalResponse> data;
+}
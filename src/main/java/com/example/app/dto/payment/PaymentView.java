@@ -0,0 +1,35 @@
+package com.example.app.dto.payment;
+
+import com.example.app.entity.Payment;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.Value;
+
+/**
+ * Projeção somente leitura de {@link Payment} com as colunas usadas pelas
+ * consultas, preenchida direto pelo JPQL (`select new ...`).
+ *
+ * Não é uma entidade: não entra no contexto de persistência nem gera
+ * snapshot para dirty checking.
+ */
+@Value
+public class PaymentView {
+  Long id;
+  String externalId;
+  String cartao;
+  BigDecimal valor;
+  LocalDateTime dataHora;
+  String estabelecimento;
+  String nsu;
+  String codigoAutorizacao;
+  String status;
+  String tipo;
+  Integer parcelas;
+
+  /** Projeção de uma entidade já carregada. */
+  public static PaymentView of(Payment pagamento) {
+    return new PaymentView(pagamento.getId(), pagamento.getExternalId(), pagamento.getCartao(), pagamento.getValor(),
+        pagamento.getDataHora(), pagamento.getEstabelecimento(), pagamento.getNsu(), pagamento.getCodigoAutorizacao(),
+        pagamento.getStatus(), pagamento.getTipo(), pagamento.getParcelas());
+  }
+}
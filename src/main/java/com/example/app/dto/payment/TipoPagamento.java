@@ -0,0 +1,32 @@
+package com.example.app.dto.payment;
+
+import lombok.Getter;
+
+/**
+ * Tipos de pagamento aceitos. `rotulo` é o valor recebido na API e persistido.
+ */
+@Getter
+public enum TipoPagamento {
+  AVISTA("AVISTA"),
+  PARCELADO_LOJA("PARCELADO LOJA"),
+  PARCELADO_EMISSOR("PARCELADO EMISSOR");
+
+  private static final TipoPagamento[] VALORES = values();
+  private final String rotulo;
+
+  TipoPagamento(String rotulo) {
+    this.rotulo = rotulo;
+  }
+
+  /**
+   * Resolve o tipo pelo rótulo, sem diferenciar maiúsculas de minúsculas.
+   * Retorna `null` se o rótulo não for permitido.
+   */
+  public static TipoPagamento fromRotulo(String rotulo) {
+    if (rotulo == null) return null;
+    for (TipoPagamento tipo : VALORES) {
+      if (tipo.rotulo.equalsIgnoreCase(rotulo)) return tipo;
+    }
+    return null;
+  }
+}
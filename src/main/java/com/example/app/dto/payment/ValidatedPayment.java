@@ -0,0 +1,36 @@
+package com.example.app.dto.payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import lombok.Value;
+
+/**
+ * Transação já validada e convertida, produzida por
+ * {@link com.example.app.validator.PaymentRequestValidator#parse()}.
+ *
+ * Carrega os valores prontos para uso pelo serviço, evitando que os campos
+ * texto do {@link PaymentRequest} sejam convertidos de novo: valor em
+ * centavos, data/hora local em segundos desde 01/01/1970 00:00:00 e tipo
+ * de pagamento resolvido.
+ */
+@Value
+public class ValidatedPayment {
+  String externalId;
+  String cartao;
+  long valorCentavos;
+  long dataHoraEpoch;
+  TipoPagamento tipo;
+  int parcelas;
+  String estabelecimento;
+
+  /** Valor monetário com duas casas decimais. */
+  public BigDecimal valor() {
+    return BigDecimal.valueOf(valorCentavos, 2);
+  }
+
+  /** Data/hora local da transação. */
+  public LocalDateTime dataHora() {
+    return LocalDateTime.ofEpochSecond(dataHoraEpoch, 0, ZoneOffset.UTC);
+  }
+}
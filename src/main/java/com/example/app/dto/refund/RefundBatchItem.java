@@ -0,0 +1,14 @@
+package com.example.app.dto.refund;
+
+import lombok.Data;
+
+/**
+ * Resultado do estorno de um identificador do lote: status "CANCELADO" ou
+ * "REJEITADO" com `mensagem`.
+ */
+@Data
+public class RefundBatchItem {
+  private String id;
+  private String status;
+  private String mensagem;
+}
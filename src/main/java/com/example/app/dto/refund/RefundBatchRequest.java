@@ -0,0 +1,12 @@
+package com.example.app.dto.refund;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Requisição do estorno em lote: identificadores externos das transações.
+ */
+@Data
+public class RefundBatchRequest {
+  private List<String> ids;
+}
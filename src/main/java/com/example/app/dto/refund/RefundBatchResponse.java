@@ -0,0 +1,16 @@
+package com.example.app.dto.refund;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Resposta do estorno em lote.
+ *
+ * `estornos` segue a ordem dos identificadores recebidos.
+ */
+@Data
+public class RefundBatchResponse {
+  private List<RefundBatchItem> estornos;
+  private int cancelados;
+  private int rejeitados;
+}
@@ -0,0 +1,25 @@
+package com.example.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Contador persistido das faixas de NSU.
+ *
+ * `proximo` é o primeiro NSU ainda não reservado; só é alterado por
+ * {@link com.example.app.repository.NsuRangeRepository#avancar(Integer, long)}.
+ */
+@Entity
+@Table(name = "nsu_faixa")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NsuRange {
+  @Id
+  private Integer id;
+  private Long proximo;
+}
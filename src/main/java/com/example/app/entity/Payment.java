@@ -10,16 +10,31 @@ import lombok.Setter;
  * Entidade de pagamento persistida.
  *
  * `externalId` é único (idempotência). `nsu` e `codigoAutorizacao`
- * são gerados no serviço no momento da autorização.
+ * são gerados no serviço no momento da autorização; `nsu` também é único. O `id` vem de uma
+ * sequência com alocação em blocos, o que permite ao Hibernate agrupar
+ * inserts em batches JDBC (com `IDENTITY` cada insert é executado isolado).
+ *
+ * `versao` é o controle de concorrência otimista: uma alteração gravada a
+ * partir de uma cópia desatualizada falha em vez de sobrescrever a outra.
  */
 @Entity
+@Table(uniqueConstraints = {
+    @UniqueConstraint(name = Payment.UK_EXTERNAL_ID, columnNames = "external_id"),
+    @UniqueConstraint(name = Payment.UK_NSU, columnNames = "nsu")
+})
 @Getter
 @Setter
 public class Payment {
+  /** Nome da restrição única de `external_id`, usada para reconhecer duplicidade. */
+  public static final String UK_EXTERNAL_ID = "uk_payment_external_id";
+  /** Nome da restrição única de `nsu`. */
+  public static final String UK_NSU = "uk_payment_nsu";
+
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+  @SequenceGenerator(name = "payment_seq", sequenceName = "payment_seq", allocationSize = 50)
   private Long id;
-  @Column(name = "external_id", unique = true)
+  @Column(name = "external_id")
   private String externalId;
   @Column(name = "cartao")
   private String cartao;
@@ -28,8 +43,11 @@ public class Payment {
   private BigDecimal valor;
   private LocalDateTime dataHora;
   private String estabelecimento;
+  @Column(name = "nsu")
   private String nsu;
   private String codigoAutorizacao;
   private String status;
   private LocalDateTime canceladoEm;
+  @Version
+  private Long versao;
 }
\ No newline at end of file
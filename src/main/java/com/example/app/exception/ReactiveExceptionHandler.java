@@ -0,0 +1,63 @@
+package com.example.app.exception;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import java.time.LocalDateTime;
+
+/**
+ * Equivalente de {@link GlobalExceptionHandler} na pilha WebFlux (perfil
+ * `reativo`), com os mesmos códigos HTTP e o mesmo {@link ApiError}.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+  @ExceptionHandler(BusinessException.class)
+  public ResponseEntity<ApiError> handleBusiness(BusinessException exception, ServerWebExchange exchange) {
+    return erro(HttpStatus.UNPROCESSABLE_ENTITY, exception.getMessage(), exchange);
+  }
+
+  @ExceptionHandler(PaymentValidationException.class)
+  public ResponseEntity<ApiError> handlePaymentValidation(PaymentValidationException exception, ServerWebExchange exchange) {
+    return erro(HttpStatus.BAD_REQUEST, exception.getMessage(), exchange);
+  }
+
+  @ExceptionHandler(DuplicatePaymentException.class)
+  public ResponseEntity<ApiError> handleDuplicatePayment(DuplicatePaymentException exception, ServerWebExchange exchange) {
+    return erro(HttpStatus.CONFLICT, exception.getMessage(), exchange);
+  }
+
+  @ExceptionHandler(PaymentCreationException.class)
+  public ResponseEntity<ApiError> handlePaymentCreation(PaymentCreationException exception, ServerWebExchange exchange) {
+    return erro(HttpStatus.INTERNAL_SERVER_ERROR, exception.getMessage(), exchange);
+  }
+
+  /**
+   * Erros do próprio WebFlux (rota inexistente, método não suportado, corpo
+   * ilegível) mantêm o status que trazem.
+   */
+  @ExceptionHandler(ResponseStatusException.class)
+  public ResponseEntity<ApiError> handleResponseStatus(ResponseStatusException exception, ServerWebExchange exchange) {
+    HttpStatus status = HttpStatus.valueOf(exception.getStatusCode().value());
+    return erro(status, exception.getReason(), exchange);
+  }
+
+  @ExceptionHandler(Exception.class)
+  public ResponseEntity<ApiError> handleGeneric(Exception exception, ServerWebExchange exchange) {
+    return erro(HttpStatus.INTERNAL_SERVER_ERROR, exception.getMessage(), exchange);
+  }
+
+  private static ResponseEntity<ApiError> erro(HttpStatus status, String message, ServerWebExchange exchange) {
+    ApiError error = new ApiError();
+    error.setTimestamp(LocalDateTime.now());
+    error.setStatus(status.value());
+    error.setError(status.getReasonPhrase());
+    error.setMessage(message);
+    error.setPath(exchange.getRequest().getPath().value());
+    return new ResponseEntity<>(error, status);
+  }
+}
@@ -0,0 +1,26 @@
+package com.example.app.repository;
+
+import com.example.app.entity.NsuRange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repositório do contador de faixas de NSU.
+ */
+public interface NsuRangeRepository extends JpaRepository<NsuRange, Integer> {
+  /**
+   * Avança o contador em `tamanho` de forma atômica. Retorna 0 se o
+   * contador ainda não existe.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update NsuRange f set f.proximo = f.proximo + :tamanho where f.id = :id")
+  int avancar(@Param("id") Integer id, @Param("tamanho") long tamanho);
+
+  /**
+   * Valor atual do contador.
+   */
+  @Query("select f.proximo from NsuRange f where f.id = :id")
+  Long proximo(@Param("id") Integer id);
+}
@@ -1,18 +1,107 @@
 package com.example.app.repository;
 
+import com.example.app.dto.payment.PaymentView;
 import com.example.app.entity.Payment;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repositório JPA de pagamentos.
  *
  * Permite persistir e consultar transações e fornece busca por `externalId`
- * para apoiar a idempotência.
+ * para apoiar a idempotência. A listagem filtrada vem de
+ * {@link PaymentSearchRepository}.
  */
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, PaymentSearchRepository {
   /**
    * Busca um pagamento pelo identificador externo.
    */
   Optional<Payment> findByExternalId(String externalId);
-}
\ No newline at end of file
+
+  /**
+   * Retorna, dentre os identificadores informados, os que já existem.
+   * Usado pelo processamento em lote para checar duplicidade em uma só consulta.
+   */
+  @Query("select p.externalId from Payment p where p.externalId in :externalIds")
+  List<String> findExistingExternalIds(@Param("externalIds") Collection<String> externalIds);
+
+  boolean existsByExternalId(String externalId);
+
+  /**
+   * Estorno condicional em um único UPDATE: só altera a linha se ela
+   * ainda estiver `AUTORIZADO`. Retorna a quantidade de linhas alteradas
+   * (0 ou 1). Incrementa `versao` como o Hibernate faria, invalidando
+   * cópias lidas antes do estorno. O contexto de persistência é gravado
+   * antes e limpo depois, para não devolver entidades com o status antigo.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Transactional
+  @Query("update Payment p set p.status = 'CANCELADO', p.canceladoEm = :canceladoEm, p.versao = p.versao + 1"
+      + " where p.externalId = :externalId and p.status = 'AUTORIZADO'")
+  int cancel(@Param("externalId") String externalId, @Param("canceladoEm") LocalDateTime canceladoEm);
+
+  /**
+   * Dentre os identificadores, os que estão `AUTORIZADO`, com as linhas
+   * bloqueadas (`select ... for update`) até o fim da transação.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select p.externalId from Payment p where p.externalId in :externalIds and p.status = 'AUTORIZADO'")
+  List<String> lockAuthorizedExternalIds(@Param("externalIds") Collection<String> externalIds);
+
+  /**
+   * Estorno condicional de vários pagamentos em um único UPDATE, com as
+   * mesmas regras de {@link #cancel}. Retorna a quantidade de linhas alteradas.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Transactional
+  @Query("update Payment p set p.status = 'CANCELADO', p.canceladoEm = :canceladoEm, p.versao = p.versao + 1"
+      + " where p.externalId in :externalIds and p.status = 'AUTORIZADO'")
+  int cancelAll(@Param("externalIds") Collection<String> externalIds, @Param("canceladoEm") LocalDateTime canceladoEm);
+
+  /** Expressão de construção de {@link PaymentView} usada pelas consultas somente leitura. */
+  String VIEW = "select new com.example.app.dto.payment.PaymentView(p.id, p.externalId, p.cartao, p.valor, p.dataHora,"
+      + " p.estabelecimento, p.nsu, p.codigoAutorizacao, p.status, p.tipo, p.parcelas) from Payment p";
+
+  /**
+   * Projeção de um pagamento pelo identificador externo.
+   */
+  @Query(VIEW + " where p.externalId = :externalId")
+  Optional<PaymentView> findViewByExternalId(@Param("externalId") String externalId);
+
+  /**
+   * Projeções de vários pagamentos pelos identificadores externos, em uma consulta.
+   */
+  @Query(VIEW + " where p.externalId in :externalIds")
+  List<PaymentView> findViewsByExternalIds(@Param("externalIds") Collection<String> externalIds);
+
+  /**
+   * Primeira página da listagem por cursor, do `id` mais recente para o mais antigo.
+   */
+  @Query(VIEW + " order by p.id desc")
+  List<PaymentView> findViews(Limit limit);
+
+  /**
+   * Página seguinte da listagem por cursor: percorre o índice da chave
+   * primária a partir de `id`, sem OFFSET nem contagem.
+   */
+  @Query(VIEW + " where p.id < :id order by p.id desc")
+  List<PaymentView> findViewsBefore(@Param("id") Long id, Limit limit);
+
+  /**
+   * Listagem por página numerada sem a consulta de contagem.
+   */
+  @Query(VIEW)
+  Slice<PaymentView> findViews(Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.example.app.repository;
+
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentView;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Listagem filtrada de pagamentos, incorporada ao {@link PaymentRepository}.
+ */
+public interface PaymentSearchRepository {
+  /**
+   * Até `limite` pagamentos que atendem a `filtro`, com `id` menor que
+   * `antesDe`, do mais recente para o mais antigo.
+   */
+  List<PaymentView> search(PaymentFilter filtro, long antesDe, int limite);
+
+  /**
+   * Entrega a `destino`, em ordem crescente de `id`, cada pagamento que
+   * atende a `filtro`, à medida que as linhas chegam do banco em blocos de
+   * `fetchSize`.
+   */
+  void forEach(PaymentFilter filtro, int fetchSize, Consumer<PaymentView> destino);
+}
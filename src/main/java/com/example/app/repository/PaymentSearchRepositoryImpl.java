@@ -0,0 +1,136 @@
+package com.example.app.repository;
+
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentView;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Implementação de {@link PaymentSearchRepository} com o SQL montado só
+ * com os filtros informados.
+ *
+ * Cada filtro vira uma condição direta sobre a coluna (`status = ?`,
+ * `data_hora >= ?`), sem a forma `(? is null or coluna = ?)`, que impede o
+ * banco de usar os índices de `V2__indices_consulta.sql`.
+ *
+ * A página é resolvida em duas etapas: a subconsulta escolhe só os ids,
+ * que os índices já contêm, e a consulta externa busca as linhas pela
+ * chave primária. Com todas as colunas na mesma consulta, o H2 estimava
+ * a leitura das linhas pelo índice de data/hora ou de valor como mais cara
+ * que percorrer a chave primária em ordem decrescente. O plano das
+ * combinações usuais é conferido em `PaymentSearchQueryPlanTest`.
+ *
+ * A exportação ({@link #forEach}) percorre o resultado com um cursor
+ * somente para frente, sem montar lista nem entidades.
+ */
+public class PaymentSearchRepositoryImpl implements PaymentSearchRepository {
+  private static final String COLUNAS = "select id, external_id, cartao, valor, data_hora, estabelecimento, nsu,"
+      + " codigo_autorizacao, status, tipo, parcelas from payment";
+  private static final String SELECT = COLUNAS + " where id in (select id from payment where id < ?";
+  private static final RowMapper<PaymentView> VIEW = (linha, numero) -> new PaymentView(linha.getLong("id"),
+      linha.getString("external_id"), linha.getString("cartao"), linha.getBigDecimal("valor"),
+      linha.getObject("data_hora", LocalDateTime.class), linha.getString("estabelecimento"), linha.getString("nsu"),
+      linha.getString("codigo_autorizacao"), linha.getString("status"), linha.getString("tipo"),
+      linha.getObject("parcelas", Integer.class));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public PaymentSearchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public List<PaymentView> search(PaymentFilter filtro, long antesDe, int limite) {
+    Consulta consulta = consulta(filtro, antesDe, limite);
+    return jdbcTemplate.query(consulta.sql(), VIEW, consulta.parametros().toArray());
+  }
+
+  /**
+   * No H2, o resultado só é lido sob demanda com `LAZY_QUERY_EXECUTION`; sem
+   * ela o banco monta o resultado inteiro antes da primeira linha. A
+   * configuração vale para a sessão e é desfeita antes de a conexão voltar
+   * ao pool.
+   */
+  @Override
+  public void forEach(PaymentFilter filtro, int fetchSize, Consumer<PaymentView> destino) {
+    Consulta consulta = exportacao(filtro);
+    jdbcTemplate.execute((ConnectionCallback<Void>) conexao -> {
+      boolean h2 = "H2".equals(conexao.getMetaData().getDatabaseProductName());
+      if (h2) {
+        executar(conexao, "set lazy_query_execution true");
+      }
+      try (PreparedStatement comando = conexao.prepareStatement(consulta.sql(), ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY)) {
+        comando.setFetchSize(fetchSize);
+        new ArgumentPreparedStatementSetter(consulta.parametros().toArray()).setValues(comando);
+        try (ResultSet linhas = comando.executeQuery()) {
+          int numero = 0;
+          while (linhas.next()) {
+            destino.accept(VIEW.mapRow(linhas, numero++));
+          }
+        }
+      } finally {
+        if (h2) {
+          executar(conexao, "set lazy_query_execution false");
+        }
+      }
+      return null;
+    });
+  }
+
+  private static void executar(Connection conexao, String sql) throws SQLException {
+    try (Statement comando = conexao.createStatement()) {
+      comando.execute(sql);
+    }
+  }
+
+  /** SQL e parâmetros, na ordem dos `?`. */
+  record Consulta(String sql, List<Object> parametros) {}
+
+  static Consulta consulta(PaymentFilter filtro, long antesDe, int limite) {
+    StringBuilder sql = new StringBuilder(SELECT);
+    List<Object> parametros = new ArrayList<>(9);
+    parametros.add(antesDe);
+    condicoes(sql, parametros, filtro);
+    sql.append(" order by id desc fetch first ? rows only) order by id desc");
+    parametros.add(limite);
+    return new Consulta(sql.toString(), parametros);
+  }
+
+  /** Todos os pagamentos do filtro, em ordem crescente de `id`. */
+  static Consulta exportacao(PaymentFilter filtro) {
+    StringBuilder sql = new StringBuilder(COLUNAS).append(" where id > 0");
+    List<Object> parametros = new ArrayList<>(7);
+    condicoes(sql, parametros, filtro);
+    sql.append(" order by id");
+    return new Consulta(sql.toString(), parametros);
+  }
+
+  private static void condicoes(StringBuilder sql, List<Object> parametros, PaymentFilter filtro) {
+    condicao(sql, parametros, "status = ?", filtro.getStatus());
+    condicao(sql, parametros, "estabelecimento = ?", filtro.getEstabelecimento());
+    condicao(sql, parametros, "tipo = ?", filtro.getTipo());
+    condicao(sql, parametros, "data_hora >= ?", filtro.getDataHoraInicio());
+    condicao(sql, parametros, "data_hora <= ?", filtro.getDataHoraFim());
+    condicao(sql, parametros, "valor >= ?", filtro.getValorMinimo());
+    condicao(sql, parametros, "valor <= ?", filtro.getValorMaximo());
+  }
+
+  private static void condicao(StringBuilder sql, List<Object> parametros, String condicao, Object valor) {
+    if (valor != null) {
+      sql.append(" and ").append(condicao);
+      parametros.add(valor);
+    }
+  }
+}
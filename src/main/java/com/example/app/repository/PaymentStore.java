@@ -0,0 +1,121 @@
+package com.example.app.repository;
+
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.entity.Payment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Armazenamento de pagamentos usado pelo serviço.
+ *
+ * Reúne apenas as operações do fluxo de autorização, estorno e consulta. A
+ * implementação é escolhida por `app.armazenamento.tipo`: `jpa`
+ * (`JpaPaymentStore`, padrão, tabela `payment` via {@link PaymentRepository})
+ * ou `journal` ({@link com.example.app.repository.journal.PaymentJournal},
+ * arquivos de segmento mapeados em memória). Implementações devem ser
+ * thread-safe.
+ */
+public interface PaymentStore {
+  /** Resultado de {@link #cancel}. */
+  enum ResultadoEstorno {
+    ESTORNADO,
+    NAO_ENCONTRADO,
+    /** O pagamento existe, mas não está `AUTORIZADO` (inclusive já estornado). */
+    STATUS_INVALIDO
+  }
+
+  /**
+   * Persiste um pagamento novo e preenche o seu `id`. Retorna `false` quando
+   * o `externalId` já existe; outras falhas são propagadas.
+   */
+  boolean insert(Payment pagamento);
+
+  /**
+   * Persiste os pagamentos e indica, por posição, quais foram gravados.
+   * Posições `false` correspondem a `externalId` já existente.
+   */
+  default boolean[] insertAll(List<Payment> pagamentos) {
+    return insertAll(pagamentos, null);
+  }
+
+  /**
+   * Como {@link #insertAll(List)}; se `falhas` não for `null`, a falha de
+   * uma linha vai para `falhas[i]` sem impedir a gravação das demais.
+   */
+  boolean[] insertAll(List<Payment> pagamentos, RuntimeException[] falhas);
+
+  /**
+   * Grava a alteração de um pagamento já persistido. Na tabela, a alteração
+   * é rejeitada com `ObjectOptimisticLockingFailureException` se a linha
+   * mudou desde a leitura.
+   */
+  void update(Payment pagamento);
+
+  /**
+   * Estorna o pagamento se, e somente se, ele estiver `AUTORIZADO`, como
+   * uma única operação atômica: de estornos concorrentes do mesmo
+   * identificador, apenas um resulta em {@link ResultadoEstorno#ESTORNADO}.
+   */
+  ResultadoEstorno cancel(String externalId, LocalDateTime canceladoEm);
+
+  /**
+   * Estorna cada identificador como {@link #cancel} e devolve o resultado
+   * por posição. Os identificadores não devem se repetir.
+   */
+  default ResultadoEstorno[] cancelAll(List<String> externalIds, LocalDateTime canceladoEm) {
+    ResultadoEstorno[] resultados = new ResultadoEstorno[externalIds.size()];
+    for (int i = 0; i < resultados.length; i++) {
+      resultados[i] = cancel(externalIds.get(i), canceladoEm);
+    }
+    return resultados;
+  }
+
+  Optional<Payment> findByExternalId(String externalId);
+
+  /**
+   * Retorna, dentre os identificadores informados, os que já existem.
+   */
+  List<String> findExistingExternalIds(Collection<String> externalIds);
+
+  Optional<PaymentView> findViewByExternalId(String externalId);
+
+  /**
+   * Projeções dos identificadores informados que existem, em qualquer ordem.
+   */
+  List<PaymentView> findViewsByExternalIds(Collection<String> externalIds);
+
+  /**
+   * Até `limite` pagamentos, do `id` mais recente para o mais antigo.
+   */
+  List<PaymentView> findViews(int limite);
+
+  /**
+   * Até `limite` pagamentos com `id` menor que o informado, em ordem decrescente de `id`.
+   */
+  List<PaymentView> findViewsBefore(long id, int limite);
+
+  /**
+   * Até `limite` pagamentos que atendem a `filtro`, com `id` menor que
+   * `antesDe`, em ordem decrescente de `id`.
+   */
+  List<PaymentView> findViews(PaymentFilter filtro, long antesDe, int limite);
+
+  /**
+   * Entrega a `destino`, em ordem crescente de `id`, todos os pagamentos que
+   * atendem a `filtro`, sem acumulá-los: a memória usada depende de `lote`
+   * (linhas lidas por vez), não da quantidade exportada. `destino` é
+   * chamado fora de locks do armazenamento e pode bloquear em I/O.
+   */
+  void forEachView(PaymentFilter filtro, int lote, Consumer<PaymentView> destino);
+
+  /**
+   * Página numerada em ordem decrescente de `id`, sem contagem total.
+   */
+  Slice<PaymentView> findViews(Pageable pageable);
+}
@@ -0,0 +1,226 @@
+package com.example.app.repository.journal;
+
+import com.example.app.entity.Payment;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Layout fixo dos registros do journal: todo registro ocupa
+ * {@link #TAMANHO} bytes, então a posição de um registro é o seu índice
+ * vezes o tamanho, sem varrer o segmento.
+ *
+ * | offset | campo                                      |
+ * |--------|--------------------------------------------|
+ * | 0      | CRC32C dos bytes 4..511 (int)              |
+ * | 4      | tipo: 0 vazio, 1 autorização, 2 estado     |
+ * | 8      | id (long)                                  |
+ * | 16     | valor em centavos (long)                   |
+ * | 24     | dataHora: segundos UTC (long) e nanos (int)|
+ * | 36     | parcelas (int)                             |
+ * | 40     | canceladoEm: segundos (long) e nanos (int) |
+ * | 52     | externalId (1 + 63 bytes)                  |
+ * | 116    | cartao (1 + 31)                            |
+ * | 148    | tipo de pagamento (1 + 23)                 |
+ * | 172    | nsu (1 + 23)                               |
+ * | 196    | codigoAutorizacao (1 + 23)                 |
+ * | 220    | status (1 + 15)                            |
+ * | 236    | estabelecimento (2 + 274)                  |
+ *
+ * Textos são gravados em UTF-8 precedidos do tamanho em bytes; tamanho
+ * máximo do campo mais um indica `null`, assim como `Long.MIN_VALUE` e
+ * `Integer.MIN_VALUE` nos números. O registro de estado usa apenas `id`,
+ * `status` e `canceladoEm`.
+ */
+final class JournalRecord {
+  static final int TAMANHO = 512;
+  static final byte VAZIO = 0;
+  static final byte AUTORIZACAO = 1;
+  static final byte ESTADO = 2;
+
+  private static final int CRC = 0;
+  private static final int TIPO = 4;
+  private static final int ID = 8;
+  private static final int VALOR = 16;
+  private static final int DATA_HORA = 24;
+  private static final int PARCELAS = 36;
+  private static final int CANCELADO_EM = 40;
+  private static final Campo EXTERNAL_ID = new Campo(52, 1, 63);
+  private static final Campo CARTAO = new Campo(116, 1, 31);
+  private static final Campo TIPO_PAGAMENTO = new Campo(148, 1, 23);
+  private static final Campo NSU = new Campo(172, 1, 23);
+  private static final Campo CODIGO_AUTORIZACAO = new Campo(196, 1, 23);
+  private static final Campo STATUS = new Campo(220, 1, 15);
+  private static final Campo ESTABELECIMENTO = new Campo(236, 2, 274);
+
+  private JournalRecord() {}
+
+  /**
+   * Campo texto: `prefixo` bytes de tamanho seguidos de até `maximo` bytes.
+   */
+  private record Campo(int offset, int prefixo, int maximo) {
+    void escrever(ByteBuffer registro, String valor, String nome) {
+      if (valor == null) {
+        tamanho(registro, maximo + 1);
+        return;
+      }
+      byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+      if (bytes.length > maximo) {
+        throw new IllegalArgumentException(nome + " excede " + maximo + " bytes no journal");
+      }
+      tamanho(registro, bytes.length);
+      registro.put(offset + prefixo, bytes);
+    }
+
+    String ler(ByteBuffer registro) {
+      int tamanho = prefixo == 1 ? Byte.toUnsignedInt(registro.get(offset)) : Short.toUnsignedInt(registro.getShort(offset));
+      if (tamanho > maximo) {
+        return null;
+      }
+      byte[] bytes = new byte[tamanho];
+      registro.get(offset + prefixo, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void tamanho(ByteBuffer registro, int tamanho) {
+      if (prefixo == 1) {
+        registro.put(offset, (byte) tamanho);
+      } else {
+        registro.putShort(offset, (short) tamanho);
+      }
+    }
+  }
+
+  /**
+   * Preenche `registro` (com {@link #TAMANHO} bytes) com a autorização sob
+   * o `id` informado. Lança `IllegalArgumentException` se algum campo não
+   * couber no layout.
+   */
+  static void escreverAutorizacao(ByteBuffer registro, Payment pagamento, long id) {
+    Arrays.fill(registro.array(), (byte) 0);
+    registro.put(TIPO, AUTORIZACAO);
+    registro.putLong(ID, id);
+    registro.putLong(VALOR, centavos(pagamento.getValor()));
+    escreverDataHora(registro, DATA_HORA, pagamento.getDataHora());
+    registro.putInt(PARCELAS, pagamento.getParcelas() != null ? pagamento.getParcelas() : Integer.MIN_VALUE);
+    escreverDataHora(registro, CANCELADO_EM, pagamento.getCanceladoEm());
+    EXTERNAL_ID.escrever(registro, pagamento.getExternalId(), "externalId");
+    CARTAO.escrever(registro, pagamento.getCartao(), "cartao");
+    TIPO_PAGAMENTO.escrever(registro, pagamento.getTipo(), "tipo");
+    NSU.escrever(registro, pagamento.getNsu(), "nsu");
+    CODIGO_AUTORIZACAO.escrever(registro, pagamento.getCodigoAutorizacao(), "codigoAutorizacao");
+    STATUS.escrever(registro, pagamento.getStatus(), "status");
+    ESTABELECIMENTO.escrever(registro, pagamento.getEstabelecimento(), "estabelecimento");
+    selar(registro);
+  }
+
+  /**
+   * Preenche `registro` com a mudança de estado do pagamento `id`.
+   */
+  static void escreverEstado(ByteBuffer registro, long id, String status, LocalDateTime canceladoEm) {
+    Arrays.fill(registro.array(), (byte) 0);
+    registro.put(TIPO, ESTADO);
+    registro.putLong(ID, id);
+    escreverDataHora(registro, CANCELADO_EM, canceladoEm);
+    STATUS.escrever(registro, status, "status");
+    selar(registro);
+  }
+
+  /**
+   * Copia o estado de `estado` para o registro de autorização `base` e
+   * recalcula o CRC. Usado pela compactação.
+   */
+  static void mesclarEstado(ByteBuffer base, ByteBuffer estado) {
+    base.put(CANCELADO_EM, estado.array(), CANCELADO_EM, 12);
+    base.put(STATUS.offset(), estado.array(), STATUS.offset(), STATUS.prefixo() + STATUS.maximo());
+    selar(base);
+  }
+
+  static byte tipo(ByteBuffer registro) {
+    return registro.get(TIPO);
+  }
+
+  static long id(ByteBuffer registro) {
+    return registro.getLong(ID);
+  }
+
+  static String externalId(ByteBuffer registro) {
+    return EXTERNAL_ID.ler(registro);
+  }
+
+  static String nsu(ByteBuffer registro) {
+    return NSU.ler(registro);
+  }
+
+  /**
+   * Indica se o CRC confere com o conteúdo.
+   */
+  static boolean integro(ByteBuffer registro) {
+    return registro.getInt(CRC) == crc(registro);
+  }
+
+  static Payment lerPagamento(ByteBuffer registro) {
+    Payment pagamento = new Payment();
+    pagamento.setId(registro.getLong(ID));
+    long valor = registro.getLong(VALOR);
+    pagamento.setValor(valor != Long.MIN_VALUE ? BigDecimal.valueOf(valor, 2) : null);
+    pagamento.setDataHora(lerDataHora(registro, DATA_HORA));
+    int parcelas = registro.getInt(PARCELAS);
+    pagamento.setParcelas(parcelas != Integer.MIN_VALUE ? parcelas : null);
+    pagamento.setCanceladoEm(lerDataHora(registro, CANCELADO_EM));
+    pagamento.setExternalId(EXTERNAL_ID.ler(registro));
+    pagamento.setCartao(CARTAO.ler(registro));
+    pagamento.setTipo(TIPO_PAGAMENTO.ler(registro));
+    pagamento.setNsu(NSU.ler(registro));
+    pagamento.setCodigoAutorizacao(CODIGO_AUTORIZACAO.ler(registro));
+    pagamento.setStatus(STATUS.ler(registro));
+    pagamento.setEstabelecimento(ESTABELECIMENTO.ler(registro));
+    return pagamento;
+  }
+
+  /**
+   * Aplica ao pagamento o estado gravado em um registro de estado.
+   */
+  static void aplicarEstado(ByteBuffer estado, Payment pagamento) {
+    pagamento.setStatus(STATUS.ler(estado));
+    pagamento.setCanceladoEm(lerDataHora(estado, CANCELADO_EM));
+  }
+
+  private static void selar(ByteBuffer registro) {
+    registro.putInt(CRC, crc(registro));
+  }
+
+  private static int crc(ByteBuffer registro) {
+    CRC32C crc = new CRC32C();
+    crc.update(registro.array(), registro.arrayOffset() + TIPO, TAMANHO - TIPO);
+    return (int) crc.getValue();
+  }
+
+  private static long centavos(BigDecimal valor) {
+    if (valor == null) {
+      return Long.MIN_VALUE;
+    }
+    try {
+      return valor.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("valor não cabe no journal: " + valor.toPlainString(), e);
+    }
+  }
+
+  private static void escreverDataHora(ByteBuffer registro, int offset, LocalDateTime dataHora) {
+    registro.putLong(offset, dataHora != null ? dataHora.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+    registro.putInt(offset + 8, dataHora != null ? dataHora.getNano() : 0);
+  }
+
+  private static LocalDateTime lerDataHora(ByteBuffer registro, int offset) {
+    long segundos = registro.getLong(offset);
+    return segundos != Long.MIN_VALUE
+        ? LocalDateTime.ofEpochSecond(segundos, registro.getInt(offset + 8), ZoneOffset.UTC)
+        : null;
+  }
+}
@@ -0,0 +1,880 @@
+package com.example.app.repository.journal;
+
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore;
+import com.example.app.util.LongLongIndex;
+import com.example.app.validator.PaymentFormats;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Armazenamento de pagamentos em journal só de acréscimo, sem banco
+ * relacional (`app.armazenamento.tipo=journal`).
+ *
+ * Os registros têm layout fixo ({@link JournalRecord}) e são gravados em
+ * arquivos de segmento `pagamentos-NNNNNN.journal` mapeados em memória em
+ * `app.armazenamento.journal.diretorio`. Autorizações são registros novos;
+ * um estorno acrescenta um registro de estado, nunca altera o anterior.
+ * Em memória ficam o índice `externalId → id` e, por `id`, a posição do
+ * registro de autorização e do último registro de estado, o que também
+ * atende a listagem em ordem decrescente de `id` sem ordenar nada.
+ *
+ * Durabilidade: com `app.armazenamento.journal.sincronizar=true` (padrão)
+ * cada gravação faz `force` do trecho escrito antes de retornar, uma vez
+ * por chamada de {@link #insertAll}; com `false` a queda do processo não
+ * perde nada (as páginas já estão no cache do sistema), mas a queda da
+ * máquina pode perder as últimas gravações.
+ *
+ * Recuperação: na inicialização os segmentos são relidos em ordem e o
+ * índice reconstruído. Um registro com CRC inválido no último segmento é
+ * uma escrita interrompida e é descartado junto com o que vier depois; em
+ * segmentos anteriores é corrupção e a inicialização falha.
+ *
+ * Segmentos: ao encher, o ativo é sincronizado e selado e um novo é criado
+ * com `app.armazenamento.journal.tamanho-segmento`. Quando os registros de
+ * estado passam de `app.armazenamento.journal.limiar-compactacao` dos
+ * registros selados, a compactação roda em segundo plano: cada segmento
+ * selado afetado é reescrito com o estado mesclado nos registros de
+ * autorização e sem os registros de estado, e substitui o original por
+ * `rename` atômico, do segmento mais antigo para o mais novo.
+ *
+ * NSU: com a estratégia `faixa`, as faixas vêm de {@link #reservarFaixaNsu}
+ * e não do contador `nsu_faixa` do banco, que em memória recomeçaria a cada
+ * reinício. O próximo NSU livre fica no arquivo `nsu-faixa` do diretório,
+ * regravado (temporário, `force` e `rename` atômico) antes de cada faixa
+ * ser entregue; na abertura ele nunca fica abaixo do maior NSU numérico
+ * encontrado nos segmentos, mesmo sem o arquivo. A gravação não verifica
+ * unicidade de `nsu`: com a estratégia `aleatorio` pode haver repetição.
+ */
+@Component
+@ConditionalOnProperty(name = "app.armazenamento.tipo", havingValue = "journal")
+@Slf4j
+public class PaymentJournal implements PaymentStore, AutoCloseable {
+  private static final int MAGICO = 0x50474A31;
+  private static final int VERSAO = 1;
+  static final int CABECALHO = 64;
+  private static final Pattern NOME_SEGMENTO = Pattern.compile("pagamentos-(\\d{6})\\.journal");
+  private static final String TEMPORARIO = ".compactando";
+  private static final String ARQUIVO_NSU = "nsu-faixa";
+
+  private final Path diretorio;
+  private final int registrosPorSegmento;
+  private final boolean sincronizar;
+  private final double limiarCompactacao;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ReentrantLock compactacao = new ReentrantLock();
+  private final ReentrantLock faixaNsu = new ReentrantLock();
+  private final ExecutorService compactador = Executors.newSingleThreadExecutor(tarefa -> {
+    Thread thread = new Thread(tarefa, "pagamentos-journal");
+    thread.setDaemon(true);
+    return thread;
+  });
+  /** Segmentos por `numero - 1`; o último é o ativo. */
+  private final List<Segmento> segmentos = new ArrayList<>();
+  /** `externalId → id` dos identificadores de 15 dígitos, sem boxing. */
+  private final LongLongIndex ids = new LongLongIndex(1024);
+  /** `externalId → id` dos demais identificadores. */
+  private final Map<String, Long> outrosIds = new HashMap<>();
+  /** Posição do registro de autorização por `id - 1`; 0 se ausente. */
+  private long[] autorizacoes = new long[1024];
+  /** Posição do último registro de estado por `id - 1`; 0 se não houver. */
+  private long[] estados = new long[1024];
+  private long ultimoId;
+  /** Maior NSU numérico lido dos segmentos na abertura. */
+  private long maiorNsu;
+  /** Próximo NSU ainda não entregue em faixa; protegido por {@link #faixaNsu}. */
+  private long proximoNsu;
+
+  /**
+   * Arquivo de segmento mapeado. `usados` só muda no segmento ativo, sob o
+   * lock de escrita.
+   */
+  private static final class Segmento {
+    final int numero;
+    final Path arquivo;
+    final FileChannel canal;
+    final MappedByteBuffer mapa;
+    final int capacidade;
+    int usados;
+    int registrosEstado;
+    int sincronizados;
+
+    Segmento(int numero, Path arquivo, FileChannel canal, MappedByteBuffer mapa, int capacidade) {
+      this.numero = numero;
+      this.arquivo = arquivo;
+      this.canal = canal;
+      this.mapa = mapa;
+      this.capacidade = capacidade;
+    }
+  }
+
+  @Autowired
+  public PaymentJournal(@Value("${app.armazenamento.journal.diretorio:data/journal}") Path diretorio,
+      @Value("${app.armazenamento.journal.tamanho-segmento:64MB}") DataSize tamanhoSegmento,
+      @Value("${app.armazenamento.journal.sincronizar:true}") boolean sincronizar,
+      @Value("${app.armazenamento.journal.limiar-compactacao:0.25}") double limiarCompactacao) {
+    this(diretorio, registros(tamanhoSegmento), sincronizar, limiarCompactacao);
+  }
+
+  /**
+   * Construtor com o tamanho do segmento em registros, para permitir testes.
+   * Abre o journal e reconstrói o índice a partir dos segmentos existentes.
+   */
+  public PaymentJournal(Path diretorio, int registrosPorSegmento, boolean sincronizar, double limiarCompactacao) {
+    if (registrosPorSegmento < 1 || registrosPorSegmento > (Integer.MAX_VALUE - CABECALHO) / JournalRecord.TAMANHO) {
+      throw new IllegalArgumentException("app.armazenamento.journal.tamanho-segmento fora do intervalo permitido");
+    }
+    this.diretorio = diretorio;
+    this.registrosPorSegmento = registrosPorSegmento;
+    this.sincronizar = sincronizar;
+    this.limiarCompactacao = limiarCompactacao;
+    try {
+      abrir();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao abrir o journal em " + diretorio, e);
+    }
+  }
+
+  private static int registros(DataSize tamanhoSegmento) {
+    return (int) Math.min(Integer.MAX_VALUE, (tamanhoSegmento.toBytes() - CABECALHO) / JournalRecord.TAMANHO);
+  }
+
+  private void abrir() throws IOException {
+    Files.createDirectories(diretorio);
+    TreeMap<Integer, Path> arquivos = new TreeMap<>();
+    try (Stream<Path> conteudo = Files.list(diretorio)) {
+      for (Path arquivo : (Iterable<Path>) conteudo::iterator) {
+        String nome = arquivo.getFileName().toString();
+        Matcher matcher = NOME_SEGMENTO.matcher(nome);
+        if (nome.endsWith(TEMPORARIO)) {
+          // Compactação interrompida antes do rename: o original continua válido.
+          Files.delete(arquivo);
+        } else if (matcher.matches()) {
+          arquivos.put(Integer.parseInt(matcher.group(1)), arquivo);
+        }
+      }
+    }
+    int esperado = 1;
+    for (Map.Entry<Integer, Path> arquivo : arquivos.entrySet()) {
+      if (arquivo.getKey() != esperado++) {
+        throw new IllegalStateException("Segmento ausente no journal antes de " + arquivo.getValue());
+      }
+      Segmento segmento = mapear(arquivo.getKey(), arquivo.getValue());
+      segmentos.add(segmento);
+      recuperar(segmento, arquivo.getKey().equals(arquivos.lastKey()));
+    }
+    if (segmentos.isEmpty()) {
+      segmentos.add(criarSegmento(1));
+    }
+    proximoNsu = Math.max(lerProximoNsu(), maiorNsu + 1);
+    log.info("Journal aberto diretorio={} segmentos={} pagamentos={} proximoNsu={}", diretorio, segmentos.size(),
+        ids.size() + outrosIds.size(), proximoNsu);
+  }
+
+  /** Valor do arquivo `nsu-faixa`, ou 1 se ausente ou ilegível. */
+  private long lerProximoNsu() throws IOException {
+    Path arquivo = diretorio.resolve(ARQUIVO_NSU);
+    if (!Files.exists(arquivo)) {
+      return 1;
+    }
+    ByteBuffer conteudo = ByteBuffer.wrap(Files.readAllBytes(arquivo));
+    if (conteudo.capacity() != Long.BYTES + Integer.BYTES
+        || conteudo.getInt(Long.BYTES) != crcNsu(conteudo.getLong(0))) {
+      log.warn("Arquivo {} inválido; o próximo NSU parte do maior gravado nos segmentos", arquivo);
+      return 1;
+    }
+    return conteudo.getLong(0);
+  }
+
+  /**
+   * Reserva `tamanho` NSUs consecutivos e retorna o primeiro. O novo limite
+   * é persistido antes do retorno: após reinício, nenhuma faixa se repete.
+   */
+  public long reservarFaixaNsu(int tamanho) {
+    faixaNsu.lock();
+    try {
+      long inicio = proximoNsu;
+      gravarProximoNsu(inicio + tamanho);
+      proximoNsu = inicio + tamanho;
+      return inicio;
+    } finally {
+      faixaNsu.unlock();
+    }
+  }
+
+  private void gravarProximoNsu(long proximo) {
+    Path arquivo = diretorio.resolve(ARQUIVO_NSU);
+    Path temporario = arquivo.resolveSibling(ARQUIVO_NSU + ".tmp");
+    ByteBuffer conteudo = ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(proximo).putInt(crcNsu(proximo));
+    try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      canal.write(conteudo.clear());
+      canal.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao gravar " + arquivo, e);
+    }
+    try {
+      Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao gravar " + arquivo, e);
+    }
+    sincronizarDiretorio();
+  }
+
+  private static int crcNsu(long proximo) {
+    CRC32C crc = new CRC32C();
+    crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, proximo));
+    return (int) crc.getValue();
+  }
+
+  /** NSU como número, ou 0 se não for numérico (ex.: gerado por outra estratégia). */
+  private static long numeroNsu(String nsu) {
+    if (nsu == null || nsu.isEmpty() || nsu.length() > 18) {
+      return 0;
+    }
+    for (int i = 0; i < nsu.length(); i++) {
+      if (nsu.charAt(i) < '0' || nsu.charAt(i) > '9') {
+        return 0;
+      }
+    }
+    return Long.parseLong(nsu);
+  }
+
+  /**
+   * Relê os registros do segmento e atualiza o índice.
+   */
+  private void recuperar(Segmento segmento, boolean ultimo) {
+    ByteBuffer registro = ByteBuffer.allocate(JournalRecord.TAMANHO);
+    int indice = 0;
+    for (; indice < segmento.capacidade; indice++) {
+      segmento.mapa.get(offset(indice), registro.array());
+      byte tipo = JournalRecord.tipo(registro);
+      if (tipo == JournalRecord.VAZIO && registro.getInt(0) == 0) {
+        break;
+      }
+      if (!JournalRecord.integro(registro) || (tipo != JournalRecord.AUTORIZACAO && tipo != JournalRecord.ESTADO)) {
+        if (!ultimo) {
+          throw new IllegalStateException("Registro corrompido em " + segmento.arquivo + " posição " + indice);
+        }
+        log.warn("Escrita incompleta no journal arquivo={} posicao={}; registros seguintes descartados",
+            segmento.arquivo, indice);
+        descartarAPartirDe(segmento, indice);
+        break;
+      }
+      indexar(tipo, registro, segmento, indice);
+    }
+    segmento.usados = indice;
+    segmento.sincronizados = indice;
+  }
+
+  private void indexar(byte tipo, ByteBuffer registro, Segmento segmento, int indice) {
+    long id = JournalRecord.id(registro);
+    if (tipo == JournalRecord.AUTORIZACAO) {
+      garantirCapacidade(id);
+      autorizacoes[(int) (id - 1)] = posicao(segmento.numero, indice);
+      associar(JournalRecord.externalId(registro), id);
+      ultimoId = Math.max(ultimoId, id);
+      maiorNsu = Math.max(maiorNsu, numeroNsu(JournalRecord.nsu(registro)));
+    } else {
+      segmento.registrosEstado++;
+      if (id >= 1 && id <= ultimoId && autorizacoes[(int) (id - 1)] != 0) {
+        estados[(int) (id - 1)] = posicao(segmento.numero, indice);
+      } else {
+        log.warn("Registro de estado sem autorização id={} arquivo={}", id, segmento.arquivo);
+      }
+    }
+  }
+
+  /** `id` do pagamento com o identificador, ou 0 se não houver. */
+  private long idDe(String externalId) {
+    long chave = PaymentFormats.parseExternalId(externalId);
+    if (chave != PaymentFormats.INVALIDO) {
+      long id = ids.get(chave);
+      return id != LongLongIndex.AUSENTE ? id : 0;
+    }
+    return outrosIds.getOrDefault(externalId, 0L);
+  }
+
+  private void associar(String externalId, long id) {
+    long chave = PaymentFormats.parseExternalId(externalId);
+    if (chave != PaymentFormats.INVALIDO) {
+      ids.put(chave, id);
+    } else {
+      outrosIds.put(externalId, id);
+    }
+  }
+
+  private void descartarAPartirDe(Segmento segmento, int indice) {
+    byte[] zeros = new byte[JournalRecord.TAMANHO];
+    for (int i = indice; i < segmento.capacidade; i++) {
+      segmento.mapa.put(offset(i), zeros);
+    }
+    segmento.mapa.force();
+  }
+
+  @Override
+  public boolean insert(Payment pagamento) {
+    return insertAll(List.of(pagamento), null)[0];
+  }
+
+  /**
+   * Codifica todos os registros antes de gravar: sem `falhas`, um campo que
+   * não cabe no layout lança `IllegalArgumentException` e nada é gravado.
+   * Os registros da chamada são sincronizados juntos.
+   */
+  @Override
+  public boolean[] insertAll(List<Payment> pagamentos, RuntimeException[] falhas) {
+    boolean[] gravados = new boolean[pagamentos.size()];
+    if (pagamentos.isEmpty()) {
+      return gravados;
+    }
+    ByteBuffer[] registros = new ByteBuffer[pagamentos.size()];
+    lock.writeLock().lock();
+    try {
+      Set<String> nestaChamada = new HashSet<>();
+      long id = ultimoId;
+      for (int i = 0; i < pagamentos.size(); i++) {
+        String externalId = pagamentos.get(i).getExternalId();
+        if (idDe(externalId) != 0 || !nestaChamada.add(externalId)) {
+          continue;
+        }
+        ByteBuffer registro = ByteBuffer.allocate(JournalRecord.TAMANHO);
+        try {
+          JournalRecord.escreverAutorizacao(registro, pagamentos.get(i), id + 1);
+        } catch (IllegalArgumentException e) {
+          if (falhas == null) {
+            throw e;
+          }
+          falhas[i] = e;
+          nestaChamada.remove(externalId);
+          continue;
+        }
+        registros[i] = registro;
+        id++;
+      }
+      for (int i = 0; i < registros.length; i++) {
+        if (registros[i] == null) {
+          continue;
+        }
+        long novoId = ++ultimoId;
+        garantirCapacidade(novoId);
+        autorizacoes[(int) (novoId - 1)] = anexar(registros[i], false);
+        associar(pagamentos.get(i).getExternalId(), novoId);
+        pagamentos.get(i).setId(novoId);
+        gravados[i] = true;
+      }
+      sincronizarAtivo();
+      return gravados;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Acrescenta um registro de estado com `status` e `canceladoEm`; os
+   * demais campos de um pagamento gravado não mudam.
+   */
+  @Override
+  public void update(Payment pagamento) {
+    lock.writeLock().lock();
+    try {
+      long id = idDe(pagamento.getExternalId());
+      if (id == 0) {
+        throw new IllegalArgumentException("Pagamento não encontrado no journal: " + pagamento.getExternalId());
+      }
+      ByteBuffer registro = ByteBuffer.allocate(JournalRecord.TAMANHO);
+      JournalRecord.escreverEstado(registro, id, pagamento.getStatus(), pagamento.getCanceladoEm());
+      estados[(int) (id - 1)] = anexar(registro, true);
+      sincronizarAtivo();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Checagem e registro de estado sob o mesmo lock de escrita.
+   */
+  @Override
+  public ResultadoEstorno cancel(String externalId, LocalDateTime canceladoEm) {
+    return cancelAll(List.of(externalId), canceladoEm)[0];
+  }
+
+  /**
+   * Todos os estornos sob um único lock de escrita e um único `force`.
+   */
+  @Override
+  public ResultadoEstorno[] cancelAll(List<String> externalIds, LocalDateTime canceladoEm) {
+    ResultadoEstorno[] resultados = new ResultadoEstorno[externalIds.size()];
+    ByteBuffer registro = ByteBuffer.allocate(JournalRecord.TAMANHO);
+    lock.writeLock().lock();
+    try {
+      for (int i = 0; i < resultados.length; i++) {
+        long id = idDe(externalIds.get(i));
+        if (id == 0) {
+          resultados[i] = ResultadoEstorno.NAO_ENCONTRADO;
+        } else if (!"AUTORIZADO".equals(carregar(id).getStatus())) {
+          resultados[i] = ResultadoEstorno.STATUS_INVALIDO;
+        } else {
+          JournalRecord.escreverEstado(registro, id, "CANCELADO", canceladoEm);
+          estados[(int) (id - 1)] = anexar(registro, true);
+          resultados[i] = ResultadoEstorno.ESTORNADO;
+        }
+      }
+      sincronizarAtivo();
+      return resultados;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Optional<Payment> findByExternalId(String externalId) {
+    lock.readLock().lock();
+    try {
+      long id = idDe(externalId);
+      return id != 0 ? Optional.of(carregar(id)) : Optional.empty();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<String> findExistingExternalIds(Collection<String> externalIds) {
+    lock.readLock().lock();
+    try {
+      return externalIds.stream().filter(externalId -> idDe(externalId) != 0).toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Optional<PaymentView> findViewByExternalId(String externalId) {
+    return findByExternalId(externalId).map(PaymentView::of);
+  }
+
+  @Override
+  public List<PaymentView> findViewsByExternalIds(Collection<String> externalIds) {
+    return externalIds.stream().map(this::findViewByExternalId).flatMap(Optional::stream).toList();
+  }
+
+  @Override
+  public List<PaymentView> findViews(int limite) {
+    return listar(Long.MAX_VALUE, 0, limite, PaymentFilter.NENHUM);
+  }
+
+  @Override
+  public List<PaymentView> findViewsBefore(long id, int limite) {
+    return listar(id - 1, 0, limite, PaymentFilter.NENHUM);
+  }
+
+  /**
+   * Sem índices secundários: percorre os pagamentos a partir de `antesDe`
+   * aplicando o filtro a cada um.
+   */
+  @Override
+  public List<PaymentView> findViews(PaymentFilter filtro, long antesDe, int limite) {
+    return listar(antesDe - 1, 0, limite, filtro);
+  }
+
+  /**
+   * Lê `lote` ids por vez sob o lock de leitura e entrega o bloco já fora
+   * dele, para que uma exportação lenta não segure as gravações.
+   */
+  @Override
+  public void forEachView(PaymentFilter filtro, int lote, Consumer<PaymentView> destino) {
+    List<PaymentView> bloco = new ArrayList<>(lote);
+    for (long inicio = 1; ; inicio += lote) {
+      bloco.clear();
+      lock.readLock().lock();
+      try {
+        if (inicio > ultimoId) {
+          return;
+        }
+        long fim = Math.min(ultimoId, inicio + lote - 1);
+        for (long id = inicio; id <= fim; id++) {
+          if (autorizacoes[(int) (id - 1)] == 0) {
+            continue;
+          }
+          PaymentView pagamento = PaymentView.of(carregar(id));
+          if (filtro.aceita(pagamento)) {
+            bloco.add(pagamento);
+          }
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+      bloco.forEach(destino);
+    }
+  }
+
+  @Override
+  public Slice<PaymentView> findViews(Pageable pageable) {
+    List<PaymentView> linhas = listar(Long.MAX_VALUE, pageable.getOffset(), pageable.getPageSize() + 1,
+        PaymentFilter.NENHUM);
+    boolean haMais = linhas.size() > pageable.getPageSize();
+    return new SliceImpl<>(haMais ? linhas.subList(0, pageable.getPageSize()) : linhas, pageable, haMais);
+  }
+
+  /**
+   * Até `limite` pagamentos aceitos por `filtro` a partir de `ateId` em
+   * ordem decrescente, pulando os `pular` primeiros (só usado sem filtro).
+   */
+  private List<PaymentView> listar(long ateId, long pular, int limite, PaymentFilter filtro) {
+    List<PaymentView> linhas = new ArrayList<>(Math.min(limite, 1024));
+    lock.readLock().lock();
+    try {
+      for (long id = Math.min(ateId, ultimoId); id >= 1 && linhas.size() < limite; id--) {
+        if (autorizacoes[(int) (id - 1)] == 0) {
+          continue;
+        }
+        if (pular > 0) {
+          pular--;
+          continue;
+        }
+        PaymentView pagamento = PaymentView.of(carregar(id));
+        if (filtro.aceita(pagamento)) {
+          linhas.add(pagamento);
+        }
+      }
+      return linhas;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Lê a autorização e aplica o último estado. Exige o lock de leitura.
+   */
+  private Payment carregar(long id) {
+    ByteBuffer registro = ByteBuffer.allocate(JournalRecord.TAMANHO);
+    ler(autorizacoes[(int) (id - 1)], registro);
+    Payment pagamento = JournalRecord.lerPagamento(registro);
+    long estado = estados[(int) (id - 1)];
+    if (estado != 0) {
+      ler(estado, registro);
+      JournalRecord.aplicarEstado(registro, pagamento);
+    }
+    return pagamento;
+  }
+
+  private void ler(long posicao, ByteBuffer registro) {
+    segmentos.get(numero(posicao) - 1).mapa.get(offset(indice(posicao)), registro.array());
+  }
+
+  /**
+   * Grava o registro no fim do segmento ativo, rolando se estiver cheio.
+   * Exige o lock de escrita.
+   */
+  private long anexar(ByteBuffer registro, boolean estado) {
+    Segmento ativo = segmentos.get(segmentos.size() - 1);
+    if (ativo.usados == ativo.capacidade) {
+      ativo = rolar(ativo);
+    }
+    int indice = ativo.usados;
+    ativo.mapa.put(offset(indice), registro.array());
+    ativo.usados++;
+    if (estado) {
+      ativo.registrosEstado++;
+    }
+    return posicao(ativo.numero, indice);
+  }
+
+  private void sincronizarAtivo() {
+    Segmento ativo = segmentos.get(segmentos.size() - 1);
+    if (sincronizar && ativo.sincronizados < ativo.usados) {
+      ativo.mapa.force(offset(ativo.sincronizados), (ativo.usados - ativo.sincronizados) * JournalRecord.TAMANHO);
+    }
+    ativo.sincronizados = ativo.usados;
+  }
+
+  /**
+   * Sela o segmento cheio e cria o próximo; agenda a compactação quando os
+   * registros de estado selados passam do limiar.
+   */
+  private Segmento rolar(Segmento cheio) {
+    sincronizarAtivo();
+    Segmento novo;
+    try {
+      novo = criarSegmento(cheio.numero + 1);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao criar segmento do journal", e);
+    }
+    segmentos.add(novo);
+    long selados = 0;
+    long estadosSelados = 0;
+    for (int i = 0; i < segmentos.size() - 1; i++) {
+      selados += segmentos.get(i).usados;
+      estadosSelados += segmentos.get(i).registrosEstado;
+    }
+    log.info("Segmento do journal selado numero={} registros={}", cheio.numero, cheio.usados);
+    if (limiarCompactacao > 0 && estadosSelados > 0 && estadosSelados >= limiarCompactacao * selados) {
+      compactador.execute(this::compactar);
+    }
+    return novo;
+  }
+
+  /**
+   * Reescreve os segmentos selados que têm registros de estado ou as
+   * autorizações a que eles se referem. Segura cada segmento com o lock de
+   * escrita apenas para a troca do arquivo; uma compactação em andamento
+   * faz as chamadas concorrentes retornarem sem fazer nada.
+   */
+  public void compactar() {
+    if (!compactacao.tryLock()) {
+      return;
+    }
+    try {
+      List<Segmento> selados;
+      lock.readLock().lock();
+      try {
+        selados = new ArrayList<>(segmentos.subList(0, segmentos.size() - 1));
+      } finally {
+        lock.readLock().unlock();
+      }
+      Map<Long, ByteBuffer> ultimoEstado = new HashMap<>();
+      Set<Integer> reescrever = new TreeSet<>();
+      for (Segmento segmento : selados) {
+        if (segmento.registrosEstado == 0) {
+          continue;
+        }
+        reescrever.add(segmento.numero);
+        for (int indice = 0; indice < segmento.usados; indice++) {
+          ByteBuffer registro = ByteBuffer.allocate(JournalRecord.TAMANHO);
+          segmento.mapa.get(offset(indice), registro.array());
+          if (JournalRecord.tipo(registro) == JournalRecord.ESTADO) {
+            ultimoEstado.put(JournalRecord.id(registro), registro);
+          }
+        }
+      }
+      lock.readLock().lock();
+      try {
+        for (long id : ultimoEstado.keySet()) {
+          if (id <= ultimoId && autorizacoes[(int) (id - 1)] != 0) {
+            reescrever.add(numero(autorizacoes[(int) (id - 1)]));
+          }
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+      for (int numero : reescrever) {
+        reescrever(selados.get(numero - 1), ultimoEstado);
+      }
+      if (!reescrever.isEmpty()) {
+        log.info("Journal compactado segmentos={} estados mesclados={}", reescrever.size(), ultimoEstado.size());
+      }
+    } catch (IOException e) {
+      log.error("Falha na compactação do journal", e);
+    } finally {
+      compactacao.unlock();
+    }
+  }
+
+  /**
+   * Grava o segmento compactado em um arquivo temporário e troca o original
+   * por ele. Registros de estado são descartados: a autorização a que se
+   * referem está neste segmento ou em um anterior, já reescrito com o estado
+   * mesclado.
+   */
+  private void reescrever(Segmento segmento, Map<Long, ByteBuffer> ultimoEstado) throws IOException {
+    Path temporario = segmento.arquivo.resolveSibling(segmento.arquivo.getFileName() + TEMPORARIO);
+    long[] autorizados = new long[segmento.usados];
+    long[] descartados = new long[segmento.registrosEstado];
+    int mantidos = 0;
+    int removidos = 0;
+    try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      canal.write(cabecalho(segmento.numero));
+      ByteBuffer registro = ByteBuffer.allocate(JournalRecord.TAMANHO);
+      for (int indice = 0; indice < segmento.usados; indice++) {
+        segmento.mapa.get(offset(indice), registro.array());
+        long id = JournalRecord.id(registro);
+        if (JournalRecord.tipo(registro) == JournalRecord.ESTADO) {
+          descartados[removidos++] = id;
+          continue;
+        }
+        ByteBuffer estado = ultimoEstado.get(id);
+        if (estado != null) {
+          JournalRecord.mesclarEstado(registro, estado);
+        }
+        canal.write(registro.clear());
+        autorizados[mantidos++] = id;
+      }
+      canal.force(true);
+    }
+    lock.writeLock().lock();
+    try {
+      Files.move(temporario, segmento.arquivo, StandardCopyOption.ATOMIC_MOVE);
+      sincronizarDiretorio();
+      Segmento compactado = mapear(segmento.numero, segmento.arquivo);
+      compactado.usados = mantidos;
+      compactado.sincronizados = mantidos;
+      segmentos.set(segmento.numero - 1, compactado);
+      for (int i = 0; i < mantidos; i++) {
+        autorizacoes[(int) (autorizados[i] - 1)] = posicao(segmento.numero, i);
+      }
+      for (int i = 0; i < removidos; i++) {
+        int posicaoId = (int) (descartados[i] - 1);
+        if (posicaoId < estados.length && numero(estados[posicaoId]) == segmento.numero) {
+          estados[posicaoId] = 0;
+        }
+      }
+      segmento.canal.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private Segmento criarSegmento(int numero) throws IOException {
+    Path arquivo = diretorio.resolve(String.format("pagamentos-%06d.journal", numero));
+    try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      canal.write(cabecalho(numero));
+      canal.write(ByteBuffer.allocate(1), CABECALHO + (long) registrosPorSegmento * JournalRecord.TAMANHO - 1);
+      canal.force(true);
+    }
+    sincronizarDiretorio();
+    return mapear(numero, arquivo);
+  }
+
+  private Segmento mapear(int numero, Path arquivo) throws IOException {
+    FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long tamanho = canal.size();
+    if (tamanho < CABECALHO || tamanho > Integer.MAX_VALUE) {
+      canal.close();
+      throw new IllegalStateException("Segmento do journal com tamanho inválido: " + arquivo);
+    }
+    MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+    if (mapa.getInt(0) != MAGICO || mapa.getInt(4) != VERSAO || mapa.getInt(8) != JournalRecord.TAMANHO
+        || mapa.getInt(12) != numero) {
+      canal.close();
+      throw new IllegalStateException("Cabeçalho inválido no segmento do journal: " + arquivo);
+    }
+    return new Segmento(numero, arquivo, canal, mapa, (int) ((tamanho - CABECALHO) / JournalRecord.TAMANHO));
+  }
+
+  private static ByteBuffer cabecalho(int numero) {
+    ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+    cabecalho.putInt(MAGICO).putInt(VERSAO).putInt(JournalRecord.TAMANHO).putInt(numero);
+    return cabecalho.clear();
+  }
+
+  /**
+   * Persiste a criação e a troca de arquivos no diretório. Nem todo sistema
+   * permite abrir diretórios; nesse caso a falha é ignorada.
+   */
+  private void sincronizarDiretorio() {
+    try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+      canal.force(true);
+    } catch (IOException e) {
+      log.debug("Sincronização do diretório do journal indisponível", e);
+    }
+  }
+
+  private void garantirCapacidade(long id) {
+    if (id > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Journal excedeu o número máximo de pagamentos");
+    }
+    if (id > autorizacoes.length) {
+      int tamanho = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(id, (long) autorizacoes.length * 2));
+      autorizacoes = Arrays.copyOf(autorizacoes, tamanho);
+      estados = Arrays.copyOf(estados, tamanho);
+    }
+  }
+
+  private static long posicao(int numero, int indice) {
+    return ((long) numero << 32) | indice;
+  }
+
+  private static int numero(long posicao) {
+    return (int) (posicao >>> 32);
+  }
+
+  private static int indice(long posicao) {
+    return (int) posicao;
+  }
+
+  private static int offset(int indice) {
+    return CABECALHO + indice * JournalRecord.TAMANHO;
+  }
+
+  /** Número de segmentos, incluindo o ativo. */
+  int quantidadeSegmentos() {
+    lock.readLock().lock();
+    try {
+      return segmentos.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Registros de estado ainda presentes nos segmentos. */
+  int registrosEstado() {
+    lock.readLock().lock();
+    try {
+      return segmentos.stream().mapToInt(segmento -> segmento.registrosEstado).sum();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Encerra a compactação, sincroniza o segmento ativo e fecha os arquivos.
+   */
+  @PreDestroy
+  @Override
+  public void close() {
+    compactador.shutdownNow();
+    compactacao.lock();
+    lock.writeLock().lock();
+    try {
+      sincronizarAtivo();
+      for (Segmento segmento : segmentos) {
+        segmento.canal.close();
+      }
+    } catch (IOException e) {
+      log.warn("Falha ao fechar o journal", e);
+    } finally {
+      lock.writeLock().unlock();
+      compactacao.unlock();
+    }
+  }
+}
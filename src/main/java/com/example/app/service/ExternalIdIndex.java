@@ -0,0 +1,171 @@
+package com.example.app.service;
+
+import com.example.app.util.LongLongIndex;
+import com.example.app.validator.PaymentFormats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.PreparedStatement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Índice em memória `externalId → id/status` da tabela `payment`, usado por
+ * {@link JpaPaymentStore} para responder checagens de duplicidade e
+ * consultas de identificadores inexistentes sem ir ao banco.
+ *
+ * Identificadores de 15 dígitos cabem em `long` e ficam em um
+ * {@link LongLongIndex} (sem boxing); o valor guarda o `id` da linha e o
+ * status em 2 bits. Outros identificadores não são indexados e a resposta
+ * é {@link Situacao#DESCONHECIDO}, assim como qualquer consulta antes do fim
+ * da carga inicial, que lê a tabela em streaming quando a aplicação fica
+ * pronta.
+ *
+ * Alterações entram no índice logo após a escrita e são desfeitas se a
+ * transação corrente não fizer commit. Só é correto se esta aplicação for a
+ * única a gravar na tabela; com mais de uma instância, desligue com
+ * `app.armazenamento.jpa.indice=false`.
+ */
+@Component
+@ConditionalOnProperty(name = "app.armazenamento.tipo", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class ExternalIdIndex implements MeterBinder {
+  /** Resposta do índice para um identificador. */
+  public enum Situacao {
+    /** Não indexável ou índice ainda não carregado: consultar o banco. */
+    DESCONHECIDO,
+    AUSENTE,
+    AUTORIZADO,
+    CANCELADO,
+    /** Presente com outro status (ex.: gravado direto como NEGADO). */
+    OUTRO
+  }
+
+  private static final int BITS_STATUS = 2;
+  private static final long AUTORIZADO = 0;
+  private static final long CANCELADO = 1;
+  private static final long OUTRO = 2;
+  private static final int LOTE_LEITURA = 10_000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean habilitado;
+  private final LongLongIndex indice;
+  private volatile boolean pronto;
+
+  @Autowired
+  public ExternalIdIndex(JdbcTemplate jdbcTemplate,
+      @Value("${app.armazenamento.jpa.indice:true}") boolean habilitado,
+      @Value("${app.armazenamento.jpa.indice-capacidade-inicial:1000000}") int capacidadeInicial) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.habilitado = habilitado;
+    this.indice = new LongLongIndex(habilitado ? capacidadeInicial : 16);
+  }
+
+  /**
+   * Carrega a tabela em streaming. Gravações feitas durante a carga já
+   * estão no índice e prevalecem sobre a linha lida.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void carregar() {
+    if (!habilitado) {
+      return;
+    }
+    long inicio = System.nanoTime();
+    jdbcTemplate.query(conexao -> {
+      PreparedStatement consulta = conexao.prepareStatement("select external_id, id, status from payment");
+      consulta.setFetchSize(LOTE_LEITURA);
+      return consulta;
+    }, (RowCallbackHandler) linha -> {
+      long chave = PaymentFormats.parseExternalId(linha.getString(1));
+      if (chave != PaymentFormats.INVALIDO) {
+        indice.putIfAbsent(chave, valor(linha.getLong(2), linha.getString(3)));
+      }
+    });
+    pronto = true;
+    log.info("Índice de identificadores carregado entradas={} bytes={} duracao_ms={}", indice.size(),
+        indice.bytes(), (System.nanoTime() - inicio) / 1_000_000);
+  }
+
+  public Situacao situacao(String externalId) {
+    long chave = PaymentFormats.parseExternalId(externalId);
+    if (!pronto || chave == PaymentFormats.INVALIDO) {
+      return Situacao.DESCONHECIDO;
+    }
+    long valor = indice.get(chave);
+    if (valor == LongLongIndex.AUSENTE) {
+      return Situacao.AUSENTE;
+    }
+    long status = valor & ((1 << BITS_STATUS) - 1);
+    return status == AUTORIZADO ? Situacao.AUTORIZADO : status == CANCELADO ? Situacao.CANCELADO : Situacao.OUTRO;
+  }
+
+  /**
+   * Registra a linha gravada (ou o novo status). Se houver transação em
+   * andamento, o valor anterior volta caso ela não faça commit.
+   */
+  public void registrar(String externalId, long id, String status) {
+    long chave = PaymentFormats.parseExternalId(externalId);
+    if (!habilitado || chave == PaymentFormats.INVALIDO) {
+      return;
+    }
+    long novo = valor(id, status);
+    desfazerNoRollback(chave, novo, indice.put(chave, novo));
+  }
+
+  /**
+   * Como {@link #registrar}, mantendo o `id` já indexado; não faz nada se o
+   * identificador não estiver no índice.
+   */
+  public void registrarStatus(String externalId, String status) {
+    long chave = PaymentFormats.parseExternalId(externalId);
+    if (!habilitado || chave == PaymentFormats.INVALIDO) {
+      return;
+    }
+    long anterior = indice.get(chave);
+    if (anterior == LongLongIndex.AUSENTE) {
+      return;
+    }
+    long novo = valor(anterior >>> BITS_STATUS, status);
+    if (indice.replace(chave, anterior, novo)) {
+      desfazerNoRollback(chave, novo, anterior);
+    }
+  }
+
+  private void desfazerNoRollback(long chave, long novo, long anterior) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int situacao) {
+          if (situacao != STATUS_COMMITTED) {
+            indice.replace(chave, novo, anterior);
+          }
+        }
+      });
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("pagamentos.indice.entradas", indice, LongLongIndex::size)
+        .description("Identificadores no índice em memória")
+        .register(registry);
+    Gauge.builder("pagamentos.indice.memoria", indice, LongLongIndex::bytes)
+        .description("Memória ocupada pelo índice de identificadores")
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  private static long valor(long id, String status) {
+    long codigo = "AUTORIZADO".equals(status) ? AUTORIZADO : "CANCELADO".equals(status) ? CANCELADO : OUTRO;
+    return id << BITS_STATUS | codigo;
+  }
+}
@@ -0,0 +1,254 @@
+package com.example.app.service;
+
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Grava autorizações concorrentes em grupo ("group commit").
+ *
+ * Cada chamada de {@link #insert(Payment)} entra em uma fila e espera. Uma
+ * única thread gravadora retira da fila o que estiver pendente, aguarda até
+ * `app.gravacao.grupo.espera-maxima` por mais pedidos enquanto o grupo tiver
+ * menos de `app.gravacao.grupo.tamanho-maximo`, e grava o grupo em uma
+ * gravação via {@link PaymentStore#insertAll(List, RuntimeException[])} (uma
+ * transação com batching no JPA, um único `force` no journal).
+ * Só depois do commit cada chamador é liberado com o seu resultado, então o
+ * contrato síncrono (AUTORIZADO/NEGADO) e a durabilidade não mudam; o custo
+ * de commit é dividido pelo grupo.
+ *
+ * Uma duplicidade dentro do grupo é negada individualmente: só a duplicada
+ * recebe `false` e as demais são gravadas.
+ *
+ * Cada chamador espera no máximo `app.gravacao.grupo.tempo-limite` (padrão
+ * 30 s); esgotado o prazo, recebe `IllegalStateException` (se o pedido já
+ * estava sendo gravado, ele ainda pode ser persistido). No encerramento, o
+ * que estiver na fila é gravado dentro do mesmo prazo e o restante falha.
+ *
+ * Métricas: `pagamentos.grupo.tamanho` (autorizações por commit),
+ * `pagamentos.grupo.espera` (da entrada na fila ao início da gravação),
+ * `pagamentos.grupo.commit` (duração da gravação do grupo),
+ * `pagamentos.grupo.fila` e os limites configurados
+ * (`pagamentos.grupo.tamanho.maximo`, `pagamentos.grupo.espera.maxima`).
+ */
+@Component
+@ConditionalOnProperty(name = "app.gravacao.modo", havingValue = "grupo")
+@Slf4j
+public class GroupPaymentCommitter implements PaymentCommitter {
+  private final PaymentStore store;
+  private final int tamanhoMaximo;
+  private final long esperaMaximaNanos;
+  private final long tempoLimiteNanos;
+  private final BlockingQueue<Pedido> fila = new LinkedBlockingQueue<>();
+  private final Thread gravadora;
+  private final DistributionSummary tamanhoGrupo;
+  private final Timer espera;
+  private final Timer commit;
+  private volatile boolean ativo = true;
+
+  /**
+   * Pagamento aguardando gravação, com o instante de entrada na fila.
+   */
+  private record Pedido(Payment pagamento, long entrada, CompletableFuture<Boolean> resultado) {}
+
+  @Autowired
+  public GroupPaymentCommitter(PaymentStore store, MeterRegistry registry,
+      @Value("${app.gravacao.grupo.tamanho-maximo:64}") int tamanhoMaximo,
+      @Value("${app.gravacao.grupo.espera-maxima:2ms}") Duration esperaMaxima,
+      @Value("${app.gravacao.grupo.tempo-limite:30s}") Duration tempoLimite) {
+    if (tamanhoMaximo < 1) {
+      throw new IllegalArgumentException("app.gravacao.grupo.tamanho-maximo deve ser positivo");
+    }
+    this.store = store;
+    this.tamanhoMaximo = tamanhoMaximo;
+    this.esperaMaximaNanos = esperaMaxima.toNanos();
+    this.tempoLimiteNanos = tempoLimite.toNanos();
+    this.tamanhoGrupo = DistributionSummary.builder("pagamentos.grupo.tamanho")
+        .description("Autorizações gravadas por commit")
+        .publishPercentileHistogram()
+        .maximumExpectedValue((double) tamanhoMaximo)
+        .register(registry);
+    this.espera = Timer.builder("pagamentos.grupo.espera")
+        .description("Espera na fila até o início da gravação do grupo")
+        .publishPercentileHistogram()
+        .register(registry);
+    this.commit = Timer.builder("pagamentos.grupo.commit")
+        .description("Duração da gravação de um grupo")
+        .publishPercentileHistogram()
+        .register(registry);
+    Gauge.builder("pagamentos.grupo.fila", fila, BlockingQueue::size)
+        .description("Autorizações aguardando gravação")
+        .register(registry);
+    Gauge.builder("pagamentos.grupo.tamanho.maximo", () -> tamanhoMaximo)
+        .description("Limite configurado de autorizações por commit")
+        .register(registry);
+    Gauge.builder("pagamentos.grupo.espera.maxima", () -> esperaMaxima.toNanos() / 1e9)
+        .description("Espera máxima configurada para completar um grupo")
+        .baseUnit("seconds")
+        .register(registry);
+    this.gravadora = new Thread(this::executar, "pagamentos-grupo");
+    gravadora.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void iniciar() {
+    gravadora.start();
+  }
+
+  /**
+   * Enfileira o pagamento e espera o commit do seu grupo, por no máximo
+   * `app.gravacao.grupo.tempo-limite`.
+   */
+  @Override
+  public boolean insert(Payment pagamento) {
+    if (!ativo) {
+      throw new IllegalStateException("Gravação em grupo encerrada");
+    }
+    Pedido pedido = new Pedido(pagamento, System.nanoTime(), new CompletableFuture<>());
+    fila.add(pedido);
+    // O encerramento pode ter começado entre a checagem e o add; se a
+    // gravadora não retirou o pedido, ninguém mais vai retirá-lo.
+    if ((!ativo || !gravadora.isAlive()) && fila.remove(pedido)) {
+      throw new IllegalStateException("Gravação em grupo encerrada");
+    }
+    boolean interrompido = false;
+    try {
+      while (true) {
+        try {
+          return pedido.resultado().get(pedido.entrada() + tempoLimiteNanos - System.nanoTime(),
+              TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+          // O pedido já está na fila e pode ser gravado; espera o desfecho.
+          interrompido = true;
+        }
+      }
+    } catch (TimeoutException e) {
+      fila.remove(pedido);
+      log.error("Tempo esgotado aguardando a gravação em grupo identificador={}", pagamento.getExternalId());
+      throw new IllegalStateException("Tempo esgotado aguardando a gravação em grupo");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException causa) {
+        throw causa;
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      if (interrompido) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void executar() {
+    List<Pedido> grupo = new ArrayList<>(tamanhoMaximo);
+    while (ativo || !fila.isEmpty()) {
+      try {
+        formarGrupo(grupo);
+      } catch (InterruptedException e) {
+        // Só ocorre no encerramento; o que já saiu da fila é gravado abaixo.
+      }
+      if (grupo.isEmpty()) {
+        continue;
+      }
+      try {
+        gravar(grupo);
+      } catch (RuntimeException | Error e) {
+        log.error("Falha inesperada na gravação em grupo tamanho={}", grupo.size(), e);
+        grupo.forEach(pedido -> pedido.resultado().completeExceptionally(e));
+      } finally {
+        grupo.clear();
+      }
+    }
+    falharPendentes();
+  }
+
+  private void falharPendentes() {
+    Pedido restante;
+    while ((restante = fila.poll()) != null) {
+      restante.resultado().completeExceptionally(new IllegalStateException("Gravação em grupo encerrada"));
+    }
+  }
+
+  /**
+   * Espera o primeiro pedido e completa o grupo com o que chegar até o
+   * limite de tamanho ou de espera. Deixa o grupo vazio se nada chegou.
+   */
+  private void formarGrupo(List<Pedido> grupo) throws InterruptedException {
+    Pedido primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+    if (primeiro == null) {
+      return;
+    }
+    grupo.add(primeiro);
+    fila.drainTo(grupo, tamanhoMaximo - grupo.size());
+    long prazo = System.nanoTime() + esperaMaximaNanos;
+    while (grupo.size() < tamanhoMaximo) {
+      long restante = prazo - System.nanoTime();
+      if (restante <= 0) {
+        break;
+      }
+      Pedido proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+      if (proximo == null) {
+        break;
+      }
+      grupo.add(proximo);
+      fila.drainTo(grupo, tamanhoMaximo - grupo.size());
+    }
+  }
+
+  private void gravar(List<Pedido> grupo) {
+    long inicio = System.nanoTime();
+    List<Payment> pagamentos = new ArrayList<>(grupo.size());
+    for (Pedido pedido : grupo) {
+      espera.record(inicio - pedido.entrada(), TimeUnit.NANOSECONDS);
+      pagamentos.add(pedido.pagamento());
+    }
+    RuntimeException[] falhas = new RuntimeException[grupo.size()];
+    boolean[] gravados;
+    try {
+      gravados = store.insertAll(pagamentos, falhas);
+    } finally {
+      commit.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+      tamanhoGrupo.record(grupo.size());
+    }
+    for (int i = 0; i < grupo.size(); i++) {
+      if (falhas[i] != null) {
+        grupo.get(i).resultado().completeExceptionally(falhas[i]);
+      } else {
+        grupo.get(i).resultado().complete(gravados[i]);
+      }
+    }
+  }
+
+  /**
+   * Para de aceitar pedidos, grava o que já estava na fila e encerra a
+   * thread. Se a gravadora não terminar em `app.gravacao.grupo.tempo-limite`,
+   * os pedidos ainda na fila falham.
+   */
+  @PreDestroy
+  public void encerrar() throws InterruptedException {
+    ativo = false;
+    gravadora.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(tempoLimiteNanos)));
+    if (gravadora.isAlive()) {
+      gravadora.interrupt();
+    }
+    falharPendentes();
+  }
+}
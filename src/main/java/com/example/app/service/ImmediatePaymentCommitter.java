@@ -0,0 +1,25 @@
+package com.example.app.service;
+
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estratégia padrão: cada autorização gravada isoladamente, via
+ * {@link PaymentStore#insert(Payment)}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.gravacao.modo", havingValue = "imediato", matchIfMissing = true)
+public class ImmediatePaymentCommitter implements PaymentCommitter {
+  private final PaymentStore store;
+
+  public ImmediatePaymentCommitter(PaymentStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public boolean insert(Payment pagamento) {
+    return store.insert(pagamento);
+  }
+}
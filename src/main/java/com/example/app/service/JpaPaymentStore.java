@@ -0,0 +1,232 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentRepository;
+import com.example.app.repository.PaymentStore;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Armazenamento padrão na tabela `payment`: gravações via {@link PaymentWriter}
+ * e leituras via {@link PaymentRepository}.
+ *
+ * Identificadores que o {@link ExternalIdIndex} conhece não vão ao banco
+ * para checar duplicidade ou existência; os desconhecidos seguem o caminho
+ * normal.
+ */
+@Component
+@ConditionalOnProperty(name = "app.armazenamento.tipo", havingValue = "jpa", matchIfMissing = true)
+public class JpaPaymentStore implements PaymentStore {
+  private final PaymentRepository repository;
+  private final PaymentWriter writer;
+  private final ExternalIdIndex indice;
+
+  public JpaPaymentStore(PaymentRepository repository, PaymentWriter writer, ExternalIdIndex indice) {
+    this.repository = repository;
+    this.writer = writer;
+    this.indice = indice;
+  }
+
+  @Override
+  public boolean insert(Payment pagamento) {
+    if (existe(indice.situacao(pagamento.getExternalId()))) {
+      return false;
+    }
+    boolean gravado = writer.insert(pagamento);
+    if (gravado) {
+      registrar(pagamento);
+    }
+    return gravado;
+  }
+
+  /**
+   * Duplicadas já conhecidas pelo índice ficam fora do lote enviado ao banco.
+   */
+  @Override
+  public boolean[] insertAll(List<Payment> pagamentos, RuntimeException[] falhas) {
+    boolean[] gravados = new boolean[pagamentos.size()];
+    List<Payment> novos = new ArrayList<>(pagamentos.size());
+    int[] posicoes = new int[pagamentos.size()];
+    for (int i = 0; i < pagamentos.size(); i++) {
+      if (!existe(indice.situacao(pagamentos.get(i).getExternalId()))) {
+        posicoes[novos.size()] = i;
+        novos.add(pagamentos.get(i));
+      }
+    }
+    if (novos.isEmpty()) {
+      return gravados;
+    }
+    RuntimeException[] falhasNovos = falhas != null ? new RuntimeException[novos.size()] : null;
+    boolean[] gravadosNovos = writer.insertAll(novos, falhasNovos);
+    for (int i = 0; i < novos.size(); i++) {
+      gravados[posicoes[i]] = gravadosNovos[i];
+      if (falhasNovos != null) {
+        falhas[posicoes[i]] = falhasNovos[i];
+      }
+      if (gravadosNovos[i]) {
+        registrar(novos.get(i));
+      }
+    }
+    return gravados;
+  }
+
+  @Override
+  public void update(Payment pagamento) {
+    repository.save(pagamento);
+    registrar(pagamento);
+  }
+
+  /**
+   * Um UPDATE condicional; só quando nenhuma linha muda é preciso saber se
+   * o pagamento existe, o que o índice costuma responder sem o banco.
+   */
+  @Override
+  public ResultadoEstorno cancel(String externalId, LocalDateTime canceladoEm) {
+    ExternalIdIndex.Situacao situacao = indice.situacao(externalId);
+    if (situacao == ExternalIdIndex.Situacao.AUSENTE) {
+      return ResultadoEstorno.NAO_ENCONTRADO;
+    }
+    if (repository.cancel(externalId, canceladoEm) == 1) {
+      indice.registrarStatus(externalId, "CANCELADO");
+      return ResultadoEstorno.ESTORNADO;
+    }
+    boolean existe = situacao != ExternalIdIndex.Situacao.DESCONHECIDO || repository.existsByExternalId(externalId);
+    return existe ? ResultadoEstorno.STATUS_INVALIDO : ResultadoEstorno.NAO_ENCONTRADO;
+  }
+
+  /**
+   * Por conjunto, em uma transação: bloqueia as linhas ainda `AUTORIZADO`,
+   * estorna exatamente essas em um UPDATE e separa as demais entre
+   * inexistentes e com status inválido em uma consulta (ou pelo índice).
+   * O bloqueio garante que o UPDATE altera as linhas consultadas, mesmo com
+   * estornos concorrentes dos mesmos identificadores.
+   */
+  @Override
+  @Transactional
+  public ResultadoEstorno[] cancelAll(List<String> externalIds, LocalDateTime canceladoEm) {
+    ResultadoEstorno[] resultados = new ResultadoEstorno[externalIds.size()];
+    List<String> candidatos = new ArrayList<>(externalIds.size());
+    for (int i = 0; i < externalIds.size(); i++) {
+      if (indice.situacao(externalIds.get(i)) == ExternalIdIndex.Situacao.AUSENTE) {
+        resultados[i] = ResultadoEstorno.NAO_ENCONTRADO;
+      } else {
+        candidatos.add(externalIds.get(i));
+      }
+    }
+    if (candidatos.isEmpty()) {
+      return resultados;
+    }
+    Set<String> autorizados = new HashSet<>(repository.lockAuthorizedExternalIds(candidatos));
+    if (!autorizados.isEmpty()) {
+      repository.cancelAll(autorizados, canceladoEm);
+    }
+    List<String> restantes = candidatos.stream().filter(id -> !autorizados.contains(id)).toList();
+    Set<String> existentes = restantes.isEmpty() ? Set.of() : new HashSet<>(findExistingExternalIds(restantes));
+    for (int i = 0; i < externalIds.size(); i++) {
+      String externalId = externalIds.get(i);
+      if (resultados[i] != null) {
+        continue;
+      }
+      if (autorizados.contains(externalId)) {
+        indice.registrarStatus(externalId, "CANCELADO");
+        resultados[i] = ResultadoEstorno.ESTORNADO;
+      } else {
+        resultados[i] = existentes.contains(externalId) ? ResultadoEstorno.STATUS_INVALIDO
+            : ResultadoEstorno.NAO_ENCONTRADO;
+      }
+    }
+    return resultados;
+  }
+
+  @Override
+  public Optional<Payment> findByExternalId(String externalId) {
+    if (indice.situacao(externalId) == ExternalIdIndex.Situacao.AUSENTE) {
+      return Optional.empty();
+    }
+    return repository.findByExternalId(externalId);
+  }
+
+  /**
+   * Só os identificadores que o índice não resolve são consultados no banco.
+   */
+  @Override
+  public List<String> findExistingExternalIds(Collection<String> externalIds) {
+    List<String> existentes = new ArrayList<>();
+    List<String> desconhecidos = new ArrayList<>();
+    for (String externalId : externalIds) {
+      ExternalIdIndex.Situacao situacao = indice.situacao(externalId);
+      if (existe(situacao)) {
+        existentes.add(externalId);
+      } else if (situacao == ExternalIdIndex.Situacao.DESCONHECIDO) {
+        desconhecidos.add(externalId);
+      }
+    }
+    if (!desconhecidos.isEmpty()) {
+      existentes.addAll(repository.findExistingExternalIds(desconhecidos));
+    }
+    return existentes;
+  }
+
+  @Override
+  public Optional<PaymentView> findViewByExternalId(String externalId) {
+    if (indice.situacao(externalId) == ExternalIdIndex.Situacao.AUSENTE) {
+      return Optional.empty();
+    }
+    return repository.findViewByExternalId(externalId);
+  }
+
+  @Override
+  public List<PaymentView> findViewsByExternalIds(Collection<String> externalIds) {
+    return repository.findViewsByExternalIds(externalIds);
+  }
+
+  @Override
+  public List<PaymentView> findViews(int limite) {
+    return repository.findViews(Limit.of(limite));
+  }
+
+  @Override
+  public List<PaymentView> findViewsBefore(long id, int limite) {
+    return repository.findViewsBefore(id, Limit.of(limite));
+  }
+
+  @Override
+  public List<PaymentView> findViews(PaymentFilter filtro, long antesDe, int limite) {
+    return repository.search(filtro, antesDe, limite);
+  }
+
+  @Override
+  public void forEachView(PaymentFilter filtro, int lote, Consumer<PaymentView> destino) {
+    repository.forEach(filtro, lote, destino);
+  }
+
+  @Override
+  public Slice<PaymentView> findViews(Pageable pageable) {
+    return repository.findViews(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+        Sort.by("id").descending()));
+  }
+
+  private void registrar(Payment pagamento) {
+    indice.registrar(pagamento.getExternalId(), pagamento.getId(), pagamento.getStatus());
+  }
+
+  private static boolean existe(ExternalIdIndex.Situacao situacao) {
+    return situacao != ExternalIdIndex.Situacao.AUSENTE && situacao != ExternalIdIndex.Situacao.DESCONHECIDO;
+  }
+}
@@ -0,0 +1,137 @@
+package com.example.app.service;
+
+import com.example.app.util.ZeroPadding;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gera NSUs únicos por construção a partir de faixas reservadas no banco.
+ *
+ * As threads são distribuídas em listras pelo id da thread. Cada listra
+ * reserva, via {@link NsuRangeAllocator}, uma faixa contígua de
+ * `app.nsu.tamanho-faixa` números e a consome sequencialmente; como as
+ * faixas nunca se sobrepõem (nem entre instâncias, nem após reinício), o NSU
+ * não se repete. O banco só é acessado ao esgotar a faixa.
+ *
+ * O código de autorização continua imprevisível: cada listra tem seu próprio
+ * `SecureRandom` DRBG, sem o lock global do gerador compartilhado, e lê
+ * bytes aleatórios em blocos, já que o custo do DRBG é por chamada. Cada
+ * código usa 4 bytes; valores acima do maior múltiplo de 10^9 são
+ * descartados para não enviesar a distribuição.
+ *
+ * Cada listra é protegida por um {@link ReentrantLock} e não por
+ * `synchronized`: a reserva de faixa vai ao banco com o lock tomado e, em
+ * threads virtuais, um monitor prenderia a thread portadora durante o I/O.
+ */
+@Component
+@ConditionalOnProperty(name = "app.nsu.estrategia", havingValue = "faixa", matchIfMissing = true)
+public class LeasedRangeNsuGenerator implements NsuGenerator {
+  private static final int DIGITOS_NSU = 10;
+  private static final int DIGITOS_CODIGO = 9;
+  private static final int LIMITE_CODIGO = 1_000_000_000;
+  /** Maior múltiplo de {@link #LIMITE_CODIGO} que cabe em 32 bits sem sinal. */
+  private static final long LIMITE_REJEICAO = 4L * LIMITE_CODIGO;
+  private static final int BYTES_ALEATORIOS = 1024;
+
+  private final NsuRangeAllocator allocator;
+  private final int tamanhoFaixa;
+  private final Listra[] listras;
+  private final int mascara;
+
+  /**
+   * @param tamanhoFaixa quantidade de NSUs reservada por acesso ao banco
+   * @param quantidadeListras listras independentes; `0` usa o dobro dos
+   *     processadores disponíveis. Arredondada para potência de 2.
+   */
+  public LeasedRangeNsuGenerator(NsuRangeAllocator allocator,
+      @Value("${app.nsu.tamanho-faixa:10000}") int tamanhoFaixa,
+      @Value("${app.nsu.listras:0}") int quantidadeListras) {
+    if (tamanhoFaixa < 1) {
+      throw new IllegalArgumentException("app.nsu.tamanho-faixa deve ser positivo");
+    }
+    int quantidade = quantidadeListras > 0 ? quantidadeListras : 2 * Runtime.getRuntime().availableProcessors();
+    quantidade = Integer.highestOneBit(Math.max(1, quantidade - 1)) << 1;
+    this.allocator = allocator;
+    this.tamanhoFaixa = tamanhoFaixa;
+    this.listras = new Listra[quantidade];
+    for (int i = 0; i < quantidade; i++) {
+      listras[i] = new Listra();
+    }
+    this.mascara = quantidade - 1;
+  }
+
+  @Override
+  public String proximoNsu() {
+    return ZeroPadding.format(listra().proximoNsu(), DIGITOS_NSU);
+  }
+
+  @Override
+  public String proximoCodigoAutorizacao() {
+    return ZeroPadding.format(listra().proximoCodigo(), DIGITOS_CODIGO);
+  }
+
+  private Listra listra() {
+    return listras[(int) Thread.currentThread().getId() & mascara];
+  }
+
+  /**
+   * Faixa corrente `[proximo, limite)` de uma listra e seu gerador de códigos.
+   */
+  private final class Listra {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SecureRandom random = novoRandom();
+    private final byte[] aleatorios = new byte[BYTES_ALEATORIOS];
+    private int posicao = BYTES_ALEATORIOS;
+    private long proximo;
+    private long limite;
+
+    long proximoNsu() {
+      lock.lock();
+      try {
+        if (proximo == limite) {
+          proximo = allocator.reservar(tamanhoFaixa);
+          limite = proximo + tamanhoFaixa;
+        }
+        return proximo++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    int proximoCodigo() {
+      lock.lock();
+      try {
+        while (true) {
+          if (posicao == BYTES_ALEATORIOS) {
+            random.nextBytes(aleatorios);
+            posicao = 0;
+          }
+          long valor = (aleatorios[posicao] & 0xFFL) << 24 | (aleatorios[posicao + 1] & 0xFF) << 16
+              | (aleatorios[posicao + 2] & 0xFF) << 8 | (aleatorios[posicao + 3] & 0xFF);
+          posicao += 4;
+          if (valor < LIMITE_REJEICAO) {
+            return (int) (valor % LIMITE_CODIGO);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * `SecureRandom` DRBG, implementado em Java e sem leitura de
+   * `/dev/urandom` a cada chamada; cai no padrão da plataforma se indisponível.
+   */
+  static SecureRandom novoRandom() {
+    try {
+      return SecureRandom.getInstance("DRBG");
+    } catch (NoSuchAlgorithmException e) {
+      return new SecureRandom();
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.example.app.service;
+
+/**
+ * Gera os identificadores de uma autorização: o NSU (10 dígitos) e o
+ * código de autorização (9 dígitos).
+ *
+ * A implementação é escolhida por `app.nsu.estrategia`:
+ * `faixa` ({@link LeasedRangeNsuGenerator}, padrão) ou `aleatorio`
+ * ({@link RandomNsuGenerator}). Implementações devem ser thread-safe.
+ */
+public interface NsuGenerator {
+  /**
+   * Próximo NSU com 10 dígitos, completado com zeros à esquerda.
+   */
+  String proximoNsu();
+
+  /**
+   * Próximo código de autorização com 9 dígitos, completado com zeros à esquerda.
+   */
+  String proximoCodigoAutorizacao();
+}
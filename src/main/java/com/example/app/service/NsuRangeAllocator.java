@@ -0,0 +1,78 @@
+package com.example.app.service;
+
+import com.example.app.entity.NsuRange;
+import com.example.app.repository.NsuRangeRepository;
+import com.example.app.repository.journal.PaymentJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserva faixas de NSU no contador persistido em `nsu_faixa`.
+ *
+ * Cada reserva avança o contador com um único `UPDATE` atômico em transação
+ * própria, de modo que instâncias concorrentes (ou a mesma instância após
+ * reinício) nunca recebem faixas sobrepostas. Números reservados e não
+ * usados são descartados.
+ *
+ * Com o journal (`app.armazenamento.tipo=journal`) as faixas vêm dele
+ * ({@link PaymentJournal#reservarFaixaNsu}), persistidas ao lado dos
+ * segmentos: o contador da tabela, em um banco em memória, recomeçaria do
+ * 1 a cada reinício e repetiria NSUs já gravados.
+ */
+@Component
+@Slf4j
+public class NsuRangeAllocator {
+  /** Maior NSU representável em 10 dígitos. */
+  static final long NSU_MAXIMO = 9_999_999_999L;
+  private static final int CONTADOR = 1;
+  private static final long PRIMEIRO_NSU = 1;
+
+  private final NsuRangeRepository repository;
+  private final TransactionTemplate transactionTemplate;
+  private final PaymentJournal journal;
+
+  public NsuRangeAllocator(NsuRangeRepository repository, PlatformTransactionManager transactionManager,
+      ObjectProvider<PaymentJournal> journal) {
+    this.repository = repository;
+    this.journal = journal.getIfAvailable();
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Reserva `tamanho` NSUs consecutivos e retorna o primeiro.
+   */
+  public long reservar(int tamanho) {
+    long inicio;
+    if (journal != null) {
+      inicio = journal.reservarFaixaNsu(tamanho);
+    } else {
+      try {
+        inicio = avancar(tamanho);
+      } catch (DataIntegrityViolationException exception) {
+        // Outra instância criou o contador ao mesmo tempo; agora ele existe.
+        inicio = avancar(tamanho);
+      }
+    }
+    if (inicio + tamanho - 1 > NSU_MAXIMO) {
+      throw new IllegalStateException("Faixa de NSU esgotada");
+    }
+    log.debug("Faixa de NSU reservada inicio={} tamanho={}", inicio, tamanho);
+    return inicio;
+  }
+
+  private long avancar(int tamanho) {
+    return transactionTemplate.execute(status -> {
+      if (repository.avancar(CONTADOR, tamanho) == 0) {
+        repository.saveAndFlush(new NsuRange(CONTADOR, PRIMEIRO_NSU + tamanho));
+        return PRIMEIRO_NSU;
+      }
+      return repository.proximo(CONTADOR) - tamanho;
+    });
+  }
+}
@@ -0,0 +1,306 @@
+package com.example.app.service;
+
+import com.example.app.service.PaymentMetrics.Etapa;
+import com.example.app.service.PaymentMetrics.Operacao;
+import com.example.app.util.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registro de auditoria das autorizações e estornos, fora da thread da
+ * requisição.
+ *
+ * Cada resultado vira um {@link Evento} entregue a um {@link RingBuffer}
+ * (um CAS, sem lock nem I/O). Uma única thread ("pagamentos-auditoria")
+ * retira até `app.auditoria.lote-maximo` eventos por vez, formata cada um
+ * como uma linha `chave=valor` e grava o lote com uma escrita e um flush em
+ * `app.auditoria.destino` (`stdout` ou o caminho de um arquivo, acrescentado).
+ * A latência da requisição deixa de depender da velocidade da saída.
+ *
+ * Em `stdout`, cada lote vira um único evento do logger `auditoria`
+ * (appender próprio em `logback-spring.xml`, só a mensagem): a escrita passa
+ * pelo mesmo `System.out` dos demais logs, sem intercalar linhas.
+ *
+ * Com a fila cheia (`app.auditoria.capacidade` eventos), a política
+ * `app.auditoria.transbordo` decide: `descartar` (padrão) perde o evento e
+ * conta em `pagamentos.auditoria.descartados`; `bloquear` faz a requisição
+ * esperar por espaço.
+ *
+ * Exemplo de linha:
+ * `instante=2021-05-01T18:30:00.123Z operacao=autorizacao id=100023568900001
+ * status=AUTORIZADO codigo=OK sanitizacao_us=3 validacao_us=11 nsu_us=2 gravacao_us=850`
+ */
+@Component
+@Slf4j
+public class PaymentAudit {
+  /** O que fazer com um evento quando a fila está cheia. */
+  public enum Transbordo {
+    DESCARTAR,
+    BLOQUEAR
+  }
+
+  /**
+   * Resultado de uma operação. `etapas` são as durações (ns) por
+   * {@link Etapa#ordinal()}, ou `null`.
+   */
+  public record Evento(long instante, Operacao operacao, String identificador, String status, String codigo,
+      long[] etapas) {}
+
+  private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long ESPERA_BLOQUEIO_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final Etapa[] ETAPAS = Etapa.values();
+  private static final Logger AUDITORIA = LoggerFactory.getLogger("auditoria");
+
+  private final RingBuffer<Evento> fila;
+  private final Transbordo transbordo;
+  private final int loteMaximo;
+  private final Writer saida;
+  private final Thread gravadora;
+  private final StringBuilder linhas = new StringBuilder(16 * 1024);
+  private final Counter descartados;
+  private final Counter gravados;
+  private final DistributionSummary tamanhoLote;
+  private volatile boolean ativo = true;
+  /** A gravadora está (ou vai ficar) parada esperando eventos. */
+  private volatile boolean aguardando;
+
+  @Autowired
+  public PaymentAudit(MeterRegistry registry,
+      @Value("${app.auditoria.destino:stdout}") String destino,
+      @Value("${app.auditoria.capacidade:8192}") int capacidade,
+      @Value("${app.auditoria.transbordo:descartar}") String transbordo,
+      @Value("${app.auditoria.lote-maximo:512}") int loteMaximo) {
+    this(registry, abrir(destino), capacidade, Transbordo.valueOf(transbordo.trim().toUpperCase(Locale.ROOT)),
+        loteMaximo);
+  }
+
+  /**
+   * Construtor com a saída já aberta, para permitir testes. A thread
+   * gravadora começa em {@link #iniciar}.
+   */
+  public PaymentAudit(MeterRegistry registry, Writer saida, int capacidade, Transbordo transbordo, int loteMaximo) {
+    if (loteMaximo < 1) {
+      throw new IllegalArgumentException("app.auditoria.lote-maximo deve ser positivo");
+    }
+    this.fila = new RingBuffer<>(capacidade);
+    this.saida = saida;
+    this.transbordo = transbordo;
+    this.loteMaximo = loteMaximo;
+    this.descartados = Counter.builder("pagamentos.auditoria.descartados")
+        .description("Eventos de auditoria descartados com a fila cheia")
+        .register(registry);
+    this.gravados = Counter.builder("pagamentos.auditoria.gravados")
+        .description("Eventos de auditoria gravados")
+        .register(registry);
+    this.tamanhoLote = DistributionSummary.builder("pagamentos.auditoria.lote")
+        .description("Eventos de auditoria por escrita")
+        .publishPercentileHistogram()
+        .maximumExpectedValue((double) loteMaximo)
+        .register(registry);
+    Gauge.builder("pagamentos.auditoria.fila", fila, RingBuffer::size)
+        .description("Eventos de auditoria aguardando gravação")
+        .register(registry);
+    Gauge.builder("pagamentos.auditoria.capacidade", fila, RingBuffer::capacity)
+        .description("Capacidade da fila de auditoria")
+        .register(registry);
+    this.gravadora = new Thread(this::executar, "pagamentos-auditoria");
+    gravadora.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void iniciar() {
+    gravadora.start();
+  }
+
+  /**
+   * Enfileira o resultado de uma operação. Não faz I/O; com a fila cheia,
+   * descarta ou espera conforme `app.auditoria.transbordo`.
+   */
+  public void registrar(Operacao operacao, String identificador, String status, String codigo, long[] etapas) {
+    Evento evento = new Evento(System.currentTimeMillis(), operacao, identificador, status, codigo, etapas);
+    while (!fila.offer(evento)) {
+      if (transbordo == Transbordo.DESCARTAR || !ativo || !gravadora.isAlive()) {
+        descartados.increment();
+        return;
+      }
+      LockSupport.unpark(gravadora);
+      LockSupport.parkNanos(ESPERA_BLOQUEIO_NANOS);
+    }
+    if (aguardando) {
+      LockSupport.unpark(gravadora);
+    }
+  }
+
+  private void executar() {
+    while (true) {
+      int retirados = fila.drainTo(this::formatar, loteMaximo);
+      if (retirados > 0) {
+        gravar(retirados);
+        continue;
+      }
+      if (!ativo) {
+        break;
+      }
+      aguardando = true;
+      if (fila.isEmpty() && ativo) {
+        LockSupport.parkNanos(ESPERA_MAXIMA_NANOS);
+      }
+      aguardando = false;
+    }
+    try {
+      saida.close();
+    } catch (IOException exception) {
+      log.error("Falha ao gravar a auditoria", exception);
+    }
+  }
+
+  private void gravar(int eventos) {
+    try {
+      saida.append(linhas);
+      saida.flush();
+      gravados.increment(eventos);
+    } catch (IOException exception) {
+      descartados.increment(eventos);
+      log.error("Falha ao gravar a auditoria eventos={}", eventos, exception);
+    }
+    tamanhoLote.record(eventos);
+    linhas.setLength(0);
+  }
+
+  private void formatar(Evento evento) {
+    linhas.append("instante=");
+    DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(evento.instante()), linhas);
+    linhas.append(" operacao=").append(evento.operacao().tag());
+    campo("id", evento.identificador());
+    campo("status", evento.status());
+    campo("codigo", evento.codigo());
+    if (evento.etapas() != null) {
+      for (Etapa etapa : ETAPAS) {
+        long duracao = evento.etapas()[etapa.ordinal()];
+        if (duracao > 0) {
+          linhas.append(' ').append(etapa.tag()).append("_us=").append(duracao / 1000);
+        }
+      }
+    }
+    linhas.append('\n');
+  }
+
+  /**
+   * Valores fora de `[A-Za-z0-9_.:-]` vão entre aspas, com aspas, barras e
+   * caracteres de controle escapados: um identificador enviado pelo cliente
+   * não consegue forjar campos nem linhas.
+   */
+  private void campo(String chave, String valor) {
+    if (valor == null) {
+      return;
+    }
+    linhas.append(' ').append(chave).append('=');
+    boolean simples = !valor.isEmpty();
+    for (int i = 0; i < valor.length() && simples; i++) {
+      char c = valor.charAt(i);
+      simples = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '.'
+          || c == ':' || c == '-';
+    }
+    if (simples) {
+      linhas.append(valor);
+      return;
+    }
+    linhas.append('"');
+    for (int i = 0; i < valor.length(); i++) {
+      char c = valor.charAt(i);
+      switch (c) {
+        case '"' -> linhas.append("\\\"");
+        case '\\' -> linhas.append("\\\\");
+        case '\n' -> linhas.append("\\n");
+        case '\r' -> linhas.append("\\r");
+        case '\t' -> linhas.append("\\t");
+        default -> {
+          if (c < 0x20 || c == 0x7f) {
+            linhas.append(String.format("\\u%04x", (int) c));
+          } else {
+            linhas.append(c);
+          }
+        }
+      }
+    }
+    linhas.append('"');
+  }
+
+  /**
+   * Para de aceitar eventos como espera (passam a ser descartados com a
+   * fila cheia), grava o que estava na fila e encerra a thread.
+   */
+  @PreDestroy
+  public void encerrar() throws InterruptedException {
+    ativo = false;
+    LockSupport.unpark(gravadora);
+    gravadora.join(TimeUnit.SECONDS.toMillis(30));
+  }
+
+  /** Acumula o lote e o entrega ao logger `auditoria` como um evento no flush. */
+  private static final class LoggerWriter extends Writer {
+    private final StringBuilder lote = new StringBuilder(16 * 1024);
+
+    @Override
+    public void write(char[] caracteres, int inicio, int tamanho) {
+      lote.append(caracteres, inicio, tamanho);
+    }
+
+    @Override
+    public Writer append(CharSequence texto) {
+      lote.append(texto);
+      return this;
+    }
+
+    @Override
+    public void flush() {
+      if (!lote.isEmpty()) {
+        AUDITORIA.info("{}", lote.toString());
+        lote.setLength(0);
+      }
+    }
+
+    @Override
+    public void close() {
+      flush();
+    }
+  }
+
+  private static Writer abrir(String destino) {
+    if (destino.isBlank() || destino.equals("stdout")) {
+      return new LoggerWriter();
+    }
+    try {
+      Path arquivo = Path.of(destino);
+      if (arquivo.getParent() != null) {
+        Files.createDirectories(arquivo.getParent());
+      }
+      return Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Não foi possível abrir app.auditoria.destino=" + destino, exception);
+    }
+  }
+}
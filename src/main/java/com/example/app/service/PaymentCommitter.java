@@ -0,0 +1,19 @@
+package com.example.app.service;
+
+import com.example.app.entity.Payment;
+
+/**
+ * Grava uma autorização e só retorna depois do commit.
+ *
+ * A implementação é escolhida por `app.gravacao.modo`: `imediato`
+ * ({@link ImmediatePaymentCommitter}, padrão, uma transação por
+ * autorização) ou `grupo` ({@link GroupPaymentCommitter}, autorizações
+ * concorrentes gravadas juntas). Implementações devem ser thread-safe.
+ */
+public interface PaymentCommitter {
+  /**
+   * Persiste o pagamento. Retorna `false` quando o `externalId` já existe;
+   * outras falhas são propagadas.
+   */
+  boolean insert(Payment pagamento);
+}
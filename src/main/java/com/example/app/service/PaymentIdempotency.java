@@ -0,0 +1,208 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentDescricao;
+import com.example.app.dto.payment.PaymentFormaPagamento;
+import com.example.app.dto.payment.PaymentRequest;
+import com.example.app.exception.DuplicatePaymentException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Repetição idempotente de `POST /pagamentos` por `externalId`.
+ *
+ * Cada autorização reserva o identificador junto com a impressão do
+ * payload (HMAC-SHA256 dos campos recebidos com uma chave aleatória gerada
+ * na inicialização, que nunca sai do processo: sem ela, a impressão não
+ * permite testar números de cartão candidatos). Uma
+ * nova tentativa com o mesmo identificador e a mesma impressão recebe a
+ * resposta original (mesmo NSU e código de autorização) sem acessar o
+ * banco; se a original ainda estiver em andamento, espera por ela em vez
+ * de disputar o insert. Impressão diferente continua negada como
+ * duplicidade.
+ *
+ * Uma tentativa que falha (duplicidade no banco, erro na gravação) entrega
+ * a mesma falha a quem esperava e libera o identificador; só autorizações
+ * ficam guardadas, por `app.idempotencia.ttl` (padrão 10 min) e até
+ * `app.idempotencia.tamanho-maximo` identificadores. Fora dessa janela, ou
+ * com `app.idempotencia.ativa=false`, a repetição volta a ser negada pelo
+ * insert como antes.
+ *
+ * Métricas: `pagamentos.idempotencia.entradas` (identificadores guardados)
+ * e `pagamentos.idempotencia.aguardadas` (repetições que esperaram a
+ * original); as respostas repetidas contam em `pagamentos.resultado` com
+ * `codigo=REENVIO`.
+ */
+@Component
+public class PaymentIdempotency {
+  /** NSU e código de autorização da resposta original. */
+  public record Autorizacao(String nsu, String codigoAutorizacao) {}
+
+  private record Entrada(byte[] impressao, CompletableFuture<Autorizacao> resultado) {}
+
+  private static final String ALGORITMO = "HmacSHA256";
+  /** Só precisa valer enquanto as entradas deste processo existem. */
+  private static final SecretKeySpec CHAVE = chaveAleatoria();
+
+  /**
+   * Identificador reservado por {@link #reservar}. Quem recebe a primeira
+   * reserva autoriza e chama {@link #concluir} ou {@link #falhar}; as
+   * demais esperam em {@link #aguardar}.
+   */
+  public static final class Reserva {
+    private final String externalId;
+    private final Entrada entrada;
+    private final boolean primeira;
+
+    private Reserva(String externalId, Entrada entrada, boolean primeira) {
+      this.externalId = externalId;
+      this.entrada = entrada;
+      this.primeira = primeira;
+    }
+
+    public boolean primeira() {
+      return primeira;
+    }
+
+    /** Resultado da tentativa original, para quem não espera bloqueado. */
+    public CompletableFuture<Autorizacao> resultado() {
+      return entrada.resultado();
+    }
+  }
+
+  private final boolean ativa;
+  private final Cache<String, Entrada> entradas;
+  private final Counter aguardadas;
+
+  @Autowired
+  public PaymentIdempotency(MeterRegistry registry,
+      @Value("${app.idempotencia.ativa:true}") boolean ativa,
+      @Value("${app.idempotencia.ttl:10m}") Duration ttl,
+      @Value("${app.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo) {
+    this(registry, ativa, ttl, tamanhoMaximo, Ticker.systemTicker());
+  }
+
+  /**
+   * Construtor com injeção do relógio para permitir testes.
+   */
+  public PaymentIdempotency(MeterRegistry registry, boolean ativa, Duration ttl, long tamanhoMaximo, Ticker ticker) {
+    this.ativa = ativa;
+    this.entradas = Caffeine.newBuilder()
+        .maximumSize(tamanhoMaximo)
+        .expireAfterWrite(ttl)
+        .ticker(ticker)
+        .build();
+    this.aguardadas = Counter.builder("pagamentos.idempotencia.aguardadas")
+        .description("Repetições que esperaram a autorização original em andamento")
+        .register(registry);
+    Gauge.builder("pagamentos.idempotencia.entradas", entradas, Cache::estimatedSize)
+        .description("Identificadores com resposta guardada para repetição")
+        .register(registry);
+  }
+
+  /**
+   * Reserva o `id` de uma requisição já validada. Lança
+   * {@link DuplicatePaymentException} se o identificador estiver reservado
+   * com outro payload.
+   */
+  public Reserva reservar(PaymentRequest request) {
+    Entrada nova = new Entrada(ativa ? impressao(request) : null, new CompletableFuture<>());
+    if (!ativa) {
+      return new Reserva(request.getId(), nova, true);
+    }
+    Entrada existente = entradas.asMap().putIfAbsent(request.getId(), nova);
+    if (existente == null) {
+      return new Reserva(request.getId(), nova, true);
+    }
+    if (!MessageDigest.isEqual(existente.impressao(), nova.impressao())) {
+      throw new DuplicatePaymentException("PAYMENT_DUPLICATE", PaymentService.mensagemDuplicado(request.getId()));
+    }
+    if (!existente.resultado().isDone()) {
+      aguardadas.increment();
+    }
+    return new Reserva(request.getId(), existente, false);
+  }
+
+  /** Guarda a autorização e a entrega a quem esperava. */
+  public void concluir(Reserva reserva, Autorizacao autorizacao) {
+    reserva.entrada.resultado().complete(autorizacao);
+  }
+
+  /** Libera o identificador e entrega `falha` a quem esperava. */
+  public void falhar(Reserva reserva, Throwable falha) {
+    entradas.asMap().remove(reserva.externalId, reserva.entrada);
+    reserva.entrada.resultado().completeExceptionally(falha);
+  }
+
+  /**
+   * Espera o resultado da tentativa original; uma falha dela é relançada
+   * como recebida.
+   */
+  public Autorizacao aguardar(Reserva reserva) {
+    try {
+      return reserva.entrada.resultado().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException causa) {
+        throw causa;
+      }
+      if (e.getCause() instanceof Error causa) {
+        throw causa;
+      }
+      throw e;
+    }
+  }
+
+  private static SecretKeySpec chaveAleatoria() {
+    byte[] chave = new byte[32];
+    new SecureRandom().nextBytes(chave);
+    return new SecretKeySpec(chave, ALGORITMO);
+  }
+
+  /**
+   * HMAC-SHA256, com a chave do processo, dos campos recebidos, como texto,
+   * cada um precedido do seu tamanho em bytes (-1 se ausente): campos não se
+   * confundem entre si e ausente difere de vazio.
+   */
+  static byte[] impressao(PaymentRequest request) {
+    Mac digest;
+    try {
+      digest = Mac.getInstance(ALGORITMO);
+      digest.init(CHAVE);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(ALGORITMO + " indisponível", e);
+    }
+    PaymentDescricao descricao = request.getDescricao();
+    PaymentFormaPagamento formaPagamento = request.getFormaPagamento();
+    for (String campo : Arrays.asList(request.getCartao(), request.getId(),
+        descricao != null ? descricao.getValor() : null,
+        descricao != null ? descricao.getDataHora() : null,
+        descricao != null ? descricao.getEstabelecimento() : null,
+        formaPagamento != null ? formaPagamento.getTipo() : null,
+        formaPagamento != null ? formaPagamento.getParcelas() : null)) {
+      byte[] bytes = campo != null ? campo.getBytes(StandardCharsets.UTF_8) : null;
+      int tamanho = bytes != null ? bytes.length : -1;
+      digest.update(new byte[] {(byte) (tamanho >>> 24), (byte) (tamanho >>> 16), (byte) (tamanho >>> 8),
+          (byte) tamanho});
+      if (bytes != null) {
+        digest.update(bytes);
+      }
+    }
+    return digest.doFinal();
+  }
+}
@@ -0,0 +1,150 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache em memória das consultas por `externalId`.
+ *
+ * Limitado em tamanho (`app.cache.consulta.tamanho-maximo`) e com expiração
+ * após a escrita: `app.cache.consulta.ttl` para transações encontradas e
+ * `app.cache.consulta.ttl-negativo` para ausências (404). Registra
+ * acertos, falhas e remoções em {@link #estatisticas()}, também publicados
+ * como métricas `cache.*` com `cache=pagamentos.consulta`.
+ *
+ * Cada chave tem uma única carga por vez: quem chega durante a carga espera
+ * o mesmo resultado. A consulta ao banco roda fora dos locks do mapa (a
+ * entrada guarda um `CompletableFuture`), o que evita prender a thread
+ * portadora quando a consulta vem de uma thread virtual. Quem altera uma
+ * transação chama {@link #invalidar(String)}, que remove a entrada na hora
+ * e de novo ao término da transação corrente; uma carga em andamento
+ * removida assim não volta ao cache, então uma leitura concorrente feita
+ * antes do commit não deixa o estado anterior no cache.
+ *
+ * As respostas em cache são compartilhadas e não devem ser alteradas.
+ */
+@Component
+public class PaymentLookupCache implements MeterBinder {
+  private final AsyncCache<String, Optional<PaymentResponse>> cache;
+
+  @Autowired
+  public PaymentLookupCache(@Value("${app.cache.consulta.tamanho-maximo:10000}") long tamanhoMaximo,
+      @Value("${app.cache.consulta.ttl:30s}") Duration ttl,
+      @Value("${app.cache.consulta.ttl-negativo:2s}") Duration ttlNegativo) {
+    this(tamanhoMaximo, ttl, ttlNegativo, Ticker.systemTicker());
+  }
+
+  /**
+   * Construtor com injeção do relógio para permitir testes.
+   */
+  public PaymentLookupCache(long tamanhoMaximo, Duration ttl, Duration ttlNegativo, Ticker ticker) {
+    long ttlNanos = ttl.toNanos();
+    long ttlNegativoNanos = ttlNegativo.toNanos();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(tamanhoMaximo)
+        .expireAfter(new Expiry<String, Optional<PaymentResponse>>() {
+          @Override
+          public long expireAfterCreate(String chave, Optional<PaymentResponse> valor, long agora) {
+            return valor.isPresent() ? ttlNanos : ttlNegativoNanos;
+          }
+
+          @Override
+          public long expireAfterUpdate(String chave, Optional<PaymentResponse> valor, long agora, long restante) {
+            return expireAfterCreate(chave, valor, agora);
+          }
+
+          @Override
+          public long expireAfterRead(String chave, Optional<PaymentResponse> valor, long agora, long restante) {
+            return restante;
+          }
+        })
+        .ticker(ticker)
+        .recordStats()
+        .buildAsync();
+  }
+
+  /**
+   * Retorna a consulta em cache ou carrega com `carregar` e guarda o
+   * resultado, inclusive ausência.
+   */
+  public Optional<PaymentResponse> buscar(String externalId, Function<String, Optional<PaymentResponse>> carregar) {
+    CompletableFuture<Optional<PaymentResponse>> propria = new CompletableFuture<>();
+    CompletableFuture<Optional<PaymentResponse>> futuro = cache.get(externalId, (chave, executor) -> propria);
+    if (futuro == propria) {
+      try {
+        propria.complete(carregar.apply(externalId));
+      } catch (RuntimeException | Error e) {
+        propria.completeExceptionally(e);
+        throw e;
+      }
+    }
+    try {
+      return futuro.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException causa) {
+        throw causa;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Descarta a entrada de `externalId`, agora e ao término da transação corrente.
+   */
+  public void invalidar(String externalId) {
+    invalidar(List.of(externalId));
+  }
+
+  /**
+   * Descarta as entradas dos identificadores, agora e ao término da transação corrente.
+   */
+  public void invalidar(Collection<String> externalIds) {
+    if (externalIds.isEmpty()) {
+      return;
+    }
+    cache.synchronous().invalidateAll(externalIds);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          cache.synchronous().invalidateAll(externalIds);
+        }
+      });
+    }
+  }
+
+  public CacheStats estatisticas() {
+    return cache.synchronous().stats();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, "pagamentos.consulta");
+  }
+
+  /**
+   * Força a execução de remoções pendentes (expiração e tamanho).
+   */
+  void manutencao() {
+    cache.synchronous().cleanUp();
+  }
+}
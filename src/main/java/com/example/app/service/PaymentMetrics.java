@@ -0,0 +1,188 @@
+package com.example.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas do fluxo de pagamentos, publicadas em `/actuator/prometheus`.
+ *
+ * - `pagamentos.etapa`: timer com histograma por `operacao` e `etapa`
+ *   (`parse`, `sanitizacao`, `validacao`, `duplicidade`, `nsu`, `gravacao`,
+ *   `resposta`). No fluxo unitário a duplicidade no banco é detectada pelo
+ *   próprio insert e entra em `gravacao`, e `duplicidade` é a reserva do
+ *   identificador (e a espera por uma tentativa em andamento); no lote é a
+ *   consulta por blocos.
+ * - `pagamentos.resultado`: contador por `operacao`, `status` e `codigo`
+ *   (`OK`, `REENVIO` ou o código da negação, como `PAYMENT_DUPLICATE`).
+ * - `pagamentos.em.andamento`: requisições em processamento por `operacao`.
+ *
+ * Uma requisição atendida inteira em uma thread pode acumular também as
+ * próprias durações por etapa ({@link #acumularEtapas}), que vão para o
+ * registro de auditoria ({@link PaymentAudit}).
+ *
+ * O uso do pool de conexões é publicado pelo Actuator (`hikaricp.connections.*`)
+ * e o cache de consultas por {@link PaymentLookupCache}.
+ */
+@Component
+public class PaymentMetrics {
+  /** Código registrado para falhas sem código de negócio. */
+  public static final String ERRO_INESPERADO = "ERRO_INESPERADO";
+  /** Código registrado para sucessos. */
+  public static final String OK = "OK";
+  /** Código registrado para a resposta original repetida a uma nova tentativa ({@link PaymentIdempotency}). */
+  public static final String REENVIO = "REENVIO";
+
+  /** Operações instrumentadas, com os status de sucesso e de falha. */
+  public enum Operacao {
+    AUTORIZACAO("autorizacao", "AUTORIZADO", "NEGADO"),
+    LOTE("lote", "AUTORIZADO", "NEGADO"),
+    ESTORNO("estorno", "CANCELADO", "REJEITADO"),
+    ESTORNO_LOTE("estorno_lote", "CANCELADO", "REJEITADO");
+
+    private final String tag;
+    private final String sucesso;
+    private final String falha;
+
+    Operacao(String tag, String sucesso, String falha) {
+      this.tag = tag;
+      this.sucesso = sucesso;
+      this.falha = falha;
+    }
+
+    String tag() {
+      return tag;
+    }
+  }
+
+  /** Etapas do processamento. */
+  public enum Etapa {
+    PARSE, SANITIZACAO, VALIDACAO, DUPLICIDADE, NSU, GRAVACAO, RESPOSTA;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    String tag() {
+      return tag;
+    }
+  }
+
+  private static final int ETAPAS = Etapa.values().length;
+  /** Durações por etapa da requisição da thread corrente, quando ela acumula. */
+  private static final ThreadLocal<long[]> ETAPAS_REQUISICAO = new ThreadLocal<>();
+
+  private final MeterRegistry registry;
+  /** Timers criados no primeiro uso; a corrida é inofensiva, o registro devolve a mesma instância. */
+  private final Timer[] timers = new Timer[Operacao.values().length * ETAPAS];
+  private final Map<Operacao, Map<String, Counter>> contadores = new EnumMap<>(Operacao.class);
+  private final Map<Operacao, AtomicInteger> emAndamento = new EnumMap<>(Operacao.class);
+
+  public PaymentMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    for (Operacao operacao : Operacao.values()) {
+      contadores.put(operacao, new ConcurrentHashMap<>());
+      AtomicInteger valor = new AtomicInteger();
+      emAndamento.put(operacao, valor);
+      Gauge.builder("pagamentos.em.andamento", valor, AtomicInteger::get)
+          .description("Requisições de pagamento em processamento")
+          .tag("operacao", operacao.tag)
+          .register(registry);
+    }
+  }
+
+  /**
+   * Marca o início de uma etapa; passar o valor para {@link #registrar}.
+   */
+  public long inicio() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Registra a duração da etapa iniciada em `inicio`.
+   */
+  public void registrar(Operacao operacao, Etapa etapa, long inicio) {
+    long duracao = System.nanoTime() - inicio;
+    timer(operacao, etapa).record(duracao, TimeUnit.NANOSECONDS);
+    long[] acumuladas = ETAPAS_REQUISICAO.get();
+    if (acumuladas != null) {
+      acumuladas[etapa.ordinal()] += duracao;
+    }
+  }
+
+  /**
+   * Passa a acumular, até {@link #saida}, as durações por etapa registradas
+   * nesta thread. Só para requisições atendidas em uma única thread (pilha
+   * MVC); na reativa as etapas terminam em threads diferentes.
+   */
+  public void acumularEtapas() {
+    ETAPAS_REQUISICAO.set(new long[ETAPAS]);
+  }
+
+  /**
+   * Cópia das durações (ns) acumuladas nesta thread, indexadas por
+   * {@link Etapa#ordinal()}; `null` se a thread não acumula.
+   */
+  public long[] etapasAcumuladas() {
+    long[] acumuladas = ETAPAS_REQUISICAO.get();
+    return acumuladas != null ? acumuladas.clone() : null;
+  }
+
+  public void sucesso(Operacao operacao) {
+    contador(operacao, OK).increment();
+  }
+
+  /** Conta uma resposta de sucesso repetida de uma tentativa anterior. */
+  public void reenvio(Operacao operacao) {
+    contador(operacao, REENVIO).increment();
+  }
+
+  /**
+   * Conta uma negação com o código de negócio (ou {@link #ERRO_INESPERADO}).
+   */
+  public void falha(Operacao operacao, String codigo) {
+    contador(operacao, codigo != null ? codigo : ERRO_INESPERADO).increment();
+  }
+
+  public void entrada(Operacao operacao) {
+    emAndamento.get(operacao).incrementAndGet();
+  }
+
+  public void saida(Operacao operacao) {
+    emAndamento.get(operacao).decrementAndGet();
+    ETAPAS_REQUISICAO.remove();
+  }
+
+  private Timer timer(Operacao operacao, Etapa etapa) {
+    int indice = operacao.ordinal() * ETAPAS + etapa.ordinal();
+    Timer timer = timers[indice];
+    if (timer == null) {
+      timer = Timer.builder("pagamentos.etapa")
+          .description("Duração de cada etapa do processamento de pagamentos")
+          .tag("operacao", operacao.tag)
+          .tag("etapa", etapa.tag)
+          .publishPercentileHistogram()
+          .minimumExpectedValue(Duration.ofNanos(500))
+          .maximumExpectedValue(Duration.ofSeconds(5))
+          .register(registry);
+      timers[indice] = timer;
+    }
+    return timer;
+  }
+
+  private Counter contador(Operacao operacao, String codigo) {
+    return contadores.get(operacao).computeIfAbsent(codigo, c -> Counter.builder("pagamentos.resultado")
+        .description("Resultados do processamento de pagamentos por código")
+        .tag("operacao", operacao.tag)
+        .tag("status", OK.equals(c) || REENVIO.equals(c) ? operacao.sucesso : operacao.falha)
+        .tag("codigo", c)
+        .register(registry));
+  }
+}
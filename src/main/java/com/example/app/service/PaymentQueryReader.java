@@ -0,0 +1,92 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentCursorPage;
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.exception.PaymentValidationException;
+import com.example.app.repository.PaymentStore;
+import com.example.app.util.PaymentCursor;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Caminho de leitura das consultas de pagamento.
+ *
+ * Lê {@link PaymentView} (projeção por construtor, sem entidade gerenciada)
+ * do {@link PaymentStore} em transações somente leitura, em que o Hibernate
+ * não faz flush, e converte cada linha com {@link PaymentResponseMapper}.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PaymentQueryReader {
+  private final PaymentStore store;
+
+  public Optional<PaymentResponse> findOne(String externalId) {
+    return store.findViewByExternalId(externalId).map(PaymentResponseMapper::toResponse);
+  }
+
+  /**
+   * Listagem por página numerada (OFFSET), sem `count(*)`.
+   */
+  public PaymentCursorPage list(int page, int rowsPerPage) {
+    Slice<PaymentView> result = store.findViews(PageRequest.of(page, rowsPerPage, Sort.by("id").descending()));
+    return pagina(result.getContent(), result.hasNext());
+  }
+
+  /**
+   * Listagem por cursor. Lança `PaymentValidationException` para cursor inválido.
+   */
+  public PaymentCursorPage listAfter(String cursor, int rowsPerPage) {
+    return listAfter(PaymentFilter.NENHUM, cursor, rowsPerPage);
+  }
+
+  /**
+   * Listagem por cursor restrita a `filtro`; o cursor continua sendo o `id`
+   * da última linha, então as páginas seguintes repetem os mesmos filtros.
+   */
+  public PaymentCursorPage listAfter(PaymentFilter filtro, String cursor, int rowsPerPage) {
+    int limite = rowsPerPage + 1;
+    List<PaymentView> linhas;
+    if (!filtro.vazio()) {
+      linhas = store.findViews(filtro, cursor == null ? Long.MAX_VALUE : decodificarCursor(cursor), limite);
+    } else {
+      linhas = cursor == null
+          ? store.findViews(limite)
+          : store.findViewsBefore(decodificarCursor(cursor), limite);
+    }
+    boolean haMais = linhas.size() > rowsPerPage;
+    return pagina(haMais ? linhas.subList(0, rowsPerPage) : linhas, haMais);
+  }
+
+  /**
+   * Exportação: entrega cada pagamento de `filtro`, já convertido, em ordem
+   * crescente de `id`. A transação somente leitura fica aberta até o fim,
+   * então a exportação enxerga um único retrato da tabela.
+   */
+  public void exportar(PaymentFilter filtro, int lote, Consumer<PaymentResponse> destino) {
+    store.forEachView(filtro, lote, view -> destino.accept(PaymentResponseMapper.toResponse(view)));
+  }
+
+  private static PaymentCursorPage pagina(List<PaymentView> linhas, boolean haMais) {
+    List<PaymentResponse> data = linhas.stream().map(PaymentResponseMapper::toResponse).toList();
+    String proximo = haMais ? PaymentCursor.encode(linhas.get(linhas.size() - 1).getId()) : null;
+    return new PaymentCursorPage(data, proximo);
+  }
+
+  private static long decodificarCursor(String cursor) {
+    try {
+      return PaymentCursor.decode(cursor);
+    } catch (IllegalArgumentException exception) {
+      throw new PaymentValidationException("PAGINATION_INVALID", "cursor inválido");
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentDescricaoResponse;
+import com.example.app.dto.payment.PaymentFormaPagamento;
+import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.util.CardMasker;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Monta o {@link PaymentResponse} de consulta a partir de {@link PaymentView}.
+ *
+ * Os valores são gravados já prontos para serialização: cartão mascarado,
+ * valor em texto e data/hora `dd/MM/yyyy HH:mm:ss` escrita direto em um
+ * buffer de 19 caracteres, sem `DateTimeFormatter`. O estabelecimento é
+ * armazenado já sanitizado e é copiado como está.
+ */
+final class PaymentResponseMapper {
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+  private PaymentResponseMapper() {}
+
+  static PaymentResponse toResponse(PaymentView view) {
+    PaymentResponse response = new PaymentResponse();
+    response.setCartao(CardMasker.mask(view.getCartao()));
+    response.setId(view.getExternalId());
+    PaymentDescricaoResponse descricao = new PaymentDescricaoResponse();
+    descricao.setValor(view.getValor() != null ? view.getValor().toPlainString() : null);
+    descricao.setDataHora(formatarDataHora(view.getDataHora()));
+    descricao.setEstabelecimento(view.getEstabelecimento());
+    descricao.setNsu(view.getNsu());
+    descricao.setCodigoAutorizacao(view.getCodigoAutorizacao());
+    descricao.setStatus(view.getStatus());
+    response.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo(view.getTipo());
+    formaPagamento.setParcelas(view.getParcelas() != null ? view.getParcelas().toString() : null);
+    response.setFormaPagamento(formaPagamento);
+    return response;
+  }
+
+  /**
+   * Data/hora no formato `dd/MM/yyyy HH:mm:ss`, igual ao `DateTimeFormatter`
+   * usado antes; anos fora de 1–9999 (`yyyy` é o ano da era) continuam
+   * indo para ele.
+   */
+  static String formatarDataHora(LocalDateTime dataHora) {
+    if (dataHora == null) {
+      return null;
+    }
+    int ano = dataHora.getYear();
+    if (ano < 1 || ano > 9999) {
+      return FORMATTER.format(dataHora);
+    }
+    char[] saida = new char[19];
+    doisDigitos(saida, 0, dataHora.getDayOfMonth());
+    saida[2] = '/';
+    doisDigitos(saida, 3, dataHora.getMonthValue());
+    saida[5] = '/';
+    doisDigitos(saida, 6, ano / 100);
+    doisDigitos(saida, 8, ano % 100);
+    saida[10] = ' ';
+    doisDigitos(saida, 11, dataHora.getHour());
+    saida[13] = ':';
+    doisDigitos(saida, 14, dataHora.getMinute());
+    saida[16] = ':';
+    doisDigitos(saida, 17, dataHora.getSecond());
+    return new String(saida);
+  }
+
+  private static void doisDigitos(char[] saida, int posicao, int valor) {
+    saida[posicao] = (char) ('0' + valor / 10);
+    saida[posicao + 1] = (char) ('0' + valor % 10);
+  }
+}
@@ -1,8 +1,12 @@
 package com.example.app.service;
 
 import com.example.app.dto.payment.*;
+import com.example.app.dto.refund.RefundBatchItem;
 import com.example.app.entity.Payment;
-import com.example.app.repository.PaymentRepository;
+import com.example.app.repository.PaymentStore;
+import com.example.app.service.PaymentMetrics.Etapa;
+import com.example.app.service.PaymentMetrics.Operacao;
+import com.example.app.util.CardMasker;
 import com.example.app.util.Utf8Sanitizer;
 import com.example.app.validator.PaymentRequestValidator;
 import com.example.app.exception.PaymentProcessingException;
@@ -13,14 +17,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.Page;
-import java.math.BigDecimal;
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Serviço de processamento de pagamentos.
@@ -31,74 +36,135 @@ import java.util.Locale;
 @Service
 @Slf4j
 public class PaymentService {
-  private final PaymentRepository repository;
+  /** Tamanho máximo da cláusula IN na checagem de duplicidade do lote. */
+  private static final int TAMANHO_CONSULTA_DUPLICIDADE = 1000;
+  private static final String CODIGO_DUPLICADO = "PAYMENT_DUPLICATE";
+  /** Identificadores por transação no estorno em lote. */
+  private static final int TAMANHO_BLOCO_ESTORNO = 1000;
+  private final PaymentStore store;
   private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-  private final SecureRandom random;
+  private final NsuGenerator nsuGenerator;
+  private final PaymentLookupCache lookupCache;
+  private final PaymentQueryReader queryReader;
+  private final PaymentMetrics metrics;
+  private final PaymentCommitter committer;
+  private final PaymentTotals totais;
+  private final PaymentAudit auditoria;
+  private final PaymentIdempotency idempotencia;
 
   /**
-   * Construtor padrão com injeção do repositório.
-   * Inicializa o gerador seguro de números aleatórios.
+   * Construtor com injeção do armazenamento, do gerador de NSU/código de
+   * autorização, do cache, do leitor de consultas, das métricas, da
+   * estratégia de gravação das autorizações unitárias, dos totais agregados,
+   * da auditoria e das respostas guardadas para repetição.
    */
   @Autowired
-  public PaymentService(PaymentRepository repository) {
-    this(repository, new SecureRandom());
-  }
-
-  /**
-   * Construtor com injeção de {@link SecureRandom} para permitir testes.
-   */
-  public PaymentService(PaymentRepository repository, SecureRandom random) {
-    this.repository = repository;
-    this.random = random;
+  public PaymentService(PaymentStore store, NsuGenerator nsuGenerator, PaymentLookupCache lookupCache,
+      PaymentQueryReader queryReader, PaymentMetrics metrics, PaymentCommitter committer, PaymentTotals totais,
+      PaymentAudit auditoria, PaymentIdempotency idempotencia) {
+    this.store = store;
+    this.committer = committer;
+    this.totais = totais;
+    this.auditoria = auditoria;
+    this.idempotencia = idempotencia;
+    this.nsuGenerator = nsuGenerator;
+    this.lookupCache = lookupCache;
+    this.queryReader = queryReader;
+    this.metrics = metrics;
   }
 
   /**
    * Processa uma requisição de pagamento: valida, sanitiza, gera identificadores
    * e persiste a transação. Em falha de validação, retorna status "NEGADO".
+   *
+   * Não abre transação própria: o único acesso ao banco é o insert feito pelo
+   * {@link PaymentCommitter}, que já é atômico e cuja violação de unicidade
+   * precisa ser tratada aqui sem marcar uma transação externa para rollback.
+   * Em `app.gravacao.modo=grupo` o insert é agrupado com o de autorizações
+   * concorrentes, e a chamada só retorna após o commit do grupo.
+   *
+   * Uma nova tentativa com o mesmo `id` e o mesmo payload recebe a resposta
+   * original, esperando por ela se ainda estiver em andamento
+   * ({@link PaymentIdempotency}); com outro payload é negada como duplicada.
+   *
+   * Cada etapa é cronometrada e o resultado contado em {@link PaymentMetrics}.
    */
-  @Transactional
   public PaymentResponse process(PaymentRequest request) {
+    long inicio = metrics.inicio();
     PaymentResponse response = initializeResponse(request);
+    metrics.registrar(Operacao.AUTORIZACAO, Etapa.SANITIZACAO, inicio);
     try {
-      String erro = new PaymentRequestValidator(request).validate();
-      if (!erro.isEmpty()) {
-        throw new PaymentValidationException("PAYMENT_VALIDATION_ERROR", erro);
+      ValidatedPayment validado;
+      inicio = metrics.inicio();
+      try {
+        validado = new PaymentRequestValidator(request).parse();
+      } finally {
+        metrics.registrar(Operacao.AUTORIZACAO, Etapa.VALIDACAO, inicio);
       }
-
-      String identificador = request.getId();
-      boolean existe = repository.findByExternalId(identificador).isPresent();
-      if (existe) {
-        throw new DuplicatePaymentException("PAYMENT_DUPLICATE", "Transação já processada para identificador=" + identificador);
+      PaymentIdempotency.Reserva reserva;
+      inicio = metrics.inicio();
+      try {
+        reserva = idempotencia.reservar(request);
+        if (!reserva.primeira()) {
+          return reenvio(response, idempotencia.aguardar(reserva));
+        }
+      } finally {
+        metrics.registrar(Operacao.AUTORIZACAO, Etapa.DUPLICIDADE, inicio);
       }
-
-      BigDecimal valor = new BigDecimal(request.getDescricao().getValor());
-      LocalDateTime dataHora = LocalDateTime.parse(request.getDescricao().getDataHora(), formatter);
-      String tipo = request.getFormaPagamento().getTipo().toUpperCase(Locale.ROOT);
-      Integer parcelas = Integer.valueOf(request.getFormaPagamento().getParcelas());
-      String estabelecimento = Utf8Sanitizer.sanitize(request.getDescricao().getEstabelecimento());
-
-      Payment payment = criarTransacao(identificador, request.getCartao(), valor, dataHora, tipo, parcelas, estabelecimento);
+      Payment payment;
+      try {
+        payment = criarTransacao(novaTransacao(validado, response.getDescricao().getEstabelecimento(),
+            nsuGenerator, metrics, Operacao.AUTORIZACAO));
+      } catch (RuntimeException | Error falha) {
+        idempotencia.falhar(reserva, falha);
+        throw falha;
+      }
+      idempotencia.concluir(reserva, new PaymentIdempotency.Autorizacao(payment.getNsu(),
+          payment.getCodigoAutorizacao()));
 
       preencherRespostaAutorizada(response, payment.getNsu(), payment.getCodigoAutorizacao());
-      log.info("Pagamento autorizado identificador={} nsu={} codigo={}", payment.getExternalId(),
+      metrics.sucesso(Operacao.AUTORIZACAO);
+      auditoria.registrar(Operacao.AUTORIZACAO, payment.getExternalId(), "AUTORIZADO", PaymentMetrics.OK,
+          metrics.etapasAcumuladas());
+      log.debug("Pagamento autorizado identificador={} nsu={} codigo={}", payment.getExternalId(),
           payment.getNsu(), payment.getCodigoAutorizacao());
       return response;
     } catch (PaymentProcessingException exception) {
-      log.warn("Pagamento negado identificador={} codigo={} motivo={}",
+      metrics.falha(Operacao.AUTORIZACAO, exception.getCode());
+      auditoria.registrar(Operacao.AUTORIZACAO, request != null ? request.getId() : null, "NEGADO",
+          exception.getCode(), metrics.etapasAcumuladas());
+      log.debug("Pagamento negado identificador={} codigo={} motivo={}",
           request != null ? request.getId() : null,
           exception.getCode(),
           exception.getMessage());
       return negado(response, exception.getMessage());
     } catch (Exception exception) {
+      metrics.falha(Operacao.AUTORIZACAO, PaymentMetrics.ERRO_INESPERADO);
+      auditoria.registrar(Operacao.AUTORIZACAO, request != null ? request.getId() : null, "NEGADO",
+          PaymentMetrics.ERRO_INESPERADO, metrics.etapasAcumuladas());
       log.error("Erro inesperado no processamento identificador={}", request != null ? request.getId() : null, exception);
       return negado(response, "Erro inesperado");
     }
   }
 
+  /**
+   * Completa a resposta com o NSU e o código da autorização original; o
+   * payload é o mesmo da original, então o restante da resposta também.
+   */
+  private PaymentResponse reenvio(PaymentResponse response, PaymentIdempotency.Autorizacao original) {
+    preencherRespostaAutorizada(response, original.nsu(), original.codigoAutorizacao());
+    metrics.reenvio(Operacao.AUTORIZACAO);
+    auditoria.registrar(Operacao.AUTORIZACAO, response.getId(), "AUTORIZADO", PaymentMetrics.REENVIO,
+        metrics.etapasAcumuladas());
+    log.debug("Pagamento repetido identificador={} nsu={}", response.getId(), original.nsu());
+    return response;
+  }
+
   /**
    * Inicializa a resposta com os dados básicos e sanitiza o estabelecimento.
+   * O valor sanitizado aqui é o mesmo gravado em {@link #novaTransacao}.
    */
-  private PaymentResponse initializeResponse(PaymentRequest request) {
+  static PaymentResponse initializeResponse(PaymentRequest request) {
     PaymentResponse response = new PaymentResponse();
     response.setCartao(request != null ? request.getCartao() : null);
     response.setId(request != null ? request.getId() : null);
@@ -114,26 +180,10 @@ public class PaymentService {
     return response;
   }
 
-  /**
-   * Gera o NSU (10 dígitos) usando {@link SecureRandom}.
-   */
-  private String gerarNsu() {
-    long v = random.nextLong(1_000_000_0000L);
-    return String.format("%010d", v);
-  }
-
-  /**
-   * Gera o código de autorização (9 dígitos).
-   */
-  private String gerarCodigoAutorizacao() {
-    int v = random.nextInt(1_000_000_000);
-    return String.format("%09d", v);
-  }
-
   /**
    * Preenche a resposta com dados de autorização e define status "AUTORIZADO".
    */
-  private void preencherRespostaAutorizada(PaymentResponse response, String nsu, String codigo) {
+  static void preencherRespostaAutorizada(PaymentResponse response, String nsu, String codigo) {
     PaymentDescricaoResponse descricao = response.getDescricao();
     descricao.setNsu(nsu);
     descricao.setCodigoAutorizacao(codigo);
@@ -146,33 +196,145 @@ public class PaymentService {
   
 
   /**
-   * Verifica se já existe pagamento para o `externalId` informado.
+   * Monta a transação autorizada a partir dos valores já convertidos pela
+   * validação, gerando `nsu` e `codigoAutorizacao`. Não persiste.
+   *
+   * O estabelecimento chega já sanitizado e é gravado assim; as leituras
+   * devolvem o valor armazenado sem sanitizar de novo.
    */
-  
+  static Payment novaTransacao(ValidatedPayment validado, String estabelecimento, NsuGenerator nsuGenerator,
+      PaymentMetrics metrics, Operacao operacao) {
+    Payment pagamento = new Payment();
+    pagamento.setExternalId(validado.getExternalId());
+    pagamento.setCartao(validado.getCartao());
+    pagamento.setTipo(validado.getTipo().getRotulo());
+    pagamento.setParcelas(validado.getParcelas());
+    pagamento.setValor(validado.valor());
+    pagamento.setDataHora(validado.dataHora());
+    pagamento.setEstabelecimento(estabelecimento);
+    long inicio = metrics.inicio();
+    pagamento.setNsu(nsuGenerator.proximoNsu());
+    pagamento.setCodigoAutorizacao(nsuGenerator.proximoCodigoAutorizacao());
+    metrics.registrar(operacao, Etapa.NSU, inicio);
+    pagamento.setStatus("AUTORIZADO");
+    return pagamento;
+  }
 
   /**
-   * Cria e persiste a transação autorizada.
-   * Em caso de falha, lança {@link PaymentCreationException}.
+   * Persiste a transação autorizada; o próprio insert detecta duplicidade.
+   * Lança {@link DuplicatePaymentException} se o `externalId` já existir e
+   * {@link PaymentCreationException} nas demais falhas.
    */
-  private Payment criarTransacao(String id, String cartao, BigDecimal valor, LocalDateTime dataHora, String tipo, Integer parcelas, String estabelecimento) {
+  private Payment criarTransacao(Payment pagamento) {
+    boolean gravado;
+    long inicio = metrics.inicio();
     try {
-      String nsu = gerarNsu();
-      String codigo = gerarCodigoAutorizacao();
-      Payment pagamento = new Payment();
-      pagamento.setExternalId(id);
-      pagamento.setCartao(cartao);
-      pagamento.setTipo(tipo);
-      pagamento.setParcelas(parcelas);
-      pagamento.setValor(valor);
-      pagamento.setDataHora(dataHora);
-      pagamento.setEstabelecimento(estabelecimento);
-      pagamento.setNsu(nsu);
-      pagamento.setCodigoAutorizacao(codigo);
-      pagamento.setStatus("AUTORIZADO");
-      return repository.save(pagamento);
+      gravado = committer.insert(pagamento);
     } catch (RuntimeException e) {
       throw new PaymentCreationException("PAYMENT_CREATION_ERROR", "Falha ao criar transação");
+    } finally {
+      metrics.registrar(Operacao.AUTORIZACAO, Etapa.GRAVACAO, inicio);
     }
+    if (!gravado) {
+      throw new DuplicatePaymentException(CODIGO_DUPLICADO, mensagemDuplicado(pagamento.getExternalId()));
+    }
+    lookupCache.invalidar(pagamento.getExternalId());
+    totais.autorizado(pagamento);
+    return pagamento;
+  }
+
+  /**
+   * Processa um lote de transações e devolve uma resposta por item, na mesma
+   * ordem do lote.
+   *
+   * Cada item é validado como em {@link #process(PaymentRequest)}. Repetições
+   * do mesmo `id` dentro do lote são negadas, a duplicidade contra o banco é
+   * checada com uma consulta por bloco de identificadores e as autorizadas são
+   * gravadas juntas via {@link PaymentStore#insertAll(List, RuntimeException[])}.
+   * Um item que falha na gravação por outro motivo é negado sozinho; os
+   * demais seguem como autorizados.
+   */
+  public List<PaymentResponse> processBatch(List<PaymentRequest> requests) {
+    List<PaymentResponse> responses = new ArrayList<>(requests.size());
+    ValidatedPayment[] validados = new ValidatedPayment[requests.size()];
+    Map<String, Integer> candidatos = new LinkedHashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      PaymentRequest request = requests.get(i);
+      PaymentResponse response = initializeResponse(request);
+      responses.add(response);
+      try {
+        validados[i] = new PaymentRequestValidator(request).parse();
+      } catch (PaymentValidationException exception) {
+        negadoNoLote(response, exception.getCode(), exception.getMessage());
+        continue;
+      }
+      if (candidatos.putIfAbsent(request.getId(), i) != null) {
+        negadoNoLote(response, CODIGO_DUPLICADO, mensagemDuplicado(request.getId()));
+      }
+    }
+
+    long inicio = metrics.inicio();
+    Set<String> existentes = buscarExistentes(new ArrayList<>(candidatos.keySet()));
+    metrics.registrar(Operacao.LOTE, Etapa.DUPLICIDADE, inicio);
+    List<Payment> pagamentos = new ArrayList<>(candidatos.size());
+    List<Integer> posicoes = new ArrayList<>(candidatos.size());
+    for (Map.Entry<String, Integer> candidato : candidatos.entrySet()) {
+      int posicao = candidato.getValue();
+      if (existentes.contains(candidato.getKey())) {
+        negadoNoLote(responses.get(posicao), CODIGO_DUPLICADO, mensagemDuplicado(candidato.getKey()));
+        continue;
+      }
+      pagamentos.add(novaTransacao(validados[posicao], responses.get(posicao).getDescricao().getEstabelecimento(),
+          nsuGenerator, metrics, Operacao.LOTE));
+      posicoes.add(posicao);
+    }
+
+    inicio = metrics.inicio();
+    RuntimeException[] falhas = new RuntimeException[pagamentos.size()];
+    try {
+      boolean[] gravados = store.insertAll(pagamentos, falhas);
+      metrics.registrar(Operacao.LOTE, Etapa.GRAVACAO, inicio);
+      lookupCache.invalidar(pagamentos.stream().map(Payment::getExternalId).toList());
+      for (int i = 0; i < pagamentos.size(); i++) {
+        PaymentResponse response = responses.get(posicoes.get(i));
+        if (falhas[i] != null) {
+          log.error("Erro inesperado na gravação do item do lote identificador={}", response.getId(), falhas[i]);
+          negadoNoLote(response, PaymentMetrics.ERRO_INESPERADO, "Erro inesperado");
+        } else if (gravados[i]) {
+          metrics.sucesso(Operacao.LOTE);
+          auditoria.registrar(Operacao.LOTE, response.getId(), "AUTORIZADO", PaymentMetrics.OK, null);
+          totais.autorizado(pagamentos.get(i));
+          preencherRespostaAutorizada(response, pagamentos.get(i).getNsu(), pagamentos.get(i).getCodigoAutorizacao());
+        } else {
+          negadoNoLote(response, CODIGO_DUPLICADO, mensagemDuplicado(pagamentos.get(i).getExternalId()));
+        }
+      }
+    } catch (RuntimeException exception) {
+      metrics.registrar(Operacao.LOTE, Etapa.GRAVACAO, inicio);
+      log.error("Erro inesperado na gravação do lote tamanho={}", pagamentos.size(), exception);
+      posicoes.forEach(posicao -> negadoNoLote(responses.get(posicao), PaymentMetrics.ERRO_INESPERADO,
+          "Erro inesperado"));
+    }
+
+    responses.forEach(response -> response.setCartao(CardMasker.mask(response.getCartao())));
+    log.info("Lote processado total={} gravados={}", requests.size(), pagamentos.size());
+    return responses;
+  }
+
+  /**
+   * Consulta, em blocos, quais identificadores já foram processados.
+   */
+  private Set<String> buscarExistentes(List<String> identificadores) {
+    Set<String> existentes = new HashSet<>();
+    for (int inicio = 0; inicio < identificadores.size(); inicio += TAMANHO_CONSULTA_DUPLICIDADE) {
+      int fim = Math.min(inicio + TAMANHO_CONSULTA_DUPLICIDADE, identificadores.size());
+      existentes.addAll(store.findExistingExternalIds(identificadores.subList(inicio, fim)));
+    }
+    return existentes;
+  }
+
+  static String mensagemDuplicado(String identificador) {
+    return "Transação já processada para identificador=" + identificador;
   }
 
 
@@ -191,35 +353,47 @@ public class PaymentService {
    *   PaymentResponse r = cancel("100023568900220");
    *
    * Observacoes:
-   * - Operacao atomica via {@link Transactional}.
+   * - Operacao atomica via {@link PaymentStore#cancel}: a checagem de status
+   *   e a alteracao sao um unico UPDATE condicional, entao estornos
+   *   concorrentes do mesmo identificador resultam em um unico sucesso.
    * - Apenas transacoes com status "AUTORIZADO" podem ser estornadas.
+   * - A consulta em cache da transacao e invalidada (inclusive apos o commit).
    */
   @Transactional
   public PaymentResponse cancel(String externalId) {
     if (externalId == null || externalId.trim().isEmpty()) {
       throw new PaymentValidationException("REFUND_VALIDATION_ERROR", "ID inválido");
     }
-    Payment pagamento = repository.findByExternalId(externalId)
-        .orElseThrow(() -> new PaymentValidationException("REFUND_VALIDATION_ERROR", "Transação não encontrada"));
-    if (!"AUTORIZADO".equals(pagamento.getStatus())) {
-      log.warn("Estorno rejeitado identificador={} status_atual={}", externalId, pagamento.getStatus());
-      throw new PaymentValidationException("REFUND_STATUS_INVALID", "Status atual não permite estorno");
-    }
     LocalDateTime now = LocalDateTime.now();
-    pagamento.setStatus("CANCELADO");
-    pagamento.setCanceladoEm(now);
-    repository.save(pagamento);
-    PaymentResponse response = new PaymentResponse();
-    String cartao = pagamento.getCartao();
-    if (cartao != null) {
-      String masked = cartao.length() == 16 ? cartao.substring(0, 4) + "*********" + cartao.substring(12) : cartao.substring(0, 4) + "*********" + cartao.substring(cartao.length() - 4);
-      response.setCartao(masked);
+    switch (store.cancel(externalId, now)) {
+      case NAO_ENCONTRADO -> throw new PaymentValidationException("REFUND_VALIDATION_ERROR", "Transação não encontrada");
+      case STATUS_INVALIDO -> {
+        log.debug("Estorno rejeitado identificador={} motivo=status", externalId);
+        throw new PaymentValidationException("REFUND_STATUS_INVALID", "Status atual não permite estorno");
+      }
+      case ESTORNADO -> lookupCache.invalidar(externalId);
     }
+    // Os demais campos não mudam após a autorização.
+    PaymentView pagamento = store.findViewByExternalId(externalId).orElseThrow();
+    totais.estornado(pagamento);
+    PaymentResponse response = respostaEstorno(pagamento, now);
+    log.debug("Estorno realizado identificador={} canceladoEm={}", externalId, formatter.format(now));
+    return response;
+  }
+
+
+  /**
+   * Resposta do estorno: dados da transação com status "CANCELADO" e a
+   * data/hora do estorno.
+   */
+  static PaymentResponse respostaEstorno(PaymentView pagamento, LocalDateTime canceladoEm) {
+    PaymentResponse response = new PaymentResponse();
+    response.setCartao(CardMasker.mask(pagamento.getCartao()));
     response.setId(pagamento.getExternalId());
     PaymentDescricaoResponse descricao = new PaymentDescricaoResponse();
     descricao.setValor(pagamento.getValor() != null ? pagamento.getValor().toPlainString() : null);
-    descricao.setDataHora(formatter.format(now));
-    descricao.setEstabelecimento(Utf8Sanitizer.sanitize(pagamento.getEstabelecimento()));
+    descricao.setDataHora(PaymentResponseMapper.formatarDataHora(canceladoEm));
+    descricao.setEstabelecimento(pagamento.getEstabelecimento());
     descricao.setNsu(pagamento.getNsu());
     descricao.setCodigoAutorizacao(pagamento.getCodigoAutorizacao());
     descricao.setStatus("CANCELADO");
@@ -228,10 +402,89 @@ public class PaymentService {
     formaPagamento.setTipo(pagamento.getTipo());
     formaPagamento.setParcelas(pagamento.getParcelas() != null ? pagamento.getParcelas().toString() : null);
     response.setFormaPagamento(formaPagamento);
-    log.info("Estorno realizado identificador={} canceladoEm={}", externalId, formatter.format(now));
     return response;
   }
 
+  /**
+   * Estorna um lote de transações e devolve um resultado por identificador,
+   * na ordem recebida.
+   *
+   * Identificadores vazios ou repetidos no lote são rejeitados. Os demais
+   * são estornados em blocos de {@value #TAMANHO_BLOCO_ESTORNO} via
+   * {@link PaymentStore#cancelAll}, cada bloco em sua própria transação com
+   * as mesmas regras de {@link #cancel}; as consultas em cache dos
+   * estornados são invalidadas por bloco. Uma falha inesperada rejeita
+   * apenas o bloco em que ocorreu.
+   */
+  public List<RefundBatchItem> cancelBatch(List<String> externalIds) {
+    LocalDateTime now = LocalDateTime.now();
+    List<RefundBatchItem> itens = new ArrayList<>(externalIds.size());
+    Map<String, Integer> candidatos = new LinkedHashMap<>();
+    for (int i = 0; i < externalIds.size(); i++) {
+      String externalId = externalIds.get(i);
+      RefundBatchItem item = new RefundBatchItem();
+      item.setId(externalId);
+      itens.add(item);
+      if (externalId == null || externalId.trim().isEmpty()) {
+        rejeitado(item, "REFUND_VALIDATION_ERROR", "ID inválido");
+      } else if (candidatos.putIfAbsent(externalId, i) != null) {
+        rejeitado(item, "REFUND_DUPLICATE", "Identificador repetido no lote");
+      }
+    }
+
+    List<String> identificadores = new ArrayList<>(candidatos.keySet());
+    int cancelados = 0;
+    for (int inicioBloco = 0; inicioBloco < identificadores.size(); inicioBloco += TAMANHO_BLOCO_ESTORNO) {
+      List<String> bloco = identificadores.subList(inicioBloco,
+          Math.min(inicioBloco + TAMANHO_BLOCO_ESTORNO, identificadores.size()));
+      long inicio = metrics.inicio();
+      PaymentStore.ResultadoEstorno[] resultados;
+      try {
+        resultados = store.cancelAll(bloco, now);
+      } catch (RuntimeException exception) {
+        log.error("Erro inesperado no estorno em lote tamanho_bloco={}", bloco.size(), exception);
+        bloco.forEach(id -> rejeitado(itens.get(candidatos.get(id)), PaymentMetrics.ERRO_INESPERADO, "Erro inesperado"));
+        continue;
+      } finally {
+        metrics.registrar(Operacao.ESTORNO_LOTE, Etapa.GRAVACAO, inicio);
+      }
+      List<String> estornados = new ArrayList<>(bloco.size());
+      for (int i = 0; i < bloco.size(); i++) {
+        RefundBatchItem item = itens.get(candidatos.get(bloco.get(i)));
+        switch (resultados[i]) {
+          case ESTORNADO -> {
+            item.setStatus("CANCELADO");
+            metrics.sucesso(Operacao.ESTORNO_LOTE);
+            auditoria.registrar(Operacao.ESTORNO_LOTE, item.getId(), "CANCELADO", PaymentMetrics.OK, null);
+            estornados.add(bloco.get(i));
+          }
+          case NAO_ENCONTRADO -> rejeitado(item, "REFUND_VALIDATION_ERROR", "Transação não encontrada");
+          case STATUS_INVALIDO -> rejeitado(item, "REFUND_STATUS_INVALID", "Status atual não permite estorno");
+        }
+      }
+      lookupCache.invalidar(estornados);
+      if (!estornados.isEmpty()) {
+        store.findViewsByExternalIds(estornados).forEach(totais::estornado);
+      }
+      cancelados += estornados.size();
+    }
+    log.info("Lote de estornos processado total={} cancelados={} canceladoEm={}", externalIds.size(), cancelados,
+        formatter.format(now));
+    return itens;
+  }
+
+  private void rejeitado(RefundBatchItem item, String codigo, String mensagem) {
+    metrics.falha(Operacao.ESTORNO_LOTE, codigo);
+    auditoria.registrar(Operacao.ESTORNO_LOTE, item.getId(), "REJEITADO", codigo, null);
+    item.setStatus("REJEITADO");
+    item.setMensagem(mensagem);
+  }
+
+  private void negadoNoLote(PaymentResponse response, String codigo, String mensagem) {
+    metrics.falha(Operacao.LOTE, codigo);
+    auditoria.registrar(Operacao.LOTE, response.getId(), "NEGADO", codigo, null);
+    negado(response, mensagem);
+  }
 
   /**
    * Marca resposta como NEGADO.
@@ -239,7 +492,7 @@ public class PaymentService {
    * @param response resposta
    * @return resposta com status NEGADO
    */
-  private PaymentResponse negado(PaymentResponse response, String mensagem) {
+  static PaymentResponse negado(PaymentResponse response, String mensagem) {
     PaymentDescricaoResponse descricao = response.getDescricao();
     if (descricao == null) {
       descricao = new PaymentDescricaoResponse();
@@ -250,37 +503,55 @@ public class PaymentService {
     return response;
   }
 
+  /**
+   * Converte a entidade na resposta de consulta.
+   */
   public PaymentResponse toResponse(Payment pagamento) {
-    PaymentResponse response = new PaymentResponse();
-    String cartao = pagamento.getCartao();
-    if (cartao != null) {
-      String masked = cartao.length() == 16 ? cartao.substring(0, 4) + "*********" + cartao.substring(12) : cartao.substring(0, 4) + "*********" + cartao.substring(cartao.length() - 4);
-      response.setCartao(masked);
-    }
-    response.setId(pagamento.getExternalId());
-    PaymentDescricaoResponse descricao = new PaymentDescricaoResponse();
-    descricao.setValor(pagamento.getValor() != null ? pagamento.getValor().toPlainString() : null);
-    descricao.setDataHora(pagamento.getDataHora() != null ? formatter.format(pagamento.getDataHora()) : null);
-    descricao.setEstabelecimento(Utf8Sanitizer.sanitize(pagamento.getEstabelecimento()));
-    descricao.setNsu(pagamento.getNsu());
-    descricao.setCodigoAutorizacao(pagamento.getCodigoAutorizacao());
-    descricao.setStatus(pagamento.getStatus());
-    response.setDescricao(descricao);
-    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
-    formaPagamento.setTipo(pagamento.getTipo());
-    formaPagamento.setParcelas(pagamento.getParcelas() != null ? pagamento.getParcelas().toString() : null);
-    response.setFormaPagamento(formaPagamento);
-    return response;
+    return PaymentResponseMapper.toResponse(PaymentView.of(pagamento));
   }
 
+  /**
+   * Consulta por `externalId` através do {@link PaymentLookupCache}; ausências
+   * também ficam em cache por um período curto. Em falha do cache, lê pela
+   * projeção somente leitura de {@link PaymentQueryReader}.
+   */
   public java.util.Optional<PaymentResponse> findOne(String externalId) {
-    return repository.findByExternalId(externalId).map(this::toResponse);
+    return lookupCache.buscar(externalId, queryReader::findOne);
   }
 
-  public java.util.List<PaymentResponse> list(int page, int rowsPerPage) {
-    Page<Payment> result = repository.findAll(PageRequest.of(page, rowsPerPage, Sort.by("id").descending()));
-    return result.getContent().stream().map(this::toResponse).collect(java.util.stream.Collectors.toList());
+  /**
+   * Listagem por página numerada (OFFSET), mantida por compatibilidade. Não
+   * executa `count(*)`; o `nextCursor` permite seguir pela listagem por cursor.
+   */
+  public PaymentCursorPage list(int page, int rowsPerPage) {
+    return queryReader.list(page, rowsPerPage);
   }
 
+  /**
+   * Listagem por cursor: retorna até `rowsPerPage` transações com `id`
+   * menor que o do cursor (ou as mais recentes, se `cursor` for `null`).
+   * Lança `PaymentValidationException` para cursor inválido.
+   */
+  public PaymentCursorPage listAfter(String cursor, int rowsPerPage) {
+    return queryReader.listAfter(cursor, rowsPerPage);
+  }
+
+  /**
+   * Listagem por cursor restrita aos pagamentos que atendem a `filtro`
+   * (status, período, estabelecimento, tipo e faixa de valor).
+   */
+  public PaymentCursorPage listAfter(PaymentFilter filtro, String cursor, int rowsPerPage) {
+    return queryReader.listAfter(filtro, cursor, rowsPerPage);
+  }
+
+  /**
+   * Exportação de todos os pagamentos de `filtro`, entregues um a um a
+   * `destino` em ordem crescente de `id`, lendo `lote` linhas por vez.
+   */
+  public void exportar(PaymentFilter filtro, int lote, Consumer<PaymentResponse> destino) {
+    queryReader.exportar(filtro, lote, destino);
+  }
+
+
   
 }
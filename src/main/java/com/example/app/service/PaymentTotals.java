@@ -0,0 +1,300 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Totais de pagamentos por estabelecimento, dia de `dataHora` e tipo,
+ * mantidos em memória a cada autorização e estorno.
+ *
+ * Cada grupo guarda quantidade e valor em centavos de autorizados e de
+ * cancelados em `LongAdder`, então gravações concorrentes no mesmo grupo
+ * não disputam um único contador. O estorno move o pagamento de
+ * autorizados para cancelados no grupo da autorização. Negados não entram.
+ * A consulta percorre os grupos, nunca os pagamentos.
+ *
+ * As alterações entram após o commit da transação corrente (ou logo após
+ * a gravação, sem transação). Na inicialização, antes de o servidor
+ * aceitar requisições, os totais vêm do último checkpoint com os grupos
+ * alterados depois dele recalculados ({@link PaymentTotalsCheckpoint}, só
+ * no armazenamento `jpa`), de uma soma agrupada da tabela ou, no `journal`,
+ * de uma leitura completa. Como o {@link ExternalIdIndex}, só é correto se
+ * esta aplicação for a única a gravar na tabela.
+ */
+@Component
+@Slf4j
+public class PaymentTotals implements SmartInitializingSingleton, MeterBinder {
+  /** Dimensões de agrupamento da consulta. */
+  public enum Dimensao {
+    ESTABELECIMENTO,
+    DIA,
+    TIPO
+  }
+
+  /** Chave de um grupo; na consulta, dimensões não agrupadas ficam `null`. */
+  public record Grupo(String estabelecimento, LocalDate dia, String tipo) {}
+
+  /** Totais de um grupo. */
+  public record Total(Grupo grupo, long autorizados, long centavosAutorizados, long cancelados,
+      long centavosCancelados) {
+    Total somar(Total outro) {
+      return new Total(grupo, autorizados + outro.autorizados, centavosAutorizados + outro.centavosAutorizados,
+          cancelados + outro.cancelados, centavosCancelados + outro.centavosCancelados);
+    }
+
+    boolean vazio() {
+      return autorizados == 0 && cancelados == 0 && centavosAutorizados == 0 && centavosCancelados == 0;
+    }
+  }
+
+  private static final class Contadores {
+    private final LongAdder autorizados = new LongAdder();
+    private final LongAdder centavosAutorizados = new LongAdder();
+    private final LongAdder cancelados = new LongAdder();
+    private final LongAdder centavosCancelados = new LongAdder();
+
+    Total total(Grupo grupo) {
+      return new Total(grupo, autorizados.sum(), centavosAutorizados.sum(), cancelados.sum(),
+          centavosCancelados.sum());
+    }
+  }
+
+  private static final Comparator<Grupo> ORDEM = Comparator
+      .comparing(Grupo::dia, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+      .thenComparing(Grupo::estabelecimento, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+      .thenComparing(Grupo::tipo, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+  private static final int LOTE_LEITURA = 10_000;
+
+  private final ConcurrentHashMap<Grupo, Contadores> grupos = new ConcurrentHashMap<>();
+  /** Alterações aplicadas; um checkpoint sem alterações desde o anterior é pulado. */
+  private final LongAdder alteracoes = new LongAdder();
+  private final PaymentStore store;
+  private final PaymentTotalsCheckpoint checkpoint;
+  private final Duration intervaloCheckpoint;
+  private ScheduledExecutorService agendador;
+  /** Marca lida no checkpoint anterior; é a que acompanha o próximo. */
+  private PaymentTotalsCheckpoint.Marca marca;
+  private long alteracoesNoCheckpoint = -1;
+
+  public PaymentTotals(PaymentStore store, ObjectProvider<PaymentTotalsCheckpoint> checkpoint,
+      @Value("${app.totais.checkpoint-intervalo:5m}") Duration intervaloCheckpoint) {
+    this.store = store;
+    this.checkpoint = checkpoint.getIfAvailable();
+    this.intervaloCheckpoint = intervaloCheckpoint;
+  }
+
+  /**
+   * Carga inicial, depois de todos os beans criados e antes do servidor
+   * web iniciar, então nenhuma gravação concorre com ela.
+   */
+  @Override
+  public void afterSingletonsInstantiated() {
+    long inicio = System.nanoTime();
+    String origem;
+    if (checkpoint == null) {
+      store.forEachView(PaymentFilter.NENHUM, LOTE_LEITURA, pagamento -> {
+        if ("AUTORIZADO".equals(pagamento.getStatus()) || "CANCELADO".equals(pagamento.getStatus())) {
+          somar(total(pagamento.getEstabelecimento(), pagamento.getDataHora(), pagamento.getTipo(),
+              pagamento.getValor(), "CANCELADO".equals(pagamento.getStatus())));
+        }
+      });
+      origem = "leitura";
+    } else {
+      PaymentTotalsCheckpoint.Marca marcaInicial = checkpoint.marcaAtual();
+      Optional<PaymentTotalsCheckpoint.Salvo> salvo = checkpoint.ultimo();
+      if (salvo.isPresent()) {
+        salvo.get().totais().forEach(this::somar);
+        Set<Grupo> alterados = checkpoint.gruposAlteradosDesde(salvo.get().marca());
+        for (Grupo grupo : alterados) {
+          grupos.remove(grupo);
+          somar(checkpoint.recalcular(grupo));
+        }
+        origem = "checkpoint grupos_recalculados=" + alterados.size();
+      } else {
+        checkpoint.somarTabela(this::somar);
+        origem = "tabela";
+      }
+      marca = marcaInicial;
+      if (!intervaloCheckpoint.isZero()) {
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+          Thread thread = new Thread(tarefa, "pagamentos-totais");
+          thread.setDaemon(true);
+          return thread;
+        });
+        long intervalo = intervaloCheckpoint.toMillis();
+        agendador.scheduleWithFixedDelay(this::checkpointAgendado, intervalo, intervalo, TimeUnit.MILLISECONDS);
+      }
+    }
+    log.info("Totais carregados origem={} grupos={} duracao_ms={}", origem, grupos.size(),
+        (System.nanoTime() - inicio) / 1_000_000);
+  }
+
+  /** Conta a autorização gravada; outros status são ignorados. */
+  public void autorizado(Payment pagamento) {
+    if (!"AUTORIZADO".equals(pagamento.getStatus())) {
+      return;
+    }
+    Total total = total(pagamento.getEstabelecimento(), pagamento.getDataHora(), pagamento.getTipo(),
+        pagamento.getValor(), false);
+    if (total != null) {
+      aplicar(() -> somar(total));
+    }
+  }
+
+  /** Move o pagamento estornado de autorizados para cancelados. */
+  public void estornado(PaymentView pagamento) {
+    Total cancelado = total(pagamento.getEstabelecimento(), pagamento.getDataHora(), pagamento.getTipo(),
+        pagamento.getValor(), true);
+    if (cancelado == null) {
+      return;
+    }
+    Total estorno = new Total(cancelado.grupo(), -1, -cancelado.centavosCancelados(), 1,
+        cancelado.centavosCancelados());
+    aplicar(() -> somar(estorno));
+  }
+
+  /**
+   * Totais agregados pelas dimensões de `agrupar`, restritos aos filtros não
+   * nulos (`inicio` e `fim` inclusive), ordenados por dia, estabelecimento
+   * e tipo.
+   */
+  public List<Total> consultar(Set<Dimensao> agrupar, String estabelecimento, String tipo, LocalDate inicio,
+      LocalDate fim) {
+    Map<Grupo, Total> resultado = new HashMap<>();
+    grupos.forEach((grupo, contadores) -> {
+      if (estabelecimento != null && !estabelecimento.equals(grupo.estabelecimento())
+          || tipo != null && !tipo.equals(grupo.tipo())
+          || inicio != null && grupo.dia().isBefore(inicio)
+          || fim != null && grupo.dia().isAfter(fim)) {
+        return;
+      }
+      Grupo chave = new Grupo(agrupar.contains(Dimensao.ESTABELECIMENTO) ? grupo.estabelecimento() : null,
+          agrupar.contains(Dimensao.DIA) ? grupo.dia() : null,
+          agrupar.contains(Dimensao.TIPO) ? grupo.tipo() : null);
+      Total total = contadores.total(chave);
+      resultado.merge(chave, total, Total::somar);
+    });
+    List<Total> totais = new ArrayList<>(resultado.size());
+    resultado.values().stream().filter(total -> !total.vazio())
+        .sorted(Comparator.comparing(Total::grupo, ORDEM)).forEach(totais::add);
+    return totais;
+  }
+
+  /**
+   * Grava o checkpoint com a marca lida no checkpoint anterior: uma
+   * gravação ainda não refletida nos contadores começou depois dela, então
+   * o grupo dela é recalculado na próxima inicialização. Não faz nada sem
+   * alterações desde o último checkpoint ou fora do armazenamento `jpa`.
+   */
+  public synchronized void salvarCheckpoint() {
+    if (checkpoint == null) {
+      return;
+    }
+    long aplicadas = alteracoes.sum();
+    if (aplicadas == alteracoesNoCheckpoint) {
+      return;
+    }
+    PaymentTotalsCheckpoint.Marca proxima = checkpoint.marcaAtual();
+    List<Total> totais = consultar(EnumSet.allOf(Dimensao.class), null, null, null, null);
+    checkpoint.salvar(totais, marca);
+    marca = proxima;
+    alteracoesNoCheckpoint = aplicadas;
+    log.debug("Checkpoint dos totais grupos={} ultimo_id={}", totais.size(), marca.ultimoId());
+  }
+
+  private void checkpointAgendado() {
+    try {
+      salvarCheckpoint();
+    } catch (RuntimeException exception) {
+      log.error("Falha no checkpoint dos totais", exception);
+    }
+  }
+
+  /** Encerra o agendamento e grava um último checkpoint. */
+  @PreDestroy
+  public void encerrar() {
+    if (agendador == null) {
+      return;
+    }
+    agendador.shutdownNow();
+    checkpointAgendado();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("pagamentos.totais.grupos", grupos, Map::size)
+        .description("Grupos estabelecimento/dia/tipo nos totais em memória")
+        .register(registry);
+  }
+
+  private void aplicar(Runnable alteracao) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          alteracao.run();
+        }
+      });
+    } else {
+      alteracao.run();
+    }
+  }
+
+  private void somar(Total total) {
+    if (total == null || total.vazio()) {
+      return;
+    }
+    Contadores contadores = grupos.computeIfAbsent(total.grupo(), grupo -> new Contadores());
+    contadores.autorizados.add(total.autorizados());
+    contadores.centavosAutorizados.add(total.centavosAutorizados());
+    contadores.cancelados.add(total.cancelados());
+    contadores.centavosCancelados.add(total.centavosCancelados());
+    alteracoes.increment();
+  }
+
+  /** Um pagamento como total do seu grupo; `null` se faltar algum campo do grupo. */
+  private static Total total(String estabelecimento, LocalDateTime dataHora, String tipo, BigDecimal valor,
+      boolean cancelado) {
+    if (estabelecimento == null || dataHora == null || tipo == null) {
+      return null;
+    }
+    Grupo grupo = new Grupo(estabelecimento, dataHora.toLocalDate(), tipo);
+    long centavos = centavos(valor);
+    return cancelado ? new Total(grupo, 0, 0, 1, centavos) : new Total(grupo, 1, centavos, 0, 0);
+  }
+
+  static long centavos(BigDecimal valor) {
+    return valor == null ? 0 : valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+  }
+}
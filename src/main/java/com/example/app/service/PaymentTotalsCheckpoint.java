@@ -0,0 +1,141 @@
+package com.example.app.service;
+
+import com.example.app.service.PaymentTotals.Grupo;
+import com.example.app.service.PaymentTotals.Total;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Leitura e gravação dos totais de {@link PaymentTotals} nas tabelas
+ * `payment_total` e `payment_total_marca` (`V3__totais.sql`), e os
+ * recálculos a partir de `payment`.
+ *
+ * A marca registra o maior `id` e o instante lidos antes do checkpoint:
+ * pagamentos de `id` maior foram gravados depois, e estornos com
+ * `cancelado_em` a partir do instante também. Pressupõe `id` crescente no
+ * tempo, como na sequência de `payment`.
+ */
+@Component
+@ConditionalOnProperty(name = "app.armazenamento.tipo", havingValue = "jpa", matchIfMissing = true)
+public class PaymentTotalsCheckpoint {
+  /** Posição da tabela `payment` no momento do checkpoint. */
+  public record Marca(long ultimoId, LocalDateTime instante) {}
+
+  /** Último checkpoint gravado. */
+  public record Salvo(List<Total> totais, Marca marca) {}
+
+  private static final String SOMA = "select estabelecimento, cast(data_hora as date), tipo, status, count(*), sum(valor)"
+      + " from payment where status in ('AUTORIZADO', 'CANCELADO') and estabelecimento is not null"
+      + " and data_hora is not null and tipo is not null";
+  private static final String AGRUPAMENTO = " group by estabelecimento, cast(data_hora as date), tipo, status";
+  private static final int LOTE_LEITURA = 10_000;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public PaymentTotalsCheckpoint(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Soma a tabela inteira em uma passada, entregando um total por grupo e
+   * status (autorizados e cancelados do mesmo grupo chegam separados).
+   */
+  public void somarTabela(Consumer<Total> destino) {
+    jdbcTemplate.query(conexao -> {
+      var consulta = conexao.prepareStatement(SOMA + AGRUPAMENTO);
+      consulta.setFetchSize(LOTE_LEITURA);
+      return consulta;
+    }, (RowCallbackHandler) linha -> destino.accept(total(linha)));
+  }
+
+  /** Totais de um grupo lidos de `payment`, pelo índice de estabelecimento. */
+  public Total recalcular(Grupo grupo) {
+    Total soma = new Total(grupo, 0, 0, 0, 0);
+    List<Total> parciais = jdbcTemplate.query(SOMA + " and estabelecimento = ? and tipo = ?"
+        + " and data_hora >= ? and data_hora < ?" + AGRUPAMENTO, (linha, numero) -> total(linha),
+        grupo.estabelecimento(), grupo.tipo(), Timestamp.valueOf(grupo.dia().atStartOfDay()),
+        Timestamp.valueOf(grupo.dia().plusDays(1).atStartOfDay()));
+    for (Total parcial : parciais) {
+      soma = soma.somar(parcial);
+    }
+    return soma;
+  }
+
+  /** Maior `id` de `payment` e o instante da leitura. */
+  public Marca marcaAtual() {
+    LocalDateTime agora = LocalDateTime.now();
+    Long ultimoId = jdbcTemplate.queryForObject("select max(id) from payment", Long.class);
+    return new Marca(ultimoId != null ? ultimoId : 0, agora);
+  }
+
+  public Optional<Salvo> ultimo() {
+    List<Marca> marcas = jdbcTemplate.query("select ultimo_id, instante from payment_total_marca where id = 1",
+        (linha, numero) -> new Marca(linha.getLong(1), linha.getTimestamp(2).toLocalDateTime()));
+    if (marcas.isEmpty()) {
+      return Optional.empty();
+    }
+    List<Total> totais = jdbcTemplate.query("select estabelecimento, dia, tipo, autorizados, centavos_autorizados,"
+        + " cancelados, centavos_cancelados from payment_total", (linha, numero) -> new Total(
+            new Grupo(linha.getString(1), linha.getDate(2).toLocalDate(), linha.getString(3)),
+            linha.getLong(4), linha.getLong(5), linha.getLong(6), linha.getLong(7)));
+    return Optional.of(new Salvo(totais, marcas.get(0)));
+  }
+
+  /**
+   * Grupos dos pagamentos gravados ou estornados depois da marca, pelos
+   * índices da chave primária e de `cancelado_em`.
+   */
+  public Set<Grupo> gruposAlteradosDesde(Marca marca) {
+    Set<Grupo> grupos = new HashSet<>();
+    RowCallbackHandler coletar = linha -> grupos.add(
+        new Grupo(linha.getString(1), linha.getDate(2).toLocalDate(), linha.getString(3)));
+    String colunas = "select distinct estabelecimento, cast(data_hora as date), tipo from payment where"
+        + " estabelecimento is not null and data_hora is not null and tipo is not null and ";
+    jdbcTemplate.query(colunas + "id > ?", coletar, marca.ultimoId());
+    jdbcTemplate.query(colunas + "cancelado_em >= ?", coletar, Timestamp.valueOf(marca.instante()));
+    return grupos;
+  }
+
+  /** Substitui o checkpoint anterior pelos totais e marca informados. */
+  @Transactional
+  public void salvar(Collection<Total> totais, Marca marca) {
+    jdbcTemplate.update("delete from payment_total");
+    List<Object[]> linhas = new ArrayList<>(totais.size());
+    for (Total total : totais) {
+      linhas.add(new Object[] {total.grupo().estabelecimento(), Date.valueOf(total.grupo().dia()),
+          total.grupo().tipo(), total.autorizados(), total.centavosAutorizados(), total.cancelados(),
+          total.centavosCancelados()});
+    }
+    jdbcTemplate.batchUpdate("insert into payment_total (estabelecimento, dia, tipo, autorizados,"
+        + " centavos_autorizados, cancelados, centavos_cancelados) values (?, ?, ?, ?, ?, ?, ?)", linhas);
+    jdbcTemplate.update("delete from payment_total_marca");
+    jdbcTemplate.update("insert into payment_total_marca (id, ultimo_id, instante) values (1, ?, ?)",
+        marca.ultimoId(), Timestamp.valueOf(marca.instante()));
+  }
+
+  private static Total total(ResultSet linha) throws SQLException {
+    Grupo grupo = new Grupo(linha.getString(1), linha.getObject(2, LocalDate.class), linha.getString(3));
+    long quantidade = linha.getLong(5);
+    BigDecimal soma = linha.getBigDecimal(6);
+    long centavos = PaymentTotals.centavos(soma);
+    return "CANCELADO".equals(linha.getString(4)) ? new Total(grupo, 0, 0, quantidade, centavos)
+        : new Total(grupo, quantidade, centavos, 0, 0);
+  }
+}
@@ -0,0 +1,113 @@
+package com.example.app.service;
+
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentRepository;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Grava transações autorizadas na tabela `payment`; usado por {@link JpaPaymentStore}.
+ *
+ * A restrição única de `external_id` é a checagem de duplicidade: o insert é
+ * tentado direto e a violação dessa restrição é reportada como duplicada, sem
+ * SELECT prévio e sem janela de corrida entre checagem e gravação.
+ *
+ * Em lote, tudo é persistido em uma única transação e enviado ao banco via
+ * batching JDBC do Hibernate. Se alguma linha violar a unicidade (corrida com
+ * outra gravação concorrente), o lote é regravado linha a linha para isolar
+ * apenas as duplicadas.
+ */
+@Component
+@Slf4j
+public class PaymentWriter {
+  private final PaymentRepository repository;
+  private final TransactionTemplate transactionTemplate;
+
+  public PaymentWriter(PaymentRepository repository, PlatformTransactionManager transactionManager) {
+    this.repository = repository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Persiste o pagamento em transação própria (ou na transação corrente, se
+   * houver). Retorna `false` quando o `externalId` já existe; outras falhas
+   * de integridade são propagadas.
+   */
+  public boolean insert(Payment pagamento) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> repository.saveAndFlush(pagamento));
+      return true;
+    } catch (DataIntegrityViolationException exception) {
+      if (violaExternalIdUnico(exception)) {
+        return false;
+      }
+      throw exception;
+    }
+  }
+
+  /**
+   * Persiste os pagamentos e indica, por posição, quais foram gravados.
+   * Posições `false` correspondem a violações de unicidade.
+   */
+  public boolean[] insertAll(List<Payment> pagamentos) {
+    return insertAll(pagamentos, null);
+  }
+
+  /**
+   * Como {@link #insertAll(List)}, mas sem abandonar o restante quando uma
+   * linha falha por outro motivo na regravação linha a linha: a exceção vai
+   * para `falhas[i]` (se `falhas` não for `null`) e as demais linhas seguem.
+   * Uma falha na transação do lote inteiro continua sendo propagada, já que
+   * nada foi gravado.
+   */
+  public boolean[] insertAll(List<Payment> pagamentos, RuntimeException[] falhas) {
+    boolean[] gravados = new boolean[pagamentos.size()];
+    if (pagamentos.isEmpty()) {
+      return gravados;
+    }
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        repository.saveAll(pagamentos);
+        repository.flush();
+      });
+      Arrays.fill(gravados, true);
+      return gravados;
+    } catch (DataIntegrityViolationException exception) {
+      log.warn("Lote com violação de integridade, regravando linha a linha tamanho={}", pagamentos.size());
+    }
+    for (int i = 0; i < pagamentos.size(); i++) {
+      Payment pagamento = pagamentos.get(i);
+      pagamento.setId(null);
+      pagamento.setVersao(null);
+      try {
+        gravados[i] = insert(pagamento);
+      } catch (RuntimeException exception) {
+        if (falhas == null) {
+          throw exception;
+        }
+        falhas[i] = exception;
+      }
+    }
+    return gravados;
+  }
+
+  /**
+   * Indica se a violação veio da restrição única de `external_id`.
+   */
+  static boolean violaExternalIdUnico(Throwable exception) {
+    for (Throwable causa = exception; causa != null; causa = causa.getCause()) {
+      if (causa instanceof ConstraintViolationException violacao && violacao.getConstraintName() != null
+          && violacao.getConstraintName().toLowerCase(Locale.ROOT).contains(Payment.UK_EXTERNAL_ID)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,219 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore.ResultadoEstorno;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Acesso à tabela `payment` pelo driver R2DBC, usado pela pilha reativa
+ * (perfil `reativo`).
+ *
+ * Usa a SPI do R2DBC direto, com um pool próprio ({@link ConnectionPool})
+ * que não é publicado como bean: um `ConnectionFactory` no contexto
+ * desligaria o `DataSource`, e o JPA continua criando o esquema e
+ * reservando as faixas de NSU.
+ *
+ * O `id` segue a alocação em blocos do Hibernate (otimizador `pooled` sobre
+ * `payment_seq`, blocos de {@value #TAMANHO_BLOCO}), então as duas pilhas
+ * podem gravar na mesma tabela sem colidir.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcPaymentStore {
+  /** `allocationSize` de `payment_seq` em {@link Payment}. */
+  private static final int TAMANHO_BLOCO = 50;
+  private static final String PROXIMO_BLOCO = "select next value for payment_seq";
+  private static final String INSERT = "insert into payment (id, external_id, cartao, tipo, parcelas, valor, data_hora, "
+      + "estabelecimento, nsu, codigo_autorizacao, status, versao) values ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10, $11, 0)";
+  private static final String SELECT = "select id, external_id, cartao, valor, data_hora, estabelecimento, nsu, "
+      + "codigo_autorizacao, status, tipo, parcelas from payment where external_id = $1";
+  private static final String CANCEL = "update payment set status = 'CANCELADO', cancelado_em = $1, versao = versao + 1 "
+      + "where external_id = $2 and status = 'AUTORIZADO'";
+  private static final String EXISTE = "select 1 from payment where external_id = $1";
+
+  private final ConnectionPool pool;
+  private final AtomicReference<BlocoIds> bloco = new AtomicReference<>(new BlocoIds(1, 0));
+
+  public R2dbcPaymentStore(@Value("${app.reativo.r2dbc.url}") String url,
+      @Value("${app.reativo.r2dbc.usuario:sa}") String usuario,
+      @Value("${app.reativo.r2dbc.senha:}") String senha,
+      @Value("${app.reativo.r2dbc.pool-maximo:20}") int poolMaximo) {
+    ConnectionFactoryOptions opcoes = ConnectionFactoryOptions.parse(url).mutate()
+        .option(ConnectionFactoryOptions.USER, usuario)
+        .option(ConnectionFactoryOptions.PASSWORD, senha)
+        .build();
+    this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(opcoes))
+        .initialSize(Math.min(poolMaximo, 10))
+        .maxSize(poolMaximo)
+        .build());
+  }
+
+  /**
+   * Grava a transação com um novo `id`. Retorna `false` se o `externalId`
+   * já existir; as demais falhas seguem como erro.
+   */
+  public Mono<Boolean> insert(Payment pagamento) {
+    return proximoId()
+        .flatMap(id -> {
+          pagamento.setId(id);
+          return comConexao(conexao -> {
+            Statement comando = conexao.createStatement(INSERT);
+            vincular(comando, 0, id, Long.class);
+            vincular(comando, 1, pagamento.getExternalId(), String.class);
+            vincular(comando, 2, pagamento.getCartao(), String.class);
+            vincular(comando, 3, pagamento.getTipo(), String.class);
+            vincular(comando, 4, pagamento.getParcelas(), Integer.class);
+            vincular(comando, 5, pagamento.getValor(), BigDecimal.class);
+            vincular(comando, 6, pagamento.getDataHora(), LocalDateTime.class);
+            vincular(comando, 7, pagamento.getEstabelecimento(), String.class);
+            vincular(comando, 8, pagamento.getNsu(), String.class);
+            vincular(comando, 9, pagamento.getCodigoAutorizacao(), String.class);
+            vincular(comando, 10, pagamento.getStatus(), String.class);
+            return Flux.from(comando.execute()).flatMap(Result::getRowsUpdated);
+          }).then(Mono.just(true));
+        })
+        .onErrorResume(R2dbcPaymentStore::violaExternalIdUnico, exception -> Mono.just(false));
+  }
+
+  /**
+   * Projeção da transação com o `externalId` informado; vazio se não existir.
+   */
+  public Mono<PaymentView> findViewByExternalId(String externalId) {
+    return comConexao(conexao -> Flux.from(conexao.createStatement(SELECT).bind(0, externalId).execute())
+        .flatMap(resultado -> resultado.map(R2dbcPaymentStore::view)))
+        .next();
+  }
+
+  /**
+   * Estorna com um único UPDATE condicional, como
+   * {@link com.example.app.repository.PaymentStore#cancel}; sem linha
+   * alterada, uma consulta separa "não encontrado" de "status inválido".
+   */
+  public Mono<ResultadoEstorno> cancel(String externalId, LocalDateTime canceladoEm) {
+    return comConexao(conexao -> Flux.from(conexao.createStatement(CANCEL)
+            .bind(0, canceladoEm)
+            .bind(1, externalId)
+            .execute())
+        .flatMap(Result::getRowsUpdated)
+        .reduce(0L, Long::sum)
+        .flatMap(alterados -> alterados > 0
+            ? Mono.just(ResultadoEstorno.ESTORNADO)
+            : Flux.from(conexao.createStatement(EXISTE).bind(0, externalId).execute())
+                .flatMap(resultado -> resultado.map(linha -> ResultadoEstorno.STATUS_INVALIDO))
+                .next()
+                .defaultIfEmpty(ResultadoEstorno.NAO_ENCONTRADO)))
+        .single();
+  }
+
+  @PreDestroy
+  public void fechar() {
+    pool.dispose();
+  }
+
+  /**
+   * Usa uma conexão do pool e a devolve ao fim (sucesso, erro ou cancelamento).
+   */
+  private <T> Flux<T> comConexao(Function<Connection, Publisher<T>> uso) {
+    return Flux.usingWhen(pool.create(), uso, Connection::close);
+  }
+
+  /**
+   * Próximo `id` do bloco atual; esgotado, reserva outro na sequência.
+   * Reservas concorrentes ficam cada uma com seu bloco, e o que não virar o
+   * bloco atual tem o restante descartado, como acontece entre instâncias.
+   */
+  private Mono<Long> proximoId() {
+    return Mono.defer(() -> {
+      long id = bloco.get().reservar();
+      if (id != BlocoIds.ESGOTADO) {
+        return Mono.just(id);
+      }
+      return novoBloco().flatMap(novo -> {
+        bloco.set(novo);
+        long reservado = novo.reservar();
+        return reservado != BlocoIds.ESGOTADO ? Mono.just(reservado) : proximoId();
+      });
+    });
+  }
+
+  /**
+   * Bloco a partir do próximo valor `v` da sequência: `[v - 49, v]`. O
+   * primeiro valor (1) é tratado como no otimizador `pooled`, lendo mais um
+   * valor e usando `[1, próximo]`.
+   */
+  private Mono<BlocoIds> novoBloco() {
+    return proximoValorSequencia().flatMap(valor -> valor == 1
+        ? proximoValorSequencia().map(fim -> new BlocoIds(1, fim))
+        : Mono.just(new BlocoIds(valor - TAMANHO_BLOCO + 1, valor)));
+  }
+
+  private Mono<Long> proximoValorSequencia() {
+    return comConexao(conexao -> Flux.from(conexao.createStatement(PROXIMO_BLOCO).execute())
+        .flatMap(resultado -> resultado.map(linha -> linha.get(0, Long.class))))
+        .single();
+  }
+
+  private static PaymentView view(Readable linha) {
+    return new PaymentView(linha.get("id", Long.class), linha.get("external_id", String.class),
+        linha.get("cartao", String.class), linha.get("valor", BigDecimal.class),
+        linha.get("data_hora", LocalDateTime.class), linha.get("estabelecimento", String.class),
+        linha.get("nsu", String.class), linha.get("codigo_autorizacao", String.class),
+        linha.get("status", String.class), linha.get("tipo", String.class), linha.get("parcelas", Integer.class));
+  }
+
+  private static void vincular(Statement comando, int posicao, Object valor, Class<?> tipo) {
+    if (valor == null) {
+      comando.bindNull(posicao, tipo);
+    } else {
+      comando.bind(posicao, valor);
+    }
+  }
+
+  /**
+   * Indica se a violação veio da restrição única de `external_id`; o H2
+   * informa o nome da restrição apenas na mensagem.
+   */
+  static boolean violaExternalIdUnico(Throwable exception) {
+    return exception instanceof R2dbcDataIntegrityViolationException && exception.getMessage() != null
+        && exception.getMessage().toLowerCase(Locale.ROOT).contains(Payment.UK_EXTERNAL_ID);
+  }
+
+  /** Faixa `[proximo, fim]` de ids reservada na sequência. */
+  private static final class BlocoIds {
+    static final long ESGOTADO = -1;
+    private final AtomicLong proximo;
+    private final long fim;
+
+    BlocoIds(long inicio, long fim) {
+      this.proximo = new AtomicLong(inicio);
+      this.fim = fim;
+    }
+
+    long reservar() {
+      long id = proximo.getAndIncrement();
+      return id <= fim ? id : ESGOTADO;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.app.service;
+
+import java.security.SecureRandom;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estratégia original: NSU e código sorteados de um único {@link SecureRandom}
+ * compartilhado e formatados com `String.format`.
+ *
+ * Não garante unicidade do NSU; uma colisão é rejeitada pela restrição
+ * única de `nsu` e a autorização falha. Mantida para comparação e para
+ * ambientes sem o contador de faixas.
+ *
+ * Por padrão usa o DRBG: o `NativePRNG` lê `/dev/urandom` dentro do seu
+ * monitor, o que prende a thread portadora quando a chamada vem de uma
+ * thread virtual.
+ */
+@Component
+@ConditionalOnProperty(name = "app.nsu.estrategia", havingValue = "aleatorio")
+public class RandomNsuGenerator implements NsuGenerator {
+  private final SecureRandom random;
+
+  public RandomNsuGenerator() {
+    this(LeasedRangeNsuGenerator.novoRandom());
+  }
+
+  /**
+   * Construtor com injeção de {@link SecureRandom} para permitir testes.
+   */
+  public RandomNsuGenerator(SecureRandom random) {
+    this.random = random;
+  }
+
+  @Override
+  public String proximoNsu() {
+    long v = random.nextLong(1_000_000_0000L);
+    return String.format("%010d", v);
+  }
+
+  @Override
+  public String proximoCodigoAutorizacao() {
+    int v = random.nextInt(1_000_000_000);
+    return String.format("%09d", v);
+  }
+}
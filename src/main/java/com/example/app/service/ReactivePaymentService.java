@@ -0,0 +1,159 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentRequest;
+import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.dto.payment.ValidatedPayment;
+import com.example.app.entity.Payment;
+import com.example.app.exception.DuplicatePaymentException;
+import com.example.app.exception.PaymentCreationException;
+import com.example.app.exception.PaymentProcessingException;
+import com.example.app.exception.PaymentValidationException;
+import com.example.app.service.PaymentMetrics.Etapa;
+import com.example.app.service.PaymentMetrics.Operacao;
+import com.example.app.validator.PaymentRequestValidator;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Autorização, consulta e estorno da pilha reativa (perfil `reativo`).
+ *
+ * Aplica a mesma validação, sanitização e montagem de resposta de
+ * {@link PaymentService}, gravando por {@link R2dbcPaymentStore} sem prender
+ * uma thread por requisição. A consulta não passa pelo
+ * {@link PaymentLookupCache}, cuja carga é uma leitura JPA bloqueante.
+ *
+ * O NSU vem do mesmo {@link NsuGenerator}; com a estratégia `faixa`, apenas
+ * a reserva de uma nova faixa (uma a cada `app.nsu.tamanho-faixa`
+ * autorizações) acessa o banco de forma bloqueante.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactivePaymentService {
+  private final R2dbcPaymentStore store;
+  private final NsuGenerator nsuGenerator;
+  private final PaymentMetrics metrics;
+  private final PaymentTotals totais;
+  private final PaymentAudit auditoria;
+  private final PaymentIdempotency idempotencia;
+
+  /**
+   * Processa uma requisição de pagamento como {@link PaymentService#process};
+   * validação, duplicidade e falha na gravação resultam em "NEGADO". Uma
+   * repetição com o mesmo payload recebe a resposta original sem bloquear
+   * a thread: a espera pela tentativa em andamento é encadeada no resultado.
+   */
+  public Mono<PaymentResponse> process(PaymentRequest request) {
+    long inicio = metrics.inicio();
+    PaymentResponse response = PaymentService.initializeResponse(request);
+    metrics.registrar(Operacao.AUTORIZACAO, Etapa.SANITIZACAO, inicio);
+    ValidatedPayment validado;
+    inicio = metrics.inicio();
+    try {
+      validado = new PaymentRequestValidator(request).parse();
+    } catch (PaymentValidationException exception) {
+      return Mono.just(negado(request, response, exception.getCode(), exception.getMessage()));
+    } finally {
+      metrics.registrar(Operacao.AUTORIZACAO, Etapa.VALIDACAO, inicio);
+    }
+    PaymentIdempotency.Reserva reserva;
+    try {
+      reserva = idempotencia.reservar(request);
+    } catch (PaymentProcessingException exception) {
+      return Mono.just(negado(request, response, exception.getCode(), exception.getMessage()));
+    }
+    if (!reserva.primeira()) {
+      return Mono.fromFuture(reserva.resultado(), true)
+          .map(original -> {
+            PaymentService.preencherRespostaAutorizada(response, original.nsu(), original.codigoAutorizacao());
+            metrics.reenvio(Operacao.AUTORIZACAO);
+            auditoria.registrar(Operacao.AUTORIZACAO, request.getId(), "AUTORIZADO", PaymentMetrics.REENVIO, null);
+            return response;
+          })
+          .onErrorResume(PaymentProcessingException.class, exception ->
+              Mono.just(negado(request, response, exception.getCode(), exception.getMessage())));
+    }
+    Payment pagamento;
+    try {
+      pagamento = PaymentService.novaTransacao(validado, response.getDescricao().getEstabelecimento(),
+          nsuGenerator, metrics, Operacao.AUTORIZACAO);
+    } catch (RuntimeException exception) {
+      idempotencia.falhar(reserva, new PaymentProcessingException(PaymentMetrics.ERRO_INESPERADO, "Erro inesperado"));
+      log.error("Erro inesperado no processamento identificador={}", request.getId(), exception);
+      return Mono.just(negado(request, response, PaymentMetrics.ERRO_INESPERADO, "Erro inesperado"));
+    }
+
+    long inicioGravacao = metrics.inicio();
+    return store.insert(pagamento)
+        .doFinally(sinal -> metrics.registrar(Operacao.AUTORIZACAO, Etapa.GRAVACAO, inicioGravacao))
+        // Sem isso, quem espera esta tentativa ficaria preso até o ttl.
+        .doOnCancel(() -> idempotencia.falhar(reserva,
+            new PaymentCreationException("PAYMENT_CREATION_ERROR", "Falha ao criar transação")))
+        .map(gravado -> {
+          if (!gravado) {
+            DuplicatePaymentException duplicado = new DuplicatePaymentException("PAYMENT_DUPLICATE",
+                PaymentService.mensagemDuplicado(pagamento.getExternalId()));
+            idempotencia.falhar(reserva, duplicado);
+            return negado(request, response, duplicado.getCode(), duplicado.getMessage());
+          }
+          idempotencia.concluir(reserva, new PaymentIdempotency.Autorizacao(pagamento.getNsu(),
+              pagamento.getCodigoAutorizacao()));
+          PaymentService.preencherRespostaAutorizada(response, pagamento.getNsu(), pagamento.getCodigoAutorizacao());
+          metrics.sucesso(Operacao.AUTORIZACAO);
+          auditoria.registrar(Operacao.AUTORIZACAO, pagamento.getExternalId(), "AUTORIZADO", PaymentMetrics.OK, null);
+          totais.autorizado(pagamento);
+          log.debug("Pagamento autorizado identificador={} nsu={} codigo={}", pagamento.getExternalId(),
+              pagamento.getNsu(), pagamento.getCodigoAutorizacao());
+          return response;
+        })
+        .onErrorResume(exception -> {
+          idempotencia.falhar(reserva, new PaymentCreationException("PAYMENT_CREATION_ERROR", "Falha ao criar transação"));
+          log.error("Erro inesperado na gravação identificador={}", pagamento.getExternalId(), exception);
+          return Mono.just(negado(request, response, "PAYMENT_CREATION_ERROR", "Falha ao criar transação"));
+        });
+  }
+
+  /**
+   * Consulta por `externalId`; vazio se a transação não existir.
+   */
+  public Mono<PaymentResponse> findOne(String externalId) {
+    return store.findViewByExternalId(externalId).map(PaymentResponseMapper::toResponse);
+  }
+
+  /**
+   * Estorna transação autorizada com as regras de {@link PaymentService#cancel}.
+   * Erros de validação e de status chegam como `PaymentValidationException`.
+   */
+  public Mono<PaymentResponse> cancel(String externalId) {
+    if (externalId == null || externalId.trim().isEmpty()) {
+      return Mono.error(new PaymentValidationException("REFUND_VALIDATION_ERROR", "ID inválido"));
+    }
+    LocalDateTime now = LocalDateTime.now();
+    return store.cancel(externalId, now).flatMap(resultado -> switch (resultado) {
+      case NAO_ENCONTRADO -> Mono.error(new PaymentValidationException("REFUND_VALIDATION_ERROR", "Transação não encontrada"));
+      case STATUS_INVALIDO -> {
+        log.debug("Estorno rejeitado identificador={} motivo=status", externalId);
+        yield Mono.error(new PaymentValidationException("REFUND_STATUS_INVALID", "Status atual não permite estorno"));
+      }
+      case ESTORNADO -> store.findViewByExternalId(externalId).map(pagamento -> {
+        totais.estornado(pagamento);
+        log.debug("Estorno realizado identificador={} canceladoEm={}", externalId,
+            PaymentResponseMapper.formatarDataHora(now));
+        return PaymentService.respostaEstorno(pagamento, now);
+      });
+    });
+  }
+
+  private PaymentResponse negado(PaymentRequest request, PaymentResponse response, String codigo, String mensagem) {
+    metrics.falha(Operacao.AUTORIZACAO, codigo);
+    auditoria.registrar(Operacao.AUTORIZACAO, request != null ? request.getId() : null, "NEGADO", codigo, null);
+    log.debug("Pagamento negado identificador={} codigo={} motivo={}", request != null ? request.getId() : null,
+        codigo, mensagem);
+    return PaymentService.negado(response, mensagem);
+  }
+}
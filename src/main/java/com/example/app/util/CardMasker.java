@@ -0,0 +1,21 @@
+package com.example.app.util;
+
+/**
+ * Mascara o número do cartão para exibição: 4 primeiros dígitos, nove
+ * asteriscos e 4 últimos dígitos (ex.: `4444*********1234`).
+ */
+public final class CardMasker {
+  private static final String MASCARA = "*********";
+
+  private CardMasker() {}
+
+  /**
+   * Retorna o cartão mascarado, `null` se a entrada for `null` ou o próprio
+   * valor quando curto demais para ser mascarado.
+   */
+  public static String mask(String cartao) {
+    if (cartao == null) return null;
+    if (cartao.length() < 8) return cartao;
+    return cartao.substring(0, 4) + MASCARA + cartao.substring(cartao.length() - 4);
+  }
+}
@@ -0,0 +1,248 @@
+package com.example.app.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Mapa `long → long` de endereçamento aberto com sondagem linear, sem
+ * boxing: chave e valor ficam intercalados em um único `long[]`, então uma
+ * busca costuma tocar uma só linha de cache. Ocupa 16 bytes por posição e
+ * cresce ao passar de 3/4 de ocupação (de 21 a 43 bytes por entrada).
+ *
+ * Chaves e valores devem ser não negativos; {@link #AUSENTE} indica
+ * chave inexistente. Leituras não bloqueiam (leitura otimista de
+ * `StampedLock`, refeita com o lock de leitura se houve escrita no meio);
+ * escritas são serializadas.
+ */
+public final class LongLongIndex {
+  /** Retorno das buscas para chave inexistente. */
+  public static final long AUSENTE = -1;
+
+  private static final long VAZIO = -1;
+  private static final int CAPACIDADE_MAXIMA = 1 << 29;
+
+  private final StampedLock lock = new StampedLock();
+  /** Pares `[chave, valor]`; a chave {@link #VAZIO} marca posição livre. */
+  private long[] tabela;
+  private int tamanho;
+  private int limite;
+
+  /**
+   * Cria o índice com espaço para `esperado` entradas sem crescer.
+   */
+  public LongLongIndex(int esperado) {
+    alocar(capacidadePara(Math.max(esperado, 16)));
+  }
+
+  public long get(long chave) {
+    long stamp = lock.tryOptimisticRead();
+    long valor = buscar(tabela, chave);
+    if (lock.validate(stamp)) {
+      return valor;
+    }
+    stamp = lock.readLock();
+    try {
+      return buscar(tabela, chave);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public boolean contains(long chave) {
+    return get(chave) != AUSENTE;
+  }
+
+  /**
+   * Associa `valor` à chave e retorna o valor anterior (ou {@link #AUSENTE}).
+   */
+  public long put(long chave, long valor) {
+    return gravar(chave, valor, true);
+  }
+
+  /**
+   * Associa `valor` só se a chave não existir; retorna o valor atual (ou
+   * {@link #AUSENTE} se gravou).
+   */
+  public long putIfAbsent(long chave, long valor) {
+    return gravar(chave, valor, false);
+  }
+
+  /**
+   * Troca o valor da chave por `novo` se o atual for `esperado`. Com `novo`
+   * igual a {@link #AUSENTE} a chave é removida.
+   */
+  public boolean replace(long chave, long esperado, long novo) {
+    exigirNaoNegativo(chave);
+    long stamp = lock.writeLock();
+    try {
+      int posicao = posicao(tabela, chave);
+      if (tabela[posicao] != chave || tabela[posicao + 1] != esperado) {
+        return false;
+      }
+      if (novo == AUSENTE) {
+        remover(posicao);
+      } else {
+        tabela[posicao + 1] = novo;
+      }
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return tamanho;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /** Memória ocupada pela tabela, em bytes. */
+  public long bytes() {
+    long stamp = lock.readLock();
+    try {
+      return (long) tabela.length * Long.BYTES;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private long gravar(long chave, long valor, boolean substituir) {
+    exigirNaoNegativo(chave);
+    exigirNaoNegativo(valor);
+    long stamp = lock.writeLock();
+    try {
+      int posicao = posicao(tabela, chave);
+      if (tabela[posicao] == chave) {
+        long anterior = tabela[posicao + 1];
+        if (substituir) {
+          tabela[posicao + 1] = valor;
+        }
+        return anterior;
+      }
+      if (tamanho == limite) {
+        crescer();
+        posicao = posicao(tabela, chave);
+      }
+      tabela[posicao] = chave;
+      tabela[posicao + 1] = valor;
+      tamanho++;
+      return AUSENTE;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Valor da chave em `tabela`. Na leitura otimista a tabela pode estar em
+   * alteração; a busca é limitada ao tamanho da tabela e o resultado só é
+   * usado se o stamp continuar válido.
+   */
+  private static long buscar(long[] tabela, long chave) {
+    int mascara = tabela.length - 1;
+    int posicao = espalhar(chave) & mascara & ~1;
+    for (int passos = 0; passos < tabela.length; passos += 2) {
+      long atual = tabela[posicao];
+      if (atual == chave) {
+        return tabela[posicao + 1];
+      }
+      if (atual == VAZIO) {
+        return AUSENTE;
+      }
+      posicao = (posicao + 2) & mascara;
+    }
+    return AUSENTE;
+  }
+
+  /**
+   * Posição da chave ou da primeira posição livre da sua sequência de sondagem.
+   */
+  private static int posicao(long[] tabela, long chave) {
+    int mascara = tabela.length - 1;
+    int posicao = espalhar(chave) & mascara & ~1;
+    while (tabela[posicao] != chave && tabela[posicao] != VAZIO) {
+      posicao = (posicao + 2) & mascara;
+    }
+    return posicao;
+  }
+
+  /**
+   * Remoção com deslocamento para trás: puxa para a lacuna as entradas
+   * seguintes que a alcançam, sem deixar marcadores de remoção.
+   */
+  private void remover(int lacuna) {
+    int mascara = tabela.length - 1;
+    int atual = lacuna;
+    while (true) {
+      atual = (atual + 2) & mascara;
+      long chave = tabela[atual];
+      if (chave == VAZIO) {
+        break;
+      }
+      int ideal = espalhar(chave) & mascara & ~1;
+      // Move se a posição ideal não está entre a lacuna (exclusive) e a atual (inclusive).
+      if (((atual - ideal) & mascara) >= ((atual - lacuna) & mascara)) {
+        tabela[lacuna] = chave;
+        tabela[lacuna + 1] = tabela[atual + 1];
+        lacuna = atual;
+      }
+    }
+    tabela[lacuna] = VAZIO;
+    tabela[lacuna + 1] = 0;
+    tamanho--;
+  }
+
+  private void crescer() {
+    int posicoes = tabela.length / 2;
+    if (posicoes >= CAPACIDADE_MAXIMA) {
+      throw new IllegalStateException("Índice excedeu a capacidade máxima");
+    }
+    long[] antiga = tabela;
+    alocar(posicoes * 2);
+    for (int i = 0; i < antiga.length; i += 2) {
+      if (antiga[i] != VAZIO) {
+        int posicao = posicao(tabela, antiga[i]);
+        tabela[posicao] = antiga[i];
+        tabela[posicao + 1] = antiga[i + 1];
+      }
+    }
+  }
+
+  private void alocar(int posicoes) {
+    long[] nova = new long[posicoes * 2];
+    for (int i = 0; i < nova.length; i += 2) {
+      nova[i] = VAZIO;
+    }
+    limite = posicoes / 4 * 3;
+    tabela = nova;
+  }
+
+  private static int capacidadePara(int esperado) {
+    long posicoes = Long.highestOneBit(Math.max(1, (long) esperado * 4 / 3) * 2 - 1);
+    if (posicoes > CAPACIDADE_MAXIMA) {
+      throw new IllegalArgumentException("Capacidade acima do máximo: " + esperado);
+    }
+    return (int) posicoes;
+  }
+
+  /**
+   * Mistura os bits da chave (finalizador do MurmurHash3): identificadores
+   * sequenciais não se agrupam em posições vizinhas.
+   */
+  private static int espalhar(long chave) {
+    long h = chave;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  private static void exigirNaoNegativo(long valor) {
+    if (valor < 0) {
+      throw new IllegalArgumentException("Valor negativo: " + valor);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.app.util;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Codifica o cursor opaco da listagem de pagamentos.
+ *
+ * O cursor carrega o último `id` interno entregue ao cliente, em Base64
+ * URL-safe sem padding; o cliente deve apenas repassá-lo.
+ */
+public final class PaymentCursor {
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private PaymentCursor() {}
+
+  public static String encode(long id) {
+    return ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+  }
+
+  /**
+   * Retorna o `id` do cursor. Lança `IllegalArgumentException` se o cursor
+   * não foi gerado por {@link #encode(long)}.
+   */
+  public static long decode(String cursor) {
+    byte[] bytes = DECODER.decode(cursor);
+    if (bytes.length != Long.BYTES) {
+      throw new IllegalArgumentException("Cursor inválido");
+    }
+    long id = ByteBuffer.wrap(bytes).getLong();
+    if (id <= 0) {
+      throw new IllegalArgumentException("Cursor inválido");
+    }
+    return id;
+  }
+}
@@ -0,0 +1,113 @@
+package com.example.app.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Fila circular limitada para vários produtores e um único consumidor,
+ * sem locks: cada posição tem um número de sequência que indica se está
+ * livre para a volta corrente do produtor ou preenchida para o consumidor.
+ * O produtor reserva a posição com um CAS na cauda; o consumidor só lê e
+ * libera, sem disputar com ninguém.
+ *
+ * {@link #offer} devolve `false` com a fila cheia, sem bloquear; a política
+ * de transbordo fica com quem chama. {@link #poll} e {@link #drainTo} só
+ * podem ser chamados de uma thread por vez.
+ */
+public final class RingBuffer<E> {
+  private final AtomicReferenceArray<E> elementos;
+  /** `posição` livre para o produtor da volta `posição`; `posição + 1` preenchida. */
+  private final AtomicLongArray sequencias;
+  private final int mascara;
+  private final AtomicLong cauda = new AtomicLong();
+  /** Só o consumidor escreve; volátil para {@link #size} em outras threads. */
+  private volatile long cabeca;
+
+  /**
+   * Cria a fila com capacidade `capacidade` arredondada para a próxima
+   * potência de dois.
+   */
+  public RingBuffer(int capacidade) {
+    if (capacidade < 1 || capacidade > 1 << 30) {
+      throw new IllegalArgumentException("capacidade deve estar entre 1 e 2^30");
+    }
+    int tamanho = capacidade == 1 ? 1 : Integer.highestOneBit(capacidade - 1) << 1;
+    elementos = new AtomicReferenceArray<>(tamanho);
+    sequencias = new AtomicLongArray(tamanho);
+    for (int i = 0; i < tamanho; i++) {
+      sequencias.set(i, i);
+    }
+    mascara = tamanho - 1;
+  }
+
+  /** Enfileira `elemento` (não nulo); `false` se a fila estiver cheia. */
+  public boolean offer(E elemento) {
+    if (elemento == null) {
+      throw new NullPointerException();
+    }
+    while (true) {
+      long posicao = cauda.get();
+      int indice = (int) posicao & mascara;
+      long diferenca = sequencias.get(indice) - posicao;
+      if (diferenca == 0) {
+        if (cauda.compareAndSet(posicao, posicao + 1)) {
+          elementos.lazySet(indice, elemento);
+          sequencias.set(indice, posicao + 1);
+          return true;
+        }
+      } else if (diferenca < 0) {
+        return false;
+      }
+      // diferenca > 0: outro produtor reservou a posição; relê a cauda.
+    }
+  }
+
+  /**
+   * Retira o elemento mais antigo; `null` se a fila estiver vazia ou o
+   * próximo elemento ainda estiver sendo gravado pelo produtor.
+   */
+  public E poll() {
+    long posicao = cabeca;
+    int indice = (int) posicao & mascara;
+    if (sequencias.get(indice) != posicao + 1) {
+      return null;
+    }
+    E elemento = elementos.get(indice);
+    elementos.lazySet(indice, null);
+    sequencias.set(indice, posicao + mascara + 1);
+    cabeca = posicao + 1;
+    return elemento;
+  }
+
+  /**
+   * Entrega a `destino`, em ordem, até `maximo` elementos e devolve quantos
+   * foram entregues.
+   */
+  public int drainTo(Consumer<? super E> destino, int maximo) {
+    int entregues = 0;
+    E elemento;
+    while (entregues < maximo && (elemento = poll()) != null) {
+      destino.accept(elemento);
+      entregues++;
+    }
+    return entregues;
+  }
+
+  /** Quantidade aproximada de elementos; exata só com a fila parada. */
+  public int size() {
+    long tamanho = cauda.get() - cabeca;
+    return (int) Math.max(0, Math.min(tamanho, capacity()));
+  }
+
+  /** Se não há elemento pronto para o consumidor. */
+  public boolean isEmpty() {
+    long posicao = cabeca;
+    return sequencias.get((int) posicao & mascara) != posicao + 1;
+  }
+
+  public int capacity() {
+    return mascara + 1;
+  }
+}
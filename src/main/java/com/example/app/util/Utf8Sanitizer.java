@@ -1,32 +1,275 @@
 package com.example.app.util;
 
 import java.text.Normalizer;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * Sanitiza texto para uso seguro em UTF-8.
  *
  * Normaliza para NFC e remove surrogates e alguns caracteres/trechos
  * potencialmente problemáticos para persistência e exibição.
+ *
+ * O texto é percorrido uma única vez: cada caractere atravessa, em cascata,
+ * os estágios de filtragem, remoção de `--`, `/*` e `*&#47;`, remoção de
+ * palavras-chave e compactação de espaços, e o resultado é escrito em um
+ * único buffer. Entradas ASCII dispensam a normalização e as palavras-chave
+ * são reconhecidas por um autômato pré-compilado, sem expressões regulares.
+ * O resultado é o mesmo da versão anterior baseada em `replaceAll`.
  */
 
 public final class Utf8Sanitizer {
+  private static final String[] PALAVRAS_CHAVE = {
+    "drop", "table", "insert", "update", "delete", "union", "select", "where",
+    "or", "and", "exec", "execute", "into", "values", "payment"
+  };
+  private static final int MAIOR_PALAVRA_CHAVE = 7;
+  private static final int[][] TRANSICOES;
+  private static final boolean[] ACEITA;
+
+  static {
+    int estados = 1;
+    for (String palavra : PALAVRAS_CHAVE) estados += palavra.length();
+    int[][] transicoes = new int[estados][26];
+    boolean[] aceita = new boolean[estados];
+    for (int[] linha : transicoes) Arrays.fill(linha, -1);
+    int proximoEstado = 1;
+    for (String palavra : PALAVRAS_CHAVE) {
+      int estado = 0;
+      for (int i = 0; i < palavra.length(); i++) {
+        int letra = palavra.charAt(i) - 'a';
+        if (transicoes[estado][letra] < 0) transicoes[estado][letra] = proximoEstado++;
+        estado = transicoes[estado][letra];
+      }
+      aceita[estado] = true;
+    }
+    TRANSICOES = transicoes;
+    ACEITA = aceita;
+  }
+
   private Utf8Sanitizer() {}
   /**
    * Retorna o texto sanitizado ou `null` se a entrada for `null`.
    */
   public static String sanitize(String s) {
     if (s == null) return null;
-    String normalized = Normalizer.normalize(s, Normalizer.Form.NFC);
-    String filtered = normalized.codePoints()
-      .filter(cp -> cp < 0xD800 || cp > 0xDFFF)
-      .filter(cp -> cp != '\'' && cp != ';' && cp != '(' && cp != ')')
-      .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-      .toString();
-    String stripped = filtered.replace("--", "").replace("/*", "").replace("*/", "");
-    String withoutKeywords = stripped.replaceAll("(?i)\\b(drop|table|insert|update|delete|union|select|where|or|and|exec|execute|into|values|payment)\\b", "");
-    String compact = withoutKeywords.replaceAll("\\s+", " ").trim();
-    byte[] bytes = compact.getBytes(StandardCharsets.UTF_8);
-    return new String(bytes, StandardCharsets.UTF_8);
+    String entrada = ascii(s) || Normalizer.isNormalized(s, Normalizer.Form.NFC)
+        ? s : Normalizer.normalize(s, Normalizer.Form.NFC);
+    Motor motor = new Motor(entrada.length());
+    int n = entrada.length();
+    for (int i = 0; i < n; i++) {
+      char c = entrada.charAt(i);
+      if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(entrada.charAt(i + 1))) {
+        motor.filtrar(c);
+        motor.filtrar(entrada.charAt(++i));
+      } else if (!Character.isSurrogate(c)) {
+        motor.filtrar(c);
+      }
+    }
+    return motor.finalizar(entrada);
+  }
+
+  private static boolean ascii(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) >= 0x80) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Estado da cascata de estágios para uma chamada de {@link #sanitize(String)}.
+   */
+  private static final class Motor {
+    private final char[] saida;
+    private int tamanho;
+
+    private boolean hifenPendente;
+    private boolean barraPendente;
+    private boolean asteriscoPendente;
+
+    private char altoPendente;
+    private final char[] candidato = new char[MAIOR_PALAVRA_CHAVE];
+    private int tamanhoCandidato;
+    private int estado = -1;
+    private boolean anteriorEhPalavra;
+    private boolean baseEhLetraOuDigito;
+
+    private boolean espacoPendente;
+
+    Motor(int capacidade) {
+      this.saida = new char[capacidade];
+    }
+
+    /** Remove `'`, `;`, `(` e `)`. */
+    void filtrar(char c) {
+      if (c == '\'' || c == ';' || c == '(' || c == ')') return;
+      removerHifenDuplo(c);
+    }
+
+    /** Equivale a `replace("--", "")`. */
+    private void removerHifenDuplo(char c) {
+      if (c == '-') {
+        hifenPendente = !hifenPendente;
+        return;
+      }
+      if (hifenPendente) {
+        hifenPendente = false;
+        removerAberturaComentario('-');
+      }
+      removerAberturaComentario(c);
+    }
+
+    /** Equivale a `replace("/*", "")`. */
+    private void removerAberturaComentario(char c) {
+      if (barraPendente) {
+        if (c == '*') {
+          barraPendente = false;
+          return;
+        }
+        removerFechamentoComentario('/');
+      }
+      barraPendente = c == '/';
+      if (!barraPendente) removerFechamentoComentario(c);
+    }
+
+    /** Equivale a `replace("*&#47;", "")`. */
+    private void removerFechamentoComentario(char c) {
+      if (asteriscoPendente) {
+        if (c == '/') {
+          asteriscoPendente = false;
+          return;
+        }
+        agruparCodePoint('*');
+      }
+      asteriscoPendente = c == '*';
+      if (!asteriscoPendente) agruparCodePoint(c);
+    }
+
+    private void agruparCodePoint(char c) {
+      if (Character.isHighSurrogate(c)) {
+        altoPendente = c;
+        return;
+      }
+      if (Character.isLowSurrogate(c)) {
+        removerPalavrasChave(Character.toCodePoint(altoPendente, c));
+      } else {
+        removerPalavrasChave(c);
+      }
+    }
+
+    /**
+     * Equivale a `replaceAll("(?i)\\b(drop|...|payment)\\b", "")` no Java 17:
+     * uma palavra-chave (letras ASCII, sem distinguir caixa) é removida
+     * quando o code point anterior e o seguinte não são "de palavra" segundo
+     * as regras de `\b` (letra, dígito, `_` ou marca não espaçadora ligada a
+     * uma letra ou dígito).
+     */
+    private void removerPalavrasChave(int cp) {
+      int letra = letraMinuscula(cp);
+      if (estado >= 0) {
+        int proximo = letra >= 0 ? TRANSICOES[estado][letra] : -1;
+        if (proximo >= 0) {
+          candidato[tamanhoCandidato++] = (char) cp;
+          estado = proximo;
+          atualizarFronteira(cp);
+          return;
+        }
+        boolean palavraADireita = letra >= 0 || ehPalavra(cp) || marcaNaoEspacadora(cp);
+        if (!ACEITA[estado] || palavraADireita) {
+          for (int i = 0; i < tamanhoCandidato; i++) compactarEspacos(candidato[i]);
+        }
+        tamanhoCandidato = 0;
+        estado = -1;
+      } else if (letra >= 0 && !anteriorEhPalavra && TRANSICOES[0][letra] >= 0) {
+        candidato[tamanhoCandidato++] = (char) cp;
+        estado = TRANSICOES[0][letra];
+        atualizarFronteira(cp);
+        return;
+      }
+      if (Character.isBmpCodePoint(cp)) {
+        compactarEspacos((char) cp);
+      } else {
+        compactarEspacos(Character.highSurrogate(cp));
+        compactarEspacos(Character.lowSurrogate(cp));
+      }
+      atualizarFronteira(cp);
+    }
+
+    /**
+     * Atualiza o que `\b` enxergaria à esquerda do próximo code point. A
+     * busca pela base de uma marca não espaçadora só atravessa marcas do
+     * BMP, como em `Pattern.hasBaseCharacter`.
+     */
+    private void atualizarFronteira(int cp) {
+      boolean bmp = Character.isBmpCodePoint(cp);
+      boolean marca = marcaNaoEspacadora(cp);
+      anteriorEhPalavra = ehPalavra(cp) || (bmp && marca && baseEhLetraOuDigito);
+      if (!bmp) {
+        baseEhLetraOuDigito = false;
+      } else if (!marca) {
+        baseEhLetraOuDigito = Character.isLetterOrDigit(cp);
+      }
+    }
+
+    /** Equivale a `replaceAll("\\s+", " ")` seguido de `trim()`. */
+    private void compactarEspacos(char c) {
+      if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+        espacoPendente = true;
+        return;
+      }
+      if (tamanho == 0) {
+        espacoPendente = false;
+        if (c <= ' ') return;
+      } else if (espacoPendente) {
+        espacoPendente = false;
+        saida[tamanho++] = ' ';
+      }
+      saida[tamanho++] = c;
+    }
+
+    /**
+     * Esvazia os estágios e devolve o resultado; reaproveita a entrada
+     * quando nada mudou.
+     */
+    String finalizar(String entrada) {
+      if (hifenPendente) {
+        hifenPendente = false;
+        removerAberturaComentario('-');
+      }
+      if (barraPendente) {
+        barraPendente = false;
+        removerFechamentoComentario('/');
+      }
+      if (asteriscoPendente) {
+        asteriscoPendente = false;
+        agruparCodePoint('*');
+      }
+      if (estado >= 0 && !ACEITA[estado]) {
+        for (int i = 0; i < tamanhoCandidato; i++) compactarEspacos(candidato[i]);
+      }
+      while (tamanho > 0 && saida[tamanho - 1] <= ' ') tamanho--;
+      if (tamanho == entrada.length() && igual(entrada)) return entrada;
+      return new String(saida, 0, tamanho);
+    }
+
+    private boolean igual(String entrada) {
+      for (int i = 0; i < tamanho; i++) {
+        if (saida[i] != entrada.charAt(i)) return false;
+      }
+      return true;
+    }
+
+    private static int letraMinuscula(int cp) {
+      if (cp >= 'a' && cp <= 'z') return cp - 'a';
+      if (cp >= 'A' && cp <= 'Z') return cp - 'A';
+      return -1;
+    }
+
+    private static boolean ehPalavra(int cp) {
+      return cp == '_' || Character.isLetterOrDigit(cp);
+    }
+
+    private static boolean marcaNaoEspacadora(int cp) {
+      return Character.getType(cp) == Character.NON_SPACING_MARK;
+    }
   }
-}
\ No newline at end of file
+}
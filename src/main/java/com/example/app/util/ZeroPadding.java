@@ -0,0 +1,29 @@
+package com.example.app.util;
+
+/**
+ * Formata inteiros não negativos com largura fixa e zeros à esquerda,
+ * equivalente a `String.format("%0Nd", valor)` sem o custo do `Formatter`.
+ */
+public final class ZeroPadding {
+  private ZeroPadding() {}
+
+  /**
+   * Retorna `valor` com exatamente `digitos` dígitos. Lança
+   * `IllegalArgumentException` se o valor for negativo ou não couber.
+   */
+  public static String format(long valor, int digitos) {
+    if (valor < 0) {
+      throw new IllegalArgumentException("Valor negativo: " + valor);
+    }
+    char[] saida = new char[digitos];
+    long restante = valor;
+    for (int i = digitos - 1; i >= 0; i--) {
+      saida[i] = (char) ('0' + restante % 10);
+      restante /= 10;
+    }
+    if (restante != 0) {
+      throw new IllegalArgumentException("Valor excede " + digitos + " dígitos: " + valor);
+    }
+    return new String(saida);
+  }
+}
@@ -0,0 +1,178 @@
+package com.example.app.validator;
+
+/**
+ * Leitores dos formatos fixos da API, escritos à mão para dispensar
+ * `java.util.regex` e `DateTimeFormatter` no caminho de autorização.
+ *
+ * Todos aceitam apenas dígitos ASCII e não alocam objetos.
+ */
+public final class PaymentFormats {
+  /** Retorno de {@link #parseDataHora(String)} para entrada inválida. */
+  public static final long DATA_HORA_INVALIDA = Long.MIN_VALUE;
+  /** Retorno de {@link #parseValorCentavos(String)} e {@link #parseParcelas(String)} para entrada inválida. */
+  public static final int INVALIDO = -1;
+
+  private static final int TAMANHO_ID = 15;
+  private static final int TAMANHO_DATA_HORA = 19;
+  private static final long MAXIMO_INTEIRO_VALOR = Long.MAX_VALUE / 100 - 1;
+  private static final long SEGUNDOS_POR_DIA = 86_400L;
+
+  private PaymentFormats() {}
+
+  /**
+   * Identificador externo: exatamente 15 dígitos.
+   */
+  public static boolean isExternalId(String s) {
+    return s != null && s.length() == TAMANHO_ID && digitos(s, 0, TAMANHO_ID);
+  }
+
+  /**
+   * Identificador externo como número: 15 dígitos sempre cabem em `long`.
+   * Retorna {@link #INVALIDO} se não for um identificador válido.
+   */
+  public static long parseExternalId(String s) {
+    if (!isExternalId(s)) return INVALIDO;
+    long valor = 0;
+    for (int i = 0; i < TAMANHO_ID; i++) {
+      valor = valor * 10 + (s.charAt(i) - '0');
+    }
+    return valor;
+  }
+
+  /**
+   * Cartão: 16 dígitos, ou 4 dígitos + 8 a 9 asteriscos + 4 dígitos.
+   */
+  public static boolean isCartao(String s) {
+    if (s == null) return false;
+    int n = s.length();
+    if (n != 16 && n != 17) return false;
+    if (!digitos(s, 0, 4) || !digitos(s, n - 4, n)) return false;
+    if (n == 16 && digitos(s, 4, 12)) return true;
+    for (int i = 4; i < n - 4; i++) {
+      if (s.charAt(i) != '*') return false;
+    }
+    return true;
+  }
+
+  /**
+   * Valor no formato `NNNN.NN` convertido em centavos. Retorna
+   * {@link #INVALIDO} se o formato não confere ou o valor não cabe em `long`.
+   */
+  public static long parseValorCentavos(String s) {
+    if (s == null) return INVALIDO;
+    int n = s.length();
+    if (n < 4 || s.charAt(n - 3) != '.') return INVALIDO;
+    long inteiro = 0;
+    for (int i = 0; i < n - 3; i++) {
+      int d = s.charAt(i) - '0';
+      if (d < 0 || d > 9 || inteiro > (MAXIMO_INTEIRO_VALOR - d) / 10) return INVALIDO;
+      inteiro = inteiro * 10 + d;
+    }
+    int centavos = doisDigitos(s, n - 2);
+    if (centavos < 0) return INVALIDO;
+    return inteiro * 100 + centavos;
+  }
+
+  /**
+   * Número de parcelas como inteiro com sinal opcional, como
+   * `Integer.parseInt` restrito a dígitos ASCII. Retorna {@link #INVALIDO}
+   * se o texto não for numérico ou não couber em `int`.
+   */
+  public static int parseParcelas(String s) {
+    if (s == null || s.isEmpty()) return INVALIDO;
+    int inicio = 0;
+    boolean negativo = false;
+    char primeiro = s.charAt(0);
+    if (primeiro == '+' || primeiro == '-') {
+      negativo = primeiro == '-';
+      inicio = 1;
+      if (s.length() == 1) return INVALIDO;
+    }
+    long valor = 0;
+    for (int i = inicio; i < s.length(); i++) {
+      int d = s.charAt(i) - '0';
+      if (d < 0 || d > 9) return INVALIDO;
+      valor = valor * 10 + d;
+      if (valor > Integer.MAX_VALUE) return INVALIDO;
+    }
+    return negativo ? (int) -valor : (int) valor;
+  }
+
+  /**
+   * Data/hora no formato `dd/MM/yyyy HH:mm:ss` convertida em segundos desde
+   * 01/01/1970 00:00:00 (data/hora local, sem fuso).
+   *
+   * Reproduz a resolução "smart" do `DateTimeFormatter` usado antes: dia
+   * 29–31 além do fim do mês é ajustado para o último dia e `24:00:00`
+   * avança para o início do dia seguinte. Retorna {@link #DATA_HORA_INVALIDA}
+   * se a entrada não confere.
+   */
+  public static long parseDataHora(String s) {
+    if (s == null || s.length() != TAMANHO_DATA_HORA
+        || s.charAt(2) != '/' || s.charAt(5) != '/' || s.charAt(10) != ' '
+        || s.charAt(13) != ':' || s.charAt(16) != ':') {
+      return DATA_HORA_INVALIDA;
+    }
+    int dia = doisDigitos(s, 0);
+    int mes = doisDigitos(s, 3);
+    int seculo = doisDigitos(s, 6);
+    int anoDoSeculo = doisDigitos(s, 8);
+    int hora = doisDigitos(s, 11);
+    int minuto = doisDigitos(s, 14);
+    int segundo = doisDigitos(s, 17);
+    if ((dia | mes | seculo | anoDoSeculo | hora | minuto | segundo) < 0) return DATA_HORA_INVALIDA;
+    int ano = seculo * 100 + anoDoSeculo;
+    if (ano < 1 || mes < 1 || mes > 12 || dia < 1 || dia > 31 || minuto > 59 || segundo > 59) {
+      return DATA_HORA_INVALIDA;
+    }
+    long dias = diasDesdeEpoch(ano, mes, Math.min(dia, diasNoMes(ano, mes)));
+    if (hora == 24) {
+      if (minuto != 0 || segundo != 0) return DATA_HORA_INVALIDA;
+      return (dias + 1) * SEGUNDOS_POR_DIA;
+    }
+    if (hora > 23) return DATA_HORA_INVALIDA;
+    return dias * SEGUNDOS_POR_DIA + hora * 3600L + minuto * 60L + segundo;
+  }
+
+  private static boolean digitos(String s, int inicio, int fim) {
+    for (int i = inicio; i < fim; i++) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') return false;
+    }
+    return true;
+  }
+
+  /**
+   * Lê dois dígitos a partir de `i`; retorna negativo se algum não for dígito.
+   */
+  private static int doisDigitos(String s, int i) {
+    int dezena = s.charAt(i) - '0';
+    int unidade = s.charAt(i + 1) - '0';
+    if (dezena < 0 || dezena > 9 || unidade < 0 || unidade > 9) return -1;
+    return dezena * 10 + unidade;
+  }
+
+  private static int diasNoMes(int ano, int mes) {
+    return switch (mes) {
+      case 2 -> bissexto(ano) ? 29 : 28;
+      case 4, 6, 9, 11 -> 30;
+      default -> 31;
+    };
+  }
+
+  private static boolean bissexto(int ano) {
+    return (ano & 3) == 0 && (ano % 100 != 0 || ano % 400 == 0);
+  }
+
+  /**
+   * Dias desde 01/01/1970 no calendário gregoriano proléptico.
+   */
+  private static long diasDesdeEpoch(int ano, int mes, int dia) {
+    int a = mes <= 2 ? ano - 1 : ano;
+    int era = a / 400;
+    int anoDaEra = a - era * 400;
+    int diaDoAno = (153 * (mes + (mes > 2 ? -3 : 9)) + 2) / 5 + dia - 1;
+    int diaDaEra = anoDaEra * 365 + anoDaEra / 4 - anoDaEra / 100 + diaDoAno;
+    return era * 146_097L + diaDaEra - 719_468L;
+  }
+}
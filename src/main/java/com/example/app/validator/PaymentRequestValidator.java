@@ -1,72 +1,68 @@
 package com.example.app.validator;
 
 import com.example.app.dto.payment.PaymentRequest;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
-import java.util.Set;
-import java.util.regex.Pattern;
+import com.example.app.dto.payment.TipoPagamento;
+import com.example.app.dto.payment.ValidatedPayment;
+import com.example.app.exception.PaymentValidationException;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Valida campos obrigatórios, formatos e conteúdo do {@link PaymentRequest}.
- * Retorna string vazia quando válido; caso contrário, uma mensagem de erro.
+ *
+ * {@link #parse()} devolve a transação já convertida em {@link ValidatedPayment};
+ * {@link #validate()} mantém o contrato antigo e retorna string vazia quando
+ * válido ou a mensagem de erro. Os formatos fixos são lidos por
+ * {@link PaymentFormats}, uma única vez por requisição.
  */
 @RequiredArgsConstructor
 public class PaymentRequestValidator {
   private final PaymentRequest request;
-  private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-  private static final Pattern VALOR_PATTERN = Pattern.compile("^\\d+\\.\\d{2}$");
-  private static final Pattern CARTAO_PATTERN = Pattern.compile("^(?:[0-9]{16}|[0-9]{4}\\*{8,9}[0-9]{4})$");
-  private static final Set<String> ALLOWED_TYPES = Set.of("AVISTA", "PARCELADO LOJA", "PARCELADO EMISSOR");
-
-  
-
 
   /**
    * Executa a validação completa. Retorna "" se válido ou a mensagem de erro.
    */
   public String validate() {
+    try {
+      parse();
+      return "";
+    } catch (PaymentValidationException e) {
+      return e.getMessage();
+    }
+  }
+
+  /**
+   * Valida e converte a transação. Em falha, lança
+   * `PaymentValidationException` com código `PAYMENT_VALIDATION_ERROR`
+   * e a mensagem do primeiro problema encontrado.
+   */
+  public ValidatedPayment parse() {
     // Valida campos obrigatórios e formatos básicos
     String mensagem = validateRequired();
-    if (mensagem != null) return mensagem;
+    if (mensagem != null) throw invalido(mensagem);
 
     // Valida data/hora com formato específico
-    try {
-      LocalDateTime.parse(request.getDescricao().getDataHora(), DATE_TIME_FORMATTER);
-    } catch (java.time.format.DateTimeParseException e) {
-      return "Data e hora inválidas";
-    }
+    long dataHora = PaymentFormats.parseDataHora(request.getDescricao().getDataHora());
+    if (dataHora == PaymentFormats.DATA_HORA_INVALIDA) throw invalido("Data e hora inválidas");
 
     // Valida valor monetário no formato NNNN.NN e maior que zero
-    try {
-      String valorString = request.getDescricao().getValor();
-      if (!VALOR_PATTERN.matcher(valorString).matches()) return "Valor inválido";
-      double valorNumerico = Double.parseDouble(valorString);
-      if (valorNumerico <= 0) return "Valor inválido";
-    } catch (NumberFormatException e) {
-      return "Valor inválido";
-    }
+    long valorCentavos = PaymentFormats.parseValorCentavos(request.getDescricao().getValor());
+    if (valorCentavos <= 0) throw invalido("Valor inválido");
 
     // Valida número de parcelas como inteiro positivo
-    int parcela;
-    try {
-      parcela = Integer.parseInt(request.getFormaPagamento().getParcelas());
-      if (parcela <= 0) return "Parcelas inválidas";
-    } catch (NumberFormatException e) {
-      return "Parcelas inválidas";
-    }
+    int parcela = PaymentFormats.parseParcelas(request.getFormaPagamento().getParcelas());
+    if (parcela <= 0) throw invalido("Parcelas inválidas");
 
     // Valida tipo de pagamento contra conjunto permitido
-    String tipo = request.getFormaPagamento().getTipo();
-    if (tipo == null || !ALLOWED_TYPES.contains(tipo.toUpperCase(Locale.ROOT))) return "Tipo de pagamento inválido";
+    TipoPagamento tipo = TipoPagamento.fromRotulo(request.getFormaPagamento().getTipo());
+    if (tipo == null) throw invalido("Tipo de pagamento inválido");
 
     // Regra: quando tipo=AVISTA, número de parcelas deve ser exatamente 1
-    if ("AVISTA".equals(tipo.toUpperCase(Locale.ROOT)) && parcela != 1) {
-      return "Pagamento à vista deve ter exatamente 1 parcela";
+    if (tipo == TipoPagamento.AVISTA && parcela != 1) {
+      throw invalido("Pagamento à vista deve ter exatamente 1 parcela");
     }
 
-    return "";
+    return new ValidatedPayment(request.getId(), request.getCartao(), valorCentavos, dataHora, tipo, parcela,
+        request.getDescricao().getEstabelecimento());
   }
 
   /**
@@ -76,7 +72,7 @@ public class PaymentRequestValidator {
     if (request == null) return "Transação não pode ser nula";
     if (request.getId() == null || request.getId().isEmpty()) return "Verificar id da transação";
     if (request.getCartao() == null || request.getCartao().isEmpty()) return "Verificar cartão";
-    if (!CARTAO_PATTERN.matcher(request.getCartao()).matches()) return "Cartão inválido";
+    if (!PaymentFormats.isCartao(request.getCartao())) return "Cartão inválido";
     if (request.getDescricao() == null) return "Verificar descrição da transação";
     if (request.getDescricao().getValor() == null || request.getDescricao().getValor().isEmpty()) return "Verificar valor da transação";
     if (request.getDescricao().getDataHora() == null || request.getDescricao().getDataHora().isEmpty()) return "Verificar data e hora da transação";
@@ -86,4 +82,8 @@ public class PaymentRequestValidator {
     if (request.getFormaPagamento().getTipo() == null) return "Verificar tipo da forma de pagamento";
     return null;
   }
-}
\ No newline at end of file
+
+  private static PaymentValidationException invalido(String mensagem) {
+    return new PaymentValidationException("PAYMENT_VALIDATION_ERROR", mensagem);
+  }
+}
@@ -0,0 +1,30 @@
+-- Esquema equivalente ao que o Hibernate gerava com ddl-auto: update.
+-- Bancos já existentes são marcados nesta versão (baseline-on-migrate)
+-- e recebem apenas as migrações seguintes.
+
+create table nsu_faixa (
+    id integer not null,
+    proximo bigint,
+    primary key (id)
+);
+
+create table payment (
+    id bigint not null,
+    cancelado_em timestamp(6),
+    cartao varchar(255),
+    codigo_autorizacao varchar(255),
+    data_hora timestamp(6),
+    estabelecimento varchar(255),
+    external_id varchar(255),
+    nsu varchar(255),
+    parcelas integer,
+    status varchar(255),
+    tipo varchar(255),
+    valor numeric(38,2),
+    versao bigint,
+    primary key (id),
+    constraint uk_payment_external_id unique (external_id),
+    constraint uk_payment_nsu unique (nsu)
+);
+
+create sequence payment_seq start with 1 increment by 50;
@@ -0,0 +1,11 @@
+-- Índices secundários da listagem filtrada (GET /pagamentos/consulta).
+-- A listagem é ordenada por id decrescente e pagina por cursor (id < ?);
+-- nos filtros de igualdade o id entra no índice para que a página saia
+-- do próprio índice, já ordenada. Os intervalos de data/hora e valor usam
+-- o índice da coluna e ordenam apenas as linhas do intervalo.
+
+create index idx_payment_status on payment (status, id);
+create index idx_payment_estabelecimento on payment (estabelecimento, id);
+create index idx_payment_tipo on payment (tipo, id);
+create index idx_payment_data_hora on payment (data_hora);
+create index idx_payment_valor on payment (valor);
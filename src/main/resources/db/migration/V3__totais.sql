@@ -0,0 +1,24 @@
+-- Checkpoint dos totais mantidos em memória por PaymentTotals. A tabela é
+-- reescrita inteira a cada checkpoint, junto com a marca.
+create table payment_total (
+    estabelecimento varchar(255) not null,
+    dia date not null,
+    tipo varchar(255) not null,
+    autorizados bigint not null,
+    centavos_autorizados bigint not null,
+    cancelados bigint not null,
+    centavos_cancelados bigint not null,
+    primary key (estabelecimento, dia, tipo)
+);
+
+-- Linha única: na inicialização, os grupos com pagamentos de id maior que
+-- ultimo_id ou estornados a partir de instante são recalculados da tabela.
+create table payment_total_marca (
+    id integer not null,
+    ultimo_id bigint not null,
+    instante timestamp(6) not null,
+    primary key (id)
+);
+
+-- Estornos posteriores à marca, sem percorrer a tabela.
+create index idx_payment_cancelado_em on payment (cancelado_em);
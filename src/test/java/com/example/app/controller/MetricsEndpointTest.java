@@ -0,0 +1,66 @@
+package com.example.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.Objects;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+  @Autowired
+  private MockMvc mockMvc;
+
+  private static String transacao(String id, String tipo) {
+    return "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"" + tipo + "\",\"parcelas\":\"1\"}}}";
+  }
+
+  @Test
+  void publicaEtapasResultadosEGauges() throws Exception {
+    MediaType json = Objects.requireNonNull(MediaType.APPLICATION_JSON);
+    mockMvc.perform(post("/pagamentos").contentType(json).content(transacao("100023569400001", "AVISTA")))
+      .andExpect(status().isCreated());
+    mockMvc.perform(post("/pagamentos").contentType(json).content(transacao("100023569400001", "AVISTA")))
+      .andExpect(status().isCreated());
+    mockMvc.perform(post("/pagamentos").contentType(json)
+        .content(transacao("100023569400001", "AVISTA").replace("50.00", "60.00")))
+      .andExpect(status().is(402));
+    mockMvc.perform(post("/pagamentos").contentType(json).content(transacao("100023569400002", "FOO")))
+      .andExpect(status().is(402));
+    mockMvc.perform(post("/pagamentos").contentType(json).content("{"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(patch("/estorno/{id}", "100023569400001").contentType(json))
+      .andExpect(status().isOk());
+    mockMvc.perform(patch("/estorno/{id}", "100023569400001").contentType(json))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta/{id}", "100023569400001"))
+      .andExpect(status().isOk());
+
+    String metricas = mockMvc.perform(get("/actuator/prometheus"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getContentAsString();
+
+    for (String etapa : new String[] {"parse", "sanitizacao", "validacao", "nsu", "gravacao", "resposta"}) {
+      assertTrue(metricas.contains("pagamentos_etapa_seconds_bucket{etapa=\"" + etapa + "\",operacao=\"autorizacao\""), etapa);
+    }
+    assertTrue(metricas.contains("pagamentos_resultado_total{codigo=\"OK\",operacao=\"autorizacao\",status=\"AUTORIZADO\"}"));
+    assertTrue(metricas.contains("pagamentos_resultado_total{codigo=\"REENVIO\",operacao=\"autorizacao\",status=\"AUTORIZADO\"}"));
+    assertTrue(metricas.contains("pagamentos_resultado_total{codigo=\"PAYMENT_DUPLICATE\",operacao=\"autorizacao\",status=\"NEGADO\"}"));
+    assertTrue(metricas.contains("pagamentos_resultado_total{codigo=\"PAYMENT_VALIDATION_ERROR\",operacao=\"autorizacao\",status=\"NEGADO\"} 2.0"));
+    assertTrue(metricas.contains("pagamentos_resultado_total{codigo=\"OK\",operacao=\"estorno\",status=\"CANCELADO\"}"));
+    assertTrue(metricas.contains("pagamentos_resultado_total{codigo=\"REFUND_STATUS_INVALID\",operacao=\"estorno\",status=\"REJEITADO\"}"));
+    assertTrue(metricas.contains("pagamentos_em_andamento{operacao=\"autorizacao\"} 0.0"));
+    assertTrue(metricas.contains("hikaricp_connections_active{"));
+    assertTrue(metricas.contains("cache_gets_total{cache=\"pagamentos.consulta\""));
+  }
+}
@@ -0,0 +1,352 @@
+package com.example.app.controller;
+
+import com.example.app.Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Carga em laço aberto sobre os endpoints HTTP reais: as requisições
+ * chegam a `carga.taxa` por segundo, em instantes fixados antes do envio,
+ * independentemente de quanto as anteriores demoram (um cliente em laço
+ * fechado, como em {@link VirtualThreadLoadTest}, desacelera junto com o
+ * servidor e esconde a fila que se forma).
+ *
+ * A latência de cada requisição é medida a partir do instante em que ela
+ * deveria ter sido enviada, não de quando saiu: atrasos do próprio gerador
+ * ou de conexões ocupadas entram na conta (correção da omissão
+ * coordenada). O tempo de serviço, a partir do envio efetivo, é registrado
+ * à parte para comparação.
+ *
+ * Mistura padrão (`carga.mix`, pesos por operação):
+ * `autorizacao:50,repeticao:5,duplicada:5,invalida:5,estorno:10,consulta:15,pagina:10`
+ *
+ * - `autorizacao`: `POST /pagamentos` com `id` novo (201);
+ * - `repeticao`: o mesmo payload de uma autorização anterior (201 com a resposta original);
+ * - `duplicada`: `id` já autorizado com outro valor (402);
+ * - `invalida`: tipo de pagamento inexistente (402);
+ * - `estorno`: `PATCH /estorno/{id}` de uma autorizada (200);
+ * - `consulta`: `GET /pagamentos/consulta/{id}` (200);
+ * - `pagina`: `GET /pagamentos/consulta?rowsPerPage=20`, primeira página por cursor (200).
+ *
+ * Operações que dependem de autorizações anteriores viram `autorizacao`
+ * enquanto não houver nenhuma. Status diferente do esperado conta como erro.
+ *
+ * A aplicação sobe no próprio processo com o H2 em memória
+ * (`carga.banco=memoria`, padrão) ou em arquivo (`carga.banco=arquivo`, em
+ * um diretório temporário). O relatório JSON (configuração, vazão, erros e
+ * p50/p99/p99.9/máximo por operação) vai para `carga.relatorio` (padrão
+ * `target/carga-relatorio.json`).
+ *
+ * Executar com `mvn test -Dtest=OpenLoopLoadTest -Dcarga.aberta=true`
+ * (`-Dcarga.taxa=500`, `-Dcarga.duracao=30`, `-Dcarga.aquecimento=10`,
+ * `-Dcarga.semente=42` e `-Dcarga.maximo-pendentes=20000` ajustam a carga).
+ */
+@EnabledIfSystemProperty(named = "carga.aberta", matches = "true")
+class OpenLoopLoadTest {
+  private static final String MIX_PADRAO = "autorizacao:50,repeticao:5,duplicada:5,invalida:5,estorno:10,consulta:15,"
+      + "pagina:10";
+  private static final long MAXIMO_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+  @TempDir
+  Path diretorio;
+
+  enum Operacao {
+    AUTORIZACAO(201, false), REPETICAO(201, true), DUPLICADA(402, true), INVALIDA(402, false),
+    ESTORNO(200, true), CONSULTA(200, true), PAGINA(200, false);
+
+    private final int esperado;
+    /** Usa o `id` de uma autorização anterior. */
+    private final boolean dependeDeAutorizada;
+    private final String nome = name().toLowerCase(Locale.ROOT);
+
+    Operacao(int esperado, boolean dependeDeAutorizada) {
+      this.esperado = esperado;
+      this.dependeDeAutorizada = dependeDeAutorizada;
+    }
+  }
+
+  /** Contadores e histogramas (ns) de uma operação. */
+  static final class Medidas {
+    final Histogram latencia = new ConcurrentHistogram(MAXIMO_NANOS, 3);
+    final Histogram servico = new ConcurrentHistogram(MAXIMO_NANOS, 3);
+    final LongAdder enviadas = new LongAdder();
+    final LongAdder sucessos = new LongAdder();
+    final LongAdder erros = new LongAdder();
+    final LongAdder naoEnviadas = new LongAdder();
+
+    void zerar() {
+      latencia.reset();
+      servico.reset();
+      enviadas.reset();
+      sucessos.reset();
+      erros.reset();
+      naoEnviadas.reset();
+    }
+  }
+
+  private final AtomicLong ids = new AtomicLong(400_000_000_000_000L);
+  /** Autorizadas ainda não estornadas; cada uma é estornada uma única vez. */
+  private final Queue<Long> paraEstornar = new ConcurrentLinkedQueue<>();
+  /** Últimas autorizadas, sorteadas para consulta, repetição e duplicada. */
+  private final AtomicLongArray recentes = new AtomicLongArray(1 << 16);
+  private final AtomicLong totalRecentes = new AtomicLong();
+  private final AtomicInteger pendentes = new AtomicInteger();
+  private final Map<Operacao, Medidas> medidas = new EnumMap<>(Operacao.class);
+  private HttpClient cliente;
+  private String base;
+
+  @Test
+  void cargaEmLacoAberto() throws Exception {
+    double taxa = Double.parseDouble(System.getProperty("carga.taxa", "200"));
+    int duracao = Integer.getInteger("carga.duracao", 30);
+    int aquecimento = Integer.getInteger("carga.aquecimento", 10);
+    long semente = Long.getLong("carga.semente", 42);
+    int maximoPendentes = Integer.getInteger("carga.maximo-pendentes", 20_000);
+    String banco = System.getProperty("carga.banco", "memoria");
+    Path relatorio = Path.of(System.getProperty("carga.relatorio", "target/carga-relatorio.json"));
+    Map<Operacao, Integer> mix = mix(System.getProperty("carga.mix", MIX_PADRAO));
+    for (Operacao operacao : Operacao.values()) {
+      medidas.put(operacao, new Medidas());
+    }
+
+    try (ConfigurableApplicationContext contexto = iniciar(banco)) {
+      base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+      cliente = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .connectTimeout(Duration.ofSeconds(30))
+          .build();
+      SplittableRandom sorteio = new SplittableRandom(semente);
+      if (aquecimento > 0) {
+        gerar(taxa, aquecimento, mix, sorteio, maximoPendentes);
+        medidas.values().forEach(Medidas::zerar);
+      }
+      Instant instante = Instant.now();
+      long inicio = System.nanoTime();
+      gerar(taxa, duracao, mix, sorteio, maximoPendentes);
+      double decorrido = (System.nanoTime() - inicio) / 1e9;
+
+      Map<String, Object> configuracao = new LinkedHashMap<>();
+      configuracao.put("taxa", taxa);
+      configuracao.put("duracaoSegundos", duracao);
+      configuracao.put("aquecimentoSegundos", aquecimento);
+      configuracao.put("semente", semente);
+      configuracao.put("banco", banco);
+      configuracao.put("maximoPendentes", maximoPendentes);
+      Map<String, Integer> pesos = new LinkedHashMap<>();
+      mix.forEach((operacao, peso) -> pesos.put(operacao.nome, peso));
+      configuracao.put("mix", pesos);
+
+      Map<String, Object> operacoes = new LinkedHashMap<>();
+      Medidas total = new Medidas();
+      System.out.printf("taxa %.0f/s por %d s (aquecimento %d s), banco %s%n", taxa, duracao, aquecimento, banco);
+      System.out.printf("%-12s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n", "operacao", "enviadas", "req/s", "erros",
+          "n/env", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "serv p99");
+      for (Operacao operacao : Operacao.values()) {
+        Medidas medida = medidas.get(operacao);
+        if (medida.enviadas.sum() + medida.naoEnviadas.sum() == 0) {
+          continue;
+        }
+        operacoes.put(operacao.nome, resumo(medida, decorrido));
+        imprimir(operacao.nome, medida, decorrido);
+        total.latencia.add(medida.latencia);
+        total.servico.add(medida.servico);
+        total.enviadas.add(medida.enviadas.sum());
+        total.sucessos.add(medida.sucessos.sum());
+        total.erros.add(medida.erros.sum());
+        total.naoEnviadas.add(medida.naoEnviadas.sum());
+      }
+      imprimir("total", total, decorrido);
+
+      Map<String, Object> documento = new LinkedHashMap<>();
+      documento.put("inicio", instante.toString());
+      documento.put("configuracao", configuracao);
+      documento.put("operacoes", operacoes);
+      documento.put("total", resumo(total, decorrido));
+      if (relatorio.getParent() != null) {
+        Files.createDirectories(relatorio.getParent());
+      }
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(relatorio.toFile(), documento);
+      System.out.println("relatório: " + relatorio.toAbsolutePath());
+      assertTrue(total.sucessos.sum() > 0, "nenhuma requisição bem-sucedida");
+    }
+  }
+
+  /**
+   * Dispara requisições nos instantes `inicio + i / taxa` por `segundos` e
+   * espera as pendentes terminarem.
+   */
+  private void gerar(double taxa, int segundos, Map<Operacao, Integer> mix, SplittableRandom sorteio,
+      int maximoPendentes) throws InterruptedException {
+    long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / taxa);
+    long inicio = System.nanoTime();
+    long fim = inicio + TimeUnit.SECONDS.toNanos(segundos);
+    int pesoTotal = mix.values().stream().mapToInt(Integer::intValue).sum();
+    for (long i = 0; ; i++) {
+      long previsto = inicio + i * intervalo;
+      if (previsto >= fim) {
+        break;
+      }
+      long espera = previsto - System.nanoTime();
+      if (espera > 0) {
+        LockSupport.parkNanos(espera);
+      }
+      Operacao operacao = sortear(mix, pesoTotal, sorteio);
+      if (pendentes.get() >= maximoPendentes) {
+        medidas.get(operacao).naoEnviadas.increment();
+        continue;
+      }
+      enviar(operacao, previsto, sorteio);
+    }
+    long prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+    while (pendentes.get() > 0 && System.nanoTime() < prazo) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, pendentes.get(), "requisições sem resposta após 120 s");
+  }
+
+  private void enviar(Operacao sorteada, long previsto, SplittableRandom sorteio) {
+    long autorizadas = totalRecentes.get();
+    Long paraEstorno = sorteada == Operacao.ESTORNO ? paraEstornar.poll() : null;
+    boolean semAutorizada = sorteada == Operacao.ESTORNO ? paraEstorno == null : autorizadas == 0;
+    Operacao operacao = sorteada.dependeDeAutorizada && semAutorizada ? Operacao.AUTORIZACAO : sorteada;
+    long id = operacao.dependeDeAutorizada && operacao != Operacao.ESTORNO
+        ? recentes.get((int) sorteio.nextLong(Math.min(autorizadas, recentes.length()))) : 0;
+    HttpRequest.Builder requisicao = switch (operacao) {
+      case AUTORIZACAO -> post(transacao(id = ids.incrementAndGet(), "50.00", "AVISTA"));
+      case INVALIDA -> post(transacao(ids.incrementAndGet(), "50.00", "FOO"));
+      case REPETICAO -> post(transacao(id, "50.00", "AVISTA"));
+      case DUPLICADA -> post(transacao(id, "60.00", "AVISTA"));
+      case ESTORNO -> HttpRequest.newBuilder(URI.create(base + "/estorno/" + paraEstorno))
+          .method("PATCH", HttpRequest.BodyPublishers.noBody());
+      case CONSULTA -> HttpRequest.newBuilder(URI.create(base + "/pagamentos/consulta/" + id)).GET();
+      case PAGINA -> HttpRequest.newBuilder(URI.create(base + "/pagamentos/consulta?rowsPerPage=20")).GET();
+    };
+    long autorizado = id;
+    Medidas medida = medidas.get(operacao);
+    medida.enviadas.increment();
+    pendentes.incrementAndGet();
+    long enviado = System.nanoTime();
+    cliente.sendAsync(requisicao.timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.discarding())
+        .whenComplete((resposta, falha) -> {
+          long agora = System.nanoTime();
+          medida.latencia.recordValue(Math.min(agora - previsto, MAXIMO_NANOS));
+          medida.servico.recordValue(Math.min(agora - enviado, MAXIMO_NANOS));
+          if (falha == null && resposta.statusCode() == operacao.esperado) {
+            medida.sucessos.increment();
+            if (operacao == Operacao.AUTORIZACAO) {
+              paraEstornar.add(autorizado);
+              recentes.set((int) (totalRecentes.get() % recentes.length()), autorizado);
+              totalRecentes.incrementAndGet();
+            }
+          } else {
+            medida.erros.increment();
+          }
+          pendentes.decrementAndGet();
+        });
+  }
+
+  private HttpRequest.Builder post(String corpo) {
+    return HttpRequest.newBuilder(URI.create(base + "/pagamentos"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(corpo));
+  }
+
+  private static Operacao sortear(Map<Operacao, Integer> mix, int pesoTotal, SplittableRandom sorteio) {
+    int valor = sorteio.nextInt(pesoTotal);
+    for (Map.Entry<Operacao, Integer> entrada : mix.entrySet()) {
+      valor -= entrada.getValue();
+      if (valor < 0) {
+        return entrada.getKey();
+      }
+    }
+    throw new IllegalStateException();
+  }
+
+  private static Map<Operacao, Integer> mix(String especificacao) {
+    Map<Operacao, Integer> mix = new EnumMap<>(Operacao.class);
+    for (String item : especificacao.split(",")) {
+      String[] partes = item.trim().split(":");
+      mix.put(Operacao.valueOf(partes[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(partes[1].trim()));
+    }
+    assertTrue(mix.values().stream().mapToInt(Integer::intValue).sum() > 0, "carga.mix sem pesos");
+    return mix;
+  }
+
+  private static Map<String, Object> resumo(Medidas medida, double segundos) {
+    Map<String, Object> resumo = new LinkedHashMap<>();
+    resumo.put("enviadas", medida.enviadas.sum());
+    resumo.put("sucessos", medida.sucessos.sum());
+    resumo.put("erros", medida.erros.sum());
+    resumo.put("naoEnviadas", medida.naoEnviadas.sum());
+    resumo.put("vazao", medida.sucessos.sum() / segundos);
+    resumo.put("latenciaMs", percentis(medida.latencia));
+    resumo.put("servicoMs", percentis(medida.servico));
+    return resumo;
+  }
+
+  private static Map<String, Double> percentis(Histogram histograma) {
+    Map<String, Double> percentis = new LinkedHashMap<>();
+    percentis.put("p50", histograma.getValueAtPercentile(50) / 1e6);
+    percentis.put("p99", histograma.getValueAtPercentile(99) / 1e6);
+    percentis.put("p999", histograma.getValueAtPercentile(99.9) / 1e6);
+    percentis.put("max", histograma.getMaxValue() / 1e6);
+    return percentis;
+  }
+
+  private static void imprimir(String nome, Medidas medida, double segundos) {
+    System.out.printf("%-12s %9d %9.0f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", nome, medida.enviadas.sum(),
+        medida.sucessos.sum() / segundos, medida.erros.sum(), medida.naoEnviadas.sum(),
+        medida.latencia.getValueAtPercentile(50) / 1e6, medida.latencia.getValueAtPercentile(99) / 1e6,
+        medida.latencia.getValueAtPercentile(99.9) / 1e6, medida.latencia.getMaxValue() / 1e6,
+        medida.servico.getValueAtPercentile(99) / 1e6);
+  }
+
+  private ConfigurableApplicationContext iniciar(String banco) {
+    String url = switch (banco) {
+      case "memoria" -> "jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+      case "arquivo" -> "jdbc:h2:file:" + diretorio.resolve("carga").toAbsolutePath() + ";DB_CLOSE_ON_EXIT=FALSE";
+      default -> throw new IllegalArgumentException("carga.banco deve ser memoria ou arquivo: " + banco);
+    };
+    List<String> argumentos = new ArrayList<>(List.of("--server.port=0", "--spring.datasource.url=" + url,
+        "--app.auditoria.destino=" + diretorio.resolve("auditoria.log"),
+        "--logging.level.root=WARN", "--logging.level.com.example.app=WARN"));
+    return new SpringApplicationBuilder(Application.class).run(argumentos.toArray(String[]::new));
+  }
+
+  private static String transacao(long id, String valor, String tipo) {
+    return "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"" + valor
+        + "\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{"
+        + "\"tipo\":\"" + tipo + "\",\"parcelas\":\"1\"}}}";
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import java.util.Objects;
+import org.springframework.test.web.servlet.MockMvc;
+import com.example.app.repository.PaymentRepository;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PaymentBatchControllerTest {
+  @Autowired
+  private MockMvc mockMvc;
+  @Autowired
+  private PaymentRepository repository;
+
+  private String transacao(String id, String valor) {
+    return "{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"" + valor + "\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}";
+  }
+
+  @Test
+  void loteMistoMantemOrdemEStatusPorItem() throws Exception {
+    mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content(transacao("100023568900500", "50.00")))
+      .andExpect(status().isCreated());
+
+    String lote = "[" + transacao("100023568900501", "50.00")
+        + ",{\"transacao\":" + transacao("100023568900502", "10.00") + "}"
+        + "," + transacao("100023568900503", "0.00")
+        + "," + transacao("100023568900501", "50.00")
+        + "," + transacao("100023568900500", "50.00") + "]";
+    mockMvc.perform(post("/pagamentos/lote").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content(lote))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.autorizados").value(2))
+      .andExpect(jsonPath("$.negados").value(3))
+      .andExpect(jsonPath("$.transacoes[0].id").value("100023568900501"))
+      .andExpect(jsonPath("$.transacoes[0].cartao").value("4444*********1234"))
+      .andExpect(jsonPath("$.transacoes[0].descricao.status").value("AUTORIZADO"))
+      .andExpect(jsonPath("$.transacoes[0].descricao.nsu").exists())
+      .andExpect(jsonPath("$.transacoes[1].id").value("100023568900502"))
+      .andExpect(jsonPath("$.transacoes[1].descricao.status").value("AUTORIZADO"))
+      .andExpect(jsonPath("$.transacoes[2].descricao.status").value("NEGADO"))
+      .andExpect(jsonPath("$.transacoes[2].descricao.mensagem").value("Valor inválido"))
+      .andExpect(jsonPath("$.transacoes[3].descricao.status").value("NEGADO"))
+      .andExpect(jsonPath("$.transacoes[3].descricao.mensagem").value("Transação já processada para identificador=100023568900501"))
+      .andExpect(jsonPath("$.transacoes[4].descricao.status").value("NEGADO"))
+      .andExpect(jsonPath("$.transacoes[4].descricao.mensagem").value("Transação já processada para identificador=100023568900500"));
+
+    assertEquals("10.00", repository.findByExternalId("100023568900502").orElseThrow().getValor().toPlainString());
+    assertTrue(repository.findByExternalId("100023568900503").isEmpty());
+  }
+
+  @Test
+  void loteVazioOuMalformadoRetorna400() throws Exception {
+    mockMvc.perform(post("/pagamentos/lote").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content("[]"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(post("/pagamentos/lote").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content(transacao("100023568900504", "50.00")))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(post("/pagamentos/lote").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content("[{"))
+      .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,154 @@
+package com.example.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentRepository;
+import com.example.app.repository.PaymentStore;
+import com.jayway.jsonpath.JsonPath;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PaymentControllerConcurrencyTest {
+  @Autowired
+  private MockMvc mockMvc;
+  @Autowired
+  private PaymentRepository repository;
+  @Autowired
+  private PaymentStore store;
+
+  private static String json(String id) {
+    return "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}}";
+  }
+
+  /** Repetições simultâneas do mesmo payload esperam a primeira e recebem a mesma autorização. */
+  @Test
+  void mesmoIdConcorrenteAutorizaUmaVezERepeteAResposta() throws Exception {
+    String id = "100023568900600";
+    List<MvcResult> resultados = concorrentes(32, i -> json(id));
+    Set<String> nsus = new HashSet<>();
+    for (MvcResult resultado : resultados) {
+      assertEquals(201, resultado.getResponse().getStatus());
+      nsus.add(JsonPath.read(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8), "$.descricao.nsu"));
+    }
+    assertEquals(Set.of(repository.findByExternalId(id).orElseThrow().getNsu()), nsus);
+  }
+
+  @Test
+  void mesmoIdComPayloadsDiferentesAutorizaExatamenteUm() throws Exception {
+    String id = "100023568900603";
+    List<MvcResult> resultados = concorrentes(32, i -> json(id).replace("50.00", (50 + i) + ".00"));
+    int criados = 0;
+    for (MvcResult resultado : resultados) {
+      if (resultado.getResponse().getStatus() == 201) {
+        criados++;
+      } else {
+        assertEquals(402, resultado.getResponse().getStatus());
+        assertTrue(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8)
+            .contains("Transação já processada para identificador=" + id));
+      }
+    }
+    assertEquals(1, criados);
+    assertTrue(repository.findByExternalId(id).isPresent());
+  }
+
+  /** Envia `requisicoes` autorizações ao mesmo tempo, com o corpo `corpo(i)`. */
+  private List<MvcResult> concorrentes(int requisicoes, IntFunction<String> corpo) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(requisicoes);
+    CountDownLatch largada = new CountDownLatch(1);
+    List<Future<MvcResult>> futuros = new ArrayList<>();
+    try {
+      for (int i = 0; i < requisicoes; i++) {
+        String conteudo = corpo.apply(i);
+        futuros.add(executor.submit(() -> {
+          largada.await();
+          return mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+              .content(conteudo)).andReturn();
+        }));
+      }
+      largada.countDown();
+      List<MvcResult> resultados = new ArrayList<>();
+      for (Future<MvcResult> futuro : futuros) {
+        resultados.add(futuro.get());
+      }
+      return resultados;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void estornoConcorrenteCancelaExatamenteUm() throws Exception {
+    String id = "100023568900601";
+    mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content(json(id)))
+        .andReturn();
+    int requisicoes = 300;
+    ExecutorService executor = Executors.newFixedThreadPool(64);
+    CountDownLatch largada = new CountDownLatch(1);
+    List<Future<MvcResult>> resultados = new ArrayList<>();
+    try {
+      for (int i = 0; i < requisicoes; i++) {
+        resultados.add(executor.submit(() -> {
+          largada.await();
+          return mockMvc.perform(patch("/estorno/{id}", id).contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)))
+              .andReturn();
+        }));
+      }
+      largada.countDown();
+      int estornados = 0;
+      for (Future<MvcResult> resultado : resultados) {
+        MvcResult mvcResult = resultado.get();
+        int status = mvcResult.getResponse().getStatus();
+        if (status == 200) {
+          estornados++;
+        } else {
+          assertEquals(400, status);
+          assertTrue(mvcResult.getResponse().getContentAsString(java.nio.charset.StandardCharsets.UTF_8)
+              .contains("Status atual não permite estorno"));
+        }
+      }
+      assertEquals(1, estornados);
+    } finally {
+      executor.shutdownNow();
+    }
+    Payment pagamento = repository.findByExternalId(id).orElseThrow();
+    assertEquals("CANCELADO", pagamento.getStatus());
+    assertEquals(1L, pagamento.getVersao());
+  }
+
+  @Test
+  void alteracaoDeCopiaDesatualizadaFalha() throws Exception {
+    String id = "100023568900602";
+    mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content(json(id)))
+        .andReturn();
+    Payment copia = store.findByExternalId(id).orElseThrow();
+    mockMvc.perform(patch("/estorno/{id}", id).contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)))
+        .andReturn();
+
+    copia.setEstabelecimento("Outro");
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> store.update(copia));
+    Payment atual = store.findByExternalId(id).orElseThrow();
+    assertEquals("CANCELADO", atual.getStatus());
+    assertEquals("PetShop Mundo cão", atual.getEstabelecimento());
+  }
+}
@@ -5,12 +5,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import com.jayway.jsonpath.JsonPath;
 import org.springframework.test.web.servlet.MockMvc;
 import com.example.app.repository.PaymentRepository;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -108,4 +114,111 @@ class PaymentControllerTest {
     mockMvc.perform(get("/pagamentos/consulta/{id}", "999999999999999"))
       .andExpect(status().isNotFound());
   }
-}
\ No newline at end of file
+
+  @Test
+  void consultaPorCursorPercorreTudo() throws Exception {
+    for (int i = 0; i < 25; i++) {
+      String id = String.format("1000235692%05d", i);
+      String json = "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}}";
+      mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content(json))
+        .andExpect(status().isCreated());
+    }
+
+    Set<String> vistos = new HashSet<>();
+    String cursor = null;
+    int paginas = 0;
+    do {
+      var requisicao = get("/pagamentos/consulta").param("rowsPerPage", "7");
+      if (cursor != null) {
+        requisicao.param("cursor", cursor);
+      }
+      String corpo = mockMvc.perform(requisicao)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+      List<String> ids = JsonPath.read(corpo, "$.data[*].id");
+      assertTrue(ids.size() <= 7);
+      ids.forEach(id -> assertTrue(vistos.add(id), id));
+      cursor = JsonPath.read(corpo, "$.nextCursor");
+      paginas++;
+    } while (cursor != null);
+
+    assertEquals(repository.count(), vistos.size());
+    assertEquals((vistos.size() + 6) / 7, paginas);
+    for (int i = 0; i < 25; i++) {
+      assertTrue(vistos.contains(String.format("1000235692%05d", i)));
+    }
+  }
+
+  @Test
+  void validacaoCursor() throws Exception {
+    mockMvc.perform(get("/pagamentos/consulta").param("cursor", "nao-e-cursor"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("cursor", "AAAAAAAAADM").param("page", "0"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("cursor", "AAAAAAAAAAE"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.data.length()").value(0))
+      .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  void consultaPorCursorComFiltros() throws Exception {
+    String[] tipos = {"AVISTA", "PARCELADO LOJA"};
+    for (int i = 0; i < 9; i++) {
+      String id = String.format("1000235699%05d", i);
+      String json = "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"" + (10 * (i + 1)) + ".00\",\"dataHora\":\"0" + (i + 1) + "/06/2021 10:00:00\",\"estabelecimento\":\"Loja filtro 19\"},\"formaPagamento\":{\"tipo\":\"" + tipos[i % 2] + "\",\"parcelas\":\"" + (i % 2 == 0 ? 1 : 2) + "\"}}}";
+      mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)).content(json))
+        .andExpect(status().isCreated());
+    }
+
+    // Período de 02/06 a 08/06, à vista: ids 2, 4 e 6 (em ordem decrescente).
+    List<String> vistos = new ArrayList<>();
+    String cursor = null;
+    do {
+      var requisicao = get("/pagamentos/consulta").param("rowsPerPage", "2")
+        .param("estabelecimento", "Loja filtro 19").param("tipo", "AVISTA")
+        .param("dataInicio", "02/06/2021 00:00:00").param("dataFim", "08/06/2021 23:59:59");
+      if (cursor != null) {
+        requisicao.param("cursor", cursor);
+      }
+      String corpo = mockMvc.perform(requisicao)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+      vistos.addAll(JsonPath.read(corpo, "$.data[*].id"));
+      cursor = JsonPath.read(corpo, "$.nextCursor");
+    } while (cursor != null);
+    assertEquals(List.of("100023569900006", "100023569900004", "100023569900002"), vistos);
+
+    mockMvc.perform(get("/pagamentos/consulta").param("estabelecimento", "Loja filtro 19")
+        .param("status", "autorizado").param("valorMinimo", "30.00").param("valorMaximo", "50.00"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.data.length()").value(3))
+      .andExpect(jsonPath("$.data[0].id").value("100023569900004"))
+      .andExpect(jsonPath("$.data[2].id").value("100023569900002"))
+      .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    mockMvc.perform(get("/pagamentos/consulta").param("estabelecimento", "Loja filtro 19").param("status", "CANCELADO"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.data.length()").value(0));
+  }
+
+  @Test
+  void validacaoFiltros() throws Exception {
+    mockMvc.perform(get("/pagamentos/consulta").param("status", "PENDENTE"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("tipo", "BOLETO"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("dataInicio", "2021-06-01"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("dataInicio", "02/06/2021 00:00:00").param("dataFim", "01/06/2021 00:00:00"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("valorMinimo", "10,00"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("valorMinimo", "20.00").param("valorMaximo", "10.00"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/consulta").param("status", "NEGADO").param("page", "0"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value("Filtros valem apenas para a listagem por cursor"));
+    mockMvc.perform(get("/pagamentos/consulta/{id}", "100023568900300").param("status", "NEGADO"))
+      .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,146 @@
+package com.example.app.controller;
+
+import com.example.app.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaymentExportControllerTest {
+  /** Vírgula no nome: o CSV precisa pôr o campo entre aspas. */
+  private static final String LOJA = "Bar do Zé, Centro";
+
+  @Autowired
+  private MockMvc mockMvc;
+  @Autowired
+  private PaymentRepository repository;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @LocalServerPort
+  private int porta;
+
+  private static String transacao(String id, String valor, String estabelecimento) {
+    return "{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"" + valor + "\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"" + estabelecimento + "\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}";
+  }
+
+  @BeforeAll
+  void autorizar() throws Exception {
+    List<String> transacoes = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      transacoes.add(transacao(String.format("1000236000%05d", i), (i + 1) + ".00", LOJA));
+    }
+    mockMvc.perform(post("/pagamentos/lote").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+        .content("[" + String.join(",", transacoes) + "]"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.autorizados").value(30));
+    mockMvc.perform(patch("/estorno/{id}", "100023600000007"))
+      .andExpect(status().isOk());
+  }
+
+  @Test
+  void exportaNdjsonEmOrdemCrescenteComFiltros() throws Exception {
+    var resposta = mockMvc.perform(get("/pagamentos/export").param("estabelecimento", LOJA).param("status", "AUTORIZADO"))
+      .andExpect(status().isOk())
+      .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+      .andExpect(header().string("Content-Disposition", "attachment; filename=\"pagamentos.ndjson\""))
+      .andReturn().getResponse();
+    String[] linhas = resposta.getContentAsString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(29, linhas.length);
+    for (int i = 0, esperado = 0; i < linhas.length; i++, esperado++) {
+      if (esperado == 7) {
+        esperado++;
+      }
+      JsonNode pagamento = objectMapper.readTree(linhas[i]);
+      assertEquals(String.format("1000236000%05d", esperado), pagamento.get("id").asText());
+      assertEquals("4444*********1234", pagamento.get("cartao").asText());
+      assertEquals("AUTORIZADO", pagamento.at("/descricao/status").asText());
+      assertEquals((esperado + 1) + ".00", pagamento.at("/descricao/valor").asText());
+    }
+
+    String cancelado = mockMvc.perform(get("/pagamentos/export").param("estabelecimento", LOJA)
+        .param("status", "cancelado").param("valorMinimo", "5.00").param("valorMaximo", "10.00"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    assertEquals("100023600000007", objectMapper.readTree(cancelado).get("id").asText());
+    assertTrue(cancelado.endsWith("\n"));
+  }
+
+  @Test
+  void exportaCsvComCabecalhoEAspas() throws Exception {
+    String csv = mockMvc.perform(get("/pagamentos/export").param("formato", "CSV").param("estabelecimento", LOJA)
+        .param("valorMaximo", "2.00"))
+      .andExpect(status().isOk())
+      .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+      .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    String[] linhas = csv.split("\n");
+    assertEquals(3, linhas.length);
+    assertEquals("id,cartao,valor,dataHora,estabelecimento,nsu,codigoAutorizacao,status,tipo,parcelas", linhas[0]);
+    String loja = repository.findByExternalId("100023600000000").orElseThrow().getEstabelecimento();
+    assertTrue(loja.contains(","), loja);
+    String nsu = repository.findByExternalId("100023600000000").orElseThrow().getNsu();
+    assertTrue(linhas[1].startsWith("100023600000000,4444*********1234,1.00,01/05/2021 18:30:00,\""
+        + loja.replace("\"", "\"\"") + "\"," + nsu + ","), linhas[1]);
+    assertTrue(linhas[1].endsWith(",AUTORIZADO,AVISTA,1"), linhas[1]);
+    assertTrue(linhas[2].startsWith("100023600000001,"), linhas[2]);
+  }
+
+  @Test
+  void comprimeComGzipQuandoAceito() throws IOException, InterruptedException {
+    URI uri = URI.create("http://localhost:" + porta + "/pagamentos/export?estabelecimento="
+        + URLEncoder.encode(LOJA, StandardCharsets.UTF_8));
+    HttpClient cliente = HttpClient.newHttpClient();
+    HttpResponse<byte[]> comprimida = cliente.send(HttpRequest.newBuilder(uri).header("Accept-Encoding", "gzip").build(),
+        HttpResponse.BodyHandlers.ofByteArray());
+    assertEquals(200, comprimida.statusCode());
+    assertEquals("gzip", comprimida.headers().firstValue("Content-Encoding").orElse(null));
+    String corpo;
+    try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(comprimida.body()))) {
+      corpo = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    assertEquals(30, corpo.split("\n").length);
+    assertTrue(comprimida.body().length < corpo.length() / 3);
+
+    HttpResponse<String> semCompressao = cliente.send(HttpRequest.newBuilder(uri).build(),
+        HttpResponse.BodyHandlers.ofString());
+    assertTrue(semCompressao.headers().firstValue("Content-Encoding").isEmpty());
+    assertEquals(corpo, semCompressao.body());
+  }
+
+  @Test
+  void validacao() throws Exception {
+    mockMvc.perform(get("/pagamentos/export").param("formato", "xml"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value("formato deve ser ndjson ou csv"));
+    mockMvc.perform(get("/pagamentos/export").param("status", "PENDENTE"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/export").param("dataInicio", "02/06/2021 00:00:00").param("dataFim", "01/06/2021 00:00:00"))
+      .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.app.controller;
+
+import com.example.app.dto.payment.PaymentRequest;
+import com.example.app.exception.PaymentValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentPayloadParserTest {
+  private final PaymentPayloadParser parser = new PaymentPayloadParser(new ObjectMapper());
+  private static final String TRANSACAO = "{\"cartao\":\"4444123412341234\",\"id\":\"100023568900001\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}";
+
+  private PaymentRequest parse(String body) {
+    return parser.parse(body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void assertTransacao(PaymentRequest request) {
+    assertEquals("4444123412341234", request.getCartao());
+    assertEquals("100023568900001", request.getId());
+    assertEquals("50.00", request.getDescricao().getValor());
+    assertEquals("01/05/2021 18:30:00", request.getDescricao().getDataHora());
+    assertEquals("PetShop Mundo cão", request.getDescricao().getEstabelecimento());
+    assertEquals("AVISTA", request.getFormaPagamento().getTipo());
+    assertEquals("1", request.getFormaPagamento().getParcelas());
+  }
+
+  @Test
+  void aceitaOsTresFormatos() {
+    assertTransacao(parse("{\"transacao\":" + TRANSACAO + "}"));
+    assertTransacao(parse(TRANSACAO));
+    assertTransacao(parse("  \n transacao:  " + TRANSACAO + " \n"));
+  }
+
+  @Test
+  void envelopeNaoObjetoUsaRaiz() {
+    PaymentRequest request = parse("{\"transacao\":\"x\"," + TRANSACAO.substring(1));
+    assertTransacao(request);
+  }
+
+  @Test
+  void ignoraCamposDesconhecidosECoageEscalares() {
+    PaymentRequest request = parse("{\"extra\":{\"a\":[1,2]},\"cartao\":\"4444123412341234\",\"id\":100023568900001,"
+        + "\"descricao\":{\"valor\":50.00,\"dataHora\":null},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":1}}");
+    assertEquals("100023568900001", request.getId());
+    assertEquals("50.00", request.getDescricao().getValor());
+    assertNull(request.getDescricao().getDataHora());
+    assertEquals("1", request.getFormaPagamento().getParcelas());
+  }
+
+  @Test
+  void rejeitaPayloadMalformado() {
+    assertThrows(PaymentValidationException.class, () -> parse(""));
+    assertThrows(PaymentValidationException.class, () -> parse("transacao"));
+    assertThrows(PaymentValidationException.class, () -> parse("transacao:[1]"));
+    assertThrows(PaymentValidationException.class, () -> parse("{\"cartao\":{\"x\":1}}"));
+    assertThrows(PaymentValidationException.class, () -> parse("{\"transacao\":{\"id\":\"1\""));
+  }
+
+  @Test
+  void loteMisturaFormatosENulos() {
+    String body = "[{\"transacao\":" + TRANSACAO + "}," + TRANSACAO + ",null]";
+    List<PaymentRequest> requests = parser.parseBatch(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(3, requests.size());
+    assertTransacao(requests.get(0));
+    assertTransacao(requests.get(1));
+    assertNull(requests.get(2));
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.app.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaymentTotalsControllerTest {
+  private static final String LOJA = "Empório Totais";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  private static String transacao(String id, String valor, String dataHora, String tipo, String parcelas) {
+    return "{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"" + valor
+        + "\",\"dataHora\":\"" + dataHora + "\",\"estabelecimento\":\"" + LOJA + "\"},\"formaPagamento\":{\"tipo\":\""
+        + tipo + "\",\"parcelas\":\"" + parcelas + "\"}}";
+  }
+
+  /**
+   * Dia 01/05: 10 AVISTA de 1.00 a 10.00 (via lote). Dia 02/05: 4 PARCELADO
+   * LOJA de 100.00 (unitárias). Estornos: um AVISTA de 3.00 (unitário) e dois
+   * PARCELADO LOJA (em lote).
+   */
+  @BeforeAll
+  void autorizarEEstornar() throws Exception {
+    List<String> transacoes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      transacoes.add(transacao(String.format("1000237000%05d", i), (i + 1) + ".00", "01/05/2021 10:00:00", "AVISTA", "1"));
+    }
+    mockMvc.perform(post("/pagamentos/lote").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+        .content("[" + String.join(",", transacoes) + "]"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.autorizados").value(10));
+    for (int i = 10; i < 14; i++) {
+      mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+          .content(transacao(String.format("1000237000%05d", i), "100.00", "02/05/2021 23:59:59", "PARCELADO LOJA", "3")))
+        .andExpect(status().isCreated());
+    }
+    mockMvc.perform(patch("/estorno/{id}", "100023700000002"))
+      .andExpect(status().isOk());
+    mockMvc.perform(patch("/estorno/lote").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+        .content("{\"ids\":[\"100023700000010\",\"100023700000011\"]}"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.cancelados").value(2));
+  }
+
+  @Test
+  void totaisPorGrupo() throws Exception {
+    mockMvc.perform(get("/pagamentos/totais").param("estabelecimento", LOJA))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.data", hasSize(2)))
+      .andExpect(jsonPath("$.data[0].estabelecimento").value(LOJA))
+      .andExpect(jsonPath("$.data[0].dia").value("01/05/2021"))
+      .andExpect(jsonPath("$.data[0].tipo").value("AVISTA"))
+      .andExpect(jsonPath("$.data[0].autorizados").value(9))
+      .andExpect(jsonPath("$.data[0].valorAutorizado").value("52.00"))
+      .andExpect(jsonPath("$.data[0].cancelados").value(1))
+      .andExpect(jsonPath("$.data[0].valorCancelado").value("3.00"))
+      .andExpect(jsonPath("$.data[1].dia").value("02/05/2021"))
+      .andExpect(jsonPath("$.data[1].tipo").value("PARCELADO LOJA"))
+      .andExpect(jsonPath("$.data[1].autorizados").value(2))
+      .andExpect(jsonPath("$.data[1].valorAutorizado").value("200.00"))
+      .andExpect(jsonPath("$.data[1].cancelados").value(2))
+      .andExpect(jsonPath("$.data[1].valorCancelado").value("200.00"));
+  }
+
+  @Test
+  void agrupaEFiltra() throws Exception {
+    mockMvc.perform(get("/pagamentos/totais").param("estabelecimento", LOJA).param("agrupar", "estabelecimento"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.data", hasSize(1)))
+      .andExpect(jsonPath("$.data[0].estabelecimento").value(LOJA))
+      .andExpect(jsonPath("$.data[0].dia").doesNotExist())
+      .andExpect(jsonPath("$.data[0].tipo").doesNotExist())
+      .andExpect(jsonPath("$.data[0].autorizados").value(11))
+      .andExpect(jsonPath("$.data[0].valorAutorizado").value("252.00"))
+      .andExpect(jsonPath("$.data[0].cancelados").value(3))
+      .andExpect(jsonPath("$.data[0].valorCancelado").value("203.00"));
+    mockMvc.perform(get("/pagamentos/totais").param("estabelecimento", LOJA).param("agrupar", "tipo")
+        .param("dataInicio", "02/05/2021").param("dataFim", "02/05/2021"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.data", hasSize(1)))
+      .andExpect(jsonPath("$.data[0].tipo").value("PARCELADO LOJA"))
+      .andExpect(jsonPath("$.data[0].autorizados").value(2));
+    mockMvc.perform(get("/pagamentos/totais").param("estabelecimento", LOJA).param("tipo", "PARCELADO EMISSOR"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.data", hasSize(0)));
+  }
+
+  @Test
+  void validacaoParametros() throws Exception {
+    mockMvc.perform(get("/pagamentos/totais").param("agrupar", "cartao"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value("agrupar aceita estabelecimento, dia e tipo"));
+    mockMvc.perform(get("/pagamentos/totais").param("dataInicio", "31/02/2021"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/totais").param("dataInicio", "02/05/2021").param("dataFim", "01/05/2021"))
+      .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/pagamentos/totais").param("tipo", "BOLETO"))
+      .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.app.controller;
+
+import com.example.app.Application;
+import com.example.app.controller.VirtualThreadLoadTest.Resultado;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara vazão, p99, threads do servidor e heap de `POST /pagamentos` na
+ * pilha Spring MVC + JPA (Tomcat) e no perfil `reativo` (WebFlux no Netty
+ * + R2DBC), de 100 a 5.000 clientes simultâneos em laço fechado, com o H2
+ * em memória como banco nas duas.
+ *
+ * "threads" conta as threads de atendimento do servidor (`http-nio-*` no
+ * Tomcat, `reactor-http-*` no Netty) ao fim de cada nível; "heap MB" é o
+ * heap ocupado após um GC.
+ *
+ * O driver R2DBC do H2 executa os comandos na própria thread que os
+ * assina, então a comparação mede o custo do atendimento HTTP e da
+ * montagem das respostas; com um banco remoto e um driver R2DBC de rede
+ * a espera pelo banco também deixa de ocupar threads.
+ *
+ * Executar com `mvn test -Dtest=ReactiveLoadTest -Dcarga.reativo=true`
+ * (`-Dcarga.clientes=100,1000`, `-Dcarga.duracao=5` e
+ * `-Dcarga.modos=reativo` ajustam a carga).
+ */
+@EnabledIfSystemProperty(named = "carga.reativo", matches = "true")
+class ReactiveLoadTest {
+  @Test
+  void comparaMvcEReativo() throws Exception {
+    int[] clientes = Arrays.stream(System.getProperty("carga.clientes", "100,1000,5000").split(","))
+        .mapToInt(Integer::parseInt).toArray();
+    int duracao = Integer.getInteger("carga.duracao", 5);
+    List<String> modos = List.of(System.getProperty("carga.modos", "mvc,reativo").split(","));
+    System.out.printf("%d s por nível%n", duracao);
+    System.out.printf("%-10s %8s %10s %10s %10s %8s %8s %8s%n", "modo", "clientes", "req/s", "p50 ms", "p99 ms",
+        "erros", "threads", "heap MB");
+    for (String modo : modos) {
+      try (ConfigurableApplicationContext contexto = iniciar(modo)) {
+        int porta = Integer.parseInt(contexto.getEnvironment().getProperty("local.server.port"));
+        HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        VirtualThreadLoadTest.medir(cliente, porta, 200, 3);
+        for (int quantidade : clientes) {
+          Resultado resultado = VirtualThreadLoadTest.medir(cliente, porta, quantidade, duracao);
+          System.out.printf("%-10s %8d %10.0f %10.1f %10.1f %8d %8d %8d%n", modo, quantidade, resultado.vazao(),
+              resultado.p50(), resultado.p99(), resultado.erros(), threadsDoServidor(), heapOcupadoMb());
+          assertTrue(resultado.vazao() > 0, modo);
+        }
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext iniciar(String modo) {
+    SpringApplicationBuilder builder = new SpringApplicationBuilder(Application.class);
+    if (modo.equals("reativo")) {
+      builder.profiles("reativo");
+    }
+    return builder.run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+        "--logging.level.com.example.app=WARN");
+  }
+
+  private static long threadsDoServidor() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(thread -> thread.getName().startsWith("http-nio") || thread.getName().startsWith("reactor-http"))
+        .count();
+  }
+
+  private static long heapOcupadoMb() {
+    MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+    memoria.gc();
+    return memoria.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.app.controller;
+
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+// O tipo da aplicação é decidido antes da leitura do perfil, por isso a propriedade é repetida aqui.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reativo")
+class ReactivePaymentControllerTest {
+  @Autowired
+  private WebTestClient client;
+  @Autowired
+  private PaymentRepository repository;
+  @LocalServerPort
+  private int porta;
+  @Autowired
+  private ReactiveWebServerApplicationContext contexto;
+
+  private static String json(String id) {
+    return "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}}";
+  }
+
+  private WebTestClient.ResponseSpec autorizar(String corpo) {
+    return client.post().uri("/pagamentos").contentType(MediaType.APPLICATION_JSON).bodyValue(corpo).exchange();
+  }
+
+  @Test
+  void atendidoPeloNetty() {
+    assertInstanceOf(NettyWebServer.class, contexto.getWebServer());
+  }
+
+  @Test
+  void autorizaConsultaEEstorna() {
+    String id = "100023569700001";
+    autorizar(json(id)).expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.cartao").isEqualTo("4444*********1234")
+        .jsonPath("$.descricao.status").isEqualTo("AUTORIZADO")
+        .jsonPath("$.descricao.nsu").exists()
+        .jsonPath("$.descricao.codigoAutorizacao").exists();
+    String nsu = repository.findByExternalId(id).orElseThrow().getNsu();
+    autorizar(json(id)).expectStatus().isCreated()
+        .expectBody().jsonPath("$.descricao.nsu").isEqualTo(nsu);
+    autorizar(json(id).replace("50.00", "60.00")).expectStatus().isEqualTo(402)
+        .expectBody().jsonPath("$.descricao.status").isEqualTo("NEGADO");
+
+    client.get().uri("/pagamentos/consulta/{id}", id).exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.data[0].id").isEqualTo(id)
+        .jsonPath("$.data[0].descricao.dataHora").isEqualTo("01/05/2021 18:30:00")
+        .jsonPath("$.data[0].formaPagamento.parcelas").isEqualTo("1")
+        .jsonPath("$.rowsPerPage").isEqualTo(20);
+
+    client.patch().uri("/estorno/{id}", id).exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.transacao.descricao.status").isEqualTo("CANCELADO")
+        .jsonPath("$.transacao.cartao").isEqualTo("4444*********1234");
+    client.patch().uri("/estorno/{id}", id).exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.message").isEqualTo("Status atual não permite estorno");
+
+    Payment pagamento = repository.findByExternalId(id).orElseThrow();
+    assertEquals("CANCELADO", pagamento.getStatus());
+    assertEquals(1L, pagamento.getVersao());
+    assertNotNull(pagamento.getCanceladoEm());
+  }
+
+  @Test
+  void respostasDeErro() {
+    autorizar("{").expectStatus().isBadRequest();
+    client.post().uri("/pagamentos").contentType(MediaType.APPLICATION_JSON).exchange().expectStatus().isBadRequest();
+    autorizar(json("100023569700003").replace("AVISTA", "XYZ")).expectStatus().isEqualTo(402)
+        .expectBody().jsonPath("$.descricao.mensagem").exists();
+    client.get().uri("/pagamentos/consulta/{id}", "100023569700002").exchange()
+        .expectStatus().isNotFound()
+        .expectBody().jsonPath("$.data").isEmpty();
+    client.get().uri("/pagamentos/consulta/{id}", "ABC").exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.path").isEqualTo("/pagamentos/consulta/ABC");
+    client.get().uri("/pagamentos/consulta/{id}?rowsPerPage=0", "100023569700002").exchange()
+        .expectStatus().isBadRequest();
+    client.patch().uri("/estorno/{id}", "100023569700002").exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.message").isEqualTo("Transação não encontrada");
+  }
+
+  /**
+   * Ids do R2DBC e do Hibernate saem de blocos distintos de `payment_seq`.
+   */
+  @Test
+  void idsNaoColidemComOJpa() {
+    autorizar(json("100023569700010")).expectStatus().isCreated();
+    Payment jpa = new Payment();
+    jpa.setExternalId("100023569700011");
+    jpa.setStatus("NEGADO");
+    repository.saveAndFlush(jpa);
+    autorizar(json("100023569700012")).expectStatus().isCreated();
+
+    Set<Long> ids = new HashSet<>();
+    for (String id : List.of("100023569700010", "100023569700011", "100023569700012")) {
+      assertTrue(ids.add(repository.findByExternalId(id).orElseThrow().getId()));
+    }
+  }
+
+  @Test
+  void estornoConcorrenteCancelaExatamenteUm() {
+    String id = "100023569700020";
+    autorizar(json(id)).expectStatus().isCreated();
+    WebClient cliente = WebClient.create("http://localhost:" + porta);
+    List<Integer> status = Flux.range(0, 200)
+        .flatMap(i -> cliente.patch().uri("/estorno/{id}", id)
+            .exchangeToMono(resposta -> resposta.releaseBody().thenReturn(resposta.statusCode().value())), 64)
+        .collectList()
+        .block(Duration.ofSeconds(60));
+    assertNotNull(status);
+    assertEquals(1, status.stream().filter(codigo -> codigo == 200).count());
+    assertTrue(status.stream().allMatch(codigo -> codigo == 200 || codigo == 400));
+    assertEquals(1L, repository.findByExternalId(id).orElseThrow().getVersao());
+  }
+}
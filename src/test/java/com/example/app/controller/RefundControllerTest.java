@@ -2,7 +2,7 @@ package com.example.app.controller;
 
 import com.example.app.dto.payment.*;
 import com.example.app.entity.Payment;
-import com.example.app.repository.PaymentRepository;
+import com.example.app.repository.PaymentStore;
 import com.example.app.service.PaymentService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -21,7 +22,7 @@ class RefundControllerTest {
   @Autowired
   private PaymentService service;
   @Autowired
-  private PaymentRepository repository;
+  private PaymentStore store;
 
   @Test
   void cancelOk() throws Exception {
@@ -56,7 +57,7 @@ class RefundControllerTest {
     p.setTipo("AVISTA");
     p.setParcelas(1);
     p.setStatus("NEGADO");
-    repository.save(p);
+    store.insert(p);
 
     mockMvc.perform(patch("/estorno/{id}", "100023568900221").contentType(MediaType.APPLICATION_JSON))
       .andExpect(status().isBadRequest());
@@ -67,4 +68,44 @@ class RefundControllerTest {
     mockMvc.perform(patch("/estorno/{id}", "999999999999999").contentType(MediaType.APPLICATION_JSON))
       .andExpect(status().isBadRequest());
   }
-}
\ No newline at end of file
+
+  @Test
+  void cancelBatch() throws Exception {
+    for (String id : new String[] {"100023568900222", "100023568900223"}) {
+      Payment p = new Payment();
+      p.setExternalId(id);
+      p.setCartao("4444123412341234");
+      p.setTipo("AVISTA");
+      p.setParcelas(1);
+      p.setStatus("AUTORIZADO");
+      store.insert(p);
+    }
+    Payment negado = new Payment();
+    negado.setExternalId("100023568900224");
+    negado.setStatus("NEGADO");
+    store.insert(negado);
+
+    mockMvc.perform(get("/pagamentos/consulta/{id}", "100023568900223"))
+      .andExpect(jsonPath("$.data[0].descricao.status").value("AUTORIZADO"));
+
+    String lote = "{\"ids\":[\"100023568900222\",\"100023568900223\",\"100023568900222\",\"100023568900224\","
+        + "\"100023568900225\",\" \"]}";
+    mockMvc.perform(patch("/estorno/lote").contentType(MediaType.APPLICATION_JSON).content(lote))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.cancelados").value(2))
+      .andExpect(jsonPath("$.rejeitados").value(4))
+      .andExpect(jsonPath("$.estornos[0].id").value("100023568900222"))
+      .andExpect(jsonPath("$.estornos[0].status").value("CANCELADO"))
+      .andExpect(jsonPath("$.estornos[1].status").value("CANCELADO"))
+      .andExpect(jsonPath("$.estornos[2].mensagem").value("Identificador repetido no lote"))
+      .andExpect(jsonPath("$.estornos[3].mensagem").value("Status atual não permite estorno"))
+      .andExpect(jsonPath("$.estornos[4].mensagem").value("Transação não encontrada"))
+      .andExpect(jsonPath("$.estornos[5].status").value("REJEITADO"))
+      .andExpect(jsonPath("$.estornos[5].mensagem").value("ID inválido"));
+
+    mockMvc.perform(get("/pagamentos/consulta/{id}", "100023568900223"))
+      .andExpect(jsonPath("$.data[0].descricao.status").value("CANCELADO"));
+    mockMvc.perform(patch("/estorno/lote").contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[]}"))
+      .andExpect(status().isBadRequest());
+  }
+}
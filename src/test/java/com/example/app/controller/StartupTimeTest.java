@@ -0,0 +1,169 @@
+package com.example.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Mede, em processos separados, o tempo do `java -jar` até a primeira
+ * autorização bem-sucedida (`POST /pagamentos` respondendo AUTORIZADO) e a
+ * memória residente (RSS) do processo nesse momento, para:
+ *
+ * - `padrao`: o jar sem AOT nem CDS, na configuração padrão;
+ * - `aot`: contexto processado em build (`-Dspring.aot.enabled=true`) no perfil `rapido`;
+ * - `aot-cds`: o mesmo com o arquivo CDS de uma execução de treino, como no Dockerfile.
+ *
+ * Todos rodam o jar extraído (`-Djarmode=tools extract`), como na imagem.
+ * Cada modo sobe `inicio.repeticoes` vezes (padrão 5); são exibidos
+ * mediana, mínimo e máximo. O RSS vem de `/proc` (só Linux).
+ *
+ * Executar após `mvn -Prapido -DskipTests package`:
+ * `mvn test -Dtest=StartupTimeTest -Dinicio.comparativo=true`
+ * (`-Dinicio.modos=padrao,aot-cds` e `-Dinicio.repeticoes=10` ajustam a medição).
+ */
+@EnabledIfSystemProperty(named = "inicio.comparativo", matches = "true")
+class StartupTimeTest {
+  private static final String JAR = "ToolsChallenge-0.0.1-SNAPSHOT.jar";
+  private static final String PAGAMENTO = "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"100023800000001\","
+      + "\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop\"},"
+      + "\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}}";
+  private static final long LIMITE_NANOS = TimeUnit.MINUTES.toNanos(3);
+
+  @TempDir
+  Path diretorio;
+
+  record Inicio(double milissegundos, long rssKb) {}
+
+  @Test
+  void comparaTempoAtePrimeiraAutorizacao() throws Exception {
+    Path jar = Path.of(System.getProperty("inicio.jar", "target/" + JAR));
+    assumeTrue(Files.exists(jar), "gere o jar com mvn -Prapido -DskipTests package");
+    try (JarFile conteudo = new JarFile(jar.toFile())) {
+      assumeTrue(conteudo.getEntry("BOOT-INF/classes/com/example/app/Application__ApplicationContextInitializer.class")
+          != null, "o jar não passou pelo processamento AOT (perfil Maven rapido)");
+    }
+    int repeticoes = Integer.getInteger("inicio.repeticoes", 5);
+    List<String> modos = List.of(System.getProperty("inicio.modos", "padrao,aot,aot-cds").split(","));
+
+    executar(List.of(java(), "-Djarmode=tools", "-jar", jar.toString(), "extract", "--destination",
+        diretorio.resolve("app").toString()), diretorio.resolve("extracao.log"));
+    Path extraido = diretorio.resolve("app").resolve(JAR);
+    Path arquivoCds = diretorio.resolve("app.jsa");
+    if (modos.contains("aot-cds")) {
+      List<String> treino = new ArrayList<>(List.of(java(), "-XX:ArchiveClassesAtExit=" + arquivoCds,
+          "-Dspring.context.exit=onRefresh"));
+      treino.addAll(argumentos("aot", extraido, livre()));
+      executar(treino, diretorio.resolve("treino.log"));
+      assertTrue(Files.exists(arquivoCds), "arquivo CDS não gerado");
+    }
+
+    HttpClient cliente = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(1))
+        .build();
+    System.out.printf("%-10s %12s %12s %12s %10s%n", "modo", "mediana ms", "mínimo ms", "máximo ms", "RSS MB");
+    for (String modo : modos) {
+      List<Inicio> inicios = new ArrayList<>();
+      for (int i = 0; i < repeticoes; i++) {
+        List<String> comando = new ArrayList<>(List.of(java()));
+        if (modo.equals("aot-cds")) {
+          comando.add("-XX:SharedArchiveFile=" + arquivoCds);
+        }
+        int porta = livre();
+        comando.addAll(argumentos(modo, extraido, porta));
+        inicios.add(medir(cliente, comando, porta, diretorio.resolve(modo + "-" + i + ".log")));
+      }
+      double[] tempos = inicios.stream().mapToDouble(Inicio::milissegundos).sorted().toArray();
+      long[] rss = inicios.stream().mapToLong(Inicio::rssKb).sorted().toArray();
+      System.out.printf("%-10s %12.0f %12.0f %12.0f %10s%n", modo, tempos[tempos.length / 2], tempos[0],
+          tempos[tempos.length - 1], rss[rss.length / 2] < 0 ? "n/d" : String.valueOf(rss[rss.length / 2] / 1024));
+    }
+  }
+
+  /** Inicia o processo e envia a autorização até receber AUTORIZADO. */
+  private static Inicio medir(HttpClient cliente, List<String> comando, int porta, Path log) throws Exception {
+    ProcessBuilder construtor = new ProcessBuilder(comando).redirectErrorStream(true).redirectOutput(log.toFile());
+    long inicio = System.nanoTime();
+    Process processo = construtor.start();
+    try {
+      HttpRequest requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/pagamentos"))
+          .header("Content-Type", "application/json")
+          .timeout(Duration.ofSeconds(10))
+          .POST(HttpRequest.BodyPublishers.ofString(PAGAMENTO))
+          .build();
+      while (true) {
+        assertTrue(processo.isAlive(), () -> "processo encerrado antes de responder; ver " + log);
+        assertTrue(System.nanoTime() - inicio < LIMITE_NANOS, () -> "sem resposta em 3 minutos; ver " + log);
+        try {
+          HttpResponse<String> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofString());
+          if (resposta.statusCode() / 100 == 2 && resposta.body().contains("\"AUTORIZADO\"")) {
+            double milissegundos = (System.nanoTime() - inicio) / 1e6;
+            return new Inicio(milissegundos, rssKb(processo.pid()));
+          }
+          fail("resposta inesperada " + resposta.statusCode() + ": " + resposta.body());
+        } catch (IOException conexaoRecusada) {
+          Thread.sleep(10);
+        }
+      }
+    } finally {
+      processo.destroy();
+      if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+        processo.destroyForcibly().waitFor();
+      }
+    }
+  }
+
+  private static List<String> argumentos(String modo, Path jar, int porta) {
+    List<String> argumentos = new ArrayList<>(List.of("-Dserver.port=" + porta, "-Dapp.auditoria.destino=stdout"));
+    if (!modo.equals("padrao")) {
+      argumentos.addAll(List.of("-Dspring.aot.enabled=true", "-Dspring.profiles.active=rapido"));
+    }
+    argumentos.addAll(List.of("-jar", jar.toString()));
+    return argumentos;
+  }
+
+  private static void executar(List<String> comando, Path log) throws Exception {
+    Process processo = new ProcessBuilder(comando).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    assertTrue(processo.waitFor(5, TimeUnit.MINUTES), () -> "tempo esgotado: " + comando);
+    assertEquals(0, processo.exitValue(), () -> String.join(" ", comando) + "; ver " + log);
+  }
+
+  /** VmRSS do processo em KB, ou -1 fora do Linux. */
+  private static long rssKb(long pid) throws IOException {
+    Path status = Path.of("/proc", String.valueOf(pid), "status");
+    if (!Files.exists(status)) {
+      return -1;
+    }
+    return Files.readAllLines(status).stream()
+        .filter(linha -> linha.startsWith("VmRSS:"))
+        .mapToLong(linha -> Long.parseLong(Arrays.stream(linha.split("\\s+")).skip(1).findFirst().orElseThrow()))
+        .findFirst()
+        .orElse(-1);
+  }
+
+  private static int livre() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static String java() {
+    return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+  }
+}
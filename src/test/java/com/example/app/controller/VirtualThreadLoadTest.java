@@ -0,0 +1,196 @@
+package com.example.app.controller;
+
+import com.example.app.Application;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara vazão e p99 de `POST /pagamentos` com threads de plataforma e no
+ * perfil `virtual`, de 1.000 a 9.000 clientes simultâneos (laço fechado:
+ * cada cliente envia a próxima requisição ao receber a resposta).
+ *
+ * O H2 em memória responde em microssegundos; para representar um banco
+ * remoto, cada comando JDBC espera `carga.latencia-banco` ms (padrão 5)
+ * antes de executar. São medidos três modos: plataforma com a configuração
+ * padrão, plataforma com o mesmo pool e limites do perfil `virtual` (isola o
+ * efeito das threads) e o perfil `virtual`. Os modos `plataforma-grupo` e
+ * `virtual-grupo` repetem os dois extremos com `app.gravacao.modo=grupo`.
+ *
+ * Executar com JDK 21:
+ * `JAVA_HOME=<jdk21> mvn test -Dtest=VirtualThreadLoadTest -Dcarga.virtual=true`
+ * (`-Dcarga.clientes=1000,5000`, `-Dcarga.duracao=5` e `-Dcarga.modos=virtual`
+ * ajustam a carga).
+ */
+@EnabledIfSystemProperty(named = "carga.virtual", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadTest {
+  private static final AtomicLong IDS = new AtomicLong(300_000_000_000_000L);
+  private static final int MAXIMO_AMOSTRAS = 4_000_000;
+
+  @Test
+  void comparaPlataformaEVirtual() throws Exception {
+    int[] clientes = Arrays.stream(System.getProperty("carga.clientes", "1000,2500,5000,9000").split(","))
+        .mapToInt(Integer::parseInt).toArray();
+    int duracao = Integer.getInteger("carga.duracao", 5);
+    long latenciaBanco = Long.getLong("carga.latencia-banco", 5);
+
+    List<String> modos = List.of(System.getProperty("carga.modos", "plataforma,plataforma-pool50,virtual").split(","));
+    System.out.printf("latência simulada do banco: %d ms; %d s por nível%n", latenciaBanco, duracao);
+    System.out.printf("%-18s %8s %10s %10s %10s %8s%n", "modo", "clientes", "req/s", "p50 ms", "p99 ms", "erros");
+    for (String modo : modos) {
+      try (ConfigurableApplicationContext contexto = iniciar(modo, latenciaBanco)) {
+        int porta = Integer.parseInt(contexto.getEnvironment().getProperty("local.server.port"));
+        HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        medir(cliente, porta, 200, 3);
+        for (int quantidade : clientes) {
+          Resultado resultado = medir(cliente, porta, quantidade, duracao);
+          System.out.printf("%-18s %8d %10.0f %10.1f %10.1f %8d%n", modo, quantidade,
+              resultado.vazao, resultado.p50, resultado.p99, resultado.erros);
+          assertTrue(resultado.vazao > 0, modo);
+        }
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext iniciar(String modo, long latenciaBanco) {
+    List<String> argumentos = new ArrayList<>(List.of("--server.port=0", "--spring.jpa.show-sql=false",
+        "--logging.level.root=WARN", "--logging.level.com.example.app=WARN"));
+    SpringApplicationBuilder builder = new SpringApplicationBuilder(Application.class)
+        .initializers(contexto -> contexto.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+          @Override
+          public Object postProcessAfterInitialization(Object bean, String nome) {
+            return bean instanceof DataSource dataSource ? comLatencia(dataSource, latenciaBanco) : bean;
+          }
+        }));
+    if (modo.endsWith("-grupo")) {
+      argumentos.add("--app.gravacao.modo=grupo");
+      modo = modo.substring(0, modo.length() - "-grupo".length());
+    }
+    if (modo.equals("virtual")) {
+      builder.profiles("virtual");
+    } else if (modo.equals("plataforma-pool50")) {
+      argumentos.addAll(List.of("--spring.datasource.hikari.maximum-pool-size=50", "--spring.jpa.open-in-view=false",
+          "--server.tomcat.max-connections=20000", "--server.tomcat.accept-count=1000"));
+    }
+    return builder.run(argumentos.toArray(String[]::new));
+  }
+
+  /**
+   * `quantidade` clientes em laço fechado por `segundos`; retorna vazão,
+   * p50/p99 das respostas 201 e número de falhas.
+   */
+  static Resultado medir(HttpClient cliente, int porta, int quantidade, int segundos)
+      throws InterruptedException {
+    URI uri = URI.create("http://localhost:" + porta + "/pagamentos");
+    long[] latencias = new long[MAXIMO_AMOSTRAS];
+    AtomicInteger amostras = new AtomicInteger();
+    AtomicInteger erros = new AtomicInteger();
+    CountDownLatch fim = new CountDownLatch(quantidade);
+    long inicio = System.nanoTime();
+    long prazo = inicio + TimeUnit.SECONDS.toNanos(segundos);
+    for (int i = 0; i < quantidade; i++) {
+      enviar(cliente, uri, prazo, latencias, amostras, erros, fim);
+    }
+    assertTrue(fim.await(segundos + 120L, TimeUnit.SECONDS), "clientes não terminaram");
+    double decorrido = (System.nanoTime() - inicio) / 1e9;
+    int n = Math.min(amostras.get(), MAXIMO_AMOSTRAS);
+    Arrays.sort(latencias, 0, n);
+    return new Resultado(n / decorrido, percentil(latencias, n, 0.50), percentil(latencias, n, 0.99), erros.get());
+  }
+
+  private static void enviar(HttpClient cliente, URI uri, long prazo, long[] latencias, AtomicInteger amostras,
+      AtomicInteger erros, CountDownLatch fim) {
+    if (System.nanoTime() >= prazo) {
+      fim.countDown();
+      return;
+    }
+    HttpRequest requisicao = HttpRequest.newBuilder(uri)
+        .timeout(Duration.ofSeconds(60))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(transacao(IDS.incrementAndGet())))
+        .build();
+    long inicio = System.nanoTime();
+    cliente.sendAsync(requisicao, HttpResponse.BodyHandlers.discarding()).whenComplete((resposta, falha) -> {
+      if (falha == null && resposta.statusCode() == 201) {
+        int posicao = amostras.getAndIncrement();
+        if (posicao < MAXIMO_AMOSTRAS) {
+          latencias[posicao] = System.nanoTime() - inicio;
+        }
+      } else {
+        erros.incrementAndGet();
+      }
+      enviar(cliente, uri, prazo, latencias, amostras, erros, fim);
+    });
+  }
+
+  private static double percentil(long[] ordenadas, int n, double p) {
+    if (n == 0) {
+      return Double.NaN;
+    }
+    return ordenadas[Math.min(n - 1, (int) Math.ceil(p * n) - 1)] / 1e6;
+  }
+
+  private static String transacao(long id) {
+    return "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}}";
+  }
+
+  /**
+   * Envolve o pool para que cada comando JDBC espere `latencia` ms, como a
+   * ida e volta a um banco remoto.
+   */
+  private static DataSource comLatencia(DataSource alvo, long latencia) {
+    return proxy(DataSource.class, alvo, latencia);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> tipo, T alvo, long latencia) {
+    InvocationHandler handler = (instancia, metodo, argumentos) -> {
+      if (alvo instanceof Statement && metodo.getName().startsWith("execute")) {
+        Thread.sleep(latencia);
+      }
+      Object retorno;
+      try {
+        retorno = metodo.invoke(alvo, argumentos);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+      if (retorno instanceof Connection conexao && metodo.getReturnType() == Connection.class) {
+        return proxy(Connection.class, conexao, latencia);
+      }
+      if (retorno instanceof Statement comando && Statement.class.isAssignableFrom(metodo.getReturnType())) {
+        return proxy((Class<Statement>) metodo.getReturnType(), comando, latencia);
+      }
+      return retorno;
+    };
+    return (T) Proxy.newProxyInstance(VirtualThreadLoadTest.class.getClassLoader(), new Class<?>[] {tipo}, handler);
+  }
+
+  record Resultado(double vazao, double p50, double p99, int erros) {}
+}
@@ -0,0 +1,125 @@
+package com.example.app.repository;
+
+import com.example.app.dto.payment.PaymentFilter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere, com `EXPLAIN` do H2, que o SQL de
+ * {@link PaymentSearchRepositoryImpl} usa os índices de
+ * `V2__indices_consulta.sql` nas combinações usuais de filtros, em vez de
+ * percorrer a tabela ou a chave primária em ordem decrescente. A busca das
+ * linhas pelos ids escolhidos (`ID IN(...)`) usa a chave primária.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaymentSearchQueryPlanTest {
+  private static final LocalDateTime INICIO = LocalDateTime.of(2021, 5, 1, 0, 0);
+  private static final LocalDateTime FIM = LocalDateTime.of(2021, 5, 7, 23, 59, 59);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private PaymentRepository repository;
+
+  /**
+   * Volume e distribuição de valores suficientes para o otimizador do H2
+   * ter seletividade nas colunas filtradas.
+   */
+  @BeforeAll
+  void popular() {
+    String[] status = {"AUTORIZADO", "NEGADO", "CANCELADO"};
+    String[] tipos = {"AVISTA", "PARCELADO LOJA", "PARCELADO EMISSOR"};
+    List<Object[]> linhas = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      linhas.add(new Object[] {5_000_000_000L + i, String.valueOf(100023569800000L + i), "4444123412341234",
+          tipos[i % 3], 1, BigDecimal.valueOf(i, 1), Timestamp.valueOf(INICIO.minusDays(60).plusHours(i)),
+          "Loja plano " + (i % 200), String.format("P19%07d", i), "000000001", status[i % 3]});
+    }
+    jdbcTemplate.batchUpdate("insert into payment (id, external_id, cartao, tipo, parcelas, valor, data_hora,"
+        + " estabelecimento, nsu, codigo_autorizacao, status, versao) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", linhas);
+    jdbcTemplate.execute("analyze");
+  }
+
+  /** O H2 em memória é compartilhado pelos contextos de teste da mesma JVM. */
+  @AfterAll
+  void limpar() {
+    jdbcTemplate.update("delete from payment where id >= 5000000000");
+  }
+
+  private String plano(PaymentFilter filtro) {
+    PaymentSearchRepositoryImpl.Consulta consulta = PaymentSearchRepositoryImpl.consulta(filtro, Long.MAX_VALUE, 21);
+    String plano = jdbcTemplate.queryForObject("explain " + consulta.sql(), String.class,
+        consulta.parametros().toArray());
+    assertNotNull(plano);
+    assertFalse(plano.contains("tableScan"), plano);
+    assertFalse(plano.contains("ID < ?1 */"), plano);
+    assertTrue(plano.contains("PRIMARY_KEY_F: ID IN("), plano);
+    return plano;
+  }
+
+  private static PaymentFilter filtro(String status, LocalDateTime inicio, LocalDateTime fim, String estabelecimento,
+      String tipo, String minimo, String maximo) {
+    return new PaymentFilter(status, inicio, fim, estabelecimento, tipo,
+        minimo != null ? new BigDecimal(minimo) : null, maximo != null ? new BigDecimal(maximo) : null);
+  }
+
+  @Test
+  void filtrosIsoladosUsamOIndiceDaColuna() {
+    assertTrue(plano(filtro("NEGADO", null, null, null, null, null, null)).contains("IDX_PAYMENT_STATUS"));
+    assertTrue(plano(filtro(null, null, null, "Loja plano 7", null, null, null)).contains("IDX_PAYMENT_ESTABELECIMENTO"));
+    assertTrue(plano(filtro(null, INICIO, FIM, null, null, null, null)).contains("IDX_PAYMENT_DATA_HORA"));
+    assertTrue(plano(filtro(null, INICIO, null, null, null, null, null)).contains("IDX_PAYMENT_DATA_HORA"));
+    assertTrue(plano(filtro(null, null, null, null, null, "100.00", "110.00")).contains("IDX_PAYMENT_VALOR"));
+  }
+
+  @Test
+  void combinacoesUsuaisUsamIndice() {
+    // Conciliação: status em um período.
+    assertTrue(plano(filtro("AUTORIZADO", INICIO, FIM, null, null, null, null)).contains("IDX_PAYMENT_"));
+    // Extrato do estabelecimento em um período.
+    assertTrue(plano(filtro(null, INICIO, FIM, "Loja plano 7", null, null, null)).contains("IDX_PAYMENT_"));
+    // Estabelecimento e status.
+    assertTrue(plano(filtro("CANCELADO", null, null, "Loja plano 7", null, null, null)).contains("IDX_PAYMENT_"));
+    // Tipo e faixa de valor.
+    assertTrue(plano(filtro(null, null, null, null, "AVISTA", "10.00", "20.00")).contains("IDX_PAYMENT_"));
+    // Todos os filtros.
+    assertTrue(plano(filtro("AUTORIZADO", INICIO, FIM, "Loja plano 7", "AVISTA", "0.00", "500.00"))
+        .contains("IDX_PAYMENT_"));
+  }
+
+  /** O tipo sozinho tem só três valores; ainda assim não vira varredura da tabela. */
+  @Test
+  void tipoIsoladoUsaIndice() {
+    assertTrue(plano(filtro(null, null, null, null, "PARCELADO LOJA", null, null)).contains("IDX_PAYMENT_TIPO"));
+  }
+
+  @Test
+  void buscaDevolveAsLinhasDoFiltroEmOrdemDecrescente() {
+    PaymentFilter filtro = filtro("NEGADO", null, null, "Loja plano 7", null, null, null);
+    var pagina = repository.search(filtro, Long.MAX_VALUE, 3);
+    assertEquals(3, pagina.size());
+    for (int i = 0; i < pagina.size(); i++) {
+      assertEquals("NEGADO", pagina.get(i).getStatus());
+      assertEquals("Loja plano 7", pagina.get(i).getEstabelecimento());
+      if (i > 0) {
+        assertTrue(pagina.get(i).getId() < pagina.get(i - 1).getId());
+      }
+    }
+    // i = 7, 607, 1207, 1807 e 2407: restam duas na página seguinte.
+    var seguinte = repository.search(filtro, pagina.get(2).getId(), 3);
+    assertEquals(2, seguinte.size());
+    assertTrue(seguinte.get(0).getId() < pagina.get(2).getId());
+  }
+}
@@ -0,0 +1,339 @@
+package com.example.app.repository.journal;
+
+import com.example.app.dto.payment.PaymentFilter;
+import com.example.app.dto.payment.PaymentView;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentJournalTest {
+  @TempDir
+  Path diretorio;
+
+  private static Payment pagamento(long externalId) {
+    Payment pagamento = new Payment();
+    pagamento.setExternalId(String.valueOf(externalId));
+    pagamento.setCartao("4444123412341234");
+    pagamento.setTipo("AVISTA");
+    pagamento.setParcelas(1);
+    pagamento.setValor(new BigDecimal("50.00"));
+    pagamento.setDataHora(LocalDateTime.of(2021, 5, 1, 18, 30));
+    pagamento.setEstabelecimento("PetShop Mundo cão");
+    pagamento.setNsu(String.format("%010d", externalId % 10_000_000_000L));
+    pagamento.setCodigoAutorizacao("000000001");
+    pagamento.setStatus("AUTORIZADO");
+    return pagamento;
+  }
+
+  private static void cancelar(PaymentJournal journal, long externalId) {
+    Payment pagamento = journal.findByExternalId(String.valueOf(externalId)).orElseThrow();
+    pagamento.setStatus("CANCELADO");
+    pagamento.setCanceladoEm(LocalDateTime.of(2021, 5, 2, 10, 0, 0, 123_000_000));
+    journal.update(pagamento);
+  }
+
+  @Test
+  void gravaConsultaERejeitaDuplicado() {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 100, true, 0)) {
+      Payment pagamento = pagamento(100023568900001L);
+      assertTrue(journal.insert(pagamento));
+      assertEquals(1L, pagamento.getId());
+      assertFalse(journal.insert(pagamento(100023568900001L)));
+
+      boolean[] gravados = journal.insertAll(List.of(pagamento(100023568900002L), pagamento(100023568900001L),
+          pagamento(100023568900002L), pagamento(100023568900003L)));
+      assertArrayEquals(new boolean[] {true, false, false, true}, gravados);
+
+      Payment lido = journal.findByExternalId("100023568900001").orElseThrow();
+      assertEquals(new BigDecimal("50.00"), lido.getValor());
+      assertEquals("PetShop Mundo cão", lido.getEstabelecimento());
+      assertEquals(LocalDateTime.of(2021, 5, 1, 18, 30), lido.getDataHora());
+      assertNull(lido.getCanceladoEm());
+      assertEquals(List.of("100023568900003"),
+          journal.findExistingExternalIds(List.of("100023568900003", "100023568900009")));
+      assertTrue(journal.findByExternalId("100023568900009").isEmpty());
+    }
+  }
+
+  @Test
+  void campoForaDoLayoutNaoGravaNada() {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 100, true, 0)) {
+      Payment longo = pagamento(100023568900011L);
+      longo.setEstabelecimento("x".repeat(300));
+      List<Payment> lote = List.of(pagamento(100023568900010L), longo);
+      assertThrows(IllegalArgumentException.class, () -> journal.insertAll(lote));
+      assertTrue(journal.findByExternalId("100023568900010").isEmpty());
+
+      RuntimeException[] falhas = new RuntimeException[2];
+      assertArrayEquals(new boolean[] {true, false}, journal.insertAll(lote, falhas));
+      assertNull(falhas[0]);
+      assertInstanceOf(IllegalArgumentException.class, falhas[1]);
+    }
+  }
+
+  @Test
+  void recuperaEstadoAoReabrir() {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      for (long i = 0; i < 10; i++) {
+        assertTrue(journal.insert(pagamento(100023568900100L + i)));
+      }
+      cancelar(journal, 100023568900103L);
+      assertEquals(3, journal.quantidadeSegmentos());
+    }
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      Payment cancelado = journal.findByExternalId("100023568900103").orElseThrow();
+      assertEquals("CANCELADO", cancelado.getStatus());
+      assertEquals(LocalDateTime.of(2021, 5, 2, 10, 0, 0, 123_000_000), cancelado.getCanceladoEm());
+      assertFalse(journal.insert(pagamento(100023568900109L)));
+      Payment novo = pagamento(100023568900110L);
+      assertTrue(journal.insert(novo));
+      assertEquals(11L, novo.getId());
+    }
+  }
+
+  /** Faixas de NSU persistidas no diretório: após reinício, só NSUs maiores que os já gravados. */
+  @Test
+  void faixasDeNsuNaoSeRepetemAposReinicio() throws IOException {
+    long maiorGravado = 0;
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      for (int faixa = 0; faixa < 2; faixa++) {
+        long inicio = journal.reservarFaixaNsu(3);
+        for (long nsu = inicio; nsu < inicio + 3; nsu++) {
+          Payment pagamento = pagamento(100023568900700L + nsu);
+          pagamento.setNsu(String.format("%010d", nsu));
+          assertTrue(journal.insert(pagamento));
+          maiorGravado = Math.max(maiorGravado, nsu);
+        }
+      }
+      // Reservada e não usada: também não volta.
+      maiorGravado = Math.max(maiorGravado, journal.reservarFaixaNsu(3) + 2);
+    }
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      assertTrue(journal.reservarFaixaNsu(3) > maiorGravado);
+    }
+
+    // Sem o arquivo do contador, o piso é o maior NSU encontrado nos segmentos.
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      Payment alto = pagamento(100023568900799L);
+      alto.setNsu("0000500000");
+      assertTrue(journal.insert(alto));
+    }
+    Files.delete(diretorio.resolve("nsu-faixa"));
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      assertEquals(500_001, journal.reservarFaixaNsu(3));
+    }
+  }
+
+  @Test
+  void descartaEscritaIncompletaNoFim() throws IOException {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 100, true, 0)) {
+      journal.insert(pagamento(100023568900200L));
+      journal.insert(pagamento(100023568900201L));
+    }
+    Path segmento = diretorio.resolve("pagamentos-000001.journal");
+    try (RandomAccessFile arquivo = new RandomAccessFile(segmento.toFile(), "rw")) {
+      // Corrompe o meio do segundo registro, como uma escrita interrompida.
+      arquivo.seek(PaymentJournal.CABECALHO + JournalRecord.TAMANHO + 300);
+      arquivo.write(new byte[] {1, 2, 3});
+    }
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 100, true, 0)) {
+      assertTrue(journal.findByExternalId("100023568900200").isPresent());
+      assertTrue(journal.findByExternalId("100023568900201").isEmpty());
+      assertTrue(journal.insert(pagamento(100023568900201L)));
+    }
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 100, true, 0)) {
+      assertEquals(2L, journal.findByExternalId("100023568900201").orElseThrow().getId());
+    }
+  }
+
+  @Test
+  void corrupcaoEmSegmentoSeladoFalhaAoAbrir() throws IOException {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 2, true, 0)) {
+      for (long i = 0; i < 3; i++) {
+        journal.insert(pagamento(100023568900300L + i));
+      }
+    }
+    try (RandomAccessFile arquivo = new RandomAccessFile(diretorio.resolve("pagamentos-000001.journal").toFile(), "rw")) {
+      arquivo.seek(PaymentJournal.CABECALHO + 100);
+      arquivo.write(new byte[] {9, 9, 9});
+    }
+    assertThrows(IllegalStateException.class, () -> new PaymentJournal(diretorio, 2, true, 0));
+  }
+
+  @Test
+  void listaEmOrdemDecrescenteDeId() {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 3, true, 0)) {
+      for (long i = 0; i < 7; i++) {
+        journal.insert(pagamento(100023568900400L + i));
+      }
+      assertEquals(List.of(7L, 6L, 5L), ids(journal.findViews(3)));
+      assertEquals(List.of(4L, 3L, 2L), ids(journal.findViewsBefore(5, 3)));
+      assertEquals(List.of(1L), ids(journal.findViewsBefore(2, 3)));
+      Slice<PaymentView> pagina = journal.findViews(PageRequest.of(1, 3));
+      assertEquals(List.of(4L, 3L, 2L), ids(pagina.getContent()));
+      assertTrue(pagina.hasNext());
+      assertFalse(journal.findViews(PageRequest.of(2, 3)).hasNext());
+    }
+  }
+
+  @Test
+  void listaComFiltroPercorrendoSegmentos() {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 3, true, 0)) {
+      for (long i = 0; i < 8; i++) {
+        Payment pagamento = pagamento(100023568900450L + i);
+        pagamento.setValor(BigDecimal.valueOf(10 * (i + 1)));
+        journal.insert(pagamento);
+      }
+      cancelar(journal, 100023568900452L);
+      cancelar(journal, 100023568900455L);
+      PaymentFilter cancelados = new PaymentFilter("CANCELADO", null, null, null, null, null, null);
+      assertEquals(List.of(6L, 3L), ids(journal.findViews(cancelados, Long.MAX_VALUE, 5)));
+      assertEquals(List.of(3L), ids(journal.findViews(cancelados, 6, 5)));
+
+      PaymentFilter faixa = new PaymentFilter("AUTORIZADO", null, null, "PetShop Mundo cão", null,
+          new BigDecimal("20.00"), new BigDecimal("70.00"));
+      assertEquals(List.of(7L, 5L), ids(journal.findViews(faixa, Long.MAX_VALUE, 2)));
+      assertEquals(List.of(4L, 2L), ids(journal.findViews(faixa, 5, 2)));
+      assertTrue(journal.findViews(new PaymentFilter(null, null, null, "Outra loja", null, null, null),
+          Long.MAX_VALUE, 5).isEmpty());
+    }
+  }
+
+  @Test
+  void exportaEmOrdemCrescenteEmBlocos() {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 3, true, 0)) {
+      for (long i = 0; i < 8; i++) {
+        journal.insert(pagamento(100023568900480L + i));
+      }
+      cancelar(journal, 100023568900483L);
+      List<PaymentView> todos = new ArrayList<>();
+      journal.forEachView(PaymentFilter.NENHUM, 3, todos::add);
+      assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L), ids(todos));
+
+      // O destino roda fora do lock: gravar durante a exportação não trava.
+      List<PaymentView> autorizados = new ArrayList<>();
+      journal.forEachView(new PaymentFilter("AUTORIZADO", null, null, null, null, null, null), 2, pagamento -> {
+        autorizados.add(pagamento);
+        if (pagamento.getId() == 1L) {
+          journal.insert(pagamento(100023568900490L));
+        }
+      });
+      assertEquals(List.of(1L, 2L, 3L, 5L, 6L, 7L, 8L, 9L), ids(autorizados));
+    }
+  }
+
+  @Test
+  void compactacaoMesclaEstadosEPreservaOConteudo() throws IOException {
+    List<String> cancelados = new ArrayList<>();
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      for (long i = 0; i < 8; i++) {
+        journal.insert(pagamento(100023568900500L + i));
+      }
+      // Estornos gravados em segmento posterior ao das autorizações.
+      cancelar(journal, 100023568900500L);
+      cancelar(journal, 100023568900506L);
+      cancelados.add("100023568900500");
+      cancelados.add("100023568900506");
+      journal.insert(pagamento(100023568900508L));
+      journal.insert(pagamento(100023568900509L));
+      journal.insert(pagamento(100023568900510L));
+      assertEquals(4, journal.quantidadeSegmentos());
+      long antes = tamanhoSelados();
+
+      journal.compactar();
+
+      assertEquals(0, journal.registrosEstado());
+      assertTrue(tamanhoSelados() < antes);
+      for (String id : cancelados) {
+        assertEquals("CANCELADO", journal.findByExternalId(id).orElseThrow().getStatus());
+      }
+      assertEquals("AUTORIZADO", journal.findByExternalId("100023568900501").orElseThrow().getStatus());
+      assertEquals(11, journal.findViews(20).size());
+
+      cancelar(journal, 100023568900501L);
+    }
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 4, true, 0)) {
+      assertEquals(11, journal.findViews(20).size());
+      assertEquals("CANCELADO", journal.findByExternalId("100023568900501").orElseThrow().getStatus());
+      for (String id : cancelados) {
+        Payment pagamento = journal.findByExternalId(id).orElseThrow();
+        assertEquals("CANCELADO", pagamento.getStatus());
+        assertEquals(LocalDateTime.of(2021, 5, 2, 10, 0, 0, 123_000_000), pagamento.getCanceladoEm());
+      }
+      assertTrue(journal.insert(pagamento(100023568900511L)));
+    }
+  }
+
+  @Test
+  void compactacaoInterrompidaMantemOriginal() throws IOException {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 2, true, 0)) {
+      journal.insert(pagamento(100023568900600L));
+      cancelar(journal, 100023568900600L);
+      journal.insert(pagamento(100023568900601L));
+    }
+    Files.write(diretorio.resolve("pagamentos-000001.journal.compactando"), new byte[] {1, 2, 3});
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 2, true, 0)) {
+      assertEquals("CANCELADO", journal.findByExternalId("100023568900600").orElseThrow().getStatus());
+      assertFalse(Files.exists(diretorio.resolve("pagamentos-000001.journal.compactando")));
+    }
+  }
+
+  @Test
+  void estornoConcorrenteApenasUmVence() throws Exception {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 100, false, 0)) {
+      journal.insert(pagamento(100023568900700L));
+      ExecutorService executor = Executors.newFixedThreadPool(16);
+      try {
+        List<Future<PaymentStore.ResultadoEstorno>> resultados = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+          resultados.add(executor.submit(() -> journal.cancel("100023568900700", LocalDateTime.of(2021, 5, 2, 10, 0))));
+        }
+        int estornados = 0;
+        for (Future<PaymentStore.ResultadoEstorno> resultado : resultados) {
+          if (resultado.get() == PaymentStore.ResultadoEstorno.ESTORNADO) {
+            estornados++;
+          } else {
+            assertEquals(PaymentStore.ResultadoEstorno.STATUS_INVALIDO, resultado.get());
+          }
+        }
+        assertEquals(1, estornados);
+      } finally {
+        executor.shutdownNow();
+      }
+      assertEquals(1, journal.registrosEstado());
+      assertEquals(PaymentStore.ResultadoEstorno.NAO_ENCONTRADO,
+          journal.cancel("100023568900799", LocalDateTime.of(2021, 5, 2, 10, 0)));
+    }
+  }
+
+  private long tamanhoSelados() throws IOException {
+    try (Stream<Path> arquivos = Files.list(diretorio)) {
+      List<Path> segmentos = arquivos.sorted().toList();
+      long total = 0;
+      for (Path segmento : segmentos.subList(0, segmentos.size() - 1)) {
+        total += Files.size(segmento);
+      }
+      return total;
+    }
+  }
+
+  private static List<Long> ids(List<PaymentView> linhas) {
+    return linhas.stream().map(PaymentView::getId).toList();
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.*;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentRepository;
+import com.example.app.repository.PaymentStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ExternalIdIndexTest {
+  @Autowired
+  private ExternalIdIndex indice;
+  @Autowired
+  private PaymentStore store;
+  @Autowired
+  private PaymentRepository repository;
+  @Autowired
+  private PaymentService service;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private static PaymentRequest requisicao(String id) {
+    PaymentRequest requisicao = new PaymentRequest();
+    requisicao.setCartao("4444123412341234");
+    requisicao.setId(id);
+    PaymentDescricao descricao = new PaymentDescricao();
+    descricao.setValor("50.00");
+    descricao.setDataHora("01/05/2021 18:30:00");
+    descricao.setEstabelecimento("PetShop Mundo cão");
+    requisicao.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo("AVISTA");
+    formaPagamento.setParcelas("1");
+    requisicao.setFormaPagamento(formaPagamento);
+    return requisicao;
+  }
+
+  private static Payment pagamento(String externalId, String status) {
+    Payment pagamento = new Payment();
+    pagamento.setExternalId(externalId);
+    pagamento.setCartao("4444123412341234");
+    pagamento.setTipo("AVISTA");
+    pagamento.setParcelas(1);
+    pagamento.setStatus(status);
+    return pagamento;
+  }
+
+  @Test
+  void acompanhaAutorizacaoEEstorno() {
+    String id = "100023569500001";
+    assertEquals(ExternalIdIndex.Situacao.AUSENTE, indice.situacao(id));
+    service.process(requisicao(id));
+    assertEquals(ExternalIdIndex.Situacao.AUTORIZADO, indice.situacao(id));
+    PaymentRequest outroValor = requisicao(id);
+    outroValor.getDescricao().setValor("60.00");
+    assertEquals("NEGADO", service.process(outroValor).getDescricao().getStatus());
+    service.cancel(id);
+    assertEquals(ExternalIdIndex.Situacao.CANCELADO, indice.situacao(id));
+    assertEquals("CANCELADO", store.findByExternalId(id).orElseThrow().getStatus());
+  }
+
+  @Test
+  void cargaInicialLeATabela() {
+    String id = "100023569500002";
+    // Gravada fora do armazenamento, como por outra instância antes da inicialização.
+    repository.saveAndFlush(pagamento(id, "NEGADO"));
+    assertEquals(ExternalIdIndex.Situacao.AUSENTE, indice.situacao(id));
+
+    indice.carregar();
+
+    assertEquals(ExternalIdIndex.Situacao.OUTRO, indice.situacao(id));
+    assertFalse(store.insert(pagamento(id, "AUTORIZADO")));
+  }
+
+  @Test
+  void rollbackDesfazRegistro() {
+    String id = "100023569500003";
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      assertTrue(store.insert(pagamento(id, "AUTORIZADO")));
+      assertEquals(ExternalIdIndex.Situacao.AUTORIZADO, indice.situacao(id));
+      status.setRollbackOnly();
+    });
+    assertEquals(ExternalIdIndex.Situacao.AUSENTE, indice.situacao(id));
+    assertTrue(repository.findByExternalId(id).isEmpty());
+    assertTrue(store.insert(pagamento(id, "AUTORIZADO")));
+  }
+
+  @Test
+  void loteSeparaConhecidosDosDesconhecidos() {
+    String id = "100023569500004";
+    String foraDoPadrao = "ABC-100023569500005";
+    assertEquals(ExternalIdIndex.Situacao.DESCONHECIDO, indice.situacao(foraDoPadrao));
+    assertTrue(store.insert(pagamento(id, "AUTORIZADO")));
+    assertTrue(store.insert(pagamento(foraDoPadrao, "AUTORIZADO")));
+
+    boolean[] gravados = store.insertAll(List.of(pagamento(id, "AUTORIZADO"), pagamento("100023569500006", "AUTORIZADO"),
+        pagamento(foraDoPadrao, "AUTORIZADO")));
+    assertArrayEquals(new boolean[] {false, true, false}, gravados);
+    assertEquals(List.of(id, "100023569500006", foraDoPadrao),
+        store.findExistingExternalIds(List.of(id, "100023569500006", "100023569500007", foraDoPadrao)));
+    assertTrue(store.findViewByExternalId("100023569500007").isEmpty());
+    assertTrue(store.findViewByExternalId(foraDoPadrao).isPresent());
+  }
+}
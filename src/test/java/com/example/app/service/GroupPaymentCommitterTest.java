@@ -0,0 +1,130 @@
+package com.example.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentRepository;
+import com.example.app.repository.PaymentStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/** Sem a repetição idempotente, as duplicadas chegam ao grupo e são negadas pelo insert. */
+@SpringBootTest(properties = {"app.gravacao.modo=grupo", "app.gravacao.grupo.espera-maxima=20ms",
+    "app.idempotencia.ativa=false"})
+@AutoConfigureMockMvc
+class GroupPaymentCommitterTest {
+  @Autowired
+  private MockMvc mockMvc;
+  @Autowired
+  private PaymentRepository repository;
+  @Autowired
+  private PaymentCommitter committer;
+  @Autowired
+  private MeterRegistry registry;
+
+  private static String transacao(String id) {
+    return "{\"transacao\":{\"cartao\":\"4444123412341234\",\"id\":\"" + id + "\",\"descricao\":{\"valor\":\"50.00\",\"dataHora\":\"01/05/2021 18:30:00\",\"estabelecimento\":\"PetShop Mundo cão\"},\"formaPagamento\":{\"tipo\":\"AVISTA\",\"parcelas\":\"1\"}}}";
+  }
+
+  @Test
+  void agrupaAutorizacoesConcorrentesEIsolaDuplicadas() throws Exception {
+    assertInstanceOf(GroupPaymentCommitter.class, committer);
+    int distintos = 20;
+    int requisicoes = distintos * 2;
+    ExecutorService executor = Executors.newFixedThreadPool(requisicoes);
+    CountDownLatch largada = new CountDownLatch(1);
+    List<Future<Integer>> resultados = new ArrayList<>();
+    try {
+      for (int i = 0; i < requisicoes; i++) {
+        String id = String.valueOf(100023570100000L + i % distintos);
+        resultados.add(executor.submit(() -> {
+          largada.await();
+          return mockMvc.perform(post("/pagamentos").contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+              .content(transacao(id))).andReturn().getResponse().getStatus();
+        }));
+      }
+      largada.countDown();
+      int criados = 0;
+      int negados = 0;
+      for (Future<Integer> resultado : resultados) {
+        int status = resultado.get();
+        if (status == 201) {
+          criados++;
+        } else if (status == 402) {
+          negados++;
+        }
+      }
+      assertEquals(distintos, criados);
+      assertEquals(distintos, negados);
+    } finally {
+      executor.shutdownNow();
+    }
+    for (int i = 0; i < distintos; i++) {
+      assertTrue(repository.findByExternalId(String.valueOf(100023570100000L + i)).isPresent());
+    }
+
+    DistributionSummary grupos = registry.get("pagamentos.grupo.tamanho").summary();
+    assertEquals(requisicoes, (long) grupos.totalAmount());
+    assertTrue(grupos.count() < requisicoes, "nenhuma autorização foi agrupada");
+    assertTrue(grupos.max() > 1);
+  }
+
+  /**
+   * Com a gravação presa no banco: quem espera desiste no tempo limite e o
+   * encerramento falha o que ficou na fila, sem deixar chamadores presos.
+   */
+  @Test
+  void tempoLimiteEEncerramentoNaoDeixamChamadoresPresos() throws Exception {
+    CountDownLatch gravando = new CountDownLatch(1);
+    CountDownLatch liberar = new CountDownLatch(1);
+    PaymentStore preso = (PaymentStore) Proxy.newProxyInstance(PaymentStore.class.getClassLoader(),
+        new Class<?>[] {PaymentStore.class}, (proxy, metodo, argumentos) -> {
+          if (!metodo.getName().equals("insertAll")) {
+            throw new UnsupportedOperationException(metodo.getName());
+          }
+          gravando.countDown();
+          liberar.await();
+          return new boolean[((List<?>) argumentos[0]).size()];
+        });
+    SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+    GroupPaymentCommitter grupo = new GroupPaymentCommitter(preso, metricas, 1, Duration.ZERO,
+        Duration.ofMillis(500));
+    grupo.iniciar();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Boolean> emGravacao = executor.submit(() -> grupo.insert(new Payment()));
+      assertTrue(gravando.await(5, TimeUnit.SECONDS));
+      Future<Boolean> naFila = executor.submit(() -> grupo.insert(new Payment()));
+      Thread.sleep(100);
+
+      grupo.encerrar();
+      for (Future<Boolean> chamador : List.of(emGravacao, naFila)) {
+        ExecutionException falha = assertThrows(ExecutionException.class, () -> chamador.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, falha.getCause());
+      }
+      assertEquals(0, metricas.get("pagamentos.grupo.fila").gauge().value());
+      assertThrows(IllegalStateException.class, () -> grupo.insert(new Payment()));
+    } finally {
+      liberar.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
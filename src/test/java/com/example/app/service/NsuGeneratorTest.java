@@ -0,0 +1,46 @@
+package com.example.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class NsuGeneratorTest {
+  @Autowired
+  private NsuGenerator generator;
+  @Autowired
+  private NsuRangeAllocator allocator;
+
+  @Test
+  void estrategiaPadraoEhFaixa() {
+    assertInstanceOf(LeasedRangeNsuGenerator.class, generator);
+    assertTrue(generator.proximoNsu().matches("\\d{10}"));
+    assertTrue(generator.proximoCodigoAutorizacao().matches("\\d{9}"));
+  }
+
+  @Test
+  void nsuUnicoEntreThreadsEInstancias() {
+    Set<String> nsus = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(64);
+    try {
+      // Duas instâncias com o mesmo contador simulam reinício ou outro nó.
+      NsuGenerator[] geradores = {new LeasedRangeNsuGenerator(allocator, 7, 4), new LeasedRangeNsuGenerator(allocator, 50, 0)};
+      CompletableFuture<?>[] tarefas = IntStream.range(0, 64).mapToObj(i -> CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < 500; j++) {
+          assertTrue(nsus.add(geradores[i & 1].proximoNsu()));
+        }
+      }, executor)).toArray(CompletableFuture[]::new);
+      CompletableFuture.allOf(tarefas).join();
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(64 * 500, nsus.size());
+  }
+}
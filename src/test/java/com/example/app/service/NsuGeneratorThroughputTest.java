@@ -0,0 +1,71 @@
+package com.example.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara a vazão da estratégia original com a de faixas de 1 a 64 threads.
+ *
+ * Executar com `mvn test -Dtest=NsuGeneratorThroughputTest -Dnsu.benchmark=true`.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "nsu.benchmark", matches = "true")
+class NsuGeneratorThroughputTest {
+  private static final int OPERACOES = 400_000;
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+  @Autowired
+  private NsuRangeAllocator allocator;
+
+  @Test
+  void comparaVazao() throws Exception {
+    NsuGenerator aleatorio = new RandomNsuGenerator();
+    NsuGenerator faixa = new LeasedRangeNsuGenerator(allocator, 10_000, 0);
+    medir(aleatorio, 8);
+    medir(faixa, 8);
+    System.out.printf("%7s %16s %16s%n", "threads", "aleatorio op/s", "faixa op/s");
+    for (int threads : THREADS) {
+      double vazaoAleatorio = medir(aleatorio, threads);
+      double vazaoFaixa = medir(faixa, threads);
+      System.out.printf("%7d %16.0f %16.0f%n", threads, vazaoAleatorio, vazaoFaixa);
+      assertTrue(vazaoFaixa > 0 && vazaoAleatorio > 0);
+    }
+  }
+
+  /**
+   * Operações (NSU + código) por segundo com `threads` threads.
+   */
+  private static double medir(NsuGenerator generator, int threads) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch largada = new CountDownLatch(1);
+    CountDownLatch fim = new CountDownLatch(threads);
+    int porThread = OPERACOES / threads;
+    for (int t = 0; t < threads; t++) {
+      executor.execute(() -> {
+        try {
+          largada.await();
+          for (int i = 0; i < porThread; i++) {
+            generator.proximoNsu();
+            generator.proximoCodigoAutorizacao();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          fim.countDown();
+        }
+      });
+    }
+    long inicio = System.nanoTime();
+    largada.countDown();
+    fim.await();
+    long duracao = System.nanoTime() - inicio;
+    executor.shutdown();
+    return porThread * (double) threads * 1e9 / duracao;
+  }
+}
@@ -0,0 +1,159 @@
+package com.example.app.service;
+
+import com.example.app.service.PaymentMetrics.Etapa;
+import com.example.app.service.PaymentMetrics.Operacao;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentAuditTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private double contador(String nome) {
+    return registry.get(nome).counter().count();
+  }
+
+  @Test
+  void gravaUmaLinhaChaveValorPorEvento() throws Exception {
+    StringWriter saida = new StringWriter();
+    PaymentAudit auditoria = new PaymentAudit(registry, saida, 16, PaymentAudit.Transbordo.DESCARTAR, 8);
+    auditoria.iniciar();
+    long[] etapas = new long[Etapa.values().length];
+    etapas[Etapa.VALIDACAO.ordinal()] = 12_345;
+    etapas[Etapa.GRAVACAO.ordinal()] = 2_000_000;
+    auditoria.registrar(Operacao.AUTORIZACAO, "100023568900001", "AUTORIZADO", PaymentMetrics.OK, etapas);
+    auditoria.registrar(Operacao.ESTORNO, "x\" status=FORJADO\nlinha", "REJEITADO", "REFUND_VALIDATION_ERROR", null);
+    auditoria.registrar(Operacao.LOTE, null, "NEGADO", "PAYMENT_VALIDATION_ERROR", null);
+    auditoria.encerrar();
+
+    String[] linhas = saida.toString().split("\n");
+    assertEquals(3, linhas.length);
+    assertTrue(linhas[0].matches("instante=\\d{4}-\\d{2}-\\d{2}T[0-9:.]+Z operacao=autorizacao id=100023568900001"
+        + " status=AUTORIZADO codigo=OK validacao_us=12 gravacao_us=2000"), linhas[0]);
+    assertTrue(linhas[1].endsWith(" operacao=estorno id=\"x\\\" status=FORJADO\\nlinha\" status=REJEITADO"
+        + " codigo=REFUND_VALIDATION_ERROR"), linhas[1]);
+    assertTrue(linhas[2].endsWith(" operacao=lote status=NEGADO codigo=PAYMENT_VALIDATION_ERROR"), linhas[2]);
+    assertEquals(3, contador("pagamentos.auditoria.gravados"));
+  }
+
+  /** Em `stdout`, o lote vai inteiro em um evento do logger `auditoria`, nunca direto no descritor. */
+  @Test
+  void stdoutPassaPeloLoggerAuditoria() throws Exception {
+    Logger logger = (Logger) LoggerFactory.getLogger("auditoria");
+    ListAppender<ILoggingEvent> eventos = new ListAppender<>();
+    eventos.start();
+    logger.addAppender(eventos);
+    try {
+      PaymentAudit auditoria = new PaymentAudit(registry, "stdout", 16, "descartar", 8);
+      for (int i = 0; i < 3; i++) {
+        auditoria.registrar(Operacao.AUTORIZACAO, String.valueOf(i), "AUTORIZADO", PaymentMetrics.OK, null);
+      }
+      auditoria.iniciar();
+      auditoria.encerrar();
+    } finally {
+      logger.detachAppender(eventos);
+    }
+    assertEquals(1, eventos.list.size());
+    String[] linhas = eventos.list.get(0).getFormattedMessage().split("\n");
+    assertEquals(3, linhas.length);
+    assertTrue(linhas[2].endsWith(" operacao=autorizacao id=2 status=AUTORIZADO codigo=OK"), linhas[2]);
+  }
+
+  /** Sem a gravadora consumindo, a fila enche e o excedente é descartado e contado. */
+  @Test
+  void descartaComAFilaCheia() throws Exception {
+    StringWriter saida = new StringWriter();
+    PaymentAudit auditoria = new PaymentAudit(registry, saida, 4, PaymentAudit.Transbordo.DESCARTAR, 8);
+    for (int i = 0; i < 6; i++) {
+      auditoria.registrar(Operacao.AUTORIZACAO, String.valueOf(i), "AUTORIZADO", PaymentMetrics.OK, null);
+    }
+    assertEquals(2, contador("pagamentos.auditoria.descartados"));
+    auditoria.iniciar();
+    auditoria.encerrar();
+    assertEquals(4, saida.toString().split("\n").length);
+    assertTrue(saida.toString().startsWith("instante="));
+    assertTrue(saida.toString().contains(" id=3 "));
+    assertFalse(saida.toString().contains(" id=4 "));
+  }
+
+  /** Com `bloquear`, uma saída lenta segura os produtores, mas nada se perde. */
+  @Test
+  void bloqueiaComAFilaCheiaSemPerderEventos() throws Exception {
+    AtomicInteger escritas = new AtomicInteger();
+    StringWriter saida = new StringWriter() {
+      @Override
+      public void flush() {
+        escritas.incrementAndGet();
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    PaymentAudit auditoria = new PaymentAudit(registry, saida, 8, PaymentAudit.Transbordo.BLOQUEAR, 4);
+    auditoria.iniciar();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> tarefas = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        int produtor = t;
+        tarefas.add(executor.submit(() -> {
+          for (int i = 0; i < 200; i++) {
+            auditoria.registrar(Operacao.LOTE, produtor + "-" + i, "AUTORIZADO", PaymentMetrics.OK, null);
+          }
+        }));
+      }
+      for (Future<?> tarefa : tarefas) {
+        tarefa.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    auditoria.encerrar();
+    assertEquals(800, saida.toString().split("\n").length);
+    assertEquals(0, contador("pagamentos.auditoria.descartados"));
+    assertEquals(800, contador("pagamentos.auditoria.gravados"));
+    // Lotes de até 4 eventos por escrita.
+    assertTrue(escritas.get() >= 200, String.valueOf(escritas.get()));
+  }
+
+  @Test
+  void falhaDeEscritaContaComoDescarte() throws Exception {
+    Writer saida = new Writer() {
+      @Override
+      public void write(char[] texto, int inicio, int tamanho) throws IOException {
+        throw new IOException("disco cheio");
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    PaymentAudit auditoria = new PaymentAudit(registry, saida, 16, PaymentAudit.Transbordo.DESCARTAR, 8);
+    for (int i = 0; i < 3; i++) {
+      auditoria.registrar(Operacao.ESTORNO, String.valueOf(i), "CANCELADO", PaymentMetrics.OK, null);
+    }
+    auditoria.iniciar();
+    auditoria.encerrar();
+    assertEquals(3, contador("pagamentos.auditoria.descartados"));
+    assertEquals(0, contador("pagamentos.auditoria.gravados"));
+  }
+}
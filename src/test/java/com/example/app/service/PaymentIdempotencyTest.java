@@ -0,0 +1,162 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.*;
+import com.example.app.exception.DuplicatePaymentException;
+import com.example.app.exception.PaymentCreationException;
+import com.example.app.repository.PaymentStore;
+import com.example.app.service.PaymentIdempotency.Autorizacao;
+import com.example.app.service.PaymentIdempotency.Reserva;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PaymentIdempotencyTest {
+  @Autowired
+  private PaymentStore store;
+  @Autowired
+  private NsuGenerator nsuGenerator;
+  @Autowired
+  private PaymentLookupCache lookupCache;
+  @Autowired
+  private PaymentQueryReader queryReader;
+  @Autowired
+  private PaymentMetrics metrics;
+  @Autowired
+  private PaymentCommitter committer;
+  @Autowired
+  private PaymentTotals totais;
+  @Autowired
+  private PaymentAudit auditoria;
+  @Autowired
+  private MeterRegistry registry;
+
+  private static PaymentRequest requisicao(String id, String valor) {
+    PaymentRequest requisicao = new PaymentRequest();
+    requisicao.setCartao("4444123412341234");
+    requisicao.setId(id);
+    PaymentDescricao descricao = new PaymentDescricao();
+    descricao.setValor(valor);
+    descricao.setDataHora("01/05/2021 18:30:00");
+    descricao.setEstabelecimento("PetShop Mundo cão");
+    requisicao.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo("AVISTA");
+    formaPagamento.setParcelas("1");
+    requisicao.setFormaPagamento(formaPagamento);
+    return requisicao;
+  }
+
+  private static PaymentIdempotency idempotencia(AtomicLong agora) {
+    return new PaymentIdempotency(new SimpleMeterRegistry(), true, Duration.ofMinutes(10), 1000, agora::get);
+  }
+
+  @Test
+  void repeticaoDevolveARespostaOriginalSemGravar() {
+    AtomicInteger insercoes = new AtomicInteger();
+    PaymentService servico = new PaymentService(store, nsuGenerator, lookupCache, queryReader, metrics,
+        pagamento -> {
+          insercoes.incrementAndGet();
+          return committer.insert(pagamento);
+        }, totais, auditoria, idempotencia(new AtomicLong()));
+    double reenvios = registry.counter("pagamentos.resultado", "operacao", "autorizacao", "status", "AUTORIZADO",
+        "codigo", PaymentMetrics.REENVIO).count();
+
+    PaymentResponse original = servico.process(requisicao("100023580000001", "50.00"));
+    PaymentResponse repetida = servico.process(requisicao("100023580000001", "50.00"));
+    assertEquals("AUTORIZADO", original.getDescricao().getStatus());
+    assertEquals(original, repetida);
+    assertEquals(1, insercoes.get());
+    assertEquals(reenvios + 1, registry.counter("pagamentos.resultado", "operacao", "autorizacao", "status",
+        "AUTORIZADO", "codigo", PaymentMetrics.REENVIO).count());
+
+    PaymentResponse divergente = servico.process(requisicao("100023580000001", "60.00"));
+    assertEquals("NEGADO", divergente.getDescricao().getStatus());
+    assertEquals(PaymentService.mensagemDuplicado("100023580000001"), divergente.getDescricao().getMensagem());
+    assertEquals(1, insercoes.get());
+  }
+
+  /** Fora da memória (outra instância, reinício), a repetição é negada pelo insert. */
+  @Test
+  void semRespostaGuardadaDuplicidadeVemDoBanco() {
+    PaymentService servico = new PaymentService(store, nsuGenerator, lookupCache, queryReader, metrics, committer,
+        totais, auditoria, idempotencia(new AtomicLong()));
+    assertEquals("AUTORIZADO", servico.process(requisicao("100023580000002", "50.00")).getDescricao().getStatus());
+    PaymentService outraInstancia = new PaymentService(store, nsuGenerator, lookupCache, queryReader, metrics,
+        committer, totais, auditoria, idempotencia(new AtomicLong()));
+    assertEquals("NEGADO", outraInstancia.process(requisicao("100023580000002", "50.00")).getDescricao().getStatus());
+    // A falha libera o identificador: a próxima tentativa consulta o banco de novo.
+    assertEquals("NEGADO", outraInstancia.process(requisicao("100023580000002", "50.00")).getDescricao().getStatus());
+  }
+
+  @Test
+  void repeticaoEmAndamentoEsperaAOriginal() throws Exception {
+    PaymentIdempotency idempotencia = idempotencia(new AtomicLong());
+    Reserva primeira = idempotencia.reservar(requisicao("1", "50.00"));
+    assertTrue(primeira.primeira());
+    Reserva segunda = idempotencia.reservar(requisicao("1", "50.00"));
+    assertFalse(segunda.primeira());
+    assertThrows(DuplicatePaymentException.class, () -> idempotencia.reservar(requisicao("1", "50.01")));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CompletableFuture<Autorizacao> espera = CompletableFuture.supplyAsync(() -> idempotencia.aguardar(segunda),
+          executor);
+      Thread.sleep(50);
+      assertFalse(espera.isDone());
+      Autorizacao autorizacao = new Autorizacao("0000000001", "123456789");
+      idempotencia.concluir(primeira, autorizacao);
+      assertEquals(autorizacao, espera.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+    assertFalse(idempotencia.reservar(requisicao("1", "50.00")).primeira());
+  }
+
+  @Test
+  void falhaDaOriginalChegaAQuemEsperaELiberaOIdentificador() {
+    PaymentIdempotency idempotencia = idempotencia(new AtomicLong());
+    Reserva primeira = idempotencia.reservar(requisicao("2", "50.00"));
+    Reserva segunda = idempotencia.reservar(requisicao("2", "50.00"));
+    PaymentCreationException falha = new PaymentCreationException("PAYMENT_CREATION_ERROR", "Falha ao criar transação");
+    idempotencia.falhar(primeira, falha);
+    assertSame(falha, assertThrows(PaymentCreationException.class, () -> idempotencia.aguardar(segunda)));
+    assertTrue(idempotencia.reservar(requisicao("2", "60.00")).primeira());
+  }
+
+  @Test
+  void respostaExpiraAposOTtl() {
+    AtomicLong agora = new AtomicLong();
+    PaymentIdempotency idempotencia = idempotencia(agora);
+    idempotencia.concluir(idempotencia.reservar(requisicao("3", "50.00")), new Autorizacao("1", "2"));
+    agora.addAndGet(TimeUnit.MINUTES.toNanos(9));
+    assertFalse(idempotencia.reservar(requisicao("3", "50.00")).primeira());
+    agora.addAndGet(TimeUnit.MINUTES.toNanos(2));
+    assertTrue(idempotencia.reservar(requisicao("3", "50.00")).primeira());
+  }
+
+  @Test
+  void impressaoDistingueCamposAusentesVaziosEDeslocados() {
+    PaymentRequest base = requisicao("4", "50.00");
+    assertArrayEquals(PaymentIdempotency.impressao(base), PaymentIdempotency.impressao(requisicao("4", "50.00")));
+    PaymentRequest vazio = requisicao("4", "50.00");
+    vazio.getFormaPagamento().setParcelas("");
+    PaymentRequest ausente = requisicao("4", "50.00");
+    ausente.getFormaPagamento().setParcelas(null);
+    assertFalse(Arrays.equals(PaymentIdempotency.impressao(vazio), PaymentIdempotency.impressao(ausente)));
+    PaymentRequest deslocado = requisicao("4", "50.0");
+    deslocado.getDescricao().setDataHora("001/05/2021 18:30:00");
+    assertFalse(Arrays.equals(PaymentIdempotency.impressao(base), PaymentIdempotency.impressao(deslocado)));
+  }
+}
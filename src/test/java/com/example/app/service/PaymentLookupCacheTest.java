@@ -0,0 +1,88 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PaymentLookupCacheTest {
+  @Autowired
+  private PaymentService service;
+
+  private static PaymentRequest requisicao(String id) {
+    PaymentRequest requisicao = new PaymentRequest();
+    requisicao.setCartao("4444123412341234");
+    requisicao.setId(id);
+    PaymentDescricao descricao = new PaymentDescricao();
+    descricao.setValor("50.00");
+    descricao.setDataHora("01/05/2021 18:30:00");
+    descricao.setEstabelecimento("PetShop Mundo cão");
+    requisicao.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo("AVISTA");
+    formaPagamento.setParcelas("1");
+    requisicao.setFormaPagamento(formaPagamento);
+    return requisicao;
+  }
+
+  @Test
+  void ausenciaExpiraAntesDaTransacaoEncontrada() {
+    AtomicLong agora = new AtomicLong();
+    PaymentLookupCache cache = new PaymentLookupCache(100, Duration.ofSeconds(30), Duration.ofSeconds(2), agora::get);
+    AtomicInteger cargas = new AtomicInteger();
+    PaymentResponse encontrada = new PaymentResponse();
+
+    assertTrue(cache.buscar("1", id -> { cargas.incrementAndGet(); return Optional.empty(); }).isEmpty());
+    assertSame(encontrada, cache.buscar("2", id -> { cargas.incrementAndGet(); return Optional.of(encontrada); }).get());
+    cache.buscar("1", id -> fail("deveria vir do cache"));
+    cache.buscar("2", id -> fail("deveria vir do cache"));
+
+    agora.addAndGet(TimeUnit.SECONDS.toNanos(3));
+    assertTrue(cache.buscar("1", id -> { cargas.incrementAndGet(); return Optional.empty(); }).isEmpty());
+    cache.buscar("2", id -> fail("deveria vir do cache"));
+
+    agora.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    cache.buscar("2", id -> { cargas.incrementAndGet(); return Optional.of(encontrada); });
+    assertEquals(4, cargas.get());
+    assertEquals(3, cache.estatisticas().hitCount());
+    assertEquals(4, cache.estatisticas().missCount());
+  }
+
+  @Test
+  void limitaTamanhoEContaRemocoes() {
+    PaymentLookupCache cache = new PaymentLookupCache(2, Duration.ofSeconds(30), Duration.ofSeconds(2), System::nanoTime);
+    IntStream.range(0, 10).forEach(i -> cache.buscar(String.valueOf(i), id -> Optional.empty()));
+    cache.manutencao();
+    assertEquals(8, cache.estatisticas().evictionCount());
+  }
+
+  @Test
+  void criacaoEEstornoInvalidamConsulta() {
+    String id = "100023569100001";
+    assertTrue(service.findOne(id).isEmpty());
+    assertEquals("AUTORIZADO", service.process(requisicao(id)).getDescricao().getStatus());
+    assertEquals("AUTORIZADO", service.findOne(id).orElseThrow().getDescricao().getStatus());
+
+    AtomicBoolean parar = new AtomicBoolean();
+    CompletableFuture<?>[] leitores = IntStream.range(0, 8).mapToObj(i -> CompletableFuture.runAsync(() -> {
+      while (!parar.get()) {
+        service.findOne(id);
+      }
+    })).toArray(CompletableFuture[]::new);
+    service.cancel(id);
+    assertEquals("CANCELADO", service.findOne(id).orElseThrow().getDescricao().getStatus());
+    parar.set(true);
+    CompletableFuture.allOf(leitores).join();
+    assertEquals("CANCELADO", service.findOne(id).orElseThrow().getDescricao().getStatus());
+  }
+}
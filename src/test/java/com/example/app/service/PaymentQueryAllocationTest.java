@@ -0,0 +1,116 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.*;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentRepository;
+import com.example.app.util.CardMasker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara a alocação por linha da listagem via entidade gerenciada (caminho
+ * anterior) com a leitura por projeção de {@link PaymentQueryReader}.
+ *
+ * Executar com `mvn test -Dtest=PaymentQueryAllocationTest -Dconsulta.benchmark=true`.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.com.example.app=INFO"})
+@EnabledIfSystemProperty(named = "consulta.benchmark", matches = "true")
+class PaymentQueryAllocationTest {
+  private static final int LINHAS = 2000;
+  private static final int PAGINA = 500;
+  private static final int RODADAS = 20;
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+  @Autowired
+  private PaymentRepository repository;
+  @Autowired
+  private PaymentQueryReader reader;
+
+  /** Conversão usada antes da projeção. */
+  private static PaymentResponse toResponseAnterior(Payment pagamento) {
+    PaymentResponse response = new PaymentResponse();
+    response.setCartao(CardMasker.mask(pagamento.getCartao()));
+    response.setId(pagamento.getExternalId());
+    PaymentDescricaoResponse descricao = new PaymentDescricaoResponse();
+    descricao.setValor(pagamento.getValor() != null ? pagamento.getValor().toPlainString() : null);
+    descricao.setDataHora(pagamento.getDataHora() != null ? FORMATTER.format(pagamento.getDataHora()) : null);
+    descricao.setEstabelecimento(pagamento.getEstabelecimento());
+    descricao.setNsu(pagamento.getNsu());
+    descricao.setCodigoAutorizacao(pagamento.getCodigoAutorizacao());
+    descricao.setStatus(pagamento.getStatus());
+    response.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo(pagamento.getTipo());
+    formaPagamento.setParcelas(pagamento.getParcelas() != null ? pagamento.getParcelas().toString() : null);
+    response.setFormaPagamento(formaPagamento);
+    return response;
+  }
+
+  @Test
+  void alocacaoPorLinha() {
+    List<Payment> pagamentos = new ArrayList<>();
+    for (int i = 0; i < LINHAS; i++) {
+      Payment p = new Payment();
+      p.setExternalId(String.format("1000235693%05d", i));
+      p.setCartao("4444123412341234");
+      p.setTipo("AVISTA");
+      p.setParcelas(1);
+      p.setValor(new BigDecimal("50.00"));
+      p.setDataHora(LocalDateTime.of(2021, 5, 1, 18, 30));
+      p.setEstabelecimento("PetShop Mundo cão");
+      p.setNsu(String.format("93%08d", i));
+      p.setCodigoAutorizacao("000000042");
+      p.setStatus("AUTORIZADO");
+      pagamentos.add(p);
+    }
+    repository.saveAll(pagamentos);
+
+    Supplier<List<PaymentResponse>> anterior = () -> {
+      Page<Payment> result = repository.findAll(PageRequest.of(0, PAGINA, Sort.by("id").descending()));
+      return result.getContent().stream().map(PaymentQueryAllocationTest::toResponseAnterior).toList();
+    };
+    Supplier<List<PaymentResponse>> projecao = () -> reader.list(0, PAGINA).getData();
+
+    assertEquals(anterior.get(), projecao.get());
+    for (int i = 0; i < RODADAS; i++) {
+      anterior.get();
+      projecao.get();
+    }
+    long[] bytesAnterior = medir(anterior);
+    long[] bytesProjecao = medir(projecao);
+    System.out.printf("%-10s %12s %10s%n", "caminho", "bytes/linha", "us/linha");
+    System.out.printf("%-10s %12d %10.2f%n", "entidade", bytesAnterior[0], bytesAnterior[1] / 1000.0);
+    System.out.printf("%-10s %12d %10.2f%n", "projecao", bytesProjecao[0], bytesProjecao[1] / 1000.0);
+    assertTrue(bytesProjecao[0] < bytesAnterior[0]);
+  }
+
+  /**
+   * Bytes alocados e nanossegundos por linha na thread corrente.
+   */
+  private static long[] medir(Supplier<List<PaymentResponse>> consulta) {
+    com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long id = Thread.currentThread().getId();
+    long linhas = 0;
+    long bytes = mx.getThreadAllocatedBytes(id);
+    long inicio = System.nanoTime();
+    for (int i = 0; i < RODADAS; i++) {
+      linhas += consulta.get().size();
+    }
+    long duracao = System.nanoTime() - inicio;
+    bytes = mx.getThreadAllocatedBytes(id) - bytes;
+    return new long[] {bytes / linhas, duracao / linhas};
+  }
+}
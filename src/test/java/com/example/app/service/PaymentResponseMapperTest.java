@@ -0,0 +1,48 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.PaymentResponse;
+import com.example.app.dto.payment.PaymentView;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentResponseMapperTest {
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+  @Test
+  void dataHoraEquivaleAoFormatter() {
+    assertNull(PaymentResponseMapper.formatarDataHora(null));
+    assertEquals("01/05/2021 18:30:00", PaymentResponseMapper.formatarDataHora(LocalDateTime.of(2021, 5, 1, 18, 30)));
+    LocalDateTime[] limites = {LocalDateTime.of(0, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+      LocalDateTime.of(10000, 1, 1, 0, 0), LocalDateTime.of(-1, 1, 1, 0, 0)};
+    for (LocalDateTime dataHora : limites) {
+      assertEquals(FORMATTER.format(dataHora), PaymentResponseMapper.formatarDataHora(dataHora));
+    }
+    Random random = new Random(11);
+    for (int i = 0; i < 10_000; i++) {
+      LocalDateTime dataHora = LocalDateTime.ofEpochSecond(random.nextLong(253_402_300_800L), random.nextInt(1_000_000_000),
+          java.time.ZoneOffset.UTC);
+      assertEquals(FORMATTER.format(dataHora), PaymentResponseMapper.formatarDataHora(dataHora));
+    }
+  }
+
+  @Test
+  void montaRespostaDeConsulta() {
+    PaymentView view = new PaymentView(7L, "100023568900300", "4444123412341234", new BigDecimal("50.00"),
+        LocalDateTime.of(2021, 5, 1, 18, 30), "PetShop Mundo cão", "0000000001", "000000042", "AUTORIZADO", "AVISTA", 1);
+    PaymentResponse response = PaymentResponseMapper.toResponse(view);
+    assertEquals("4444*********1234", response.getCartao());
+    assertEquals("100023568900300", response.getId());
+    assertEquals("50.00", response.getDescricao().getValor());
+    assertEquals("01/05/2021 18:30:00", response.getDescricao().getDataHora());
+    assertEquals("PetShop Mundo cão", response.getDescricao().getEstabelecimento());
+    assertEquals("0000000001", response.getDescricao().getNsu());
+    assertEquals("000000042", response.getDescricao().getCodigoAutorizacao());
+    assertEquals("AUTORIZADO", response.getDescricao().getStatus());
+    assertEquals("AVISTA", response.getFormaPagamento().getTipo());
+    assertEquals("1", response.getFormaPagamento().getParcelas());
+  }
+}
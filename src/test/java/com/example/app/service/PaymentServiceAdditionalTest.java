@@ -33,7 +33,9 @@ class PaymentServiceAdditionalTest {
   void duplicadoNegado() {
     PaymentResponse resposta1 = service.process(requisicaoValida("100023568900030"));
     assertEquals("AUTORIZADO", resposta1.getDescricao().getStatus());
-    PaymentResponse resposta2 = service.process(requisicaoValida("100023568900030"));
+    PaymentRequest outroValor = requisicaoValida("100023568900030");
+    outroValor.getDescricao().setValor("60.00");
+    PaymentResponse resposta2 = service.process(outroValor);
     assertEquals("NEGADO", resposta2.getDescricao().getStatus());
   }
 
@@ -0,0 +1,122 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.*;
+import com.example.app.dto.refund.RefundBatchItem;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PaymentServiceBatchTest {
+  @Autowired
+  private PaymentService service;
+  @Autowired
+  private PaymentStore store;
+  @Autowired
+  private PaymentTotals totais;
+
+  private PaymentRequest requisicaoValida(String id) {
+    PaymentRequest requisicao = new PaymentRequest();
+    requisicao.setCartao("4444123412341234");
+    requisicao.setId(id);
+    PaymentDescricao descricao = new PaymentDescricao();
+    descricao.setValor("50.00");
+    descricao.setDataHora("01/05/2021 18:30:00");
+    descricao.setEstabelecimento("PetShop Mundo cão");
+    requisicao.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo("AVISTA");
+    formaPagamento.setParcelas("1");
+    requisicao.setFormaPagamento(formaPagamento);
+    return requisicao;
+  }
+
+  @Test
+  void loteGrandePersisteTodosNaOrdem() {
+    List<PaymentRequest> lote = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      lote.add(requisicaoValida(String.format("1000235690%05d", i)));
+    }
+    List<PaymentResponse> respostas = service.processBatch(lote);
+    assertEquals(120, respostas.size());
+    for (int i = 0; i < 120; i++) {
+      assertEquals(lote.get(i).getId(), respostas.get(i).getId());
+      assertEquals("AUTORIZADO", respostas.get(i).getDescricao().getStatus());
+    }
+    Payment p = store.findByExternalId("100023569000119").orElseThrow();
+    assertEquals(respostas.get(119).getDescricao().getNsu(), p.getNsu());
+    assertEquals("PetShop Mundo cão", p.getEstabelecimento());
+  }
+
+  @Test
+  void itemNuloNegadoSemAfetarLote() {
+    List<PaymentRequest> lote = new ArrayList<>();
+    lote.add(null);
+    lote.add(requisicaoValida("100023569000200"));
+    List<PaymentResponse> respostas = service.processBatch(lote);
+    assertEquals("NEGADO", respostas.get(0).getDescricao().getStatus());
+    assertEquals("Transação não pode ser nula", respostas.get(0).getDescricao().getMensagem());
+    assertEquals("AUTORIZADO", respostas.get(1).getDescricao().getStatus());
+  }
+
+  /** Estabelecimento maior que a coluna: só esse item é negado; os demais ficam gravados e contados. */
+  @Test
+  void falhaDeUmItemNaoDesfazOsDemais() {
+    String loja = "Loja lote com falha";
+    List<PaymentRequest> lote = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      PaymentRequest requisicao = requisicaoValida(String.format("1000235698%05d", i));
+      requisicao.getDescricao().setEstabelecimento(i == 2 ? "X".repeat(300) : loja);
+      lote.add(requisicao);
+    }
+    List<PaymentResponse> respostas = service.processBatch(lote);
+    for (int i = 0; i < 5; i++) {
+      PaymentResponse resposta = respostas.get(i);
+      if (i == 2) {
+        assertEquals("NEGADO", resposta.getDescricao().getStatus());
+        assertEquals("Erro inesperado", resposta.getDescricao().getMensagem());
+        assertTrue(service.findOne(resposta.getId()).isEmpty());
+      } else {
+        assertEquals("AUTORIZADO", resposta.getDescricao().getStatus());
+        assertEquals(resposta.getDescricao().getNsu(),
+            service.findOne(resposta.getId()).orElseThrow().getDescricao().getNsu());
+      }
+    }
+    assertEquals(4, totais.consultar(EnumSet.noneOf(PaymentTotals.Dimensao.class), loja, null, null, null)
+        .get(0).autorizados());
+    assertEquals("CANCELADO", service.cancel(respostas.get(4).getId()).getDescricao().getStatus());
+  }
+
+  @Test
+  void estornoEmLoteEmVariosBlocos() {
+    List<PaymentRequest> lote = new ArrayList<>();
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 2300; i++) {
+      String id = String.format("1000235696%05d", i);
+      lote.add(requisicaoValida(id));
+      ids.add(id);
+    }
+    service.processBatch(lote);
+    service.cancel(ids.get(1500));
+    ids.add("100023569699999");
+
+    List<RefundBatchItem> itens = service.cancelBatch(ids);
+    assertEquals(ids.size(), itens.size());
+    for (int i = 0; i < 2300; i++) {
+      assertEquals(ids.get(i), itens.get(i).getId());
+      assertEquals(i == 1500 ? "REJEITADO" : "CANCELADO", itens.get(i).getStatus());
+    }
+    assertEquals("Status atual não permite estorno", itens.get(1500).getMensagem());
+    assertEquals("Transação não encontrada", itens.get(2300).getMensagem());
+    assertEquals("CANCELADO", store.findByExternalId(ids.get(2299)).orElseThrow().getStatus());
+    assertNotNull(store.findByExternalId(ids.get(0)).orElseThrow().getCanceladoEm());
+
+    assertTrue(service.cancelBatch(ids.subList(0, 10)).stream().allMatch(item -> "REJEITADO".equals(item.getStatus())));
+  }
+}
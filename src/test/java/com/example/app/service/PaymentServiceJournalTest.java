@@ -0,0 +1,12 @@
+package com.example.app.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Executa {@link PaymentServiceTest} com o armazenamento em journal.
+ */
+@SpringBootTest(properties = {"app.armazenamento.tipo=journal",
+    "app.armazenamento.journal.diretorio=target/journal-test/${random.uuid}",
+    "app.armazenamento.journal.tamanho-segmento=32KB"})
+class PaymentServiceJournalTest extends PaymentServiceTest {
+}
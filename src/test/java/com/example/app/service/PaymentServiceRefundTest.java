@@ -3,7 +3,7 @@ package com.example.app.service;
 import com.example.app.dto.payment.*;
 import com.example.app.entity.Payment;
 import com.example.app.exception.PaymentValidationException;
-import com.example.app.repository.PaymentRepository;
+import com.example.app.repository.PaymentStore;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -16,7 +16,7 @@ class PaymentServiceRefundTest {
   @Autowired
   private PaymentService service;
   @Autowired
-  private PaymentRepository repository;
+  private PaymentStore store;
 
   @Test
   void cancelOk() {
@@ -39,7 +39,7 @@ class PaymentServiceRefundTest {
     PaymentResponse resposta = service.cancel("100023568900210");
     assertEquals("CANCELADO", resposta.getDescricao().getStatus());
 
-    Payment p = repository.findByExternalId("100023568900210").orElseThrow();
+    Payment p = store.findByExternalId("100023568900210").orElseThrow();
     assertEquals("CANCELADO", p.getStatus());
     assertNotNull(p.getCanceladoEm());
   }
@@ -52,7 +52,7 @@ class PaymentServiceRefundTest {
     p.setTipo("AVISTA");
     p.setParcelas(1);
     p.setStatus("NEGADO");
-    repository.save(p);
+    assertTrue(store.insert(p));
 
     assertThrows(PaymentValidationException.class, () -> service.cancel("100023568900211"));
   }
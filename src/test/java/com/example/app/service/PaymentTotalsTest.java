@@ -0,0 +1,202 @@
+package com.example.app.service;
+
+import com.example.app.dto.payment.*;
+import com.example.app.entity.Payment;
+import com.example.app.repository.PaymentStore;
+import com.example.app.repository.journal.PaymentJournal;
+import com.example.app.service.PaymentTotals.Dimensao;
+import com.example.app.service.PaymentTotals.Grupo;
+import com.example.app.service.PaymentTotals.Total;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PaymentTotalsTest {
+  private static final String LOJA = "Mercearia Checkpoint";
+  private static final Set<Dimensao> TODAS = EnumSet.allOf(Dimensao.class);
+
+  @Autowired
+  private PaymentService service;
+  @Autowired
+  private PaymentStore store;
+  @Autowired
+  private PaymentTotals totais;
+  @Autowired
+  private PaymentTotalsCheckpoint checkpoint;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @TempDir
+  Path diretorio;
+
+  /** O H2 em memória é compartilhado pelos contextos de teste da mesma JVM. */
+  @AfterEach
+  void limpar() {
+    jdbcTemplate.update("delete from payment_total");
+    jdbcTemplate.update("delete from payment_total_marca");
+  }
+
+  private static PaymentRequest requisicao(String id, String valor, String dataHora, String tipo) {
+    PaymentRequest requisicao = new PaymentRequest();
+    requisicao.setCartao("4444123412341234");
+    requisicao.setId(id);
+    PaymentDescricao descricao = new PaymentDescricao();
+    descricao.setValor(valor);
+    descricao.setDataHora(dataHora);
+    descricao.setEstabelecimento(LOJA);
+    requisicao.setDescricao(descricao);
+    PaymentFormaPagamento formaPagamento = new PaymentFormaPagamento();
+    formaPagamento.setTipo(tipo);
+    formaPagamento.setParcelas("AVISTA".equals(tipo) ? "1" : "2");
+    requisicao.setFormaPagamento(formaPagamento);
+    return requisicao;
+  }
+
+  private void autorizar(int primeiro, int quantidade, String dataHora, String tipo) {
+    List<PaymentRequest> requisicoes = new ArrayList<>();
+    for (int i = primeiro; i < primeiro + quantidade; i++) {
+      requisicoes.add(requisicao(String.format("1000237001%05d", i), (i + 1) + ".50", dataHora, tipo));
+    }
+    service.processBatch(requisicoes)
+        .forEach(resposta -> assertEquals("AUTORIZADO", resposta.getDescricao().getStatus()));
+  }
+
+  private PaymentTotals carregar(PaymentStore origem, PaymentTotalsCheckpoint checkpointOrigem) {
+    StaticListableBeanFactory fabrica = checkpointOrigem != null
+        ? new StaticListableBeanFactory(Map.of("checkpoint", checkpointOrigem)) : new StaticListableBeanFactory();
+    ObjectProvider<PaymentTotalsCheckpoint> provedor = fabrica.getBeanProvider(PaymentTotalsCheckpoint.class);
+    PaymentTotals carregados = new PaymentTotals(origem, provedor, Duration.ZERO);
+    carregados.afterSingletonsInstantiated();
+    return carregados;
+  }
+
+  private static List<Total> daLoja(PaymentTotals origem) {
+    return origem.consultar(TODAS, LOJA, null, null, null);
+  }
+
+  /**
+   * Um grupo só presente no checkpoint prova que ele foi lido; os grupos da
+   * loja, alterados depois da marca, são recalculados da tabela.
+   */
+  @Test
+  void recarregaDoCheckpointRecalculandoGruposAlterados() {
+    autorizar(0, 4, "03/05/2021 09:00:00", "AVISTA");
+    service.cancel("100023700100001");
+    Grupo soNoCheckpoint = new Grupo("Loja só no checkpoint", LocalDate.of(2021, 5, 3), "AVISTA");
+    List<Total> salvos = new ArrayList<>(daLoja(totais));
+    salvos.add(new Total(soNoCheckpoint, 7, 700, 0, 0));
+    checkpoint.salvar(salvos, checkpoint.marcaAtual());
+
+    autorizar(4, 3, "04/05/2021 09:00:00", "PARCELADO EMISSOR");
+    service.cancel("100023700100002");
+    service.cancelBatch(List.of("100023700100005", "100023700100006"));
+
+    PaymentTotals recarregados = carregar(store, checkpoint);
+    assertEquals(daLoja(totais), daLoja(recarregados));
+    assertEquals(List.of(new Total(soNoCheckpoint, 7, 700, 0, 0)),
+        recarregados.consultar(TODAS, "Loja só no checkpoint", null, null, null));
+
+    List<Total> loja = daLoja(totais);
+    Total avista = loja.stream().filter(total -> total.grupo().tipo().equals("AVISTA")).findFirst().orElseThrow();
+    // 1.50 + 4.50 autorizados; 2.50 e 3.50 estornados.
+    assertEquals(new Total(new Grupo(LOJA, LocalDate.of(2021, 5, 3), "AVISTA"), 2, 600, 2, 600), avista);
+  }
+
+  @Test
+  void semCheckpointSomaATabela() {
+    autorizar(10, 3, "05/05/2021 23:59:59", "PARCELADO LOJA");
+    service.cancel("100023700100011");
+    PaymentTotals recarregados = carregar(store, checkpoint);
+    assertEquals(daLoja(totais), daLoja(recarregados));
+    assertTrue(checkpoint.ultimo().isEmpty());
+  }
+
+  /** O checkpoint só é gravado quando algo mudou desde o anterior. */
+  @Test
+  void checkpointGravaOsTotaisEPulaSemAlteracoes() {
+    autorizar(20, 2, "06/05/2021 12:00:00", "AVISTA");
+    totais.salvarCheckpoint();
+    List<Total> salvos = checkpoint.ultimo().orElseThrow().totais();
+    assertTrue(salvos.containsAll(daLoja(totais)));
+    jdbcTemplate.update("delete from payment_total_marca");
+    totais.salvarCheckpoint();
+    assertTrue(checkpoint.ultimo().isEmpty());
+  }
+
+  @Test
+  void carregaDoJournal() {
+    try (PaymentJournal journal = new PaymentJournal(diretorio, 100, false, 0)) {
+      for (int i = 0; i < 3; i++) {
+        Payment pagamento = new Payment();
+        pagamento.setExternalId(String.format("1000237001%05d", 100 + i));
+        pagamento.setCartao("4444123412341234");
+        pagamento.setTipo("AVISTA");
+        pagamento.setParcelas(1);
+        pagamento.setValor(new BigDecimal("10.00"));
+        pagamento.setDataHora(LocalDateTime.of(2021, 5, 7, 8, 0));
+        pagamento.setEstabelecimento(LOJA);
+        pagamento.setNsu(String.format("%010d", i));
+        pagamento.setCodigoAutorizacao("000000001");
+        pagamento.setStatus(i == 2 ? "NEGADO" : "AUTORIZADO");
+        assertTrue(journal.insert(pagamento));
+      }
+      assertEquals(PaymentStore.ResultadoEstorno.ESTORNADO,
+          journal.cancel("100023700100100", LocalDateTime.of(2021, 5, 8, 8, 0)));
+      assertEquals(List.of(new Total(new Grupo(LOJA, LocalDate.of(2021, 5, 7), "AVISTA"), 1, 1000, 1, 1000)),
+          daLoja(carregar(journal, null)));
+    }
+  }
+
+  @Test
+  void contadoresSuportamGravacoesConcorrentes() throws Exception {
+    PaymentTotals contadores = new PaymentTotals(store, new StaticListableBeanFactory()
+        .getBeanProvider(PaymentTotalsCheckpoint.class), Duration.ZERO);
+    Payment pagamento = new Payment();
+    pagamento.setValor(new BigDecimal("0.01"));
+    pagamento.setDataHora(LocalDateTime.of(2021, 5, 9, 8, 0));
+    pagamento.setEstabelecimento(LOJA);
+    pagamento.setTipo("AVISTA");
+    pagamento.setStatus("AUTORIZADO");
+    PaymentView view = PaymentView.of(pagamento);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tarefas = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        tarefas.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            contadores.autorizado(pagamento);
+            if (i % 4 == 0) {
+              contadores.estornado(view);
+            }
+          }
+        }));
+      }
+      for (Future<?> tarefa : tarefas) {
+        tarefa.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(List.of(new Total(new Grupo(LOJA, LocalDate.of(2021, 5, 9), "AVISTA"), 60_000, 60_000, 20_000,
+        20_000)), daLoja(contadores));
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.app.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongIndexTest {
+  @Test
+  void operacoesBasicas() {
+    LongLongIndex indice = new LongLongIndex(4);
+    assertEquals(LongLongIndex.AUSENTE, indice.get(100023568900001L));
+    assertEquals(LongLongIndex.AUSENTE, indice.put(100023568900001L, 7));
+    assertEquals(7, indice.put(100023568900001L, 8));
+    assertEquals(8, indice.putIfAbsent(100023568900001L, 9));
+    assertEquals(8, indice.get(100023568900001L));
+    assertEquals(LongLongIndex.AUSENTE, indice.putIfAbsent(0, 0));
+    assertTrue(indice.contains(0));
+    assertEquals(2, indice.size());
+
+    assertFalse(indice.replace(100023568900001L, 7, 10));
+    assertTrue(indice.replace(100023568900001L, 8, 10));
+    assertTrue(indice.replace(100023568900001L, 10, LongLongIndex.AUSENTE));
+    assertFalse(indice.contains(100023568900001L));
+    assertEquals(1, indice.size());
+
+    assertThrows(IllegalArgumentException.class, () -> indice.put(-5, 1));
+    assertThrows(IllegalArgumentException.class, () -> indice.put(5, -1));
+  }
+
+  /**
+   * Compara com `HashMap` em sequência aleatória de gravações e remoções,
+   * passando por vários crescimentos da tabela.
+   */
+  @Test
+  void equivalenteAoHashMap() {
+    Random random = new Random(15);
+    LongLongIndex indice = new LongLongIndex(16);
+    Map<Long, Long> esperado = new HashMap<>();
+    for (int i = 0; i < 200_000; i++) {
+      // Faixa estreita para forçar colisões, remoções e reinserções.
+      long chave = 100_000_000_000_000L + random.nextInt(50_000);
+      int operacao = random.nextInt(10);
+      if (operacao < 6) {
+        long valor = random.nextInt(Integer.MAX_VALUE);
+        assertEquals(esperado.getOrDefault(chave, LongLongIndex.AUSENTE), indice.put(chave, valor));
+        esperado.put(chave, valor);
+      } else if (operacao < 8) {
+        Long atual = esperado.get(chave);
+        if (atual != null) {
+          assertTrue(indice.replace(chave, atual, LongLongIndex.AUSENTE));
+          esperado.remove(chave);
+        } else {
+          assertFalse(indice.replace(chave, 0, LongLongIndex.AUSENTE));
+        }
+      } else {
+        assertEquals(esperado.getOrDefault(chave, LongLongIndex.AUSENTE), indice.get(chave));
+      }
+    }
+    assertEquals(esperado.size(), indice.size());
+    esperado.forEach((chave, valor) -> assertEquals(valor, indice.get(chave)));
+    assertTrue(indice.bytes() <= 16L * 4 * 50_000);
+  }
+
+  @Test
+  void leiturasConcorrentesComCrescimento() throws InterruptedException {
+    LongLongIndex indice = new LongLongIndex(16);
+    int total = 200_000;
+    AtomicBoolean fim = new AtomicBoolean();
+    AtomicReference<String> erro = new AtomicReference<>();
+    Thread[] leitores = new Thread[4];
+    for (int t = 0; t < leitores.length; t++) {
+      leitores[t] = new Thread(() -> {
+        Random random = new Random();
+        while (!fim.get()) {
+          long chave = random.nextInt(total);
+          long valor = indice.get(chave);
+          if (valor != LongLongIndex.AUSENTE && valor != chave * 2) {
+            erro.set("chave=" + chave + " valor=" + valor);
+          }
+        }
+      });
+      leitores[t].start();
+    }
+    for (long chave = 0; chave < total; chave++) {
+      indice.put(chave, chave * 2);
+    }
+    fim.set(true);
+    for (Thread leitor : leitores) {
+      leitor.join();
+    }
+    assertNull(erro.get());
+    assertEquals(total, indice.size());
+    for (long chave = 0; chave < total; chave++) {
+      assertEquals(chave * 2, indice.get(chave));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.app.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+  @Test
+  void filaLimitadaEmOrdem() {
+    RingBuffer<Integer> fila = new RingBuffer<>(3);
+    assertEquals(4, fila.capacity());
+    assertTrue(fila.isEmpty());
+    assertNull(fila.poll());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(fila.offer(i));
+    }
+    assertFalse(fila.offer(4));
+    assertEquals(4, fila.size());
+    assertEquals(0, fila.poll());
+    assertTrue(fila.offer(4));
+    List<Integer> retirados = new ArrayList<>();
+    assertEquals(3, fila.drainTo(retirados::add, 3));
+    assertEquals(List.of(1, 2, 3), retirados);
+    assertEquals(4, fila.poll());
+    assertTrue(fila.isEmpty());
+    assertThrows(NullPointerException.class, () -> fila.offer(null));
+    assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0));
+    assertEquals(1, new RingBuffer<>(1).capacity());
+    assertEquals(1024, new RingBuffer<>(1000).capacity());
+  }
+
+  /**
+   * Vários produtores e um consumidor, com a fila dando muitas voltas: nada
+   * se perde nem se repete, e a ordem de cada produtor é mantida.
+   */
+  @Test
+  void variosProdutoresUmConsumidor() throws Exception {
+    int produtores = 4;
+    int porProdutor = 50_000;
+    RingBuffer<long[]> fila = new RingBuffer<>(64);
+    ExecutorService executor = Executors.newFixedThreadPool(produtores);
+    try {
+      List<Future<?>> tarefas = new ArrayList<>();
+      for (int p = 0; p < produtores; p++) {
+        long produtor = p;
+        tarefas.add(executor.submit(() -> {
+          for (long i = 0; i < porProdutor; i++) {
+            long[] elemento = {produtor, i};
+            while (!fila.offer(elemento)) {
+              Thread.yield();
+            }
+          }
+        }));
+      }
+      long[] proximo = new long[produtores];
+      long recebidos = 0;
+      while (recebidos < (long) produtores * porProdutor) {
+        long[] elemento = fila.poll();
+        if (elemento == null) {
+          Thread.yield();
+          continue;
+        }
+        assertEquals(proximo[(int) elemento[0]]++, elemento[1]);
+        recebidos++;
+      }
+      for (Future<?> tarefa : tarefas) {
+        tarefa.get();
+      }
+      assertTrue(fila.isEmpty());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.app.util;
+
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class Utf8SanitizerTest {
+  private static final String[] FRAGMENTOS = {
+    "a", "Z", "0", "9", "_", " ", "  ", "\t", "\n", "\r", "\u000B", "\f", "\u0001", "\u001F", " ", " ",
+    "'", ";", "(", ")", "-", "--", "/", "*", "/*", "*/", "ã", "é", "é", "́", "ः", "ç", "Ω",
+    "𝐀", "𝅧", "😀", "\uD800", "\uDC00", "K", "ı", "Ａ",
+    "drop", "DROP", "table", "Insert", "update", "delete", "union", "select", "where", "or", "OR", "and",
+    "exec", "execute", "executed", "into", "values", "payment", "payments", "orand", "selec", "de", "PetShop"
+  };
+
+  private static String sanitizeReferencia(String s) {
+    if (s == null) return null;
+    String normalized = Normalizer.normalize(s, Normalizer.Form.NFC);
+    String filtered = normalized.codePoints()
+      .filter(cp -> cp < 0xD800 || cp > 0xDFFF)
+      .filter(cp -> cp != '\'' && cp != ';' && cp != '(' && cp != ')')
+      .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+      .toString();
+    String stripped = filtered.replace("--", "").replace("/*", "").replace("*/", "");
+    String withoutKeywords = stripped.replaceAll("(?i)\\b(drop|table|insert|update|delete|union|select|where|or|and|exec|execute|into|values|payment)\\b", "");
+    String compact = withoutKeywords.replaceAll("\\s+", " ").trim();
+    byte[] bytes = compact.getBytes(StandardCharsets.UTF_8);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void casosConhecidos() {
+    assertNull(Utf8Sanitizer.sanitize(null));
+    assertEquals("PetShop Mundo cão", Utf8Sanitizer.sanitize("PetShop Mundo cão (DROP TABLE payment)"));
+    assertEquals("Loja", Utf8Sanitizer.sanitize("  Loja;  -- select */"));
+    assertEquals("café", Utf8Sanitizer.sanitize("café"));
+    assertEquals("-", Utf8Sanitizer.sanitize("---"));
+    assertEquals("/", Utf8Sanitizer.sanitize("//*"));
+    String limpo = "PetShop Mundo cão";
+    assertSame(limpo, Utf8Sanitizer.sanitize(limpo));
+  }
+
+  @Test
+  void equivaleAImplementacaoAnterior() {
+    String[] casos = {"", " ", "a--b", "a-/**/-b", "-/*-", "*/*/", "/*/", "or_and", "_or", "or_", "é or é",
+      "éor", "oŕ", "́or", "1or2", "or𝐀", "𝐀or", "𝅧or",
+      "a𝅧or", "á́or", "_́or", " ́or", "o'r", "o--r", "sel/*x*/ect", "o\u0000r",
+      "\u0001 \u0001a", "a \u0001", "x ", "DROP", "dropp", "droptable", "drop table", "exec execute",
+      "\uD800or", "or\uDC00", "o\uD800r"};
+    for (String caso : casos) {
+      assertEquals(sanitizeReferencia(caso), Utf8Sanitizer.sanitize(caso), caso);
+    }
+    Random random = new Random(7);
+    for (int i = 0; i < 100_000; i++) {
+      StringBuilder caso = new StringBuilder();
+      int partes = random.nextInt(12);
+      for (int j = 0; j < partes; j++) {
+        caso.append(FRAGMENTOS[random.nextInt(FRAGMENTOS.length)]);
+      }
+      String entrada = caso.toString();
+      assertEquals(sanitizeReferencia(entrada), Utf8Sanitizer.sanitize(entrada), entrada);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.app.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZeroPaddingTest {
+  @Test
+  void equivaleAoStringFormat() {
+    assertEquals("0000000000", ZeroPadding.format(0, 10));
+    assertEquals("9999999999", ZeroPadding.format(9_999_999_999L, 10));
+    assertEquals("000000042", ZeroPadding.format(42, 9));
+    Random random = new Random(3);
+    for (int i = 0; i < 10_000; i++) {
+      long nsu = random.nextLong(10_000_000_000L);
+      int codigo = random.nextInt(1_000_000_000);
+      assertEquals(String.format("%010d", nsu), ZeroPadding.format(nsu, 10));
+      assertEquals(String.format("%09d", codigo), ZeroPadding.format(codigo, 9));
+    }
+  }
+
+  @Test
+  void rejeitaValorForaDaLargura() {
+    assertThrows(IllegalArgumentException.class, () -> ZeroPadding.format(10_000_000_000L, 10));
+    assertThrows(IllegalArgumentException.class, () -> ZeroPadding.format(-1, 10));
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.app.validator;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentFormatsTest {
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+  private static final Pattern VALOR_PATTERN = Pattern.compile("^\\d+\\.\\d{2}$");
+  private static final Pattern CARTAO_PATTERN = Pattern.compile("^(?:[0-9]{16}|[0-9]{4}\\*{8,9}[0-9]{4})$");
+
+  private static long dataHoraReferencia(String s) {
+    try {
+      return LocalDateTime.parse(s, FORMATTER).toEpochSecond(ZoneOffset.UTC);
+    } catch (DateTimeParseException e) {
+      return PaymentFormats.DATA_HORA_INVALIDA;
+    }
+  }
+
+  @Test
+  void dataHoraEquivaleAoFormatterAnterior() {
+    String[] casos = {"01/05/2021 18:30:00", "31/02/2021 10:00:00", "29/02/2020 23:59:59", "29/02/2100 00:00:00",
+      "31/12/2021 24:00:00", "01/01/2021 24:00:01", "01/01/2021 25:00:00", "32/01/2021 10:00:00", "00/01/2021 10:00:00",
+      "01/13/2021 10:00:00", "01/01/0000 10:00:00", "01/01/0001 00:00:00", "01/01/2021 10:60:00", "01/01/2021 10:00:60",
+      "2021-05-01 18:30:00", "01/05/2021 18:30:00 ", "1/05/2021 18:30:00", "01/05/2021T18:30:00", "01/05/9999 18:30:00"};
+    for (String caso : casos) {
+      assertEquals(dataHoraReferencia(caso), PaymentFormats.parseDataHora(caso), caso);
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      String caso = String.format("%02d/%02d/%04d %02d:%02d:%02d", random.nextInt(34), random.nextInt(14),
+          random.nextInt(3000), random.nextInt(26), random.nextInt(61), random.nextInt(61));
+      assertEquals(dataHoraReferencia(caso), PaymentFormats.parseDataHora(caso), caso);
+    }
+  }
+
+  @Test
+  void valorEmCentavos() {
+    assertEquals(5000, PaymentFormats.parseValorCentavos("50.00"));
+    assertEquals(5001, PaymentFormats.parseValorCentavos("0050.01"));
+    assertEquals(0, PaymentFormats.parseValorCentavos("0.00"));
+    for (String invalido : new String[] {"50.0", "50", ".50", "-1.00", "1,00", "5a.00", "50.0a", "99999999999999999999.00"}) {
+      assertEquals(PaymentFormats.INVALIDO, PaymentFormats.parseValorCentavos(invalido), invalido);
+    }
+    for (String caso : new String[] {"50.00", "1.5", "12.345", "1.00", " 1.00", "١.00"}) {
+      assertEquals(VALOR_PATTERN.matcher(caso).matches(), PaymentFormats.parseValorCentavos(caso) != PaymentFormats.INVALIDO, caso);
+    }
+  }
+
+  @Test
+  void cartaoEquivaleAoPadraoAnterior() {
+    String[] casos = {"4444123412341234", "4444********1234", "4444*********1234", "4444**********1234", "4444*******1234",
+      "444412341234123", "44441234123412345", "4444XXXX1234", "4444****1234****", "１２３４５６７８９０１２３４５６", "4444*********123a"};
+    for (String caso : casos) {
+      assertEquals(CARTAO_PATTERN.matcher(caso).matches(), PaymentFormats.isCartao(caso), caso);
+    }
+  }
+
+  @Test
+  void parcelasEIdentificador() {
+    assertEquals(1, PaymentFormats.parseParcelas("1"));
+    assertEquals(12, PaymentFormats.parseParcelas("+12"));
+    assertEquals(-3, PaymentFormats.parseParcelas("-3"));
+    assertEquals(PaymentFormats.INVALIDO, PaymentFormats.parseParcelas("abc"));
+    assertEquals(PaymentFormats.INVALIDO, PaymentFormats.parseParcelas("99999999999"));
+    assertTrue(PaymentFormats.isExternalId("100023568900300"));
+    assertFalse(PaymentFormats.isExternalId("10002356890030"));
+    assertFalse(PaymentFormats.isExternalId("10002356890030a"));
+    assertEquals(100023568900300L, PaymentFormats.parseExternalId("100023568900300"));
+    assertEquals(0L, PaymentFormats.parseExternalId("000000000000000"));
+    assertEquals(999999999999999L, PaymentFormats.parseExternalId("999999999999999"));
+    assertEquals(PaymentFormats.INVALIDO, PaymentFormats.parseExternalId("10002356890030a"));
+  }
+}